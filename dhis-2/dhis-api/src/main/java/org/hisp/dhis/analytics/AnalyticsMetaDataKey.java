@@ -37,6 +37,7 @@ public enum AnalyticsMetaDataKey
     ITEMS( "items" ),
     DIMENSIONS( "dimensions" ),
     PAGER( "pager" ),
+    NEXT_CURSOR( "nextCursor" ),
     ORG_UNIT_HIERARCHY( "ouHierarchy" ),
     ORG_UNIT_NAME_HIERARCHY( "ouNameHierarchy" ),
     ORG_UNIT_ANCESTORS( "ouAncestors" );
@@ -81,6 +81,8 @@ public class EnrollmentAnalyticsQueryCriteria
 
     private boolean paging;
 
+    private String cursor;
+
     private DisplayProperty displayProperty;
 
     private Date relativePeriodDate;
@@ -126,6 +126,8 @@ public class EventDataQueryRequest
 
     private boolean paging;
 
+    private String cursor;
+
     /**
      * Copies all properties of this request onto the given request.
      *
@@ -171,6 +173,7 @@ public class EventDataQueryRequest
         queryRequest.page = this.page;
         queryRequest.pageSize = this.pageSize;
         queryRequest.paging = this.paging;
+        queryRequest.cursor = this.cursor;
         return request;
     }
 
@@ -209,6 +212,7 @@ public class EventDataQueryRequest
                 .page( criteria.getPage() )
                 .pageSize( criteria.getPageSize() )
                 .paging( criteria.isPaging() )
+                .cursor( criteria.getCursor() )
                 .programStatus( criteria.getProgramStatus() )
                 .relativePeriodDate( criteria.getRelativePeriodDate() )
                 .showHierarchy( criteria.isShowHierarchy() )
@@ -250,6 +254,7 @@ public class EventDataQueryRequest
                 .page( criteria.getPage() )
                 .pageSize( criteria.getPageSize() )
                 .paging( criteria.isPaging() )
+                .cursor( criteria.getCursor() )
                 .displayProperty( criteria.getDisplayProperty() )
                 .relativePeriodDate( criteria.getRelativePeriodDate() )
                 .userOrgUnit( criteria.getUserOrgUnit() )
@@ -286,4 +286,11 @@ public class EventsAnalyticsQueryCriteria
      * default is true (always paginate).
      */
     private boolean paging = true;
+
+    /**
+     * The paging cursor. When set, events are paged by event identifier
+     * instead of by offset and the response carries the cursor for the next
+     * page. An empty cursor requests the first page.
+     */
+    private String cursor;
 }
@@ -278,6 +278,7 @@ public enum ErrorCode
     E7131( "Query failed, likely because the query timed out" ),
     E7132( "An indicator expression caused division by zero operation" ),
     E7133( "Query cannot be executed, possibly because of invalid types or invalid operation" ),
+    E7134( "Query was rejected because the server is busy with other analytics queries, please try again later" ),
 
     /* Event analytics */
     E7200( "At least one organisation unit must be specified" ),
@@ -310,6 +311,8 @@ public enum ErrorCode
     E7227( "Relationship entity type not supported: `{0}`" ),
     E7228( "Fallback coordinate field is invalid: `{0}` " ),
     E7229( "Operator '{0}' does not allow missing value" ),
+    E7230( "Paging cursor is invalid: `{0}`" ),
+    E7231( "Paging cursor cannot be combined with sorting" ),
 
     /* Org unit analytics */
     E7300( "At least one organisation unit must be specified" ),
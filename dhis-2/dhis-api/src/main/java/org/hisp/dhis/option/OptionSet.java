@@ -55,6 +55,11 @@ public class OptionSet
 
     private int version;
 
+    /**
+     * Lazily built index of the options, see {@link #getOptionIndex()}.
+     */
+    private transient volatile IndexHolder optionIndex;
+
     // -------------------------------------------------------------------------
     // Constructors
     // -------------------------------------------------------------------------
@@ -106,11 +111,13 @@ public class OptionSet
             }
         }
         option.setOptionSet( this );
+        optionIndex = null;
     }
 
     public void removeAllOptions()
     {
         options.clear();
+        optionIndex = null;
     }
 
     @Override
@@ -129,22 +136,37 @@ public class OptionSet
         return options.stream().map( Option::getCode ).collect( Collectors.toList() );
     }
 
+    /**
+     * Returns the distinct option codes. The returned set is unmodifiable.
+     */
     public Set<String> getOptionCodesAsSet()
     {
-        return options.stream().map( Option::getCode ).collect( Collectors.toSet() );
+        return getOptionIndex().getCodes();
     }
 
     public Option getOptionByCode( String code )
     {
-        for ( Option option : options )
+        return getOptionIndex().getOptionByCode( code );
+    }
+
+    /**
+     * Returns the index of the options of this option set. The index is built
+     * on first use and rebuilt once the options or the version of this option
+     * set change.
+     *
+     * @return the {@link OptionSetIndex}.
+     */
+    public OptionSetIndex getOptionIndex()
+    {
+        IndexHolder holder = optionIndex;
+
+        if ( holder == null || !holder.isValidFor( this ) )
         {
-            if ( option != null && option.getCode().equals( code ) )
-            {
-                return option;
-            }
+            holder = new IndexHolder( this );
+            optionIndex = holder;
         }
 
-        return null;
+        return holder.index;
     }
 
     public Map<String, String> getOptionCodePropertyMap( IdScheme idScheme )
@@ -168,6 +190,7 @@ public class OptionSet
     public void setOptions( List<Option> options )
     {
         this.options = options;
+        this.optionIndex = null;
     }
 
     @JsonProperty
@@ -195,4 +218,32 @@ public class OptionSet
     {
         this.version = version;
     }
+
+    /**
+     * Index together with the state of the option set it was built from.
+     */
+    private static final class IndexHolder
+    {
+        private final List<Option> options;
+
+        private final int size;
+
+        private final int version;
+
+        private final OptionSetIndex index;
+
+        private IndexHolder( OptionSet optionSet )
+        {
+            this.options = optionSet.options;
+            this.size = optionSet.options.size();
+            this.version = optionSet.version;
+            this.index = new OptionSetIndex( optionSet.options );
+        }
+
+        private boolean isValidFor( OptionSet optionSet )
+        {
+            return options == optionSet.options && size == optionSet.options.size()
+                && version == optionSet.version;
+        }
+    }
 }
@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.option;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable index of the options of an {@link OptionSet}, allowing constant
+ * time lookup of options by code, UID and name. Options with a duplicate key
+ * are shadowed by the first option with that key, in option set order.
+ *
+ * @see OptionSet#getOptionIndex()
+ */
+public final class OptionSetIndex
+{
+    private final Map<String, Option> optionsByCode = new HashMap<>();
+
+    private final Map<String, Option> optionsByLowerCaseCode = new HashMap<>();
+
+    private final Map<String, Option> optionsByUid = new HashMap<>();
+
+    private final Map<String, Option> optionsByName = new HashMap<>();
+
+    private final Set<String> codes = new LinkedHashSet<>();
+
+    public OptionSetIndex( Collection<Option> options )
+    {
+        for ( Option option : options )
+        {
+            if ( option == null )
+            {
+                continue;
+            }
+
+            putIfKey( optionsByCode, option.getCode(), option );
+            putIfKey( optionsByLowerCaseCode, toLowerCase( option.getCode() ), option );
+            putIfKey( optionsByUid, option.getUid(), option );
+            putIfKey( optionsByName, option.getName(), option );
+
+            if ( option.getCode() != null )
+            {
+                codes.add( option.getCode() );
+            }
+        }
+    }
+
+    public Option getOptionByCode( String code )
+    {
+        return code == null ? null : optionsByCode.get( code );
+    }
+
+    /**
+     * Returns the option with the given code, ignoring case.
+     */
+    public Option getOptionByCodeIgnoreCase( String code )
+    {
+        return code == null ? null : optionsByLowerCaseCode.get( toLowerCase( code ) );
+    }
+
+    public Option getOptionByUid( String uid )
+    {
+        return uid == null ? null : optionsByUid.get( uid );
+    }
+
+    public Option getOptionByName( String name )
+    {
+        return name == null ? null : optionsByName.get( name );
+    }
+
+    public boolean containsCode( String code )
+    {
+        return getOptionByCode( code ) != null;
+    }
+
+    public boolean containsCodeIgnoreCase( String code )
+    {
+        return getOptionByCodeIgnoreCase( code ) != null;
+    }
+
+    /**
+     * Returns the distinct option codes, in option set order.
+     */
+    public Set<String> getCodes()
+    {
+        return Collections.unmodifiableSet( codes );
+    }
+
+    private static void putIfKey( Map<String, Option> map, String key, Option option )
+    {
+        if ( key != null )
+        {
+            map.putIfAbsent( key, option );
+        }
+    }
+
+    private static String toLowerCase( String code )
+    {
+        return code == null ? null : code.toLowerCase( Locale.ROOT );
+    }
+}
@@ -244,6 +244,12 @@ public class TrackedEntityInstanceQueryParams
      */
     private boolean skipPaging;
 
+    /**
+     * Identifier of the last tracked entity instance of the previous page. If
+     * specified, keyset paging is used instead of offset paging.
+     */
+    private String pageAfter;
+
     /**
      * Indicates if there is a maximum tei retrieval limit. 0 no limit.
      */
@@ -821,11 +827,31 @@ public class TrackedEntityInstanceQueryParams
     }
 
     /**
-     * Returns the offset based on the page number and page size.
+     * Returns the offset based on the page number and page size. The offset is
+     * always 0 with keyset paging.
      */
     public int getOffset()
     {
-        return (getPageWithDefault() - 1) * getPageSizeWithDefault();
+        return isKeysetPaging() ? 0 : (getPageWithDefault() - 1) * getPageSizeWithDefault();
+    }
+
+    /**
+     * Indicates whether the identifier of the last tracked entity instance of
+     * the previous page is specified.
+     */
+    public boolean hasPageAfter()
+    {
+        return pageAfter != null;
+    }
+
+    /**
+     * Indicates whether keyset paging is enabled, which requires paging, the
+     * identifier of the last tracked entity instance of the previous page and
+     * the default order.
+     */
+    public boolean isKeysetPaging()
+    {
+        return isPaging() && hasPageAfter() && !hasOrders();
     }
 
     // -------------------------------------------------------------------------
@@ -862,6 +888,7 @@ public class TrackedEntityInstanceQueryParams
             .add( "pageSize", pageSize )
             .add( "totalPages", totalPages )
             .add( "skipPaging", skipPaging )
+            .add( "pageAfter", pageAfter )
             .add( "includeDeleted", includeDeleted )
             .add( "includeAllAttributes", includeAllAttributes )
             .add( "internalSearch", internalSearch )
@@ -1152,6 +1179,17 @@ public class TrackedEntityInstanceQueryParams
         return this;
     }
 
+    public String getPageAfter()
+    {
+        return pageAfter;
+    }
+
+    public TrackedEntityInstanceQueryParams setPageAfter( String pageAfter )
+    {
+        this.pageAfter = pageAfter;
+        return this;
+    }
+
     public int getMaxTeiLimit()
     {
         return maxTeiLimit;
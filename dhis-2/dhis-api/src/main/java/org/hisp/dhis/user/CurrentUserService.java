@@ -93,11 +93,23 @@ public interface CurrentUserService
     CurrentUserGroupInfo getCurrentUserGroupsInfo();
 
     /**
-     * Invalidate UserGroupInfo Cache for given username Ignore if username
-     * doesn't exist
+     * Return the cached {@link UserAccessSnapshot} of the current user. If no
+     * user is logged in, null is returned.
+     */
+    UserAccessSnapshot getCurrentUserAccessSnapshot();
+
+    /**
+     * Invalidate UserGroupInfo Cache and UserAccessSnapshot Cache for given
+     * username Ignore if username doesn't exist
      */
     void invalidateUserGroupCache( String username );
 
+    /**
+     * Invalidate UserGroupInfo Cache and UserAccessSnapshot Cache for all
+     * users.
+     */
+    void invalidateAllUserGroupCaches();
+
     /**
      * Get {@link CurrentUserGroupInfo} by given {@link UserInfo}
      */
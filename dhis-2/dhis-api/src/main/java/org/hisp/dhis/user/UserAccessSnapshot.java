@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.user;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Set;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import org.hisp.dhis.common.IdentifiableObject;
+import org.hisp.dhis.organisationunit.OrganisationUnit;
+
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Immutable snapshot of the access related state of a user, i.e. user group
+ * membership, authorities and the organisation unit scopes for data capture,
+ * data view and tracked entity instance search. The snapshot holds no
+ * references to persistent objects and can therefore be cached across
+ * requests and read without touching lazily loaded collections of the
+ * {@link User}.
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+public final class UserAccessSnapshot
+    implements Serializable
+{
+    private static final String PATH_SEP = "/";
+
+    private final long userId;
+
+    private final String userUid;
+
+    private final String username;
+
+    private final boolean superUser;
+
+    private final Set<String> authorities;
+
+    private final Set<String> userGroupUids;
+
+    private final Set<String> captureOrgUnitUids;
+
+    private final Set<String> dataViewOrgUnitUids;
+
+    private final Set<String> teiSearchOrgUnitUids;
+
+    private UserAccessSnapshot( User user )
+    {
+        UserCredentials credentials = user.getUserCredentials();
+
+        this.userId = user.getId();
+        this.userUid = user.getUid();
+        this.username = user.getUsername();
+        this.superUser = user.isSuper();
+        this.authorities = credentials != null ? ImmutableSet.copyOf( credentials.getAllAuthorities() )
+            : ImmutableSet.of();
+        this.userGroupUids = toUids( user.getGroups() );
+        this.captureOrgUnitUids = toUids( user.getOrganisationUnits() );
+        this.dataViewOrgUnitUids = toUids( user.getDataViewOrganisationUnitsWithFallback() );
+        this.teiSearchOrgUnitUids = toUids( user.getTeiSearchOrganisationUnitsWithFallback() );
+    }
+
+    /**
+     * Creates a snapshot of the given user. Collections of the user are read
+     * once, so the user must be attached to an open session.
+     *
+     * @param user the user.
+     * @return a {@link UserAccessSnapshot}.
+     */
+    public static UserAccessSnapshot of( User user )
+    {
+        return new UserAccessSnapshot( user );
+    }
+
+    /**
+     * Indicates whether the user has been granted the given authority. Returns
+     * true in any case if the user has the ALL authority.
+     */
+    public boolean isAuthorized( String auth )
+    {
+        return auth != null
+            && (authorities.contains( UserAuthorityGroup.AUTHORITY_ALL ) || authorities.contains( auth ));
+    }
+
+    /**
+     * Indicates whether the user is a member of the user group with the given
+     * UID.
+     */
+    public boolean isInUserGroup( String userGroupUid )
+    {
+        return userGroupUids.contains( userGroupUid );
+    }
+
+    /**
+     * Indicates whether the given organisation unit is equal to or a
+     * descendant of one of the data capture organisation units of the user.
+     */
+    public boolean isInCaptureHierarchy( OrganisationUnit organisationUnit )
+    {
+        return isInHierarchy( organisationUnit, captureOrgUnitUids );
+    }
+
+    /**
+     * Indicates whether the given organisation unit is equal to or a
+     * descendant of one of the data view organisation units of the user,
+     * falling back to the data capture organisation units.
+     */
+    public boolean isInDataViewHierarchy( OrganisationUnit organisationUnit )
+    {
+        return isInHierarchy( organisationUnit, dataViewOrgUnitUids );
+    }
+
+    /**
+     * Indicates whether the given organisation unit is equal to or a
+     * descendant of one of the search organisation units of the user, falling
+     * back to the data capture organisation units.
+     */
+    public boolean isInTeiSearchHierarchy( OrganisationUnit organisationUnit )
+    {
+        return isInHierarchy( organisationUnit, teiSearchOrgUnitUids );
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    private static boolean isInHierarchy( OrganisationUnit organisationUnit, Set<String> rootUids )
+    {
+        if ( organisationUnit == null || rootUids.isEmpty() )
+        {
+            return false;
+        }
+
+        if ( rootUids.contains( organisationUnit.getUid() ) )
+        {
+            return true;
+        }
+
+        for ( String uid : organisationUnit.getPath().split( PATH_SEP ) )
+        {
+            if ( rootUids.contains( uid ) )
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static Set<String> toUids( Collection<? extends IdentifiableObject> objects )
+    {
+        if ( objects == null )
+        {
+            return ImmutableSet.of();
+        }
+
+        ImmutableSet.Builder<String> builder = ImmutableSet.builder();
+
+        objects.forEach( object -> builder.add( object.getUid() ) );
+
+        return builder.build();
+    }
+}
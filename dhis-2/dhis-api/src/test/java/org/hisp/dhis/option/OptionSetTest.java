@@ -27,6 +27,10 @@
  */
 package org.hisp.dhis.option;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -135,4 +139,45 @@ public class OptionSetTest
         Assert.assertSame( option2, optionSet.getOptions().get( 2 ) );
         Assert.assertSame( option3, optionSet.getOptions().get( 1 ) );
     }
-}
\ No newline at end of file
+
+    @Test
+    public void optionIndexLooksUpOptionsByCodeUidAndName()
+    {
+        final OptionSet optionSet = new OptionSet();
+        final Option option1 = new Option( "Name1", "Code1" );
+        final Option option2 = new Option( "Name2", "Code2" );
+
+        optionSet.addOption( option1 );
+        optionSet.addOption( option2 );
+
+        final OptionSetIndex index = optionSet.getOptionIndex();
+
+        Assert.assertSame( option2, index.getOptionByCode( "Code2" ) );
+        Assert.assertNull( index.getOptionByCode( "code2" ) );
+        Assert.assertSame( option2, index.getOptionByCodeIgnoreCase( "code2" ) );
+        Assert.assertSame( option1, index.getOptionByUid( option1.getUid() ) );
+        Assert.assertSame( option1, index.getOptionByName( "Name1" ) );
+        Assert.assertFalse( index.containsCode( "Code3" ) );
+        Assert.assertEquals( Arrays.asList( "Code1", "Code2" ), new ArrayList<>( index.getCodes() ) );
+    }
+
+    @Test
+    public void optionIndexIsReusedUntilOptionSetChanges()
+    {
+        final OptionSet optionSet = new OptionSet();
+        optionSet.addOption( new Option( "Name1", "Code1" ) );
+
+        final OptionSetIndex index = optionSet.getOptionIndex();
+
+        Assert.assertSame( index, optionSet.getOptionIndex() );
+
+        optionSet.getOptions().add( new Option( "Name2", "Code2" ) );
+
+        Assert.assertTrue( optionSet.getOptionIndex().containsCode( "Code2" ) );
+
+        optionSet.setOptions( new ArrayList<>( Collections.singletonList( new Option( "Name3", "Code3" ) ) ) );
+
+        Assert.assertFalse( optionSet.getOptionIndex().containsCode( "Code1" ) );
+        Assert.assertTrue( optionSet.getOptionCodesAsSet().contains( "Code3" ) );
+    }
+}
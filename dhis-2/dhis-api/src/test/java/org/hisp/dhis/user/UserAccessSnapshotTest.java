@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.user;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.hisp.dhis.organisationunit.OrganisationUnit;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.Sets;
+
+/**
+ * Unit tests for {@link UserAccessSnapshot}.
+ */
+public class UserAccessSnapshotTest
+{
+    private OrganisationUnit ouA;
+
+    private OrganisationUnit ouB;
+
+    private OrganisationUnit ouC;
+
+    private OrganisationUnit ouD;
+
+    private User user;
+
+    @Before
+    public void setUp()
+    {
+        ouA = createOrganisationUnit( "ouA", null );
+        ouB = createOrganisationUnit( "ouB", ouA );
+        ouC = createOrganisationUnit( "ouC", ouB );
+        ouD = createOrganisationUnit( "ouD", ouA );
+
+        UserAuthorityGroup userAuthorityGroup = new UserAuthorityGroup();
+        userAuthorityGroup.setUid( "roleA" );
+        userAuthorityGroup.setAuthorities( new HashSet<>( Arrays.asList( "x1", "x2" ) ) );
+
+        UserCredentials userCredentials = new UserCredentials();
+        userCredentials.setUsername( "usernameA" );
+        userCredentials.setUserAuthorityGroups( Collections.singleton( userAuthorityGroup ) );
+
+        UserGroup userGroup = new UserGroup( "groupA" );
+        userGroup.setUid( "groupA" );
+
+        user = new User();
+        user.setUid( "userA" );
+        user.setUserCredentials( userCredentials );
+        user.setGroups( Collections.singleton( userGroup ) );
+        user.setOrganisationUnits( Collections.singleton( ouD ) );
+        user.setDataViewOrganisationUnits( Collections.singleton( ouB ) );
+    }
+
+    @Test
+    public void testOf()
+    {
+        UserAccessSnapshot snapshot = UserAccessSnapshot.of( user );
+
+        assertEquals( "userA", snapshot.getUserUid() );
+        assertEquals( "usernameA", snapshot.getUsername() );
+        assertFalse( snapshot.isSuperUser() );
+        assertEquals( Sets.newHashSet( "x1", "x2" ), snapshot.getAuthorities() );
+        assertEquals( Sets.newHashSet( "groupA" ), snapshot.getUserGroupUids() );
+        assertEquals( Sets.newHashSet( "ouD" ), snapshot.getCaptureOrgUnitUids() );
+        assertEquals( Sets.newHashSet( "ouB" ), snapshot.getDataViewOrgUnitUids() );
+        assertEquals( Sets.newHashSet( "ouD" ), snapshot.getTeiSearchOrgUnitUids() );
+    }
+
+    @Test
+    public void testIsAuthorized()
+    {
+        UserAccessSnapshot snapshot = UserAccessSnapshot.of( user );
+
+        assertTrue( snapshot.isAuthorized( "x1" ) );
+        assertFalse( snapshot.isAuthorized( "y1" ) );
+        assertFalse( snapshot.isAuthorized( null ) );
+        assertTrue( snapshot.isInUserGroup( "groupA" ) );
+        assertFalse( snapshot.isInUserGroup( "groupB" ) );
+    }
+
+    @Test
+    public void testIsInHierarchy()
+    {
+        UserAccessSnapshot snapshot = UserAccessSnapshot.of( user );
+
+        assertTrue( snapshot.isInDataViewHierarchy( ouB ) );
+        assertTrue( snapshot.isInDataViewHierarchy( ouC ) );
+        assertFalse( snapshot.isInDataViewHierarchy( ouA ) );
+        assertFalse( snapshot.isInDataViewHierarchy( ouD ) );
+
+        assertTrue( snapshot.isInCaptureHierarchy( ouD ) );
+        assertFalse( snapshot.isInCaptureHierarchy( ouC ) );
+
+        assertTrue( snapshot.isInTeiSearchHierarchy( ouD ) );
+        assertFalse( snapshot.isInTeiSearchHierarchy( ouB ) );
+        assertFalse( snapshot.isInTeiSearchHierarchy( null ) );
+    }
+
+    private OrganisationUnit createOrganisationUnit( String uid, OrganisationUnit parent )
+    {
+        OrganisationUnit organisationUnit = new OrganisationUnit( uid );
+        organisationUnit.setUid( uid );
+        organisationUnit.setParent( parent );
+        return organisationUnit;
+    }
+}
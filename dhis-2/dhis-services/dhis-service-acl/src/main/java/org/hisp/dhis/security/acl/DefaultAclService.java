@@ -34,6 +34,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.hisp.dhis.category.CategoryOption;
 import org.hisp.dhis.category.CategoryOptionCombo;
@@ -47,12 +48,15 @@ import org.hisp.dhis.schema.Schema;
 import org.hisp.dhis.schema.SchemaService;
 import org.hisp.dhis.security.AuthorityType;
 import org.hisp.dhis.security.acl.AccessStringHelper.Permission;
+import org.hisp.dhis.user.CurrentUserService;
 import org.hisp.dhis.user.User;
+import org.hisp.dhis.user.UserAccessSnapshot;
 import org.hisp.dhis.user.UserGroup;
 import org.hisp.dhis.user.sharing.Sharing;
 import org.hisp.dhis.user.sharing.UserAccess;
 import org.hisp.dhis.user.sharing.UserGroupAccess;
 import org.hisp.dhis.util.SharingUtils;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 
 /**
@@ -68,11 +72,15 @@ public class DefaultAclService implements AclService
 
     private final SchemaService schemaService;
 
-    public DefaultAclService( SchemaService schemaService )
+    private final CurrentUserService currentUserService;
+
+    public DefaultAclService( SchemaService schemaService, @Lazy CurrentUserService currentUserService )
     {
         checkNotNull( schemaService );
+        checkNotNull( currentUserService );
 
         this.schemaService = schemaService;
+        this.currentUserService = currentUserService;
     }
 
     @Override
@@ -761,12 +769,14 @@ public class DefaultAclService implements AclService
 
         if ( sharing.getUserGroups() != null && !CollectionUtils.isEmpty( user.getGroups() ) )
         {
+            Set<String> userGroupUids = getUserGroupUids( user );
+
             for ( UserGroupAccess userGroupAccess : sharing.getUserGroups().values() )
             {
                 // Check if user is allowed to read this object through group
                 // access
                 if ( AccessStringHelper.isEnabled( userGroupAccess.getAccess(), permission )
-                    && hasUserGroupAccess( user.getGroups(), userGroupAccess.getId() ) )
+                    && userGroupUids.contains( userGroupAccess.getId() ) )
                 {
                     return true;
                 }
@@ -835,16 +845,22 @@ public class DefaultAclService implements AclService
             (checkUser( user, object ) || checkSharingPermission( user, object, Permission.WRITE ));
     }
 
-    private boolean hasUserGroupAccess( Set<UserGroup> userGroups, String userGroupUid )
+    /**
+     * Returns the UIDs of the user groups of the given user. The cached
+     * {@link UserAccessSnapshot} is used if the user is the current user,
+     * which avoids initializing the user group collection for every check.
+     */
+    private Set<String> getUserGroupUids( User user )
     {
-        for ( UserGroup group : userGroups )
+        UserAccessSnapshot snapshot = currentUserService.getCurrentUserAccessSnapshot();
+
+        if ( snapshot != null && snapshot.getUserUid().equals( user.getUid() ) )
         {
-            if ( group.getUid().equals( userGroupUid ) )
-            {
-                return true;
-            }
+            return snapshot.getUserGroupUids();
         }
 
-        return false;
+        return user.getGroups().stream()
+            .map( UserGroup::getUid )
+            .collect( Collectors.toSet() );
     }
 }
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.analytics;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Planner statistics of an analytics table column, as collected by the
+ * database when the table was last analyzed.
+ */
+@Getter
+@ToString
+public class AnalyticsColumnStatistics
+{
+    /**
+     * Fraction of rows where the column is null.
+     */
+    private final double nullFraction;
+
+    /**
+     * Number of distinct values if positive, or the negated number of distinct
+     * values divided by the number of rows if negative.
+     */
+    private final double distinctValues;
+
+    /**
+     * Statistical correlation between the physical row order and the logical
+     * order of the column values, between -1 and 1, null if not available.
+     */
+    private final Double correlation;
+
+    /**
+     * Number of most common values.
+     */
+    private final int commonValues;
+
+    /**
+     * Frequency of the least frequent of the most common values, null if there
+     * are no most common values.
+     */
+    private final Double minCommonFrequency;
+
+    public AnalyticsColumnStatistics( double nullFraction, double distinctValues, Double correlation,
+        int commonValues, Double minCommonFrequency )
+    {
+        this.nullFraction = nullFraction;
+        this.distinctValues = distinctValues;
+        this.correlation = correlation;
+        this.commonValues = commonValues;
+        this.minCommonFrequency = minCommonFrequency;
+    }
+}
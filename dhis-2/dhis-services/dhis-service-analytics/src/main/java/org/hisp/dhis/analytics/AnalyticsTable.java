@@ -67,6 +67,12 @@ public class AnalyticsTable
      */
     private List<AnalyticsTablePartition> tablePartitions = new UniqueArrayList<>();
 
+    /**
+     * Indicates whether the temporary tables of this table are created as
+     * unlogged tables, which stay unlogged when swapped.
+     */
+    private boolean unlogged;
+
     // -------------------------------------------------------------------------
     // Constructors
     // -------------------------------------------------------------------------
@@ -160,7 +166,7 @@ public class AnalyticsTable
     }
 
     // -------------------------------------------------------------------------
-    // Getters
+    // Getters and setters
     // -------------------------------------------------------------------------
 
     public AnalyticsTableType getTableType()
@@ -188,6 +194,16 @@ public class AnalyticsTable
         return tablePartitions;
     }
 
+    public boolean isUnlogged()
+    {
+        return unlogged;
+    }
+
+    public void setUnlogged( boolean unlogged )
+    {
+        this.unlogged = unlogged;
+    }
+
     // -------------------------------------------------------------------------
     // hashCode, equals, toString
     // -------------------------------------------------------------------------
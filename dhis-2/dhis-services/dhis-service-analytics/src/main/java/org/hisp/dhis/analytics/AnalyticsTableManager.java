@@ -29,6 +29,7 @@ package org.hisp.dhis.analytics;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Future;
@@ -106,6 +107,13 @@ public interface AnalyticsTableManager
      */
     Future<?> createIndexesAsync( ConcurrentLinkedQueue<AnalyticsIndex> indexes );
 
+    /**
+     * Creates the given index in the calling thread.
+     *
+     * @param index the analytics index.
+     */
+    void createIndex( AnalyticsIndex index );
+
     /**
      * Attempts to drop the analytics table with partitions and rename the
      * temporary table with partitions as replacement.
@@ -130,6 +138,15 @@ public interface AnalyticsTableManager
     Future<?> populateTablesAsync( AnalyticsTableUpdateParams params,
         ConcurrentLinkedQueue<AnalyticsTablePartition> tablePartitions );
 
+    /**
+     * Copies and denormalizes rows into the given analytics table partition in
+     * the calling thread.
+     *
+     * @param params the {@link AnalyticsTableUpdateParams}.
+     * @param partition the analytics table partition.
+     */
+    void populateTablePartition( AnalyticsTableUpdateParams params, AnalyticsTablePartition partition );
+
     /**
      * Invokes analytics table SQL hooks for the table type.
      *
@@ -137,6 +154,11 @@ public interface AnalyticsTableManager
      */
     int invokeAnalyticsTableSqlHooks();
 
+    /**
+     * Indicates whether analytics table SQL hooks exist for the table type.
+     */
+    boolean hasAnalyticsTableSqlHooks();
+
     /**
      * Drops the given {@link AnalyticsTable}.
      *
@@ -165,6 +187,32 @@ public interface AnalyticsTableManager
      */
     void analyzeTable( String tableName );
 
+    /**
+     * Updates the rollup table of the analytics table type from the current
+     * analytics table, if the table type supports rollup tables and a rollup
+     * organisation unit level is configured. For partial updates of an
+     * existing rollup table, only the years of the updated partitions are
+     * refreshed, otherwise the rollup table is rebuilt. Rollup tables which do
+     * not match the configured level are dropped.
+     *
+     * @param params the {@link AnalyticsTableUpdateParams}.
+     * @param tables the list of updated {@link AnalyticsTable}.
+     * @return the name of the updated rollup table, or null if no rollup table
+     *         was updated.
+     */
+    String updateRollupTable( AnalyticsTableUpdateParams params, List<AnalyticsTable> tables );
+
+    /**
+     * Returns the planner statistics of the columns of the given table, as
+     * collected when the table was last analyzed. The map is empty if the
+     * table does not exist or has not been analyzed.
+     *
+     * @param tableName the table name.
+     * @return a mapping from unquoted column name to
+     *         {@link AnalyticsColumnStatistics}.
+     */
+    Map<String, AnalyticsColumnStatistics> getColumnStatistics( String tableName );
+
     /**
      * Applies aggregation level logic to the analytics table by setting the
      * organisation unit level column values to null for the levels above the
@@ -60,6 +60,7 @@ import javax.annotation.Nullable;
 
 import org.apache.commons.collections4.MultiValuedMap;
 import org.apache.commons.lang3.StringUtils;
+import org.hisp.dhis.analytics.admission.AnalyticsQueryOrigin;
 import org.hisp.dhis.analytics.util.AnalyticsUtils;
 import org.hisp.dhis.category.Category;
 import org.hisp.dhis.category.CategoryCombo;
@@ -488,6 +489,12 @@ public class DataQueryParams
      */
     protected transient boolean skipDataDimensionValidation = false;
 
+    /**
+     * The user and priority of the request which issued this query, used for
+     * analytics query admission control.
+     */
+    protected transient AnalyticsQueryOrigin queryOrigin;
+
     // Constructors
     // -------------------------------------------------------------------------
 
@@ -585,6 +592,7 @@ public class DataQueryParams
         params.endDateRestriction = this.endDateRestriction;
         params.dataApprovalLevels = new HashMap<>( this.dataApprovalLevels );
         params.skipDataDimensionValidation = this.skipDataDimensionValidation;
+        params.queryOrigin = this.queryOrigin;
         params.userOrgUnitType = this.userOrgUnitType;
         return params;
     }
@@ -2282,6 +2290,11 @@ public class DataQueryParams
         return skipDataDimensionValidation;
     }
 
+    public AnalyticsQueryOrigin getQueryOrigin()
+    {
+        return queryOrigin;
+    }
+
     public List<OrganisationUnitLevel> getOrgUnitLevels()
     {
         return orgUnitLevels;
@@ -3121,6 +3134,12 @@ public class DataQueryParams
             return this;
         }
 
+        public Builder withQueryOrigin( AnalyticsQueryOrigin queryOrigin )
+        {
+            this.params.queryOrigin = queryOrigin;
+            return this;
+        }
+
         public Builder withOrgUnitLevels( List<OrganisationUnitLevel> orgUnitLevels )
         {
             this.params.orgUnitLevels = orgUnitLevels;
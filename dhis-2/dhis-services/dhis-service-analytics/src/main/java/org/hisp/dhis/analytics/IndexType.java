@@ -37,6 +37,7 @@ public enum IndexType
     BTREE( "btree" ),
     GIST( "gist" ),
     HASH( "hash" ),
+    BRIN( "brin" ),
     BLOOM( "bloom" );
 
     private String keyword;
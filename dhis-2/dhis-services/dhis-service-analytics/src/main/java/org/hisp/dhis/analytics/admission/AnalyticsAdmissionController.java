@@ -0,0 +1,359 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.analytics.admission;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.hisp.dhis.common.QueryRuntimeException;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.hisp.dhis.feedback.ErrorCode;
+import org.hisp.dhis.user.CurrentUserService;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Controls admission of analytics queries to the database. Enforces a global
+ * limit and an optional per-user limit on the number of analytics queries
+ * executing concurrently. Queries which cannot be admitted wait in a queue
+ * and are admitted in order of {@link AnalyticsQueryPriority}, then in favour
+ * of users with the fewest executing queries, then in order of arrival.
+ * Queries which are not admitted within the queue timeout are rejected.
+ * <p>
+ * Admission control is disabled unless
+ * {@link ConfigurationKey#ANALYTICS_ADMISSION_MAX_QUERIES} is set.
+ */
+@Slf4j
+@Component
+public class AnalyticsAdmissionController
+{
+    private static final String METRIC_PREFIX = "analytics.admission.";
+
+    private static final String TAG_PRIORITY = "priority";
+
+    private final CurrentUserService currentUserService;
+
+    private final MeterRegistry meterRegistry;
+
+    private final int maxQueries;
+
+    private final int maxUserQueries;
+
+    private final long queueTimeoutNanos;
+
+    private final int queryTimeout;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition released = lock.newCondition();
+
+    /**
+     * Queries waiting for admission, guarded by the lock.
+     */
+    private final List<Ticket> queue = new ArrayList<>();
+
+    /**
+     * Number of executing queries per user, guarded by the lock.
+     */
+    private final Map<String, Integer> userQueries = new HashMap<>();
+
+    private volatile int runningQueries = 0;
+
+    private volatile int queuedQueries = 0;
+
+    private long sequence = 0;
+
+    public AnalyticsAdmissionController( DhisConfigurationProvider config, CurrentUserService currentUserService,
+        MeterRegistry meterRegistry )
+    {
+        checkNotNull( config );
+        checkNotNull( currentUserService );
+        checkNotNull( meterRegistry );
+
+        this.currentUserService = currentUserService;
+        this.meterRegistry = meterRegistry;
+        this.maxQueries = Integer.parseInt( config.getProperty( ConfigurationKey.ANALYTICS_ADMISSION_MAX_QUERIES ) );
+        this.maxUserQueries = Integer
+            .parseInt( config.getProperty( ConfigurationKey.ANALYTICS_ADMISSION_MAX_USER_QUERIES ) );
+        this.queueTimeoutNanos = TimeUnit.SECONDS.toNanos(
+            Long.parseLong( config.getProperty( ConfigurationKey.ANALYTICS_ADMISSION_QUEUE_TIMEOUT ) ) );
+        this.queryTimeout = Integer.parseInt( config.getProperty( ConfigurationKey.ANALYTICS_QUERY_TIMEOUT ) );
+
+        Gauge.builder( METRIC_PREFIX + "running", this, c -> c.runningQueries )
+            .description( "Number of analytics queries executing" )
+            .register( meterRegistry );
+
+        Gauge.builder( METRIC_PREFIX + "queued", this, c -> c.queuedQueries )
+            .description( "Number of analytics queries waiting for admission" )
+            .register( meterRegistry );
+
+        log.info( "Analytics admission control enabled: {}, max queries: {}, max user queries: {}",
+            isEnabled(), maxQueries, maxUserQueries );
+    }
+
+    // -------------------------------------------------------------------------
+    // Public methods
+    // -------------------------------------------------------------------------
+
+    /**
+     * Indicates whether admission control is enabled.
+     */
+    public boolean isEnabled()
+    {
+        return maxQueries > 0;
+    }
+
+    /**
+     * Returns the analytics query statement timeout in seconds, 0 if none.
+     */
+    public int getQueryTimeout()
+    {
+        return queryTimeout;
+    }
+
+    /**
+     * Returns the origin of analytics queries issued by the current thread.
+     * Must be called from the thread serving the request, as the origin is
+     * not available in asynchronous query tasks.
+     *
+     * @return the {@link AnalyticsQueryOrigin}.
+     */
+    public AnalyticsQueryOrigin getCurrentOrigin()
+    {
+        return new AnalyticsQueryOrigin( currentUserService.getCurrentUsername(),
+            AnalyticsQueryContext.getPriority() );
+    }
+
+    /**
+     * Waits until a query with the given origin can be admitted. The returned
+     * permit must be closed when the query is done.
+     *
+     * @param origin the {@link AnalyticsQueryOrigin}, null for system queries.
+     * @return a {@link Permit}.
+     * @throws QueryRuntimeException if the query is not admitted within the
+     *         queue timeout.
+     */
+    public Permit acquire( AnalyticsQueryOrigin origin )
+    {
+        if ( !isEnabled() )
+        {
+            return new Permit( null );
+        }
+
+        final AnalyticsQueryOrigin queryOrigin = origin != null ? origin : AnalyticsQueryOrigin.SYSTEM;
+        final long start = System.nanoTime();
+
+        lock.lock();
+
+        try
+        {
+            Ticket ticket = new Ticket( queryOrigin, sequence++ );
+
+            queue.add( ticket );
+            queuedQueries = queue.size();
+
+            long remaining = queueTimeoutNanos;
+
+            while ( !isNextAdmissible( ticket ) )
+            {
+                if ( remaining <= 0L )
+                {
+                    dequeue( ticket );
+                    reject( queryOrigin, null );
+                }
+
+                try
+                {
+                    remaining = released.awaitNanos( remaining );
+                }
+                catch ( InterruptedException ex )
+                {
+                    dequeue( ticket );
+                    Thread.currentThread().interrupt();
+                    reject( queryOrigin, ex );
+                }
+            }
+
+            dequeue( ticket );
+
+            runningQueries++;
+            userQueries.merge( queryOrigin.getUsername(), 1, Integer::sum );
+        }
+        finally
+        {
+            lock.unlock();
+        }
+
+        getWaitTimer( queryOrigin.getPriority() ).record( System.nanoTime() - start, TimeUnit.NANOSECONDS );
+
+        return new Permit( queryOrigin.getUsername() );
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    /**
+     * Indicates whether the given ticket is the next ticket to be admitted.
+     * Must be called while holding the lock.
+     */
+    private boolean isNextAdmissible( Ticket ticket )
+    {
+        if ( runningQueries >= maxQueries )
+        {
+            return false;
+        }
+
+        return queue.stream()
+            .filter( t -> maxUserQueries <= 0 || getUserQueries( t.getUsername() ) < maxUserQueries )
+            .min( Comparator.<Ticket, AnalyticsQueryPriority> comparing( t -> t.origin.getPriority() )
+                .thenComparingInt( t -> getUserQueries( t.getUsername() ) )
+                .thenComparingLong( t -> t.sequence ) )
+            .map( t -> t == ticket )
+            .orElse( false );
+    }
+
+    /**
+     * Removes the given ticket from the queue and wakes up waiting queries, as
+     * the removal may make another query the next to be admitted. Must be
+     * called while holding the lock.
+     */
+    private void dequeue( Ticket ticket )
+    {
+        queue.remove( ticket );
+        queuedQueries = queue.size();
+        released.signalAll();
+    }
+
+    private void release( String username )
+    {
+        lock.lock();
+
+        try
+        {
+            runningQueries--;
+            userQueries.computeIfPresent( username, ( u, count ) -> count > 1 ? count - 1 : null );
+            released.signalAll();
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    private int getUserQueries( String username )
+    {
+        return userQueries.getOrDefault( username, 0 );
+    }
+
+    private void reject( AnalyticsQueryOrigin origin, Throwable cause )
+    {
+        Counter.builder( METRIC_PREFIX + "rejected" )
+            .description( "Number of analytics queries rejected by admission control" )
+            .tag( TAG_PRIORITY, origin.getPriority().name() )
+            .register( meterRegistry )
+            .increment();
+
+        log.warn( "Analytics query rejected by admission control: {}, running: {}, queued: {}", origin,
+            runningQueries, queuedQueries );
+
+        throw new QueryRuntimeException( ErrorCode.E7134, cause );
+    }
+
+    private Timer getWaitTimer( AnalyticsQueryPriority priority )
+    {
+        return Timer.builder( METRIC_PREFIX + "wait" )
+            .description( "Time analytics queries wait for admission" )
+            .tag( TAG_PRIORITY, priority.name() )
+            .register( meterRegistry );
+    }
+
+    /**
+     * A query waiting for admission.
+     */
+    private static class Ticket
+    {
+        private final AnalyticsQueryOrigin origin;
+
+        private final long sequence;
+
+        Ticket( AnalyticsQueryOrigin origin, long sequence )
+        {
+            this.origin = origin;
+            this.sequence = sequence;
+        }
+
+        String getUsername()
+        {
+            return origin.getUsername();
+        }
+    }
+
+    /**
+     * Permit of an admitted query. Closing the permit releases the admission
+     * of the query. Closing the permit more than once has no effect.
+     */
+    public class Permit
+        implements AutoCloseable
+    {
+        private final String username;
+
+        private final AtomicBoolean closed;
+
+        private Permit( String username )
+        {
+            this.username = username;
+            this.closed = new AtomicBoolean( username == null );
+        }
+
+        @Override
+        public void close()
+        {
+            if ( closed.compareAndSet( false, true ) )
+            {
+                release( username );
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.analytics.admission;
+
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * Holds the {@link AnalyticsQueryPriority} of analytics queries issued by the
+ * current thread. Queries issued while serving a web request default to
+ * {@link AnalyticsQueryPriority#INTERACTIVE}, other queries default to
+ * {@link AnalyticsQueryPriority#SCHEDULED}. Processes which need another
+ * priority set it explicitly and must clear it when done:
+ *
+ * <pre>
+ * AnalyticsQueryContext.setPriority( AnalyticsQueryPriority.PUSH_ANALYSIS );
+ *
+ * try
+ * {
+ *     // Issue analytics queries
+ * }
+ * finally
+ * {
+ *     AnalyticsQueryContext.clearPriority();
+ * }
+ * </pre>
+ */
+public class AnalyticsQueryContext
+{
+    private static final ThreadLocal<AnalyticsQueryPriority> PRIORITY = new ThreadLocal<>();
+
+    private AnalyticsQueryContext()
+    {
+    }
+
+    /**
+     * Sets the priority of analytics queries issued by the current thread.
+     *
+     * @param priority the {@link AnalyticsQueryPriority}.
+     */
+    public static void setPriority( AnalyticsQueryPriority priority )
+    {
+        PRIORITY.set( priority );
+    }
+
+    /**
+     * Clears the explicit priority of the current thread.
+     */
+    public static void clearPriority()
+    {
+        PRIORITY.remove();
+    }
+
+    /**
+     * Returns the priority of analytics queries issued by the current thread.
+     *
+     * @return the {@link AnalyticsQueryPriority}.
+     */
+    public static AnalyticsQueryPriority getPriority()
+    {
+        AnalyticsQueryPriority priority = PRIORITY.get();
+
+        if ( priority != null )
+        {
+            return priority;
+        }
+
+        return RequestContextHolder.getRequestAttributes() != null ? AnalyticsQueryPriority.INTERACTIVE
+            : AnalyticsQueryPriority.SCHEDULED;
+    }
+}
@@ -0,0 +1,375 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.analytics.cache;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.hisp.dhis.analytics.DataQueryParams.newBuilder;
+import static org.hisp.dhis.common.DimensionalObject.DIMENSION_NAME_SEP;
+import static org.hisp.dhis.common.DimensionalObject.OPTION_SEP;
+import static org.hisp.dhis.common.DimensionalObjectUtils.getDimensionalItemIds;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.apache.commons.lang3.StringUtils;
+import org.hisp.dhis.analytics.AnalyticsSecurityManager;
+import org.hisp.dhis.analytics.DataQueryParams;
+import org.hisp.dhis.analytics.DataQueryService;
+import org.hisp.dhis.analytics.QueryValidator;
+import org.hisp.dhis.analytics.SortOrder;
+import org.hisp.dhis.analytics.data.handler.DataAggregator;
+import org.hisp.dhis.common.AggregateAnalyticsQueryCriteria;
+import org.hisp.dhis.common.DataQueryRequest;
+import org.hisp.dhis.common.DhisApiVersion;
+import org.hisp.dhis.common.DimensionalObject;
+import org.hisp.dhis.common.Grid;
+import org.hisp.dhis.common.IdentifiableObjectManager;
+import org.hisp.dhis.commons.util.ConcurrentUtils;
+import org.hisp.dhis.commons.util.SystemUtils;
+import org.hisp.dhis.datastatistics.DataStatisticsEventType;
+import org.hisp.dhis.datastatistics.DataStatisticsService;
+import org.hisp.dhis.datastatistics.FavoriteStatistics;
+import org.hisp.dhis.scheduling.JobConfiguration;
+import org.hisp.dhis.setting.SettingKey;
+import org.hisp.dhis.setting.SystemSettingManager;
+import org.hisp.dhis.system.notification.Notifier;
+import org.hisp.dhis.system.util.Clock;
+import org.hisp.dhis.system.util.SecurityUtils;
+import org.hisp.dhis.user.User;
+import org.hisp.dhis.user.UserCredentials;
+import org.hisp.dhis.visualization.Visualization;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Warms up the analytics caches after analytics tables are updated by
+ * executing the queries of the most viewed visualizations according to data
+ * statistics. The queries are executed with bounded concurrency, and no new
+ * queries are started once the time budget is spent. The query results replace
+ * any cached results from before the table update.
+ * <p>
+ * Each query is built from the analytics request which the visualization
+ * issues, and is executed as the owner of the visualization with the same
+ * security constraints as an analytics request, so that the cache keys match
+ * the keys of the requests of the owner.
+ */
+@Slf4j
+@Component
+public class AnalyticsCacheWarmer
+{
+    private static final int MAX_CONCURRENCY = 4;
+
+    private final DataStatisticsService dataStatisticsService;
+
+    private final IdentifiableObjectManager idObjectManager;
+
+    private final DataQueryService dataQueryService;
+
+    private final AnalyticsSecurityManager securityManager;
+
+    private final QueryValidator queryValidator;
+
+    private final DataAggregator dataAggregator;
+
+    private final AnalyticsCache analyticsCache;
+
+    private final SystemSettingManager systemSettingManager;
+
+    private final Notifier notifier;
+
+    private final PlatformTransactionManager transactionManager;
+
+    public AnalyticsCacheWarmer( DataStatisticsService dataStatisticsService,
+        IdentifiableObjectManager idObjectManager, DataQueryService dataQueryService,
+        AnalyticsSecurityManager securityManager, QueryValidator queryValidator, DataAggregator dataAggregator,
+        AnalyticsCache analyticsCache, SystemSettingManager systemSettingManager, Notifier notifier,
+        PlatformTransactionManager transactionManager )
+    {
+        checkNotNull( dataStatisticsService );
+        checkNotNull( idObjectManager );
+        checkNotNull( dataQueryService );
+        checkNotNull( securityManager );
+        checkNotNull( queryValidator );
+        checkNotNull( dataAggregator );
+        checkNotNull( analyticsCache );
+        checkNotNull( systemSettingManager );
+        checkNotNull( notifier );
+        checkNotNull( transactionManager );
+
+        this.dataStatisticsService = dataStatisticsService;
+        this.idObjectManager = idObjectManager;
+        this.dataQueryService = dataQueryService;
+        this.securityManager = securityManager;
+        this.queryValidator = queryValidator;
+        this.dataAggregator = dataAggregator;
+        this.analyticsCache = analyticsCache;
+        this.systemSettingManager = systemSettingManager;
+        this.notifier = notifier;
+        this.transactionManager = transactionManager;
+    }
+
+    /**
+     * Warms up the analytics caches for the most viewed visualizations, if
+     * caching and warm-up are enabled. Failures are logged and do not
+     * propagate.
+     *
+     * @param jobId the {@link JobConfiguration} to report progress to.
+     */
+    public void warmUp( JobConfiguration jobId )
+    {
+        Integer limit = systemSettingManager.getIntegerSetting( SettingKey.ANALYTICS_CACHE_WARM_UP_VISUALIZATIONS );
+
+        if ( limit == null || limit <= 0 || !analyticsCache.isEnabled() )
+        {
+            return;
+        }
+
+        try
+        {
+            warmUp( jobId, limit );
+        }
+        catch ( RuntimeException ex )
+        {
+            log.error( "Analytics cache warm-up failed", ex );
+
+            notifier.notify( jobId, "Analytics cache warm-up failed: " + ex.getMessage() );
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    /**
+     * Warms up the analytics caches for the given number of most viewed
+     * visualizations.
+     *
+     * @param jobId the {@link JobConfiguration} to report progress to.
+     * @param limit the max number of visualizations.
+     */
+    private void warmUp( JobConfiguration jobId, int limit )
+    {
+        Integer timeBudget = systemSettingManager.getIntegerSetting( SettingKey.ANALYTICS_CACHE_WARM_UP_TIME_BUDGET );
+
+        final long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis( timeBudget );
+
+        List<String> uids = dataStatisticsService
+            .getTopFavorites( DataStatisticsEventType.VISUALIZATION_VIEW, limit, SortOrder.DESC, null ).stream()
+            .map( FavoriteStatistics::getId )
+            .collect( Collectors.toList() );
+
+        if ( uids.isEmpty() )
+        {
+            log.info( "No viewed visualizations found, skipping analytics cache warm-up" );
+            return;
+        }
+
+        final int concurrency = Math.max( 1, Math.min( MAX_CONCURRENCY, SystemUtils.getCpuCores() / 2 ) );
+
+        Clock clock = new Clock( log ).startClock()
+            .logTime( String.format( "Warming up analytics cache for %d visualizations with concurrency: %d",
+                uids.size(), concurrency ) );
+
+        notifier.notify( jobId, String.format( "Warming up analytics cache for %d visualizations", uids.size() ) );
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate( transactionManager );
+        transactionTemplate.setReadOnly( true );
+
+        AtomicInteger warmed = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        AtomicInteger skipped = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool( concurrency );
+
+        try
+        {
+            List<Future<?>> futures = uids.stream()
+                .map( uid -> executor.submit( () -> {
+                    if ( System.currentTimeMillis() >= deadline )
+                    {
+                        skipped.incrementAndGet();
+                        return;
+                    }
+
+                    try
+                    {
+                        transactionTemplate.execute( status -> {
+                            warmUp( uid );
+                            return null;
+                        } );
+
+                        notifier.notify( jobId, String.format( "Warmed up analytics cache for visualization %d of %d",
+                            warmed.incrementAndGet(), uids.size() ) );
+                    }
+                    catch ( RuntimeException ex )
+                    {
+                        failed.incrementAndGet();
+
+                        log.warn( String.format( "Analytics cache warm-up failed for visualization: '%s'", uid ),
+                            ex );
+                    }
+                } ) )
+                .collect( Collectors.toList() );
+
+            ConcurrentUtils.waitForCompletion( futures );
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+
+        String summary = String.format( "Analytics cache warm-up done, warmed up: %d, failed: %d, " +
+            "skipped due to time budget: %d", warmed.get(), failed.get(), skipped.get() );
+
+        clock.logTime( summary );
+        notifier.notify( jobId, summary );
+    }
+
+    /**
+     * Executes the query of the visualization with the given identifier as
+     * the owner of the visualization and caches the result. Must be called
+     * within a transaction.
+     *
+     * @param uid the visualization identifier.
+     */
+    private void warmUp( String uid )
+    {
+        Visualization visualization = idObjectManager.get( Visualization.class, uid );
+
+        if ( visualization == null )
+        {
+            throw new IllegalArgumentException( "Visualization does not exist" );
+        }
+
+        User owner = visualization.getCreatedBy();
+
+        if ( owner == null || owner.getUserCredentials() == null )
+        {
+            throw new IllegalArgumentException( "Visualization has no owner" );
+        }
+
+        SecurityContext securityContext = SecurityContextHolder.createEmptyContext();
+        securityContext.setAuthentication( getAuthentication( owner.getUserCredentials() ) );
+        SecurityContextHolder.setContext( securityContext );
+
+        try
+        {
+            DataQueryParams params = dataQueryService.getFromRequest( getDataQueryRequest( visualization ) );
+
+            securityManager.decideAccess( params );
+
+            params = securityManager.withDataApprovalConstraints( params );
+            params = securityManager.withUserConstraints( params );
+
+            queryValidator.validate( params );
+
+            Grid grid = dataAggregator.getAggregatedDataValueGrid( newBuilder( params ).build() );
+
+            analyticsCache.put( params, grid );
+        }
+        finally
+        {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    /**
+     * Returns the analytics request of the given visualization, built from
+     * the request criteria the same way as for the analytics API.
+     *
+     * @param visualization the {@link Visualization}.
+     * @return a {@link DataQueryRequest}.
+     */
+    static DataQueryRequest getDataQueryRequest( Visualization visualization )
+    {
+        visualization.populateAnalyticalProperties();
+
+        Set<String> dimensions = getDimensionParams( visualization.getColumns() );
+        dimensions.addAll( getDimensionParams( visualization.getRows() ) );
+
+        AggregateAnalyticsQueryCriteria criteria = new AggregateAnalyticsQueryCriteria();
+        criteria.setDimension( dimensions );
+        criteria.setFilter( getDimensionParams( visualization.getFilters() ) );
+        criteria.setAggregationType( visualization.getAggregationType() );
+        criteria.setMeasureCriteria( visualization.getMeasureCriteria() );
+        criteria.setTimeField( visualization.getTimeField() );
+        criteria.setCompletedOnly( visualization.isCompletedOnly() );
+        criteria.setSkipRounding( visualization.isSkipRounding() );
+        criteria.setHideEmptyRows( visualization.isHideEmptyRows() );
+        criteria.setHideEmptyColumns( visualization.isHideEmptyColumns() );
+        criteria.setShowHierarchy( visualization.isShowHierarchy() );
+
+        return DataQueryRequest.newBuilder()
+            .fromCriteria( criteria )
+            .apiVersion( DhisApiVersion.DEFAULT )
+            .build();
+    }
+
+    /**
+     * Returns the request parameters of the given dimensions, on the format
+     * {@code <dimension>:<item>;<item>}.
+     *
+     * @param dimensions the collection of {@link DimensionalObject}.
+     */
+    private static Set<String> getDimensionParams( Collection<DimensionalObject> dimensions )
+    {
+        return dimensions.stream()
+            .map( dimension -> dimension.getDimension() + DIMENSION_NAME_SEP +
+                StringUtils.join( getDimensionalItemIds( dimension.getItems() ), OPTION_SEP ) )
+            .collect( Collectors.toCollection( LinkedHashSet::new ) );
+    }
+
+    /**
+     * Returns an authentication of the user with the given credentials.
+     *
+     * @param credentials the {@link UserCredentials}.
+     */
+    private static Authentication getAuthentication( UserCredentials credentials )
+    {
+        Collection<GrantedAuthority> authorities = SecurityUtils.getGrantedAuthorities( credentials );
+
+        return new UsernamePasswordAuthenticationToken( new org.springframework.security.core.userdetails.User(
+            credentials.getUsername(), "", authorities ), null, authorities );
+    }
+}
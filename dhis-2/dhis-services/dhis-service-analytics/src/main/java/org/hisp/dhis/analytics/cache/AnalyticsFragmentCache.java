@@ -0,0 +1,270 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.analytics.cache;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.apache.commons.lang3.StringUtils;
+import org.hisp.dhis.analytics.AnalyticsTablePartition;
+import org.hisp.dhis.analytics.AnalyticsTableType;
+import org.hisp.dhis.analytics.DataQueryParams;
+import org.hisp.dhis.analytics.QueryKey;
+import org.hisp.dhis.analytics.table.PartitionUtils;
+import org.hisp.dhis.cache.Cache;
+import org.hisp.dhis.cache.CacheProvider;
+import org.hisp.dhis.common.event.ApplicationCacheClearedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Second tier of the analytics cache which holds the aggregated value maps of
+ * the sub-queries produced by the query planner. Fragments are shared between
+ * analytics requests which plan identical sub-queries, such as dashboard items
+ * with overlapping data items and periods.
+ * <p>
+ * Each fragment is tagged with the analytics tables and table partitions it
+ * was read from, so that an analytics table update only invalidates the
+ * fragments which read from the updated partitions.
+ */
+@Slf4j
+@Component
+public class AnalyticsFragmentCache
+{
+    /**
+     * Number of fragments put in the cache between each pruning of the keys
+     * of expired or evicted fragments from the tag mapping.
+     */
+    private static final int PRUNE_INTERVAL = 1000;
+
+    private final Cache<Map<String, Object>> fragmentCache;
+
+    private final AnalyticsCacheSettings analyticsCacheSettings;
+
+    /**
+     * Mapping between table or partition name tags and the keys of the
+     * fragments read from them.
+     */
+    private final Map<String, Set<String>> tagKeys = new ConcurrentHashMap<>();
+
+    private final AtomicInteger putCount = new AtomicInteger();
+
+    public AnalyticsFragmentCache( CacheProvider cacheProvider, AnalyticsCacheSettings analyticsCacheSettings )
+    {
+        checkNotNull( cacheProvider );
+        checkNotNull( analyticsCacheSettings );
+
+        this.analyticsCacheSettings = analyticsCacheSettings;
+        this.fragmentCache = cacheProvider.createAnalyticsFragmentCache(
+            Duration.ofSeconds( analyticsCacheSettings.fixedExpirationTimeOrDefault() ) );
+    }
+
+    /**
+     * Returns a key for the fragment of the given planned query. The key is
+     * based on the SQL statement, which reflects the table partitions and all
+     * query restrictions, and on the key of the query, which reflects the
+     * dimensions used to build the value map from the SQL result.
+     *
+     * @param params the planned {@link DataQueryParams}.
+     * @param tableType the {@link AnalyticsTableType}.
+     * @param sql the SQL statement of the query.
+     * @param maxLimit the max number of records to retrieve.
+     * @return a fragment key.
+     */
+    public static String getKey( DataQueryParams params, AnalyticsTableType tableType, String sql, int maxLimit )
+    {
+        return new QueryKey()
+            .add( "tableType", tableType )
+            .add( "maxLimit", maxLimit )
+            .add( "params", params.getKey() )
+            .add( "sql", sql ).build();
+    }
+
+    /**
+     * Returns the tags of the given planned query, which are the names of the
+     * table partitions the query reads from, or the name of the analytics
+     * table if the query reads from the table as a whole. The latest partition
+     * is always included for table types which support it, as a latest
+     * partition update also removes updated data from the other partitions.
+     *
+     * @param params the planned {@link DataQueryParams}.
+     * @param tableType the {@link AnalyticsTableType}.
+     * @return a set of tags.
+     */
+    public static Set<String> getTags( DataQueryParams params, AnalyticsTableType tableType )
+    {
+        Set<String> tags = new HashSet<>();
+
+        if ( !params.isSkipPartitioning() && params.hasPartitions() )
+        {
+            params.getPartitions().getPartitions().forEach(
+                partition -> tags.add( PartitionUtils.getPartitionName( params.getTableName(), partition ) ) );
+
+            if ( tableType.hasLatestPartition() )
+            {
+                tags.add( PartitionUtils.getPartitionName( params.getTableName(),
+                    AnalyticsTablePartition.LATEST_PARTITION ) );
+            }
+        }
+        else
+        {
+            tags.add( params.getTableName() );
+        }
+
+        return tags;
+    }
+
+    public Optional<Map<String, Object>> get( String key )
+    {
+        return fragmentCache.getIfPresent( key );
+    }
+
+    /**
+     * Caches the given value map of a planned query. The TTL is set according
+     * to the cache settings available at {@link AnalyticsCacheSettings}.
+     *
+     * @param key the fragment key.
+     * @param tags the table and partition tags of the fragment.
+     * @param params the planned {@link DataQueryParams}.
+     * @param valueMap the value map.
+     */
+    public void put( String key, Set<String> tags, DataQueryParams params, Map<String, Object> valueMap )
+    {
+        long ttl = analyticsCacheSettings.isProgressiveCachingEnabled()
+            ? analyticsCacheSettings.progressiveExpirationTimeOrDefault( params.getLatestEndDate() )
+            : analyticsCacheSettings.fixedExpirationTimeOrDefault();
+
+        fragmentCache.put( key, new HashMap<>( valueMap ), ttl );
+
+        tags.forEach( tag -> tagKeys.computeIfAbsent( tag, t -> ConcurrentHashMap.newKeySet() ).add( key ) );
+
+        if ( putCount.incrementAndGet() % PRUNE_INTERVAL == 0 )
+        {
+            pruneTags();
+        }
+    }
+
+    /**
+     * Invalidates the fragments which were read from the given analytics table
+     * partitions or from their master tables.
+     *
+     * @param partitions the analytics table partitions.
+     */
+    public void invalidatePartitions( Collection<AnalyticsTablePartition> partitions )
+    {
+        Set<String> tags = new HashSet<>();
+
+        partitions.forEach( partition -> {
+            tags.add( partition.getMasterTable().getTableName() );
+            tags.add( partition.getTableName() );
+        } );
+
+        tags.forEach( this::invalidateTag );
+
+        log.info( "Analytics fragment cache invalidated for tables: {}", tags );
+    }
+
+    /**
+     * Invalidates the fragments which were read from the analytics table with
+     * the given name or from any of its partitions.
+     *
+     * @param tableName the analytics table name.
+     */
+    public void invalidateTable( String tableName )
+    {
+        String partitionPrefix = tableName + PartitionUtils.SEP;
+
+        tagKeys.keySet().stream()
+            .filter( tag -> tag.equals( tableName ) || (tag.startsWith( partitionPrefix )
+                && StringUtils.isNumeric( tag.substring( partitionPrefix.length() ) )) )
+            .forEach( this::invalidateTag );
+
+        log.info( "Analytics fragment cache invalidated for table: '{}'", tableName );
+    }
+
+    /**
+     * Event handler for {@link ApplicationCacheClearedEvent}. Clears the cache
+     * by removing all existing fragments and their tags.
+     *
+     * @param event the {@link ApplicationCacheClearedEvent}.
+     */
+    @EventListener
+    public void handleApplicationCachesCleared( ApplicationCacheClearedEvent event )
+    {
+        fragmentCache.invalidateAll();
+        tagKeys.clear();
+
+        log.info( "Analytics fragment cache cleared" );
+    }
+
+    public boolean isEnabled()
+    {
+        return analyticsCacheSettings.isCachingEnabled();
+    }
+
+    private void invalidateTag( String tag )
+    {
+        Set<String> keys = tagKeys.remove( tag );
+
+        if ( keys != null )
+        {
+            keys.forEach( fragmentCache::invalidate );
+        }
+    }
+
+    /**
+     * Removes the keys of fragments which have expired or been evicted from
+     * the cache from the tag mapping, and removes tags without keys. Fragments
+     * leave the cache without notice, so the tag mapping would otherwise grow
+     * for tags which are never invalidated.
+     */
+    void pruneTags()
+    {
+        tagKeys.values().forEach( keys -> keys.removeIf( key -> !fragmentCache.getIfPresent( key ).isPresent() ) );
+        tagKeys.values().removeIf( Set::isEmpty );
+    }
+
+    /**
+     * Returns the tags currently mapped to fragment keys.
+     */
+    Set<String> getTags()
+    {
+        return tagKeys.keySet();
+    }
+}
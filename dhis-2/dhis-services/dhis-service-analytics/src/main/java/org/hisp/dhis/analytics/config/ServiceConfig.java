@@ -27,8 +27,12 @@
  */
 package org.hisp.dhis.analytics.config;
 
+import java.util.concurrent.ThreadPoolExecutor;
+
 import org.hisp.dhis.analytics.AnalyticsTableManager;
+import org.hisp.dhis.analytics.cache.AnalyticsFragmentCache;
 import org.hisp.dhis.analytics.table.DefaultAnalyticsTableService;
+import org.hisp.dhis.commons.util.SystemUtils;
 import org.hisp.dhis.dataelement.DataElementService;
 import org.hisp.dhis.organisationunit.OrganisationUnitService;
 import org.hisp.dhis.resourcetable.ResourceTableService;
@@ -37,6 +41,7 @@ import org.hisp.dhis.system.notification.Notifier;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 /**
  * @author Luciano Fiandesio
@@ -44,73 +49,102 @@ import org.springframework.context.annotation.Configuration;
 @Configuration( "analyticsServiceConfig" )
 public class ServiceConfig
 {
+    /**
+     * Max number of analytics queries waiting for a thread of the query
+     * executor. Further queries run on the calling thread.
+     */
+    private static final int QUERY_EXECUTOR_QUEUE_CAPACITY = 1000;
+
+    /**
+     * Executor for the queries which an analytics request runs in parallel,
+     * shared by all requests and bounded by the number of CPU cores.
+     */
+    @Bean( "analyticsQueryExecutor" )
+    public ThreadPoolTaskExecutor analyticsQueryExecutor()
+    {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize( SystemUtils.getCpuCores() );
+        executor.setMaxPoolSize( SystemUtils.getCpuCores() );
+        executor.setQueueCapacity( QUERY_EXECUTOR_QUEUE_CAPACITY );
+        executor.setRejectedExecutionHandler( new ThreadPoolExecutor.CallerRunsPolicy() );
+        executor.setThreadNamePrefix( "analytics-query-" );
+        return executor;
+    }
+
     @Bean( "org.hisp.dhis.analytics.AnalyticsTableService" )
     public DefaultAnalyticsTableService analyticsTableService(
         @Qualifier( "org.hisp.dhis.analytics.AnalyticsTableManager" ) AnalyticsTableManager tableManager,
         OrganisationUnitService organisationUnitService, DataElementService dataElementService,
-        ResourceTableService resourceTableService, Notifier notifier, SystemSettingManager systemSettingManager )
+        ResourceTableService resourceTableService, Notifier notifier, SystemSettingManager systemSettingManager,
+        AnalyticsFragmentCache fragmentCache )
     {
         return new DefaultAnalyticsTableService( tableManager, organisationUnitService, dataElementService,
-            resourceTableService, notifier, systemSettingManager );
+            resourceTableService, notifier, systemSettingManager, fragmentCache );
     }
 
     @Bean( "org.hisp.dhis.analytics.CompletenessTableService" )
     public DefaultAnalyticsTableService completenessTableService(
         @Qualifier( "org.hisp.dhis.analytics.CompletenessTableManager" ) AnalyticsTableManager tableManager,
         OrganisationUnitService organisationUnitService, DataElementService dataElementService,
-        ResourceTableService resourceTableService, Notifier notifier, SystemSettingManager systemSettingManager )
+        ResourceTableService resourceTableService, Notifier notifier, SystemSettingManager systemSettingManager,
+        AnalyticsFragmentCache fragmentCache )
     {
         return new DefaultAnalyticsTableService( tableManager, organisationUnitService, dataElementService,
-            resourceTableService, notifier, systemSettingManager );
+            resourceTableService, notifier, systemSettingManager, fragmentCache );
     }
 
     @Bean( "org.hisp.dhis.analytics.CompletenessTargetTableService" )
     public DefaultAnalyticsTableService completenessTargetTableService(
         @Qualifier( "org.hisp.dhis.analytics.CompletenessTargetTableManager" ) AnalyticsTableManager tableManager,
         OrganisationUnitService organisationUnitService, DataElementService dataElementService,
-        ResourceTableService resourceTableService, Notifier notifier, SystemSettingManager systemSettingManager )
+        ResourceTableService resourceTableService, Notifier notifier, SystemSettingManager systemSettingManager,
+        AnalyticsFragmentCache fragmentCache )
     {
         return new DefaultAnalyticsTableService( tableManager, organisationUnitService, dataElementService,
-            resourceTableService, notifier, systemSettingManager );
+            resourceTableService, notifier, systemSettingManager, fragmentCache );
     }
 
     @Bean( "org.hisp.dhis.analytics.OrgUnitTargetTableService" )
     public DefaultAnalyticsTableService orgUnitTargetTableService(
         @Qualifier( "org.hisp.dhis.analytics.OrgUnitTargetTableManager" ) AnalyticsTableManager tableManager,
         OrganisationUnitService organisationUnitService, DataElementService dataElementService,
-        ResourceTableService resourceTableService, Notifier notifier, SystemSettingManager systemSettingManager )
+        ResourceTableService resourceTableService, Notifier notifier, SystemSettingManager systemSettingManager,
+        AnalyticsFragmentCache fragmentCache )
     {
         return new DefaultAnalyticsTableService( tableManager, organisationUnitService, dataElementService,
-            resourceTableService, notifier, systemSettingManager );
+            resourceTableService, notifier, systemSettingManager, fragmentCache );
     }
 
     @Bean( "org.hisp.dhis.analytics.EventAnalyticsTableService" )
     public DefaultAnalyticsTableService eventAnalyticsTableService(
         @Qualifier( "org.hisp.dhis.analytics.EventAnalyticsTableManager" ) AnalyticsTableManager tableManager,
         OrganisationUnitService organisationUnitService, DataElementService dataElementService,
-        ResourceTableService resourceTableService, Notifier notifier, SystemSettingManager systemSettingManager )
+        ResourceTableService resourceTableService, Notifier notifier, SystemSettingManager systemSettingManager,
+        AnalyticsFragmentCache fragmentCache )
     {
         return new DefaultAnalyticsTableService( tableManager, organisationUnitService, dataElementService,
-            resourceTableService, notifier, systemSettingManager );
+            resourceTableService, notifier, systemSettingManager, fragmentCache );
     }
 
     @Bean( "org.hisp.dhis.analytics.ValidationResultTableService" )
     public DefaultAnalyticsTableService validationResultTableService(
         @Qualifier( "org.hisp.dhis.analytics.ValidationResultAnalyticsTableManager" ) AnalyticsTableManager tableManager,
         OrganisationUnitService organisationUnitService, DataElementService dataElementService,
-        ResourceTableService resourceTableService, Notifier notifier, SystemSettingManager systemSettingManager )
+        ResourceTableService resourceTableService, Notifier notifier, SystemSettingManager systemSettingManager,
+        AnalyticsFragmentCache fragmentCache )
     {
         return new DefaultAnalyticsTableService( tableManager, organisationUnitService, dataElementService,
-            resourceTableService, notifier, systemSettingManager );
+            resourceTableService, notifier, systemSettingManager, fragmentCache );
     }
 
     @Bean( "org.hisp.dhis.analytics.EnrollmentAnalyticsTableService" )
     public DefaultAnalyticsTableService enrollmentAnalyticsTableManager(
         @Qualifier( "org.hisp.dhis.analytics.EnrollmentAnalyticsTableManager" ) AnalyticsTableManager tableManager,
         OrganisationUnitService organisationUnitService, DataElementService dataElementService,
-        ResourceTableService resourceTableService, Notifier notifier, SystemSettingManager systemSettingManager )
+        ResourceTableService resourceTableService, Notifier notifier, SystemSettingManager systemSettingManager,
+        AnalyticsFragmentCache fragmentCache )
     {
         return new DefaultAnalyticsTableService( tableManager, organisationUnitService, dataElementService,
-            resourceTableService, notifier, systemSettingManager );
+            resourceTableService, notifier, systemSettingManager, fragmentCache );
     }
 }
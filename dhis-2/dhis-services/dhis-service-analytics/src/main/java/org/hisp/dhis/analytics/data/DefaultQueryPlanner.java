@@ -30,12 +30,15 @@ package org.hisp.dhis.analytics.data;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static org.hisp.dhis.analytics.DataQueryParams.LEVEL_PREFIX;
 import static org.hisp.dhis.analytics.util.AnalyticsUtils.throwIllegalQueryEx;
+import static org.hisp.dhis.common.DimensionalObject.ATTRIBUTEOPTIONCOMBO_DIM_ID;
+import static org.hisp.dhis.common.DimensionalObject.CATEGORYOPTIONCOMBO_DIM_ID;
 import static org.hisp.dhis.common.DimensionalObject.DATA_X_DIM_ID;
 import static org.hisp.dhis.common.DimensionalObject.ORGUNIT_DIM_ID;
 import static org.hisp.dhis.common.DimensionalObject.PERIOD_DIM_ID;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 import java.util.function.Function;
 
 import lombok.extern.slf4j.Slf4j;
@@ -65,12 +68,16 @@ import org.hisp.dhis.dataelement.DataElementGroup;
 import org.hisp.dhis.feedback.ErrorCode;
 import org.hisp.dhis.period.Period;
 import org.hisp.dhis.period.PeriodType;
+import org.hisp.dhis.period.YearlyPeriodType;
+import org.hisp.dhis.setting.SettingKey;
+import org.hisp.dhis.setting.SystemSettingManager;
 import org.hisp.dhis.system.util.MathUtils;
 import org.hisp.dhis.util.ObjectUtils;
 import org.springframework.stereotype.Component;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 
 /**
  * @author Lars Helge Overland
@@ -84,13 +91,18 @@ public class DefaultQueryPlanner
 
     private final PartitionManager partitionManager;
 
-    public DefaultQueryPlanner( QueryValidator queryValidator, PartitionManager partitionManager )
+    private final SystemSettingManager systemSettingManager;
+
+    public DefaultQueryPlanner( QueryValidator queryValidator, PartitionManager partitionManager,
+        SystemSettingManager systemSettingManager )
     {
         checkNotNull( queryValidator );
         checkNotNull( partitionManager );
+        checkNotNull( systemSettingManager );
 
         this.queryValidator = queryValidator;
         this.partitionManager = partitionManager;
+        this.systemSettingManager = systemSettingManager;
     }
 
     // -------------------------------------------------------------------------
@@ -131,6 +143,8 @@ public class DefaultQueryPlanner
             currentQueries.forEach( query -> queries.addAll( grouper.apply( query ) ) );
         }
 
+        withRollupTable( queries, plannerParams );
+
         // ---------------------------------------------------------------------
         // Split queries until optimal number
         // ---------------------------------------------------------------------
@@ -192,6 +206,82 @@ public class DefaultQueryPlanner
     // Supportive split methods
     // -------------------------------------------------------------------------
 
+    /**
+     * Routes the queries which can be answered by the rollup table to the
+     * rollup table. Queries are routed only if a rollup organisation unit
+     * level is configured and the rollup table for that level exists.
+     *
+     * @param queries the list of planned queries.
+     * @param plannerParams the {@link QueryPlannerParams}.
+     */
+    private void withRollupTable( List<DataQueryParams> queries, QueryPlannerParams plannerParams )
+    {
+        Integer rollupLevel = systemSettingManager.getIntegerSetting( SettingKey.ANALYTICS_ROLLUP_ORG_UNIT_LEVEL );
+
+        if ( AnalyticsTableType.DATA_VALUE != plannerParams.getTableType() || rollupLevel == null
+            || rollupLevel <= 0 || queries.stream().noneMatch( q -> isRollupTableApplicable( q, rollupLevel ) ) )
+        {
+            return;
+        }
+
+        String rollupTable = PartitionUtils.getRollupTableName( plannerParams.getTableType(), rollupLevel );
+
+        if ( !partitionManager.tableExists( rollupTable ) )
+        {
+            return;
+        }
+
+        queries.replaceAll( query -> {
+            if ( isRollupTableApplicable( query, rollupLevel ) )
+            {
+                log.debug( "Routing query to rollup table: '{}'", rollupTable );
+
+                return DataQueryParams.newBuilder( query )
+                    .withTableName( rollupTable )
+                    .withSkipPartitioning( true )
+                    .build();
+            }
+
+            return query;
+        } );
+    }
+
+    /**
+     * Indicates whether the given planned query can be answered by the rollup
+     * table for the given organisation unit level. This is the case for sums
+     * of non-text values where the query only refers to data, category option
+     * combination, attribute option combination, yearly period and
+     * organisation unit level dimensions up to the rollup level, and has no
+     * criteria which require the individual analytics table rows.
+     *
+     * @param params the planned {@link DataQueryParams}.
+     * @param rollupLevel the organisation unit level of the rollup table.
+     */
+    boolean isRollupTableApplicable( DataQueryParams params, int rollupLevel )
+    {
+        AnalyticsAggregationType aggType = params.getAggregationType();
+
+        if ( aggType == null || !aggType.isAggregationType( AggregationType.SUM )
+            || !aggType.isPeriodAggregationType( AggregationType.SUM ) || params.isDataType( DataType.TEXT )
+            || params.isDisaggregation() || params.isDataApproval() || params.hasMeasureCriteria()
+            || params.hasPreAggregateMeasureCriteria() || params.hasStartEndDate()
+            || params.hasStartEndDateRestriction() || params.isTimely() )
+        {
+            return false;
+        }
+
+        Set<String> columns = Sets.newHashSet( DATA_X_DIM_ID, CATEGORYOPTIONCOMBO_DIM_ID,
+            ATTRIBUTEOPTIONCOMBO_DIM_ID, YearlyPeriodType.NAME.toLowerCase() );
+
+        for ( int level = 1; level <= rollupLevel; level++ )
+        {
+            columns.add( LEVEL_PREFIX + level );
+        }
+
+        return params.getDimensionsAndFilters().stream()
+            .allMatch( dim -> !dim.isFixed() && columns.contains( dim.getDimensionName() ) );
+    }
+
     /**
      * Splits the given list of queries in sub queries on the given dimension.
      *
@@ -56,6 +56,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.Future;
 import java.util.stream.Collectors;
@@ -70,6 +71,9 @@ import org.hisp.dhis.analytics.DataQueryParams;
 import org.hisp.dhis.analytics.DataType;
 import org.hisp.dhis.analytics.MeasureFilter;
 import org.hisp.dhis.analytics.QueryPlanner;
+import org.hisp.dhis.analytics.admission.AnalyticsAdmissionController;
+import org.hisp.dhis.analytics.admission.AnalyticsAdmissionController.Permit;
+import org.hisp.dhis.analytics.cache.AnalyticsFragmentCache;
 import org.hisp.dhis.analytics.table.PartitionUtils;
 import org.hisp.dhis.analytics.util.AnalyticsSqlUtils;
 import org.hisp.dhis.analytics.util.AnalyticsUtils;
@@ -127,14 +131,23 @@ public class JdbcAnalyticsManager
 
     private final JdbcTemplate jdbcTemplate;
 
+    private final AnalyticsFragmentCache fragmentCache;
+
+    private final AnalyticsAdmissionController admissionController;
+
     public JdbcAnalyticsManager( QueryPlanner queryPlanner,
-        @Qualifier( "readOnlyJdbcTemplate" ) JdbcTemplate jdbcTemplate )
+        @Qualifier( "readOnlyJdbcTemplate" ) JdbcTemplate jdbcTemplate, AnalyticsFragmentCache fragmentCache,
+        AnalyticsAdmissionController admissionController )
     {
         checkNotNull( queryPlanner );
         checkNotNull( jdbcTemplate );
+        checkNotNull( fragmentCache );
+        checkNotNull( admissionController );
 
         this.queryPlanner = queryPlanner;
-        this.jdbcTemplate = jdbcTemplate;
+        this.jdbcTemplate = withQueryTimeout( jdbcTemplate, admissionController.getQueryTimeout() );
+        this.fragmentCache = fragmentCache;
+        this.admissionController = admissionController;
     }
 
     // -------------------------------------------------------------------------
@@ -177,9 +190,23 @@ public class JdbcAnalyticsManager
 
             log.debug( sql );
 
+            String fragmentKey = null;
+
+            if ( fragmentCache.isEnabled() )
+            {
+                fragmentKey = AnalyticsFragmentCache.getKey( params, tableType, sql, maxLimit );
+
+                Optional<Map<String, Object>> fragment = fragmentCache.get( fragmentKey );
+
+                if ( fragment.isPresent() )
+                {
+                    return new AsyncResult<>( new HashMap<>( fragment.get() ) );
+                }
+            }
+
             Map<String, Object> map;
 
-            try
+            try ( Permit permit = admissionController.acquire( params.getQueryOrigin() ) )
             {
                 map = getKeyValueMap( params, sql, maxLimit );
             }
@@ -191,6 +218,11 @@ public class JdbcAnalyticsManager
 
             replaceDataPeriodsWithAggregationPeriods( map, params, dataPeriodAggregationPeriodMap );
 
+            if ( fragmentKey != null )
+            {
+                fragmentCache.put( fragmentKey, AnalyticsFragmentCache.getTags( params, tableType ), params, map );
+            }
+
             return new AsyncResult<>( map );
         }
         catch ( DataAccessResourceFailureException ex )
@@ -268,6 +300,29 @@ public class JdbcAnalyticsManager
     // Supportive methods
     // -------------------------------------------------------------------------
 
+    /**
+     * Returns a JDBC template based on the given template which cancels
+     * statements running longer than the given timeout. Returns the given
+     * template if the timeout is not positive.
+     *
+     * @param jdbcTemplate the {@link JdbcTemplate}.
+     * @param queryTimeout the query timeout in seconds.
+     */
+    private static JdbcTemplate withQueryTimeout( JdbcTemplate jdbcTemplate, int queryTimeout )
+    {
+        if ( queryTimeout <= 0 || jdbcTemplate.getDataSource() == null )
+        {
+            return jdbcTemplate;
+        }
+
+        JdbcTemplate template = new JdbcTemplate( jdbcTemplate.getDataSource() );
+        template.setFetchSize( jdbcTemplate.getFetchSize() );
+        template.setMaxRows( jdbcTemplate.getMaxRows() );
+        template.setQueryTimeout( queryTimeout );
+
+        return template;
+    }
+
     /**
      * Generates the select clause of the query SQL.
      */
@@ -30,6 +30,8 @@ package org.hisp.dhis.analytics.data.handler;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.collect.Lists.newArrayList;
 import static java.lang.Math.min;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.emptySet;
 import static java.util.Collections.singletonList;
 import static org.apache.commons.collections4.CollectionUtils.isEmpty;
 import static org.apache.commons.collections4.CollectionUtils.isNotEmpty;
@@ -95,6 +97,7 @@ import static org.hisp.dhis.common.ReportingRateMetric.REPORTING_RATE_ON_TIME;
 import static org.hisp.dhis.commons.util.DebugUtils.getStackTrace;
 import static org.hisp.dhis.commons.util.SystemUtils.getCpuCores;
 import static org.hisp.dhis.dataelement.DataElementOperand.TotalType.values;
+import static org.hisp.dhis.expression.ParseType.INDICATOR_EXPRESSION;
 import static org.hisp.dhis.period.PeriodType.getPeriodTypeFromIsoString;
 import static org.hisp.dhis.setting.SettingKey.ANALYTICS_MAX_LIMIT;
 import static org.hisp.dhis.setting.SettingKey.DATABASE_SERVER_CPUS;
@@ -107,11 +110,13 @@ import static org.hisp.dhis.util.ObjectUtils.firstNonNull;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Future;
 import java.util.function.Function;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 import lombok.extern.slf4j.Slf4j;
@@ -127,6 +132,7 @@ import org.hisp.dhis.analytics.QueryPlanner;
 import org.hisp.dhis.analytics.QueryPlannerParams;
 import org.hisp.dhis.analytics.QueryValidator;
 import org.hisp.dhis.analytics.RawAnalyticsManager;
+import org.hisp.dhis.analytics.admission.AnalyticsAdmissionController;
 import org.hisp.dhis.analytics.event.EventAnalyticsService;
 import org.hisp.dhis.analytics.event.EventQueryParams;
 import org.hisp.dhis.analytics.resolver.ExpressionResolver;
@@ -167,6 +173,9 @@ public class DataHandler
 
     private static final int PERCENT = 100;
 
+    private static final Pattern NULL_TESTING_FUNCTION_PATTERN = Pattern
+        .compile( "\\b(isNull|isNotNull|firstNonNull)\\s*\\(" );
+
     private final EventAnalyticsService eventAnalyticsService;
 
     private final RawAnalyticsManager rawAnalyticsManager;
@@ -187,12 +196,15 @@ public class DataHandler
 
     private final OrganisationUnitService organisationUnitService;
 
+    private final AnalyticsAdmissionController admissionController;
+
     private DataAggregator dataAggregator;
 
     public DataHandler( EventAnalyticsService eventAnalyticsService, RawAnalyticsManager rawAnalyticsManager,
         ConstantService constantService, ExpressionResolvers resolvers, ExpressionService expressionService,
         QueryPlanner queryPlanner, QueryValidator queryValidator, SystemSettingManager systemSettingManager,
-        AnalyticsManager analyticsManager, OrganisationUnitService organisationUnitService )
+        AnalyticsManager analyticsManager, OrganisationUnitService organisationUnitService,
+        AnalyticsAdmissionController admissionController )
     {
         checkNotNull( eventAnalyticsService );
         checkNotNull( rawAnalyticsManager );
@@ -204,6 +216,7 @@ public class DataHandler
         checkNotNull( systemSettingManager );
         checkNotNull( analyticsManager );
         checkNotNull( organisationUnitService );
+        checkNotNull( admissionController );
 
         this.eventAnalyticsService = eventAnalyticsService;
         this.rawAnalyticsManager = rawAnalyticsManager;
@@ -215,6 +228,7 @@ public class DataHandler
         this.systemSettingManager = systemSettingManager;
         this.analyticsManager = analyticsManager;
         this.organisationUnitService = organisationUnitService;
+        this.admissionController = admissionController;
     }
 
     /**
@@ -260,63 +274,122 @@ public class DataHandler
 
             handleEmptyDimensionItemPermutations( dimensionItemPermutations );
 
+            // -----------------------------------------------------------------
+            // Resolve the input of each permutation once for all indicators,
+            // in lists aligned on the permutation index
+            // -----------------------------------------------------------------
+
+            final int permutationCount = dimensionItemPermutations.size();
+
+            List<Map<DimensionalItemObject, Object>> permutationValueMaps = new ArrayList<>( permutationCount );
+            List<List<Period>> permutationPeriods = new ArrayList<>( permutationCount );
+            List<Map<String, Integer>> permutationOrgUnitCountMaps = new ArrayList<>( permutationCount );
+
+            for ( List<DimensionItem> dimensionItems : dimensionItemPermutations )
+            {
+                List<DimensionItemObjectValue> values = permutationDimensionItemValueMap
+                    .getOrDefault( asItemKey( dimensionItems ), emptyList() );
+
+                OrganisationUnit unit = (OrganisationUnit) getOrganisationUnitItem( dimensionItems );
+
+                String ou = unit != null ? unit.getUid() : null;
+
+                permutationValueMaps.add( convertToDimItemValueMap( values ) );
+                permutationPeriods.add( !filterPeriods.isEmpty() ? filterPeriods
+                    : singletonList( (Period) getPeriodItem( dimensionItems ) ) );
+                permutationOrgUnitCountMaps.add( permutationOrgUnitTargetMap != null
+                    ? permutationOrgUnitTargetMap.get( ou )
+                    : null );
+            }
+
             for ( Indicator indicator : indicators )
             {
-                for ( List<DimensionItem> dimensionItems : dimensionItemPermutations )
+                Set<DimensionalItemObject> numeratorItems = getExpressionItems( indicator.getNumerator(), itemMap );
+                Set<DimensionalItemObject> denominatorItems = getExpressionItems( indicator.getDenominator(),
+                    itemMap );
+
+                for ( int i = 0; i < permutationCount; i++ )
                 {
-                    IndicatorValue value = getIndicatorValue( filterPeriods, constantMap, itemMap,
-                        permutationOrgUnitTargetMap, permutationDimensionItemValueMap, indicator, dimensionItems );
+                    Map<DimensionalItemObject, Object> valueMap = permutationValueMaps.get( i );
+
+                    if ( hasAnyValue( numeratorItems, valueMap ) && hasAnyValue( denominatorItems, valueMap ) )
+                    {
+                        IndicatorValue value = expressionService.getIndicatorValueObject( indicator,
+                            permutationPeriods.get( i ), itemMap, valueMap, constantMap,
+                            permutationOrgUnitCountMaps.get( i ) );
 
-                    addIndicatorValuesToGrid( params, grid, dataSourceParams, indicator, dimensionItems, value );
+                        addIndicatorValuesToGrid( params, grid, dataSourceParams, indicator,
+                            dimensionItemPermutations.get( i ), value );
+                    }
                 }
             }
         }
     }
 
     /**
-     * Based on the given Indicator plus additional parameters, this method will
-     * find the respective IndicatorValue.
+     * Returns the dimensional items of the given indicator expression. Returns
+     * an empty set if the expression has no items, if any item cannot be
+     * resolved or if the expression contains a function which tests for
+     * missing values, meaning that the expression must always be evaluated.
+     * Such functions, like isNull and firstNonNull, may produce a value when
+     * all items are missing.
      *
-     * @param filterPeriods the filter periods.
-     * @param constantMap the current constants map.
-     *        See @{{@link ConstantService#getConstantMap()}}.
-     * @param permutationOrgUnitTargetMap the org unit permutation map. See
-     *        {@link #getOrgUnitTargetMap(DataQueryParams, Collection)}.
-     * @param itemMap Every dimensional item to process.
-     * @param permutationDimensionItemValueMap the dimension item permutation
-     *        map. See
-     *        {@link #getPermutationDimensionItemValueMap(DataQueryParams,
-     *        List<DimensionalItemObject>)}.
-     * @param indicator the input Indicator where the IndicatorValue will be
-     *        based.
-     * @param dimensionItems the dimensional items permutation map. See
-     *        {@link DataQueryParams#getDimensionItemPermutations()}.
-     * @return the IndicatorValue
+     * @param expression the indicator expression.
+     * @param itemMap the map of resolved dimensional items.
+     * @return a set of {@link DimensionalItemObject}.
      */
-    private IndicatorValue getIndicatorValue( List<Period> filterPeriods, Map<String, Constant> constantMap,
-        Map<DimensionalItemId, DimensionalItemObject> itemMap,
-        Map<String, Map<String, Integer>> permutationOrgUnitTargetMap,
-        Map<String, List<DimensionItemObjectValue>> permutationDimensionItemValueMap,
-        Indicator indicator, List<DimensionItem> dimensionItems )
+    Set<DimensionalItemObject> getExpressionItems( String expression,
+        Map<DimensionalItemId, DimensionalItemObject> itemMap )
     {
-        String permKey = asItemKey( dimensionItems );
+        if ( expression == null || NULL_TESTING_FUNCTION_PATTERN.matcher( expression ).find() )
+        {
+            return emptySet();
+        }
 
-        final List<DimensionItemObjectValue> values = permutationDimensionItemValueMap
-            .getOrDefault( permKey, new ArrayList<>() );
+        Set<DimensionalItemObject> items = new HashSet<>();
 
-        List<Period> periods = !filterPeriods.isEmpty() ? filterPeriods
-            : singletonList( (Period) getPeriodItem( dimensionItems ) );
+        for ( DimensionalItemId itemId : expressionService.getExpressionDimensionalItemIds( expression,
+            INDICATOR_EXPRESSION ) )
+        {
+            DimensionalItemObject item = itemMap.get( itemId );
 
-        OrganisationUnit unit = (OrganisationUnit) getOrganisationUnitItem( dimensionItems );
+            if ( item == null )
+            {
+                return emptySet();
+            }
 
-        String ou = unit != null ? unit.getUid() : null;
+            items.add( item );
+        }
 
-        Map<String, Integer> orgUnitCountMap = permutationOrgUnitTargetMap != null
-            ? permutationOrgUnitTargetMap.get( ou )
-            : null;
+        return items;
+    }
 
-        return expressionService.getIndicatorValueObject( indicator, periods, itemMap,
-            convertToDimItemValueMap( values ), constantMap, orgUnitCountMap );
+    /**
+     * Indicates whether any of the given items has a value in the given value
+     * map. Indicator expressions are evaluated with the skip if all values
+     * missing strategy, so an expression where no item has a value evaluates
+     * to null and does not need to be evaluated.
+     *
+     * @param items the expression items, empty if the expression must always
+     *        be evaluated.
+     * @param valueMap the map of item values of a permutation.
+     */
+    private boolean hasAnyValue( Set<DimensionalItemObject> items, Map<DimensionalItemObject, Object> valueMap )
+    {
+        if ( items.isEmpty() )
+        {
+            return true;
+        }
+
+        for ( DimensionalItemObject item : items )
+        {
+            if ( valueMap.get( item ) != null )
+            {
+                return true;
+            }
+        }
+
+        return false;
     }
 
     /**
@@ -1084,6 +1157,13 @@ public class DataHandler
 
         Timer timer = new Timer().start().disablePrint();
 
+        if ( admissionController.isEnabled() && params.getQueryOrigin() == null )
+        {
+            params = newBuilder( params )
+                .withQueryOrigin( admissionController.getCurrentOrigin() )
+                .build();
+        }
+
         QueryPlannerParams plannerParams = QueryPlannerParams.newBuilder()
             .withOptimalQueries( optimalQueries )
             .withTableType( tableType )
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.analytics.event;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import org.apache.commons.lang3.StringUtils;
+import org.hisp.dhis.common.CodeGenerator;
+
+/**
+ * Encodes and decodes the opaque continuation tokens used for cursor based
+ * paging of event and enrollment queries. A token holds the identifier of the
+ * last event or enrollment of the previous page. Identifiers are unique across
+ * all yearly partitions of the analytics tables, hence the identifier alone
+ * gives a stable total order over the partitioned table.
+ */
+public final class EventPagingCursor
+{
+    private EventPagingCursor()
+    {
+        throw new UnsupportedOperationException( "util" );
+    }
+
+    /**
+     * Encodes the given event or enrollment identifier into a cursor token.
+     *
+     * @param key the identifier of the last row of a page.
+     * @return a cursor token.
+     */
+    public static String encode( String key )
+    {
+        return Base64.getUrlEncoder().withoutPadding()
+            .encodeToString( key.getBytes( StandardCharsets.UTF_8 ) );
+    }
+
+    /**
+     * Decodes the given cursor token. Returns null if the cursor is blank,
+     * which represents the first page.
+     *
+     * @param cursor the cursor token.
+     * @return the identifier of the last row of the previous page, or null.
+     * @throws IllegalArgumentException if the cursor is not valid.
+     */
+    public static String decode( String cursor )
+    {
+        if ( StringUtils.isBlank( cursor ) )
+        {
+            return null;
+        }
+
+        String key = new String( Base64.getUrlDecoder().decode( cursor ), StandardCharsets.UTF_8 );
+
+        if ( !CodeGenerator.isValidUid( key ) )
+        {
+            throw new IllegalArgumentException( "Cursor does not refer to a valid identifier: " + cursor );
+        }
+
+        return key;
+    }
+
+    /**
+     * Indicates whether the given cursor token is valid.
+     *
+     * @param cursor the cursor token.
+     * @return true if the cursor is blank or valid.
+     */
+    public static boolean isValid( String cursor )
+    {
+        try
+        {
+            decode( cursor );
+            return true;
+        }
+        catch ( IllegalArgumentException ex )
+        {
+            return false;
+        }
+    }
+}
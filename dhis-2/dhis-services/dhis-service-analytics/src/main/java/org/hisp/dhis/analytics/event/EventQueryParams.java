@@ -153,6 +153,11 @@ public class EventQueryParams
      */
     private boolean paging;
 
+    /**
+     * The paging cursor, indicates cursor based paging when not null.
+     */
+    private String cursor;
+
     /**
      * The value sort order.
      */
@@ -295,6 +300,7 @@ public class EventQueryParams
         params.page = this.page;
         params.pageSize = this.pageSize;
         params.paging = this.paging;
+        params.cursor = this.cursor;
         params.sortOrder = this.sortOrder;
         params.limit = this.limit;
         params.outputType = this.outputType;
@@ -404,6 +410,7 @@ public class EventQueryParams
             .addIgnoreNull( "page", page )
             .addIgnoreNull( "pageSize", pageSize )
             .addIgnoreNull( "paging", paging )
+            .addIgnoreNull( "cursor", cursor )
             .addIgnoreNull( "sortOrder", sortOrder )
             .addIgnoreNull( "limit", limit )
             .addIgnoreNull( "outputType", outputType )
@@ -754,6 +761,15 @@ public class EventQueryParams
         return pageSize != null && pageSize >= 0 ? pageSize : 50;
     }
 
+    /**
+     * Indicates whether rows are paged by cursor, i.e. by event or enrollment
+     * identifier, instead of by offset.
+     */
+    public boolean isCursorPaging()
+    {
+        return cursor != null;
+    }
+
     public int getOffset()
     {
         return (getPageWithDefault() - 1) * getPageSizeWithDefault();
@@ -939,6 +955,11 @@ public class EventQueryParams
         return paging;
     }
 
+    public String getCursor()
+    {
+        return cursor;
+    }
+
     public SortOrder getSortOrder()
     {
         return sortOrder;
@@ -1232,6 +1253,12 @@ public class EventQueryParams
             return this;
         }
 
+        public Builder withCursor( String cursor )
+        {
+            this.params.cursor = cursor;
+            return this;
+        }
+
         public Builder withPartitions( Partitions partitions )
         {
             this.params.partitions = partitions;
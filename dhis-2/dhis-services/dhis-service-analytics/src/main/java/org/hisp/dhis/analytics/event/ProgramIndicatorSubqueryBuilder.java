@@ -27,6 +27,7 @@
  */
 package org.hisp.dhis.analytics.event;
 
+import java.util.Collection;
 import java.util.Date;
 
 import org.hisp.dhis.program.AnalyticsType;
@@ -103,4 +104,21 @@ public interface ProgramIndicatorSubqueryBuilder
      */
     String getAggregateClauseForProgramIndicator( ProgramIndicator programIndicator, RelationshipType relationshipType,
         AnalyticsType outerSqlEntity, Date earliestStartDate, Date latestDate );
+
+    /**
+     * Generates a complete query which fetches the aggregated values of the
+     * Program Indicator for the given enrollments, as a set-based alternative
+     * to the correlated sub-query. The query returns the enrollment identifier
+     * in the first column and the Program Indicator value in the second
+     * column, one row per enrollment with matching data.
+     *
+     * @param programIndicator a {@see ProgramIndicator} object
+     * @param enrollments the identifiers of the enrollments
+     * @param earliestStartDate reporting start date
+     * @param latestDate reporting end date
+     *
+     * @return a String containing a Program Indicator query
+     */
+    String getAggregateQueryForEnrollments( ProgramIndicator programIndicator, Collection<String> enrollments,
+        Date earliestStartDate, Date latestDate );
 }
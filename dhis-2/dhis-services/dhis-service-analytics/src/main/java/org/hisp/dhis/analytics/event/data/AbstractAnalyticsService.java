@@ -45,6 +45,7 @@ import java.util.List;
 import java.util.Map;
 
 import org.hisp.dhis.analytics.AnalyticsSecurityManager;
+import org.hisp.dhis.analytics.event.EventPagingCursor;
 import org.hisp.dhis.analytics.event.EventQueryParams;
 import org.hisp.dhis.analytics.event.EventQueryValidator;
 import org.hisp.dhis.analytics.util.AnalyticsUtils;
@@ -130,6 +131,8 @@ public abstract class AbstractAnalyticsService
 
         long count = addEventData( grid, params );
 
+        String nextCursor = params.isCursorPaging() ? removeLookAheadRow( params, grid ) : null;
+
         // ---------------------------------------------------------------------
         // Meta-data
         // ---------------------------------------------------------------------
@@ -149,7 +152,14 @@ public abstract class AbstractAnalyticsService
         // Paging
         // ---------------------------------------------------------------------
 
-        if ( params.isPaging() )
+        if ( params.isCursorPaging() )
+        {
+            if ( nextCursor != null )
+            {
+                grid.getMetaData().put( NEXT_CURSOR.getKey(), nextCursor );
+            }
+        }
+        else if ( params.isPaging() )
         {
             Pager pager = new Pager( params.getPageWithDefault(), count, params.getPageSizeWithDefault() );
 
@@ -159,6 +169,33 @@ public abstract class AbstractAnalyticsService
         return grid;
     }
 
+    /**
+     * Removes the look-ahead row fetched by cursor paged queries and, if it was
+     * present, returns the cursor of the next page. The row is removed before
+     * the meta data is built, so that the meta data only describes the rows of
+     * the page. The first column of event and enrollment grids holds the
+     * identifier which rows are ordered by.
+     *
+     * @param params the {@link EventQueryParams}.
+     * @param grid the {@link Grid}.
+     * @return the cursor of the next page, or null if this is the last page.
+     */
+    private String removeLookAheadRow( EventQueryParams params, Grid grid )
+    {
+        int pageSize = params.getPageSizeWithDefault();
+
+        if ( pageSize > 0 && grid.getHeight() > pageSize )
+        {
+            grid.limitGrid( pageSize );
+
+            String lastKey = String.valueOf( grid.getValue( pageSize - 1, 0 ) );
+
+            return EventPagingCursor.encode( lastKey );
+        }
+
+        return null;
+    }
+
     protected abstract Grid createGridWithHeaders( EventQueryParams params );
 
     protected abstract long addEventData( Grid grid, EventQueryParams params );
@@ -39,8 +39,12 @@ import static org.hisp.dhis.analytics.util.AnalyticsSqlUtils.quoteAlias;
 import static org.hisp.dhis.common.DimensionalObjectUtils.COMPOSITE_DIM_OBJECT_PLAIN_SEP;
 import static org.hisp.dhis.system.util.MathUtils.getRounded;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.util.Date;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -48,6 +52,10 @@ import org.apache.commons.lang3.StringUtils;
 import org.hisp.dhis.analytics.AggregationType;
 import org.hisp.dhis.analytics.EventOutputType;
 import org.hisp.dhis.analytics.SortOrder;
+import org.hisp.dhis.analytics.admission.AnalyticsAdmissionController;
+import org.hisp.dhis.analytics.admission.AnalyticsAdmissionController.Permit;
+import org.hisp.dhis.analytics.admission.AnalyticsQueryOrigin;
+import org.hisp.dhis.analytics.event.EventPagingCursor;
 import org.hisp.dhis.analytics.event.EventQueryParams;
 import org.hisp.dhis.analytics.event.ProgramIndicatorSubqueryBuilder;
 import org.hisp.dhis.analytics.util.AnalyticsUtils;
@@ -71,7 +79,9 @@ import org.hisp.dhis.program.ProgramIndicatorService;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.dao.DataAccessResourceFailureException;
 import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.rowset.ResultSetWrappingSqlRowSet;
 import org.springframework.jdbc.support.rowset.SqlRowSet;
 import org.springframework.util.Assert;
 
@@ -91,6 +101,12 @@ public abstract class AbstractJdbcEventAnalyticsManager
 
     protected static final int LAST_VALUE_YEARS_OFFSET = -10;
 
+    /**
+     * The number of rows fetched per round trip when streaming rows of cursor
+     * paged queries.
+     */
+    protected static final int STREAM_FETCH_SIZE = 1000;
+
     protected final JdbcTemplate jdbcTemplate;
 
     protected final StatementBuilder statementBuilder;
@@ -99,19 +115,24 @@ public abstract class AbstractJdbcEventAnalyticsManager
 
     protected final ProgramIndicatorSubqueryBuilder programIndicatorSubqueryBuilder;
 
+    protected final AnalyticsAdmissionController admissionController;
+
     public AbstractJdbcEventAnalyticsManager( @Qualifier( "readOnlyJdbcTemplate" ) JdbcTemplate jdbcTemplate,
         StatementBuilder statementBuilder, ProgramIndicatorService programIndicatorService,
-        ProgramIndicatorSubqueryBuilder programIndicatorSubqueryBuilder )
+        ProgramIndicatorSubqueryBuilder programIndicatorSubqueryBuilder,
+        AnalyticsAdmissionController admissionController )
     {
         checkNotNull( jdbcTemplate );
         checkNotNull( statementBuilder );
         checkNotNull( programIndicatorService );
         checkNotNull( programIndicatorSubqueryBuilder );
+        checkNotNull( admissionController );
 
         this.jdbcTemplate = jdbcTemplate;
         this.statementBuilder = statementBuilder;
         this.programIndicatorService = programIndicatorService;
         this.programIndicatorSubqueryBuilder = programIndicatorSubqueryBuilder;
+        this.admissionController = admissionController;
     }
 
     /**
@@ -135,6 +156,31 @@ public abstract class AbstractJdbcEventAnalyticsManager
         return sql;
     }
 
+    /**
+     * Returns an SQL keyset paging clause for cursor paged queries. Rows are
+     * ordered by the key column and, if the cursor refers to a previous page,
+     * restricted to keys after the last key of that page. One row more than
+     * the page size is fetched to tell whether a next page exists.
+     *
+     * @param params the {@link EventQueryParams}.
+     */
+    private String getCursorPagingClause( EventQueryParams params )
+    {
+        String keyColumn = quoteAlias( getKeyColumn() );
+        String lastKey = EventPagingCursor.decode( params.getCursor() );
+
+        String sql = "";
+
+        if ( lastKey != null )
+        {
+            sql += "and " + keyColumn + " > " + statementBuilder.encode( lastKey ) + " ";
+        }
+
+        sql += "order by " + keyColumn + " limit " + (params.getPageSizeWithDefault() + 1);
+
+        return sql;
+    }
+
     /**
      * Returns an SQL sort clause.
      *
@@ -255,22 +301,7 @@ public abstract class AbstractJdbcEventAnalyticsManager
         {
             if ( queryItem.isProgramIndicator() )
             {
-                ProgramIndicator in = (ProgramIndicator) queryItem.getItem();
-
-                String asClause = " as " + quote( in.getUid() );
-
-                if ( queryItem.hasRelationshipType() )
-                {
-                    columns.add( programIndicatorSubqueryBuilder.getAggregateClauseForProgramIndicator( in,
-                        queryItem.getRelationshipType(), getAnalyticsType(), params.getEarliestStartDate(),
-                        params.getLatestEndDate() ) + asClause );
-                }
-                else
-                {
-                    columns.add( programIndicatorSubqueryBuilder.getAggregateClauseForProgramIndicator( in,
-                        getAnalyticsType(), params.getEarliestStartDate(), params.getLatestEndDate() ) + asClause );
-                }
-
+                columns.add( getProgramIndicatorColumn( params, queryItem ) );
             }
             else if ( ValueType.COORDINATE == queryItem.getValueType() )
             {
@@ -300,6 +331,32 @@ public abstract class AbstractJdbcEventAnalyticsManager
         return columns;
     }
 
+    /**
+     * Returns the select column for the given program indicator query item,
+     * which is a sub-query computing the program indicator value.
+     *
+     * @param params the {@link EventQueryParams}.
+     * @param queryItem the program indicator {@link QueryItem}.
+     */
+    protected String getProgramIndicatorColumn( EventQueryParams params, QueryItem queryItem )
+    {
+        ProgramIndicator in = (ProgramIndicator) queryItem.getItem();
+
+        String asClause = " as " + quote( in.getUid() );
+
+        if ( queryItem.hasRelationshipType() )
+        {
+            return programIndicatorSubqueryBuilder.getAggregateClauseForProgramIndicator( in,
+                queryItem.getRelationshipType(), getAnalyticsType(), params.getEarliestStartDate(),
+                params.getLatestEndDate() ) + asClause;
+        }
+        else
+        {
+            return programIndicatorSubqueryBuilder.getAggregateClauseForProgramIndicator( in,
+                getAnalyticsType(), params.getEarliestStartDate(), params.getLatestEndDate() ) + asClause;
+        }
+    }
+
     public Grid getAggregatedEventData( EventQueryParams params, Grid grid, int maxLimit )
     {
         String countClause = getAggregateClause( params );
@@ -373,7 +430,7 @@ public abstract class AbstractJdbcEventAnalyticsManager
     {
         log.debug( "Analytics enrollment aggregate SQL: " + sql );
 
-        SqlRowSet rowSet = jdbcTemplate.queryForRowSet( sql );
+        SqlRowSet rowSet = withAdmission( () -> jdbcTemplate.queryForRowSet( sql ) );
 
         while ( rowSet.next() )
         {
@@ -685,13 +742,94 @@ public abstract class AbstractJdbcEventAnalyticsManager
 
         sql += getWhereClause( params );
 
-        sql += getSortClause( params );
+        if ( params.isCursorPaging() )
+        {
+            sql += getCursorPagingClause( params );
+        }
+        else
+        {
+            sql += getSortClause( params );
 
-        sql += getPagingClause( params, maxLimit );
+            sql += getPagingClause( params, maxLimit );
+        }
 
         return sql;
     }
 
+    /**
+     * Reads the rows of the given SQL query with the given row handler. Rows
+     * are fetched from the open result set in batches of
+     * {@link #STREAM_FETCH_SIZE} instead of being copied into a disconnected
+     * row set first. The JDBC driver only honors the fetch size within a
+     * transaction, so the query runs in a transaction on the connection which
+     * is rolled back afterwards, unless a transaction is already in progress.
+     * The row handler is responsible for what is retained of each row.
+     *
+     * @param sql the SQL query.
+     * @param rowHandler the handler of the row set.
+     */
+    void streamRows( String sql, Consumer<SqlRowSet> rowHandler )
+    {
+        withAdmission( () -> jdbcTemplate.execute( (ConnectionCallback<Void>) con -> {
+            boolean autoCommit = con.getAutoCommit();
+
+            if ( autoCommit )
+            {
+                con.setAutoCommit( false );
+            }
+
+            try ( PreparedStatement statement = con.prepareStatement( sql ) )
+            {
+                statement.setFetchSize( STREAM_FETCH_SIZE );
+
+                try ( ResultSet rs = statement.executeQuery() )
+                {
+                    rowHandler.accept( new ResultSetWrappingSqlRowSet( rs ) );
+                }
+            }
+            finally
+            {
+                if ( autoCommit )
+                {
+                    con.rollback();
+                    con.setAutoCommit( true );
+                }
+            }
+
+            return null;
+        } ) );
+    }
+
+    /**
+     * Runs the given query once it is admitted by the
+     * {@link AnalyticsAdmissionController}, with the origin of the current
+     * thread. Must be called from the thread serving the request.
+     *
+     * @param query the query.
+     * @return the result of the query.
+     */
+    <T> T withAdmission( Supplier<T> query )
+    {
+        return withAdmission( admissionController.getCurrentOrigin(), query );
+    }
+
+    /**
+     * Runs the given query once it is admitted by the
+     * {@link AnalyticsAdmissionController}. Each SQL statement is admitted
+     * separately, so a permit must not be held while acquiring another.
+     *
+     * @param origin the {@link AnalyticsQueryOrigin}.
+     * @param query the query.
+     * @return the result of the query.
+     */
+    <T> T withAdmission( AnalyticsQueryOrigin origin, Supplier<T> query )
+    {
+        try ( Permit permit = admissionController.acquire( origin ) )
+        {
+            return query.get();
+        }
+    }
+
     /**
      * Wraps the provided interface around a common exception handling strategy
      *
@@ -722,6 +860,12 @@ public abstract class AbstractJdbcEventAnalyticsManager
      */
     protected abstract String getSelectClause( EventQueryParams params );
 
+    /**
+     * Returns the column which uniquely identifies a row and which is used to
+     * order rows of cursor paged queries.
+     */
+    protected abstract String getKeyColumn();
+
     /**
      * Generates the SQL for the from-clause. Generally this means which
      * analytics table to get data from.
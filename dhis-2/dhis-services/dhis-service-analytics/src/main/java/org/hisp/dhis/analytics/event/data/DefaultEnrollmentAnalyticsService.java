@@ -141,7 +141,7 @@ public class DefaultEnrollmentAnalyticsService
 
         long count = 0;
 
-        if ( params.isPaging() )
+        if ( params.isPaging() && !params.isCursorPaging() )
         {
             count += enrollmentAnalyticsManager.getEnrollmentCount( params );
         }
@@ -765,7 +765,7 @@ public class DefaultEventAnalyticsService
 
         if ( params.getPartitions().hasAny() )
         {
-            if ( params.isPaging() )
+            if ( params.isPaging() && !params.isCursorPaging() )
             {
                 count += eventAnalyticsManager.getEventCount( params );
             }
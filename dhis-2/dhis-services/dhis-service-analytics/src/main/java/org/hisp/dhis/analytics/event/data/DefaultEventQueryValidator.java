@@ -36,6 +36,7 @@ import java.util.List;
 import lombok.extern.slf4j.Slf4j;
 
 import org.hisp.dhis.analytics.QueryValidator;
+import org.hisp.dhis.analytics.event.EventPagingCursor;
 import org.hisp.dhis.analytics.event.EventQueryParams;
 import org.hisp.dhis.analytics.event.EventQueryValidator;
 import org.hisp.dhis.common.IllegalQueryException;
@@ -137,6 +138,14 @@ public class DefaultEventQueryValidator
         {
             error = new ErrorMessage( ErrorCode.E7208, params.getPageSize() );
         }
+        else if ( params.isCursorPaging() && !EventPagingCursor.isValid( params.getCursor() ) )
+        {
+            error = new ErrorMessage( ErrorCode.E7230, params.getCursor() );
+        }
+        else if ( params.isCursorPaging() && params.isSorting() )
+        {
+            error = new ErrorMessage( ErrorCode.E7231 );
+        }
         else if ( params.hasLimit() && getMaxLimit() > 0 && params.getLimit() > getMaxLimit() )
         {
             error = new ErrorMessage( ErrorCode.E7209, params.getLimit(), getMaxLimit() );
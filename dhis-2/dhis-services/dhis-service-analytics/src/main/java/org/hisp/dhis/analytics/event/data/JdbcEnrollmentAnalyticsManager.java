@@ -27,6 +27,7 @@
  */
 package org.hisp.dhis.analytics.event.data;
 
+import static com.google.common.base.Preconditions.checkNotNull;
 import static org.hisp.dhis.analytics.util.AnalyticsSqlUtils.ANALYTICS_TBL_ALIAS;
 import static org.hisp.dhis.analytics.util.AnalyticsSqlUtils.quote;
 import static org.hisp.dhis.analytics.util.AnalyticsSqlUtils.quoteAlias;
@@ -36,12 +37,25 @@ import static org.hisp.dhis.common.QueryOperator.IN;
 import static org.hisp.dhis.commons.util.TextUtils.getQuotedCommaDelimitedString;
 import static org.hisp.dhis.commons.util.TextUtils.removeLastOr;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import lombok.extern.slf4j.Slf4j;
 
 import org.apache.commons.lang3.StringUtils;
+import org.hisp.dhis.analytics.AggregationType;
+import org.hisp.dhis.analytics.admission.AnalyticsAdmissionController;
+import org.hisp.dhis.analytics.admission.AnalyticsQueryOrigin;
 import org.hisp.dhis.analytics.event.EnrollmentAnalyticsManager;
+import org.hisp.dhis.analytics.event.EnrollmentAnalyticsService;
 import org.hisp.dhis.analytics.event.EventQueryParams;
 import org.hisp.dhis.analytics.event.ProgramIndicatorSubqueryBuilder;
 import org.hisp.dhis.analytics.util.AnalyticsUtils;
@@ -63,9 +77,13 @@ import org.hisp.dhis.feedback.ErrorCode;
 import org.hisp.dhis.jdbc.StatementBuilder;
 import org.hisp.dhis.organisationunit.OrganisationUnit;
 import org.hisp.dhis.program.AnalyticsType;
+import org.hisp.dhis.program.ProgramIndicator;
 import org.hisp.dhis.program.ProgramIndicatorService;
+import org.hisp.dhis.setting.SettingKey;
+import org.hisp.dhis.setting.SystemSettingManager;
 import org.hisp.dhis.system.util.MathUtils;
 import org.locationtech.jts.util.Assert;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.dao.DataAccessResourceFailureException;
 import org.springframework.jdbc.BadSqlGrammarException;
 import org.springframework.jdbc.core.JdbcTemplate;
@@ -91,22 +109,49 @@ public class JdbcEnrollmentAnalyticsManager
 
     private static final String ORDER_BY_EXECUTION_DATE_DESC_LIMIT_1 = "order by executiondate desc limit 1";
 
+    /**
+     * Max number of enrollments per set-based program indicator query.
+     */
+    private static final int ENROLLMENT_BATCH_SIZE = 10000;
+
     private List<String> COLUMNS = Lists.newArrayList( "pi", "tei", "enrollmentdate", "incidentdate",
         "storedby", "lastupdated", "ST_AsGeoJSON(pigeometry)", "longitude", "latitude", "ouname", "oucode" );
 
+    private final SystemSettingManager systemSettingManager;
+
+    private final Executor queryExecutor;
+
     public JdbcEnrollmentAnalyticsManager( JdbcTemplate jdbcTemplate, StatementBuilder statementBuilder,
         ProgramIndicatorService programIndicatorService,
         ProgramIndicatorSubqueryBuilder programIndicatorSubqueryBuilder,
-        EnrollmentTimeFieldSqlRenderer timeFieldSqlRenderer )
+        EnrollmentTimeFieldSqlRenderer timeFieldSqlRenderer, SystemSettingManager systemSettingManager,
+        AnalyticsAdmissionController admissionController,
+        @Qualifier( "analyticsQueryExecutor" ) Executor queryExecutor )
     {
-        super( jdbcTemplate, statementBuilder, programIndicatorService, programIndicatorSubqueryBuilder );
+        super( jdbcTemplate, statementBuilder, programIndicatorService, programIndicatorSubqueryBuilder,
+            admissionController );
+
+        checkNotNull( systemSettingManager );
+        checkNotNull( queryExecutor );
+
         this.timeFieldSqlRenderer = timeFieldSqlRenderer;
+        this.systemSettingManager = systemSettingManager;
+        this.queryExecutor = queryExecutor;
     }
 
     @Override
     public void getEnrollments( EventQueryParams params, Grid grid, int maxLimit )
     {
         withExceptionHandling( () -> getEnrollments( params, grid, getEventsOrEnrollmentsSql( params, maxLimit ) ) );
+
+        List<QueryItem> setBasedItems = params.getItems().stream()
+            .filter( item -> isSetBasedProgramIndicator( params, item ) )
+            .collect( Collectors.toList() );
+
+        if ( !setBasedItems.isEmpty() && grid.getHeight() > 0 )
+        {
+            withExceptionHandling( () -> addProgramIndicatorValues( params, grid, setBasedItems ) );
+        }
     }
 
     /**
@@ -121,8 +166,25 @@ public class JdbcEnrollmentAnalyticsManager
     {
         log.debug( String.format( "Analytics enrollment query SQL: %s", sql ) );
 
-        SqlRowSet rowSet = jdbcTemplate.queryForRowSet( sql );
+        if ( params.isCursorPaging() )
+        {
+            streamRows( sql, rowSet -> addEnrollments( params, grid, rowSet ) );
+        }
+        else
+        {
+            addEnrollments( params, grid, withAdmission( () -> jdbcTemplate.queryForRowSet( sql ) ) );
+        }
+    }
 
+    /**
+     * Adds the enrollments of the given row set to the given grid.
+     *
+     * @param params the {@link EventQueryParams}.
+     * @param grid the {@link Grid}.
+     * @param rowSet the {@link SqlRowSet} holding the enrollments.
+     */
+    private void addEnrollments( EventQueryParams params, Grid grid, SqlRowSet rowSet )
+    {
         while ( rowSet.next() )
         {
             grid.addRow();
@@ -131,21 +193,200 @@ public class JdbcEnrollmentAnalyticsManager
 
             for ( GridHeader header : grid.getHeaders() )
             {
-                if ( Double.class.getName().equals( header.getType() ) && !header.hasLegendSet() )
-                {
-                    double val = rowSet.getDouble( index );
-                    grid.addValue( params.isSkipRounding() ? val : MathUtils.getRounded( val ) );
-                }
-                else
+                grid.addValue( getGridValue( params, header, rowSet, index ) );
+
+                index++;
+            }
+        }
+    }
+
+    /**
+     * Returns the value of the given column of the current row of the given
+     * row set, converted to the type of the given grid header.
+     *
+     * @param params the {@link EventQueryParams}.
+     * @param header the {@link GridHeader}.
+     * @param rowSet the {@link SqlRowSet}.
+     * @param index the column index.
+     */
+    private Object getGridValue( EventQueryParams params, GridHeader header, SqlRowSet rowSet, int index )
+    {
+        if ( isDoubleHeader( header ) )
+        {
+            double val = rowSet.getDouble( index );
+            return params.isSkipRounding() ? val : MathUtils.getRounded( val );
+        }
+        else
+        {
+            return rowSet.getString( index );
+        }
+    }
+
+    private boolean isDoubleHeader( GridHeader header )
+    {
+        return Double.class.getName().equals( header.getType() ) && !header.hasLegendSet();
+    }
+
+    /**
+     * Indicates whether the given query item is an event program indicator
+     * which is computed with a separate set-based query rather than with a
+     * correlated sub-query per enrollment. Program indicators which the
+     * enrollments are sorted by are computed in the main query, as the sort
+     * clause refers to their column.
+     *
+     * @param params the {@link EventQueryParams}.
+     * @param item the {@link QueryItem}.
+     */
+    private boolean isSetBasedProgramIndicator( EventQueryParams params, QueryItem item )
+    {
+        return item.isProgramIndicator() && !item.hasRelationshipType()
+            && AnalyticsType.EVENT == ((ProgramIndicator) item.getItem()).getAnalyticsType()
+            && !isSortItem( params, item )
+            && systemSettingManager.getBoolSetting( SettingKey.ANALYTICS_SET_BASED_PROGRAM_INDICATORS );
+    }
+
+    /**
+     * Indicates whether the enrollments of the given parameters are sorted by
+     * the given query item.
+     *
+     * @param params the {@link EventQueryParams}.
+     * @param item the {@link QueryItem}.
+     */
+    private boolean isSortItem( EventQueryParams params, QueryItem item )
+    {
+        String uid = item.getItem().getUid();
+
+        return Stream.concat( params.getAsc().stream(), params.getDesc().stream() )
+            .anyMatch( sortItem -> uid.equals( sortItem.getUid() ) );
+    }
+
+    @Override
+    protected String getProgramIndicatorColumn( EventQueryParams params, QueryItem queryItem )
+    {
+        if ( isSetBasedProgramIndicator( params, queryItem ) )
+        {
+            return "null as " + quote( queryItem.getItem().getUid() );
+        }
+
+        return super.getProgramIndicatorColumn( params, queryItem );
+    }
+
+    /**
+     * Computes the values of the given program indicators for the enrollments
+     * of the given grid and sets them in the grid. One grouped query per
+     * program indicator and batch of enrollments is run in parallel on the
+     * shared analytics query executor, and the results are joined with the
+     * grid rows by enrollment identifier.
+     *
+     * @param params the {@link EventQueryParams}.
+     * @param grid the {@link Grid} holding the enrollments.
+     * @param items the program indicator {@link QueryItem}.
+     */
+    private void addProgramIndicatorValues( EventQueryParams params, Grid grid, List<QueryItem> items )
+    {
+        int keyIndex = grid.getIndexOfHeader( EnrollmentAnalyticsService.ITEM_PI );
+
+        List<String> enrollments = grid.getColumn( keyIndex ).stream()
+            .map( String::valueOf )
+            .collect( Collectors.toList() );
+
+        List<List<String>> batches = Lists.partition( enrollments, ENROLLMENT_BATCH_SIZE );
+
+        Map<String, Map<String, Object>> itemValues = new HashMap<>();
+        AnalyticsQueryOrigin origin = admissionController.getCurrentOrigin();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+
+        try
+        {
+            for ( QueryItem item : items )
+            {
+                ProgramIndicator programIndicator = (ProgramIndicator) item.getItem();
+                GridHeader header = grid.getHeaders().get( grid.getIndexOfHeader( programIndicator.getUid() ) );
+                Map<String, Object> values = new ConcurrentHashMap<>();
+
+                itemValues.put( programIndicator.getUid(), values );
+
+                for ( List<String> batch : batches )
                 {
-                    grid.addValue( rowSet.getString( index ) );
+                    String sql = programIndicatorSubqueryBuilder.getAggregateQueryForEnrollments( programIndicator,
+                        batch, params.getEarliestStartDate(), params.getLatestEndDate() );
+
+                    futures.add( CompletableFuture.runAsync(
+                        () -> getProgramIndicatorValues( params, origin, header, sql, values ), queryExecutor ) );
                 }
+            }
 
-                index++;
+            CompletableFuture.allOf( futures.toArray( new CompletableFuture[0] ) ).join();
+        }
+        catch ( CompletionException ex )
+        {
+            if ( ex.getCause() instanceof RuntimeException )
+            {
+                throw (RuntimeException) ex.getCause();
+            }
+
+            throw ex;
+        }
+
+        for ( QueryItem item : items )
+        {
+            ProgramIndicator programIndicator = (ProgramIndicator) item.getItem();
+            int index = grid.getIndexOfHeader( programIndicator.getUid() );
+            Object missingValue = getMissingValue( grid.getHeaders().get( index ), programIndicator );
+            Map<String, Object> values = itemValues.get( programIndicator.getUid() );
+
+            for ( int i = 0; i < grid.getHeight(); i++ )
+            {
+                grid.getRow( i ).set( index, values.getOrDefault( enrollments.get( i ), missingValue ) );
             }
         }
     }
 
+    /**
+     * Runs the given set-based program indicator query and puts the values
+     * into the given map, keyed by enrollment identifier.
+     *
+     * @param params the {@link EventQueryParams}.
+     * @param origin the {@link AnalyticsQueryOrigin} of the request.
+     * @param header the {@link GridHeader} of the program indicator.
+     * @param sql the SQL query.
+     * @param values the map of enrollment identifiers and values.
+     */
+    private void getProgramIndicatorValues( EventQueryParams params, AnalyticsQueryOrigin origin,
+        GridHeader header, String sql, Map<String, Object> values )
+    {
+        log.debug( String.format( "Analytics enrollment program indicator SQL: %s", sql ) );
+
+        SqlRowSet rowSet = withAdmission( origin, () -> jdbcTemplate.queryForRowSet( sql ) );
+
+        while ( rowSet.next() )
+        {
+            Object value = getGridValue( params, header, rowSet, 2 );
+
+            if ( value != null )
+            {
+                values.put( rowSet.getString( 1 ), value );
+            }
+        }
+    }
+
+    /**
+     * Returns the value of a program indicator for an enrollment without
+     * matching events, which is what the correlated sub-query would yield.
+     *
+     * @param header the {@link GridHeader} of the program indicator.
+     * @param programIndicator the {@link ProgramIndicator}.
+     */
+    private Object getMissingValue( GridHeader header, ProgramIndicator programIndicator )
+    {
+        if ( isDoubleHeader( header ) )
+        {
+            return 0d;
+        }
+
+        return AggregationType.COUNT == programIndicator.getAggregationTypeFallback() ? "0" : null;
+    }
+
     @Override
     public long getEnrollmentCount( EventQueryParams params )
     {
@@ -161,7 +402,7 @@ public class JdbcEnrollmentAnalyticsManager
         {
             log.debug( "Analytics enrollment count SQL: " + sql );
 
-            count = jdbcTemplate.queryForObject( sql, Long.class );
+            count = withAdmission( () -> jdbcTemplate.queryForObject( sql, Long.class ) );
         }
         catch ( BadSqlGrammarException ex )
         {
@@ -355,6 +596,12 @@ public class JdbcEnrollmentAnalyticsManager
         return "select " + StringUtils.join( selectCols, "," ) + " ";
     }
 
+    @Override
+    protected String getKeyColumn()
+    {
+        return "pi";
+    }
+
     /**
      * Returns an encoded column name respecting the geometry/coordinate format.
      * The given QueryItem must be of type COORDINATE.
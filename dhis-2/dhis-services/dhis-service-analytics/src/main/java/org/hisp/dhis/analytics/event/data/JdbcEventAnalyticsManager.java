@@ -57,6 +57,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.math3.util.Precision;
 import org.hisp.dhis.analytics.AggregationType;
 import org.hisp.dhis.analytics.Rectangle;
+import org.hisp.dhis.analytics.admission.AnalyticsAdmissionController;
 import org.hisp.dhis.analytics.event.EventAnalyticsManager;
 import org.hisp.dhis.analytics.event.EventQueryParams;
 import org.hisp.dhis.analytics.event.ProgramIndicatorSubqueryBuilder;
@@ -116,9 +117,10 @@ public class JdbcEventAnalyticsManager
     public JdbcEventAnalyticsManager( JdbcTemplate jdbcTemplate, StatementBuilder statementBuilder,
         ProgramIndicatorService programIndicatorService,
         ProgramIndicatorSubqueryBuilder programIndicatorSubqueryBuilder,
-        EventTimeFieldSqlRenderer timeFieldSqlRenderer )
+        EventTimeFieldSqlRenderer timeFieldSqlRenderer, AnalyticsAdmissionController admissionController )
     {
-        super( jdbcTemplate, statementBuilder, programIndicatorService, programIndicatorSubqueryBuilder );
+        super( jdbcTemplate, statementBuilder, programIndicatorService, programIndicatorSubqueryBuilder,
+            admissionController );
         this.timeFieldSqlRenderer = timeFieldSqlRenderer;
     }
 
@@ -142,8 +144,25 @@ public class JdbcEventAnalyticsManager
     {
         log.debug( String.format( "Analytics event query SQL: %s", sql ) );
 
-        SqlRowSet rowSet = queryForRows( sql );
+        if ( params.isCursorPaging() )
+        {
+            streamRows( sql, rowSet -> addEvents( params, grid, rowSet ) );
+        }
+        else
+        {
+            addEvents( params, grid, queryForRows( sql ) );
+        }
+    }
 
+    /**
+     * Adds the events of the given row set to the given grid.
+     *
+     * @param params the {@link EventQueryParams}.
+     * @param grid the {@link Grid}.
+     * @param rowSet the {@link SqlRowSet} holding the events.
+     */
+    private void addEvents( EventQueryParams params, Grid grid, SqlRowSet rowSet )
+    {
         while ( rowSet.next() )
         {
             grid.addRow();
@@ -229,7 +248,7 @@ public class JdbcEventAnalyticsManager
         {
             log.debug( "Analytics event count SQL: " + sql );
 
-            count = jdbcTemplate.queryForObject( sql, Long.class );
+            count = withAdmission( () -> jdbcTemplate.queryForObject( sql, Long.class ) );
         }
         catch ( BadSqlGrammarException ex )
         {
@@ -292,7 +311,7 @@ public class JdbcEventAnalyticsManager
     {
         try
         {
-            return jdbcTemplate.queryForRowSet( sql );
+            return withAdmission( () -> jdbcTemplate.queryForRowSet( sql ) );
         }
         catch ( DataAccessResourceFailureException ex )
         {
@@ -332,6 +351,12 @@ public class JdbcEventAnalyticsManager
         return "select " + StringUtils.join( selectCols, "," ) + " ";
     }
 
+    @Override
+    protected String getKeyColumn()
+    {
+        return "psi";
+    }
+
     /**
      * Returns a from SQL clause for the given analytics table partition. If the
      * query has a non-default time field specified, a join with the
@@ -30,6 +30,7 @@ package org.hisp.dhis.analytics.event.data.programindicator;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 
+import java.util.Collection;
 import java.util.Date;
 
 import org.hisp.dhis.analytics.AggregationType;
@@ -126,6 +127,34 @@ public class DefaultProgramIndicatorSubqueryBuilder
 
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getAggregateQueryForEnrollments( ProgramIndicator programIndicator,
+        Collection<String> enrollments, Date earliestStartDate, Date latestDate )
+    {
+        String function = TextUtils.emptyIfEqual( programIndicator.getAggregationTypeFallback().getValue(),
+            AggregationType.CUSTOM.getValue() );
+
+        String enrollmentColumn = SUBQUERY_TABLE_ALIAS + ".pi";
+
+        String sql = "SELECT " + enrollmentColumn + ", " + function + " ("
+            + getPrgIndSql( programIndicator.getExpression(), programIndicator, earliestStartDate, latestDate ) + ")";
+
+        sql += getFrom( programIndicator );
+
+        sql += " WHERE " + enrollmentColumn + " in (" + TextUtils.getQuotedCommaDelimitedString( enrollments ) + ")";
+
+        if ( !Strings.isNullOrEmpty( programIndicator.getFilter() ) )
+        {
+            sql += " AND "
+                + getPrgIndSql( programIndicator.getFilter(), programIndicator, earliestStartDate, latestDate );
+        }
+
+        return sql + " GROUP BY " + enrollmentColumn;
+    }
+
     private String getFrom( ProgramIndicator pi )
     {
         return " FROM " + ANALYTICS_TABLE_NAME + "_" + pi.getAnalyticsType().getValue() + "_"
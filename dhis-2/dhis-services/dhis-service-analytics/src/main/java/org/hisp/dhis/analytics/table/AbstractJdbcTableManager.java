@@ -35,7 +35,9 @@ import static org.hisp.dhis.util.DateUtils.getLongDateString;
 
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Future;
@@ -44,6 +46,7 @@ import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
 
 import org.apache.commons.lang3.StringUtils;
+import org.hisp.dhis.analytics.AnalyticsColumnStatistics;
 import org.hisp.dhis.analytics.AnalyticsIndex;
 import org.hisp.dhis.analytics.AnalyticsTable;
 import org.hisp.dhis.analytics.AnalyticsTableColumn;
@@ -76,6 +79,7 @@ import org.hisp.dhis.util.DateUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.BadSqlGrammarException;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.rowset.SqlRowSet;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.util.Assert;
 
@@ -194,6 +198,8 @@ public abstract class AbstractJdbcTableManager
     @Override
     public void createTable( AnalyticsTable table )
     {
+        table.setUnlogged( systemSettingManager.getBoolSetting( SettingKey.ANALYTICS_TABLE_UNLOGGED ) );
+
         if ( tableTypeIsPartitioned() )
         {
             createPartitionTableWithPartitions( table );
@@ -217,21 +223,27 @@ public abstract class AbstractJdbcTableManager
                 break;
             }
 
-            final String indexName = inx.getIndexName( getAnalyticsTableType() );
-            final String indexColumns = StringUtils.join( inx.getColumns(), "," );
+            createIndex( inx );
+        }
 
-            final String sql = "create index " + indexName + " " +
-                "on " + inx.getTable() + " " +
-                "using " + inx.getType().keyword() + " (" + indexColumns + ");";
+        return null;
+    }
 
-            log.debug( "Create index: '{}' with SQL: '{}'", indexName, sql );
+    @Override
+    public void createIndex( AnalyticsIndex index )
+    {
+        final String indexName = index.getIndexName( getAnalyticsTableType() );
+        final String indexColumns = StringUtils.join( index.getColumns(), "," );
 
-            jdbcTemplate.execute( sql );
+        final String sql = "create index " + indexName + " " +
+            "on " + index.getTable() + " " +
+            "using " + index.getType().keyword() + " (" + indexColumns + ");";
 
-            log.debug( "Created index: '{}'", indexName );
-        }
+        log.debug( "Create index: '{}' with SQL: '{}'", indexName, sql );
 
-        return null;
+        jdbcTemplate.execute( sql );
+
+        log.debug( "Created index: '{}'", indexName );
     }
 
     @Override
@@ -278,6 +290,40 @@ public abstract class AbstractJdbcTableManager
         executeSilently( sql );
     }
 
+    @Override
+    public String updateRollupTable( AnalyticsTableUpdateParams params, List<AnalyticsTable> tables )
+    {
+        return null;
+    }
+
+    @Override
+    public Map<String, AnalyticsColumnStatistics> getColumnStatistics( String tableName )
+    {
+        final String sql = "select attname, null_frac, n_distinct, correlation, " +
+            "coalesce(array_length(most_common_freqs, 1), 0) as common_values, " +
+            "(select min(f) from unnest(most_common_freqs) as f) as min_common_frequency " +
+            "from pg_stats " +
+            "where schemaname = current_schema() and tablename = ?";
+
+        Map<String, AnalyticsColumnStatistics> statistics = new HashMap<>();
+
+        SqlRowSet rowSet = jdbcTemplate.queryForRowSet( sql, tableName );
+
+        while ( rowSet.next() )
+        {
+            statistics.put( rowSet.getString( "attname" ), new AnalyticsColumnStatistics(
+                rowSet.getDouble( "null_frac" ),
+                rowSet.getDouble( "n_distinct" ),
+                getDouble( rowSet, "correlation" ),
+                rowSet.getInt( "common_values" ),
+                getDouble( rowSet, "min_common_frequency" ) ) );
+        }
+
+        log.debug( "Found statistics for {} columns of table: '{}'", statistics.size(), tableName );
+
+        return statistics;
+    }
+
     @Override
     @Async
     public Future<?> populateTablesAsync( AnalyticsTableUpdateParams params,
@@ -298,6 +344,12 @@ public abstract class AbstractJdbcTableManager
         return null;
     }
 
+    @Override
+    public void populateTablePartition( AnalyticsTableUpdateParams params, AnalyticsTablePartition partition )
+    {
+        populateTable( params, partition );
+    }
+
     @Override
     public int invokeAnalyticsTableSqlHooks()
     {
@@ -308,6 +360,13 @@ public abstract class AbstractJdbcTableManager
         return hooks.size();
     }
 
+    @Override
+    public boolean hasAnalyticsTableSqlHooks()
+    {
+        return !tableHookService.getByPhaseAndAnalyticsTableType(
+            AnalyticsTablePhase.ANALYTICS_TABLE_POPULATED, getAnalyticsTableType() ).isEmpty();
+    }
+
     // -------------------------------------------------------------------------
     // Abstract methods
     // -------------------------------------------------------------------------
@@ -408,10 +467,8 @@ public abstract class AbstractJdbcTableManager
     {
         final String tableName = table.getTableName();
         final String tempTableName = table.getTempTableName();
-        final String createTableSql = "create table if not exists ";
-
-        String sqlCreate = createTableSql + tableName + " (";
-        String sqlCreateTemp = createTableSql + tempTableName + " (";
+        String sqlCreate = "create table if not exists " + tableName + " (";
+        String sqlCreateTemp = getCreateTempTableSql( table ) + tempTableName + " (";
 
         String columns = ListUtils.union( table.getDimensionColumns(), table.getValueColumns() )
             .stream()
@@ -691,7 +748,8 @@ public abstract class AbstractJdbcTableManager
         createTableAsPartitionOf( table, partition );
 
         String tableName = partition == null ? table.getTableName() : partition.getTempTableName();
-        String sqlCreate = "create table if not exists " + tableName + " (";
+        String sqlCreate = (partition == null ? "create table if not exists " : getCreateTempTableSql( table ))
+            + tableName + " (";
         for ( AnalyticsTableColumn col : ListUtils.union( table.getDimensionColumns(), table.getValueColumns() ) )
         {
             String notNull = col.getNotNull().isNotNull() ? " not null" : "";
@@ -734,6 +792,31 @@ public abstract class AbstractJdbcTableManager
         }
     }
 
+    /**
+     * Returns the value of the given column as a double, or null if the value
+     * is null.
+     */
+    private Double getDouble( SqlRowSet rowSet, String column )
+    {
+        Object value = rowSet.getObject( column );
+
+        return value != null ? ((Number) value).doubleValue() : null;
+    }
+
+    /**
+     * Returns the create statement prefix for temporary tables of the given
+     * table. Temporary tables are unlogged if so configured, which avoids
+     * writing the table data to the write-ahead log. Unlogged tables stay
+     * unlogged when swapped into place, see
+     * {@link SettingKey#ANALYTICS_TABLE_UNLOGGED}.
+     *
+     * @param table the {@link AnalyticsTable}.
+     */
+    private String getCreateTempTableSql( AnalyticsTable table )
+    {
+        return table.isUnlogged() ? "create unlogged table if not exists " : "create table if not exists ";
+    }
+
     /**
      * Indicates whether this analytics table type is partitioned.
      */
@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.analytics.table;
+
+import static org.hisp.dhis.analytics.util.AnalyticsSqlUtils.removeQuote;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.hisp.dhis.analytics.AnalyticsColumnStatistics;
+import org.hisp.dhis.analytics.AnalyticsIndex;
+import org.hisp.dhis.analytics.AnalyticsTableColumn;
+import org.hisp.dhis.analytics.AnalyticsTablePartition;
+import org.hisp.dhis.analytics.ColumnDataType;
+import org.hisp.dhis.analytics.IndexType;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+
+/**
+ * Plans the indexes of analytics table partitions. By default, one index of
+ * the type declared by the column is planned per indexed dimension column.
+ * When column statistics of the previous version of the partition are
+ * available, the plan is refined:
+ *
+ * <ul>
+ * <li>Indexes on low-selectivity columns, where any value matches a large
+ * fraction of rows or all values are null, are skipped.</li>
+ * <li>Date columns whose values are naturally ordered with the physical row
+ * order get a BRIN index instead of a B-tree index.</li>
+ * </ul>
+ *
+ * Composite indexes declared through
+ * {@link AnalyticsTableColumn#withIndexColumns(List)} and explicit index types
+ * other than B-tree are always kept.
+ */
+@Slf4j
+public class AnalyticsIndexPlanner
+{
+    /**
+     * Minimum absolute correlation between physical row order and column
+     * value order for a BRIN index.
+     */
+    static final double BRIN_MIN_CORRELATION = 0.9;
+
+    /**
+     * Minimum frequency of the least frequent value for a column to be
+     * considered low-selectivity.
+     */
+    static final double LOW_SELECTIVITY_MIN_FREQUENCY = 0.2;
+
+    private static final Set<ColumnDataType> ORDERED_TYPES = ImmutableSet.of(
+        ColumnDataType.DATE, ColumnDataType.TIMESTAMP );
+
+    /**
+     * Returns the planned indexes for the given analytics table partition and
+     * logs the plan.
+     *
+     * @param partition the {@link AnalyticsTablePartition}.
+     * @param statistics mapping from unquoted column name to
+     *        {@link AnalyticsColumnStatistics}, empty if not available.
+     * @return a list of {@link AnalyticsIndex}.
+     */
+    public static List<AnalyticsIndex> getIndexes( AnalyticsTablePartition partition,
+        Map<String, AnalyticsColumnStatistics> statistics )
+    {
+        List<AnalyticsIndex> indexes = new ArrayList<>();
+        List<String> skipped = new ArrayList<>();
+
+        for ( AnalyticsTableColumn col : partition.getMasterTable().getDimensionColumns() )
+        {
+            if ( col.isSkipIndex() )
+            {
+                continue;
+            }
+
+            if ( col.hasIndexColumns() )
+            {
+                indexes.add( new AnalyticsIndex( partition.getTempTableName(), col.getIndexColumns(),
+                    col.getIndexType() ) );
+                continue;
+            }
+
+            AnalyticsColumnStatistics stats = statistics.get( removeQuote( col.getName() ) );
+
+            IndexType indexType = col.getIndexType();
+
+            if ( stats != null && IndexType.BTREE == indexType )
+            {
+                if ( isLowSelectivity( stats ) )
+                {
+                    skipped.add( col.getName() );
+                    continue;
+                }
+
+                if ( isNaturallyOrdered( col, stats ) )
+                {
+                    indexType = IndexType.BRIN;
+                }
+            }
+
+            indexes.add( new AnalyticsIndex( partition.getTempTableName(), Lists.newArrayList( col.getName() ),
+                indexType ) );
+        }
+
+        log.info( "Index plan for table: '{}', indexes by type: {}, skipped low-selectivity columns: {}",
+            partition.getTempTableName(), indexes.stream()
+                .collect( Collectors.groupingBy( AnalyticsIndex::getType, Collectors.counting() ) ),
+            skipped );
+
+        return indexes;
+    }
+
+    /**
+     * Indicates whether an equality filter on the column matches a large
+     * fraction of rows for any value, meaning that an index would not be used.
+     */
+    static boolean isLowSelectivity( AnalyticsColumnStatistics stats )
+    {
+        if ( stats.getNullFraction() >= 1d )
+        {
+            return true;
+        }
+
+        return stats.getDistinctValues() > 0 &&
+            stats.getCommonValues() >= stats.getDistinctValues() &&
+            stats.getMinCommonFrequency() != null &&
+            stats.getMinCommonFrequency() >= LOW_SELECTIVITY_MIN_FREQUENCY;
+    }
+
+    /**
+     * Indicates whether the column is ordered and its values follow the
+     * physical row order, meaning that a BRIN index is effective.
+     */
+    static boolean isNaturallyOrdered( AnalyticsTableColumn col, AnalyticsColumnStatistics stats )
+    {
+        return ORDERED_TYPES.contains( col.getDataType() ) &&
+            stats.getCorrelation() != null &&
+            Math.abs( stats.getCorrelation() ) >= BRIN_MIN_CORRELATION;
+    }
+}
@@ -43,6 +43,7 @@ import org.hisp.dhis.analytics.AnalyticsTableGenerator;
 import org.hisp.dhis.analytics.AnalyticsTableService;
 import org.hisp.dhis.analytics.AnalyticsTableType;
 import org.hisp.dhis.analytics.AnalyticsTableUpdateParams;
+import org.hisp.dhis.analytics.cache.AnalyticsCacheWarmer;
 import org.hisp.dhis.commons.collection.CollectionUtils;
 import org.hisp.dhis.commons.util.DebugUtils;
 import org.hisp.dhis.message.MessageService;
@@ -72,21 +73,25 @@ public class DefaultAnalyticsTableGenerator
 
     private Notifier notifier;
 
+    private AnalyticsCacheWarmer cacheWarmer;
+
     public DefaultAnalyticsTableGenerator( List<AnalyticsTableService> analyticsTableServices,
         ResourceTableService resourceTableService, MessageService messageService,
-        SystemSettingManager systemSettingManager, Notifier notifier )
+        SystemSettingManager systemSettingManager, Notifier notifier, AnalyticsCacheWarmer cacheWarmer )
     {
         checkNotNull( analyticsTableServices );
         checkNotNull( resourceTableService );
         checkNotNull( messageService );
         checkNotNull( systemSettingManager );
         checkNotNull( notifier );
+        checkNotNull( cacheWarmer );
 
         this.analyticsTableServices = analyticsTableServices;
         this.resourceTableService = resourceTableService;
         this.messageService = messageService;
         this.systemSettingManager = systemSettingManager;
         this.notifier = notifier;
+        this.cacheWarmer = cacheWarmer;
     }
 
     // -------------------------------------------------------------------------
@@ -140,6 +145,13 @@ public class DefaultAnalyticsTableGenerator
 
             clock.logTime( "Analytics tables updated" );
 
+            if ( !params.isLatestUpdate() )
+            {
+                cacheWarmer.warmUp( jobId );
+
+                clock.logTime( "Analytics cache warm-up done" );
+            }
+
             notifier.notify( jobId, INFO, "Analytics tables updated: " + clock.time(), true );
         }
         catch ( Exception ex )
@@ -32,21 +32,29 @@ import static org.hisp.dhis.util.DateUtils.getLongDateString;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 
 import lombok.extern.slf4j.Slf4j;
 
+import org.hisp.dhis.analytics.AnalyticsColumnStatistics;
 import org.hisp.dhis.analytics.AnalyticsIndex;
 import org.hisp.dhis.analytics.AnalyticsTable;
-import org.hisp.dhis.analytics.AnalyticsTableColumn;
 import org.hisp.dhis.analytics.AnalyticsTableManager;
 import org.hisp.dhis.analytics.AnalyticsTablePartition;
 import org.hisp.dhis.analytics.AnalyticsTableService;
 import org.hisp.dhis.analytics.AnalyticsTableType;
 import org.hisp.dhis.analytics.AnalyticsTableUpdateParams;
+import org.hisp.dhis.analytics.cache.AnalyticsFragmentCache;
 import org.hisp.dhis.common.IdentifiableObjectUtils;
 import org.hisp.dhis.commons.util.ConcurrentUtils;
 import org.hisp.dhis.commons.util.SystemUtils;
@@ -59,8 +67,6 @@ import org.hisp.dhis.setting.SystemSettingManager;
 import org.hisp.dhis.system.notification.Notifier;
 import org.hisp.dhis.system.util.Clock;
 
-import com.google.common.collect.Lists;
-
 /**
  * @author Lars Helge Overland
  */
@@ -80,9 +86,12 @@ public class DefaultAnalyticsTableService
 
     private SystemSettingManager systemSettingManager;
 
+    private AnalyticsFragmentCache fragmentCache;
+
     public DefaultAnalyticsTableService( AnalyticsTableManager tableManager,
         OrganisationUnitService organisationUnitService, DataElementService dataElementService,
-        ResourceTableService resourceTableService, Notifier notifier, SystemSettingManager systemSettingManager )
+        ResourceTableService resourceTableService, Notifier notifier, SystemSettingManager systemSettingManager,
+        AnalyticsFragmentCache fragmentCache )
     {
         checkNotNull( tableManager );
         checkNotNull( organisationUnitService );
@@ -90,6 +99,7 @@ public class DefaultAnalyticsTableService
         checkNotNull( resourceTableService );
         checkNotNull( notifier );
         checkNotNull( systemSettingManager );
+        checkNotNull( fragmentCache );
 
         this.tableManager = tableManager;
         this.organisationUnitService = organisationUnitService;
@@ -97,6 +107,7 @@ public class DefaultAnalyticsTableService
         this.resourceTableService = resourceTableService;
         this.notifier = notifier;
         this.systemSettingManager = systemSettingManager;
+        this.fragmentCache = fragmentCache;
     }
 
     // -------------------------------------------------------------------------
@@ -162,39 +173,52 @@ public class DefaultAnalyticsTableService
         createTables( tables );
 
         clock.logTime( "Created analytics tables" );
-        notifier.notify( jobId, "Populating analytics tables" );
 
-        populateTables( params, tables );
+        if ( isPartitionPipelineApplicable() )
+        {
+            notifier.notify( jobId, "Populating, indexing and analyzing analytics table partitions" );
 
-        clock.logTime( "Populated analytics tables" );
-        notifier.notify( jobId, "Invoking analytics table hooks" );
+            processPartitions( params, tables );
 
-        tableUpdates += tableManager.invokeAnalyticsTableSqlHooks();
+            clock.logTime( "Populated, indexed and analyzed analytics table partitions" );
+        }
+        else
+        {
+            notifier.notify( jobId, "Populating analytics tables" );
 
-        clock.logTime( "Invoked analytics table hooks" );
-        notifier.notify( jobId, "Applying aggregation levels" );
+            populateTables( params, tables );
 
-        tableUpdates += applyAggregationLevels( tables );
+            clock.logTime( "Populated analytics tables" );
+            notifier.notify( jobId, "Invoking analytics table hooks" );
 
-        clock.logTime( "Applied aggregation levels" );
+            tableUpdates += tableManager.invokeAnalyticsTableSqlHooks();
 
-        if ( tableUpdates > 0 )
-        {
-            notifier.notify( jobId, "Vacuuming tables" );
-            vacuumTables( tables );
-            clock.logTime( "Tables vacuumed" );
-        }
+            clock.logTime( "Invoked analytics table hooks" );
+            notifier.notify( jobId, "Applying aggregation levels" );
+
+            tableUpdates += applyAggregationLevels( tables );
+
+            clock.logTime( "Applied aggregation levels" );
+
+            if ( tableUpdates > 0 )
+            {
+                notifier.notify( jobId, "Vacuuming tables" );
+                vacuumTables( tables );
+                clock.logTime( "Tables vacuumed" );
+            }
+
+            notifier.notify( jobId, "Creating indexes" );
 
-        notifier.notify( jobId, "Creating indexes" );
+            createIndexes( tables );
 
-        createIndexes( tables );
+            clock.logTime( "Created indexes" );
+            notifier.notify( jobId, "Analyzing analytics tables" );
 
-        clock.logTime( "Created indexes" );
-        notifier.notify( jobId, "Analyzing analytics tables" );
+            analyzeTables( tables );
 
-        analyzeTables( tables );
+            clock.logTime( "Analyzed tables" );
+        }
 
-        clock.logTime( "Analyzed tables" );
         notifier.notify( jobId, "Removing updated and deleted data" );
 
         tableManager.removeUpdatedData( params, tables );
@@ -204,6 +228,12 @@ public class DefaultAnalyticsTableService
 
         swapTables( params, tables );
 
+        clock.logTime( "Swapped analytics tables" );
+
+        invalidateFragments( params, tables );
+
+        updateRollupTable( params, tables, jobId, clock );
+
         clock.logTime( "Table update done: " + tableType.getTableName() );
         notifier.notify( jobId, "Table update done" );
     }
@@ -277,6 +307,116 @@ public class DefaultAnalyticsTableService
         ConcurrentUtils.waitForCompletion( futures );
     }
 
+    /**
+     * Indicates whether table partitions can be processed individually through
+     * the populate, index and analyze stages. This is not the case when SQL
+     * hooks or aggregation levels must be applied to the fully populated
+     * tables before indexes are created.
+     */
+    private boolean isPartitionPipelineApplicable()
+    {
+        if ( tableManager.hasAnalyticsTableSqlHooks() )
+        {
+            return false;
+        }
+
+        if ( AnalyticsTableType.DATA_VALUE != tableManager.getAnalyticsTableType() )
+        {
+            return true;
+        }
+
+        int maxLevels = organisationUnitService.getNumberOfOrganisationalLevels();
+
+        for ( int level = maxLevels; level > 0; level-- )
+        {
+            if ( !dataElementService.getDataElementsByAggregationLevel( level ).isEmpty() )
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Populates, indexes and analyzes the partitions of the given analytics
+     * tables. Each partition moves through the stages independently, so that
+     * indexes for populated partitions are created while other partitions are
+     * still being populated. All stages share a pool with one thread per
+     * available process, which bounds the number of concurrent database
+     * operations as for the regular table update.
+     *
+     * @param params the {@link AnalyticsTableUpdateParams}.
+     * @param tables the list of {@link AnalyticsTable}.
+     */
+    private void processPartitions( AnalyticsTableUpdateParams params, List<AnalyticsTable> tables )
+    {
+        List<AnalyticsTablePartition> partitions = PartitionUtils.getTablePartitions( tables );
+
+        int processNo = getProcessNo();
+
+        log.info( String.format( "Partition pipeline partitions: %d, processes: %d", partitions.size(), processNo ) );
+
+        ExecutorService executor = Executors.newFixedThreadPool( processNo );
+
+        try
+        {
+            CompletableFuture<?>[] futures = partitions.stream()
+                .map( partition -> processPartition( params, partition, executor ) )
+                .toArray( CompletableFuture[]::new );
+
+            CompletableFuture.allOf( futures ).join();
+        }
+        catch ( CompletionException ex )
+        {
+            throw new RuntimeException( "Exception during execution", ex.getCause() );
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Returns a future which populates the given partition, then creates the
+     * indexes of the partition in parallel and finally analyzes the partition.
+     * Stage timings are written to the log and the notifier.
+     *
+     * @param params the {@link AnalyticsTableUpdateParams}.
+     * @param partition the {@link AnalyticsTablePartition}.
+     * @param executor the {@link Executor} to run the stages on.
+     * @return a {@link CompletableFuture}.
+     */
+    private CompletableFuture<Void> processPartition( AnalyticsTableUpdateParams params,
+        AnalyticsTablePartition partition, Executor executor )
+    {
+        final String tableName = partition.getTempTableName();
+        final Clock clock = new Clock( log );
+
+        return CompletableFuture
+            .runAsync( () -> {
+                clock.startClock();
+                tableManager.populateTablePartition( params, partition );
+                notifyStage( params, clock, "Populated partition", tableName );
+            }, executor )
+            .thenCompose( v -> CompletableFuture.allOf( getIndexes( partition ).stream()
+                .map( index -> CompletableFuture.runAsync( () -> tableManager.createIndex( index ), executor ) )
+                .toArray( CompletableFuture[]::new ) ) )
+            .thenRunAsync( () -> {
+                notifyStage( params, clock, "Created indexes for partition", tableName );
+                tableManager.analyzeTable( tableName );
+                notifyStage( params, clock, "Analyzed partition", tableName );
+            }, executor );
+    }
+
+    private void notifyStage( AnalyticsTableUpdateParams params, Clock clock, String stage, String tableName )
+    {
+        String message = String.format( "%s: '%s', elapsed: %s", stage, tableName, clock.time() );
+
+        log.info( message );
+        notifier.notify( params.getJobId(), message );
+    }
+
     /**
      * Applies aggregation levels to the given analytics tables.
      *
@@ -376,23 +516,30 @@ public class DefaultAnalyticsTableService
 
         for ( AnalyticsTablePartition partition : partitions )
         {
-            List<AnalyticsTableColumn> columns = partition.getMasterTable().getDimensionColumns();
-
-            for ( AnalyticsTableColumn col : columns )
-            {
-                if ( !col.isSkipIndex() )
-                {
-                    List<String> indexColumns = col.hasIndexColumns() ? col.getIndexColumns()
-                        : Lists.newArrayList( col.getName() );
-
-                    indexes.add( new AnalyticsIndex( partition.getTempTableName(), indexColumns, col.getIndexType() ) );
-                }
-            }
+            indexes.addAll( getIndexes( partition ) );
         }
 
         return indexes;
     }
 
+    /**
+     * Returns a list of indexes for the given analytics table partition. The
+     * index plan is refined with the column statistics of the current version
+     * of the partition if index planning is enabled.
+     *
+     * @param partition the {@link AnalyticsTablePartition}.
+     * @return a list of {@link AnalyticsIndex}.
+     */
+    private List<AnalyticsIndex> getIndexes( AnalyticsTablePartition partition )
+    {
+        Map<String, AnalyticsColumnStatistics> statistics = systemSettingManager
+            .getBoolSetting( SettingKey.ANALYTICS_TABLE_INDEX_PLANNING )
+                ? tableManager.getColumnStatistics( partition.getTableName() )
+                : Collections.emptyMap();
+
+        return AnalyticsIndexPlanner.getIndexes( partition, statistics );
+    }
+
     /**
      * Analyzes the given analytics tables.
      *
@@ -420,6 +567,51 @@ public class DefaultAnalyticsTableService
         resourceTableService.createAllSqlViews();
     }
 
+    /**
+     * Invalidates the cached analytics query fragments which were read from
+     * the given analytics tables. For partial updates, only fragments read
+     * from the updated partitions are invalidated.
+     *
+     * @param params the {@link AnalyticsTableUpdateParams}.
+     * @param tables the list of {@link AnalyticsTable}.
+     */
+    private void invalidateFragments( AnalyticsTableUpdateParams params, List<AnalyticsTable> tables )
+    {
+        if ( params.isPartialUpdate() )
+        {
+            fragmentCache.invalidatePartitions( PartitionUtils.getTablePartitions( tables ) );
+        }
+        else
+        {
+            tables.forEach( table -> fragmentCache.invalidateTable( table.getTableName() ) );
+        }
+    }
+
+    /**
+     * Updates the rollup table of the analytics table type from the swapped
+     * analytics tables and invalidates the fragments which were read from
+     * the previous rollup table. Partial updates, including latest partition
+     * updates, refresh the years of the updated data only.
+     *
+     * @param params the {@link AnalyticsTableUpdateParams}.
+     * @param tables the list of {@link AnalyticsTable}.
+     * @param jobId the {@link JobConfiguration}.
+     * @param clock the {@link Clock}.
+     */
+    private void updateRollupTable( AnalyticsTableUpdateParams params, List<AnalyticsTable> tables,
+        JobConfiguration jobId, Clock clock )
+    {
+        String rollupTable = tableManager.updateRollupTable( params, tables );
+
+        if ( rollupTable != null )
+        {
+            fragmentCache.invalidateTable( rollupTable );
+
+            clock.logTime( "Updated rollup table: " + rollupTable );
+            notifier.notify( jobId, "Updated rollup table" );
+        }
+    }
+
     /**
      * Gets the number of available cores. Uses explicit number from system
      * setting if available. Detects number of cores from current server runtime
@@ -42,6 +42,7 @@ import static org.hisp.dhis.util.DateUtils.getLongDateString;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedQueue;
@@ -51,6 +52,7 @@ import lombok.extern.slf4j.Slf4j;
 
 import org.apache.commons.lang3.StringUtils;
 import org.hisp.dhis.analytics.AggregationType;
+import org.hisp.dhis.analytics.AnalyticsIndex;
 import org.hisp.dhis.analytics.AnalyticsTable;
 import org.hisp.dhis.analytics.AnalyticsTableColumn;
 import org.hisp.dhis.analytics.AnalyticsTableHookService;
@@ -59,6 +61,7 @@ import org.hisp.dhis.analytics.AnalyticsTableType;
 import org.hisp.dhis.analytics.AnalyticsTableUpdateParams;
 import org.hisp.dhis.analytics.ColumnDataType;
 import org.hisp.dhis.analytics.DataQueryParams;
+import org.hisp.dhis.analytics.IndexType;
 import org.hisp.dhis.analytics.partition.PartitionManager;
 import org.hisp.dhis.analytics.util.AnalyticsUtils;
 import org.hisp.dhis.category.Category;
@@ -75,6 +78,7 @@ import org.hisp.dhis.jdbc.StatementBuilder;
 import org.hisp.dhis.organisationunit.OrganisationUnitGroupSet;
 import org.hisp.dhis.organisationunit.OrganisationUnitLevel;
 import org.hisp.dhis.organisationunit.OrganisationUnitService;
+import org.hisp.dhis.period.YearlyPeriodType;
 import org.hisp.dhis.resourcetable.ResourceTableService;
 import org.hisp.dhis.setting.SettingKey;
 import org.hisp.dhis.setting.SystemSettingManager;
@@ -561,12 +565,186 @@ public class JdbcAnalyticsTableManager
         return ConcurrentUtils.getImmediateFuture();
     }
 
+    /**
+     * Updates the yearly rollup table, which holds the sum of numeric values
+     * per data element, category option combination, attribute option
+     * combination, year and organisation unit hierarchy up to the configured
+     * rollup level. The rollup table has the same column names as the
+     * analytics table so that the query planner can route eligible queries
+     * to it without changes to the generated SQL. Partial updates refresh the
+     * years of the updated partitions in an existing rollup table, latest
+     * partition updates refresh the years of the updated data values.
+     */
+    @Override
+    public String updateRollupTable( AnalyticsTableUpdateParams params, List<AnalyticsTable> tables )
+    {
+        Integer rollupLevel = systemSettingManager.getIntegerSetting( SettingKey.ANALYTICS_ROLLUP_ORG_UNIT_LEVEL );
+
+        boolean enabled = rollupLevel != null && rollupLevel > 0 && partitionManager.tableExists( getTableName() );
+
+        String rollupTable = enabled ? PartitionUtils.getRollupTableName( getAnalyticsTableType(), rollupLevel )
+            : null;
+
+        dropRollupTables( rollupTable );
+
+        if ( !enabled )
+        {
+            return null;
+        }
+
+        String groupBy = StringUtils.join( getRollupColumns( rollupLevel ), "," );
+
+        if ( params.isPartialUpdate() && partitionManager.tableExists( rollupTable ) )
+        {
+            refreshRollupTable( rollupTable, groupBy, tables );
+        }
+        else
+        {
+            rebuildRollupTable( rollupTable, groupBy );
+        }
+
+        analyzeTable( rollupTable );
+
+        return rollupTable;
+    }
+
     @Override
     public List<AnalyticsTableColumn> getFixedColumns()
     {
         return FIXED_COLS;
     }
 
+    /**
+     * Returns the quoted columns of the rollup table for the given rollup
+     * organisation unit level, which are also the group by columns used to
+     * populate the rollup table.
+     *
+     * @param rollupLevel the rollup organisation unit level.
+     */
+    private List<String> getRollupColumns( int rollupLevel )
+    {
+        List<String> columns = Lists.newArrayList( quote( "dx" ), quote( "co" ), quote( "ao" ) );
+
+        organisationUnitService.getFilledOrganisationUnitLevels().stream()
+            .filter( level -> level.getLevel() <= rollupLevel )
+            .forEach( level -> columns.add( quote( PREFIX_ORGUNITLEVEL + level.getLevel() ) ) );
+
+        columns.add( quote( YearlyPeriodType.NAME.toLowerCase() ) );
+
+        return columns;
+    }
+
+    /**
+     * Rebuilds the rollup table from the whole analytics table into a temp
+     * table and swaps it with the existing rollup table.
+     *
+     * @param rollupTable the rollup table name.
+     * @param groupBy the group by columns.
+     */
+    private void rebuildRollupTable( String rollupTable, String groupBy )
+    {
+        String tempTable = rollupTable + TABLE_TEMP_SUFFIX;
+
+        boolean unlogged = systemSettingManager.getBoolSetting( SettingKey.ANALYTICS_TABLE_UNLOGGED );
+
+        dropTable( tempTable );
+
+        invokeTimeAndLog( "create " + (unlogged ? "unlogged " : "") + "table " + tempTable + " as " +
+            "select " + groupBy + ",sum(" + quote( "value" ) + ") as " + quote( "value" ) + " " +
+            "from " + getTableName() + " " +
+            "group by " + groupBy, String.format( "Populated rollup table: '%s'", rollupTable ) );
+
+        createIndex( new AnalyticsIndex( tempTable, Lists.newArrayList( quote( "dx" ) ), IndexType.BTREE ) );
+
+        final String sql = "drop table if exists " + rollupTable + " cascade;" +
+            "alter table " + tempTable + " rename to " + rollupTable + ";";
+
+        log.debug( sql );
+
+        jdbcTemplate.execute( sql );
+    }
+
+    /**
+     * Replaces the rows of the years of the given updated analytics tables in
+     * the rollup table with rows aggregated from the analytics table. For the
+     * latest partition, the years of the data values updated within the
+     * partition time range are refreshed, as these rows were moved from the
+     * yearly partitions to the latest partition. Does nothing if no years
+     * were updated.
+     *
+     * @param rollupTable the rollup table name.
+     * @param groupBy the group by columns.
+     * @param tables the list of updated {@link AnalyticsTable}.
+     */
+    private void refreshRollupTable( String rollupTable, String groupBy, List<AnalyticsTable> tables )
+    {
+        Set<String> years = new HashSet<>();
+
+        for ( AnalyticsTablePartition partition : PartitionUtils.getTablePartitions( tables ) )
+        {
+            if ( partition.isLatestPartition() )
+            {
+                years.addAll( getUpdatedDataYears( partition.getStartDate(), partition.getEndDate() ) );
+            }
+            else if ( partition.getYear() != null )
+            {
+                years.add( String.valueOf( partition.getYear() ) );
+            }
+        }
+
+        if ( years.isEmpty() )
+        {
+            return;
+        }
+
+        String yearFilter = quote( YearlyPeriodType.NAME.toLowerCase() ) + " in (" +
+            getQuotedCommaDelimitedString( years ) + ")";
+
+        final String sql = "delete from " + rollupTable + " where " + yearFilter + ";" +
+            "insert into " + rollupTable + " (" + groupBy + "," + quote( "value" ) + ") " +
+            "select " + groupBy + ",sum(" + quote( "value" ) + ") " +
+            "from " + getTableName() + " " +
+            "where " + yearFilter + " " +
+            "group by " + groupBy + ";";
+
+        invokeTimeAndLog( sql, String.format( "Refreshed rollup table: '%s' for years: %s", rollupTable, years ) );
+    }
+
+    /**
+     * Returns the years of the periods of the data values, including deleted
+     * data values, which were updated within the given time range.
+     *
+     * @param startDate the start of the time range, inclusive.
+     * @param endDate the end of the time range, exclusive.
+     */
+    private List<String> getUpdatedDataYears( Date startDate, Date endDate )
+    {
+        final String sql = "select distinct cast(ps.year as text) " +
+            "from datavalue dv " +
+            "inner join _periodstructure ps on dv.periodid=ps.periodid " +
+            "where dv.lastupdated >= '" + getLongDateString( startDate ) + "' " +
+            "and dv.lastupdated < '" + getLongDateString( endDate ) + "'";
+
+        return jdbcTemplate.queryForList( sql, String.class );
+    }
+
+    /**
+     * Drops the rollup tables of this table type, except the given rollup
+     * table which is to be kept.
+     *
+     * @param keepTable the rollup table to keep, can be null.
+     */
+    private void dropRollupTables( String keepTable )
+    {
+        final String sql = "select table_name from information_schema.tables " +
+            "where table_name like '" + PartitionUtils.getRollupTablePrefix( getAnalyticsTableType() ) + "%' " +
+            "and table_type = 'BASE TABLE'";
+
+        jdbcTemplate.queryForList( sql, String.class ).stream()
+            .filter( table -> !table.equals( keepTable ) )
+            .forEach( this::dropTableCascade );
+    }
+
     /**
      * Indicates whether the system should ignore data which has not been
      * approved in analytics tables.
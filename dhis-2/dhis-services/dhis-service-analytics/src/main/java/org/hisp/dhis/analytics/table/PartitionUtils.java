@@ -57,6 +57,8 @@ public class PartitionUtils
 {
     public static final String SEP = "_";
 
+    public static final String ROLLUP_SUFFIX = "rollup";
+
     /**
      * Returns the start date for the given year, inclusive.
      *
@@ -95,6 +97,33 @@ public class PartitionUtils
         return baseName + SEP + program.getUid().toLowerCase();
     }
 
+    /**
+     * Returns the name of the rollup table of the given analytics table type
+     * which is aggregated to the given organisation unit level. The level is
+     * part of the name so that a rollup table is never used for levels it
+     * does not contain.
+     *
+     * @param tableType the {@link AnalyticsTableType}.
+     * @param orgUnitLevel the deepest organisation unit level of the rollup.
+     * @return the rollup table name.
+     */
+    public static String getRollupTableName( AnalyticsTableType tableType, int orgUnitLevel )
+    {
+        return getRollupTablePrefix( tableType ) + "l" + orgUnitLevel;
+    }
+
+    /**
+     * Returns the prefix shared by the rollup tables of the given analytics
+     * table type.
+     *
+     * @param tableType the {@link AnalyticsTableType}.
+     * @return the rollup table prefix.
+     */
+    public static String getRollupTablePrefix( AnalyticsTableType tableType )
+    {
+        return tableType.getTableName() + SEP + ROLLUP_SUFFIX + SEP;
+    }
+
     /**
      * Returns partitions for the given list of periods.
      *
@@ -0,0 +1,251 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.analytics.admission;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.hisp.dhis.analytics.admission.AnalyticsAdmissionController.Permit;
+import org.hisp.dhis.common.QueryRuntimeException;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.hisp.dhis.feedback.ErrorCode;
+import org.hisp.dhis.user.CurrentUserService;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class AnalyticsAdmissionControllerTest
+{
+    private static final AnalyticsQueryOrigin ORIGIN_A = new AnalyticsQueryOrigin( "userA",
+        AnalyticsQueryPriority.INTERACTIVE );
+
+    private static final AnalyticsQueryOrigin ORIGIN_B = new AnalyticsQueryOrigin( "userB",
+        AnalyticsQueryPriority.INTERACTIVE );
+
+    private static final AnalyticsQueryOrigin ORIGIN_JOB = new AnalyticsQueryOrigin( null,
+        AnalyticsQueryPriority.SCHEDULED );
+
+    @Mock
+    private DhisConfigurationProvider config;
+
+    @Mock
+    private CurrentUserService currentUserService;
+
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final ExecutorService executor = Executors.newFixedThreadPool( 2 );
+
+    @After
+    public void tearDown()
+    {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testAcquireWhenDisabled()
+    {
+        AnalyticsAdmissionController controller = createController( 0, 0, 0 );
+
+        assertFalse( controller.isEnabled() );
+
+        try ( Permit permitA = controller.acquire( ORIGIN_A ); Permit permitB = controller.acquire( ORIGIN_A ) )
+        {
+            assertEquals( 0, getGauge( "running" ), 0 );
+        }
+    }
+
+    @Test
+    public void testRejectWhenQueueTimeoutExceeded()
+    {
+        AnalyticsAdmissionController controller = createController( 1, 0, 0 );
+
+        try ( Permit permit = controller.acquire( ORIGIN_A ) )
+        {
+            assertEquals( 1, getGauge( "running" ), 0 );
+
+            controller.acquire( ORIGIN_B );
+
+            fail( "Expected query to be rejected" );
+        }
+        catch ( QueryRuntimeException ex )
+        {
+            assertEquals( ErrorCode.E7134, ex.getErrorCode() );
+        }
+
+        assertEquals( 0, getGauge( "running" ), 0 );
+        assertEquals( 0, getGauge( "queued" ), 0 );
+        assertEquals( 1, meterRegistry.get( "analytics.admission.rejected" ).counter().count(), 0 );
+    }
+
+    @Test
+    public void testReleaseAdmitsWaitingQuery()
+        throws Exception
+    {
+        AnalyticsAdmissionController controller = createController( 1, 0, 10 );
+
+        Permit permit = controller.acquire( ORIGIN_A );
+
+        Future<?> waiting = executor.submit( () -> controller.acquire( ORIGIN_B ).close() );
+
+        awaitQueued( 1 );
+
+        assertFalse( waiting.isDone() );
+
+        permit.close();
+
+        waiting.get( 10, TimeUnit.SECONDS );
+
+        assertEquals( 0, getGauge( "running" ), 0 );
+    }
+
+    @Test
+    public void testAdmitHigherPriorityFirst()
+        throws Exception
+    {
+        AnalyticsAdmissionController controller = createController( 1, 0, 10 );
+
+        List<AnalyticsQueryPriority> admitted = new CopyOnWriteArrayList<>();
+
+        Permit permit = controller.acquire( ORIGIN_A );
+
+        Future<?> job = executor.submit( () -> acquireAndRecord( controller, ORIGIN_JOB, admitted ) );
+
+        awaitQueued( 1 );
+
+        Future<?> interactive = executor.submit( () -> acquireAndRecord( controller, ORIGIN_B, admitted ) );
+
+        awaitQueued( 2 );
+
+        permit.close();
+
+        job.get( 10, TimeUnit.SECONDS );
+        interactive.get( 10, TimeUnit.SECONDS );
+
+        assertEquals( AnalyticsQueryPriority.INTERACTIVE, admitted.get( 0 ) );
+        assertEquals( AnalyticsQueryPriority.SCHEDULED, admitted.get( 1 ) );
+    }
+
+    @Test
+    public void testUserQueryLimit()
+    {
+        AnalyticsAdmissionController controller = createController( 2, 1, 0 );
+
+        try ( Permit permitA = controller.acquire( ORIGIN_A ); Permit permitB = controller.acquire( ORIGIN_B ) )
+        {
+            assertEquals( 2, getGauge( "running" ), 0 );
+        }
+
+        try ( Permit permitA = controller.acquire( ORIGIN_A ) )
+        {
+            controller.acquire( ORIGIN_A );
+
+            fail( "Expected query to be rejected" );
+        }
+        catch ( QueryRuntimeException ex )
+        {
+            assertEquals( ErrorCode.E7134, ex.getErrorCode() );
+        }
+    }
+
+    @Test
+    public void testCloseIsIdempotent()
+    {
+        AnalyticsAdmissionController controller = createController( 1, 0, 0 );
+
+        Permit permit = controller.acquire( ORIGIN_A );
+        permit.close();
+        permit.close();
+
+        assertEquals( 0, getGauge( "running" ), 0 );
+
+        try ( Permit other = controller.acquire( ORIGIN_B ) )
+        {
+            assertTrue( controller.isEnabled() );
+        }
+    }
+
+    private AnalyticsAdmissionController createController( int maxQueries, int maxUserQueries, int queueTimeout )
+    {
+        when( config.getProperty( ConfigurationKey.ANALYTICS_ADMISSION_MAX_QUERIES ) )
+            .thenReturn( String.valueOf( maxQueries ) );
+        when( config.getProperty( ConfigurationKey.ANALYTICS_ADMISSION_MAX_USER_QUERIES ) )
+            .thenReturn( String.valueOf( maxUserQueries ) );
+        when( config.getProperty( ConfigurationKey.ANALYTICS_ADMISSION_QUEUE_TIMEOUT ) )
+            .thenReturn( String.valueOf( queueTimeout ) );
+        when( config.getProperty( ConfigurationKey.ANALYTICS_QUERY_TIMEOUT ) ).thenReturn( "0" );
+
+        return new AnalyticsAdmissionController( config, currentUserService, meterRegistry );
+    }
+
+    private void acquireAndRecord( AnalyticsAdmissionController controller, AnalyticsQueryOrigin origin,
+        List<AnalyticsQueryPriority> admitted )
+    {
+        try ( Permit permit = controller.acquire( origin ) )
+        {
+            admitted.add( origin.getPriority() );
+        }
+    }
+
+    private void awaitQueued( int queued )
+        throws InterruptedException
+    {
+        long deadline = System.currentTimeMillis() + 10000;
+
+        while ( getGauge( "queued" ) < queued && System.currentTimeMillis() < deadline )
+        {
+            Thread.sleep( 10 );
+        }
+
+        assertEquals( queued, getGauge( "queued" ), 0 );
+    }
+
+    private double getGauge( String name )
+    {
+        return meterRegistry.get( "analytics.admission." + name ).gauge().value();
+    }
+}
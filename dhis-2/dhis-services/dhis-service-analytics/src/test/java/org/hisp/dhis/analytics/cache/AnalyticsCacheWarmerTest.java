@@ -0,0 +1,268 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.analytics.cache;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.samePropertyValuesAs;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.hisp.dhis.analytics.AnalyticsSecurityManager;
+import org.hisp.dhis.analytics.DataQueryParams;
+import org.hisp.dhis.analytics.DataQueryService;
+import org.hisp.dhis.analytics.QueryValidator;
+import org.hisp.dhis.analytics.SortOrder;
+import org.hisp.dhis.analytics.data.handler.DataAggregator;
+import org.hisp.dhis.common.AggregateAnalyticsQueryCriteria;
+import org.hisp.dhis.common.DataQueryRequest;
+import org.hisp.dhis.common.DhisApiVersion;
+import org.hisp.dhis.common.Grid;
+import org.hisp.dhis.common.IdentifiableObjectManager;
+import org.hisp.dhis.datastatistics.DataStatisticsEventType;
+import org.hisp.dhis.datastatistics.DataStatisticsService;
+import org.hisp.dhis.datastatistics.FavoriteStatistics;
+import org.hisp.dhis.period.RelativePeriods;
+import org.hisp.dhis.scheduling.JobConfiguration;
+import org.hisp.dhis.setting.SettingKey;
+import org.hisp.dhis.setting.SystemSettingManager;
+import org.hisp.dhis.system.grid.ListGrid;
+import org.hisp.dhis.system.notification.Notifier;
+import org.hisp.dhis.user.User;
+import org.hisp.dhis.user.UserCredentials;
+import org.hisp.dhis.visualization.Visualization;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+public class AnalyticsCacheWarmerTest
+{
+    @Mock
+    private DataStatisticsService dataStatisticsService;
+
+    @Mock
+    private IdentifiableObjectManager idObjectManager;
+
+    @Mock
+    private DataQueryService dataQueryService;
+
+    @Mock
+    private AnalyticsSecurityManager securityManager;
+
+    @Mock
+    private QueryValidator queryValidator;
+
+    @Mock
+    private DataAggregator dataAggregator;
+
+    @Mock
+    private AnalyticsCache analyticsCache;
+
+    @Mock
+    private SystemSettingManager systemSettingManager;
+
+    @Mock
+    private Notifier notifier;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    private final JobConfiguration jobId = new JobConfiguration();
+
+    private final DataQueryParams params = DataQueryParams.newBuilder().build();
+
+    private final Grid grid = new ListGrid();
+
+    private AnalyticsCacheWarmer subject;
+
+    @Before
+    public void setUp()
+    {
+        subject = new AnalyticsCacheWarmer( dataStatisticsService, idObjectManager, dataQueryService,
+            securityManager, queryValidator, dataAggregator, analyticsCache, systemSettingManager, notifier,
+            transactionManager );
+
+        when( analyticsCache.isEnabled() ).thenReturn( true );
+        when( systemSettingManager.getIntegerSetting( SettingKey.ANALYTICS_CACHE_WARM_UP_TIME_BUDGET ) )
+            .thenReturn( 600 );
+        when( dataStatisticsService.getTopFavorites( eq( DataStatisticsEventType.VISUALIZATION_VIEW ), anyInt(),
+            eq( SortOrder.DESC ), isNull() ) ).thenReturn( getFavorites( "vizA", "vizB", "vizC" ) );
+        when( idObjectManager.get( Visualization.class, "vizA" ) ).thenReturn( createVisualization() );
+        when( idObjectManager.get( Visualization.class, "vizB" ) ).thenReturn( createVisualization() );
+        when( dataQueryService.getFromRequest( any() ) ).thenReturn( params );
+        when( securityManager.withDataApprovalConstraints( params ) ).thenReturn( params );
+        when( securityManager.withUserConstraints( params ) ).thenReturn( params );
+        when( dataAggregator.getAggregatedDataValueGrid( any() ) ).thenReturn( grid );
+    }
+
+    @Test
+    public void testWarmUpDisabled()
+    {
+        when( systemSettingManager.getIntegerSetting( SettingKey.ANALYTICS_CACHE_WARM_UP_VISUALIZATIONS ) )
+            .thenReturn( 0 );
+
+        subject.warmUp( jobId );
+
+        verifyNoInteractions( dataStatisticsService );
+        verify( analyticsCache, never() ).put( any( DataQueryParams.class ), any() );
+    }
+
+    @Test
+    public void testWarmUpCacheDisabled()
+    {
+        when( systemSettingManager.getIntegerSetting( SettingKey.ANALYTICS_CACHE_WARM_UP_VISUALIZATIONS ) )
+            .thenReturn( 10 );
+        when( analyticsCache.isEnabled() ).thenReturn( false );
+
+        subject.warmUp( jobId );
+
+        verifyNoInteractions( dataStatisticsService );
+    }
+
+    @Test
+    public void testWarmUp()
+    {
+        when( systemSettingManager.getIntegerSetting( SettingKey.ANALYTICS_CACHE_WARM_UP_VISUALIZATIONS ) )
+            .thenReturn( 10 );
+
+        subject.warmUp( jobId );
+
+        verify( dataStatisticsService ).getTopFavorites( DataStatisticsEventType.VISUALIZATION_VIEW, 10,
+            SortOrder.DESC, null );
+        verify( securityManager, times( 2 ) ).decideAccess( params );
+        verify( dataAggregator, times( 2 ) ).getAggregatedDataValueGrid( any() );
+        verify( analyticsCache, times( 2 ) ).put( params, grid );
+        assertNull( SecurityContextHolder.getContext().getAuthentication() );
+        verify( notifier ).notify( jobId,
+            "Analytics cache warm-up done, warmed up: 2, failed: 1, skipped due to time budget: 0" );
+    }
+
+    @Test
+    public void testWarmUpTimeBudgetSpent()
+    {
+        when( systemSettingManager.getIntegerSetting( SettingKey.ANALYTICS_CACHE_WARM_UP_VISUALIZATIONS ) )
+            .thenReturn( 10 );
+        when( systemSettingManager.getIntegerSetting( SettingKey.ANALYTICS_CACHE_WARM_UP_TIME_BUDGET ) )
+            .thenReturn( 0 );
+
+        subject.warmUp( jobId );
+
+        verify( dataAggregator, never() ).getAggregatedDataValueGrid( any() );
+        verify( notifier ).notify( jobId,
+            "Analytics cache warm-up done, warmed up: 0, failed: 0, skipped due to time budget: 3" );
+    }
+
+    @Test
+    public void testWarmUpRequestMatchesAnalyticsRequest()
+    {
+        when( systemSettingManager.getIntegerSetting( SettingKey.ANALYTICS_CACHE_WARM_UP_VISUALIZATIONS ) )
+            .thenReturn( 10 );
+
+        Visualization visualization = createVisualization();
+        visualization.setSkipRounding( true );
+        visualization.setColumnDimensions( Lists.newArrayList( "pe" ) );
+        visualization.setFilterDimensions( Lists.newArrayList( "ou" ) );
+        visualization.setUserOrganisationUnit( true );
+        visualization.setRelatives( new RelativePeriods().setLast12Months( true ) );
+
+        when( idObjectManager.get( Visualization.class, "vizA" ) ).thenReturn( visualization );
+
+        subject.warmUp( jobId );
+
+        ArgumentCaptor<DataQueryRequest> request = ArgumentCaptor.forClass( DataQueryRequest.class );
+
+        verify( dataQueryService, times( 2 ) ).getFromRequest( request.capture() );
+
+        AggregateAnalyticsQueryCriteria criteria = new AggregateAnalyticsQueryCriteria();
+        criteria.setDimension( Sets.newHashSet( "pe:LAST_12_MONTHS" ) );
+        criteria.setFilter( Sets.newHashSet( "ou:USER_ORGUNIT" ) );
+        criteria.setSkipRounding( true );
+
+        DataQueryRequest analyticsRequest = DataQueryRequest.newBuilder()
+            .fromCriteria( criteria )
+            .apiVersion( DhisApiVersion.DEFAULT )
+            .build();
+
+        DataQueryRequest warmUpRequest = request.getAllValues().stream()
+            .filter( DataQueryRequest::isSkipRounding )
+            .findFirst().get();
+
+        assertThat( warmUpRequest, samePropertyValuesAs( analyticsRequest ) );
+        assertEquals( DhisApiVersion.DEFAULT, warmUpRequest.getApiVersion() );
+    }
+
+    private Visualization createVisualization()
+    {
+        UserCredentials userCredentials = new UserCredentials();
+        userCredentials.setUsername( "admin" );
+
+        User user = new User();
+        user.setUserCredentials( userCredentials );
+
+        Visualization visualization = new Visualization();
+        visualization.setCreatedBy( user );
+
+        return visualization;
+    }
+
+    private List<FavoriteStatistics> getFavorites( String... uids )
+    {
+        List<FavoriteStatistics> favorites = Lists.newArrayList();
+
+        for ( String uid : uids )
+        {
+            FavoriteStatistics favorite = new FavoriteStatistics();
+            favorite.setId( uid );
+            favorites.add( favorite );
+        }
+
+        return favorites;
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.analytics.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+import java.util.Map;
+
+import org.hisp.dhis.analytics.AnalyticsTable;
+import org.hisp.dhis.analytics.AnalyticsTableType;
+import org.hisp.dhis.analytics.DataQueryParams;
+import org.hisp.dhis.analytics.Partitions;
+import org.hisp.dhis.cache.CacheProvider;
+import org.hisp.dhis.cache.TestCache;
+import org.hisp.dhis.common.event.ApplicationCacheClearedEvent;
+import org.hisp.dhis.period.Period;
+import org.hisp.dhis.period.YearlyPeriodType;
+import org.joda.time.DateTime;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+public class AnalyticsFragmentCacheTest
+{
+    @Mock
+    private CacheProvider cacheProvider;
+
+    @Mock
+    private AnalyticsCacheSettings analyticsCacheSettings;
+
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    private AnalyticsFragmentCache subject;
+
+    private DataQueryParams params;
+
+    private Map<String, Object> valueMap;
+
+    private TestCache<Map<String, Object>> cache;
+
+    @Before
+    public void setUp()
+    {
+        cache = new TestCache<>();
+
+        when( cacheProvider.createAnalyticsFragmentCache( any() ) ).thenReturn( cache );
+
+        subject = new AnalyticsFragmentCache( cacheProvider, analyticsCacheSettings );
+
+        params = DataQueryParams.newBuilder()
+            .withTableName( "analytics" )
+            .withPartitions( new Partitions( Sets.newHashSet( 2018, 2019 ) ) )
+            .build();
+
+        valueMap = ImmutableMap.of( "deA-2018-ouA", 10d );
+    }
+
+    @Test
+    public void testGetTags()
+    {
+        assertEquals( Sets.newHashSet( "analytics_2018", "analytics_2019", "analytics_0" ),
+            AnalyticsFragmentCache.getTags( params, AnalyticsTableType.DATA_VALUE ) );
+
+        DataQueryParams unpartitioned = DataQueryParams.newBuilder()
+            .withTableName( "analytics_orgunittarget" )
+            .build();
+
+        assertEquals( Sets.newHashSet( "analytics_orgunittarget" ),
+            AnalyticsFragmentCache.getTags( unpartitioned, AnalyticsTableType.ORG_UNIT_TARGET ) );
+    }
+
+    @Test
+    public void testGetKey()
+    {
+        assertEquals( AnalyticsFragmentCache.getKey( params, AnalyticsTableType.DATA_VALUE, "select 1", 0 ),
+            AnalyticsFragmentCache.getKey( params, AnalyticsTableType.DATA_VALUE, "select 1", 0 ) );
+        assertFalse( AnalyticsFragmentCache.getKey( params, AnalyticsTableType.DATA_VALUE, "select 1", 0 ).equals(
+            AnalyticsFragmentCache.getKey( params, AnalyticsTableType.DATA_VALUE, "select 2", 0 ) ) );
+    }
+
+    @Test
+    public void testPutAndGet()
+    {
+        subject.put( "keyA", Sets.newHashSet( "analytics_2018" ), params, valueMap );
+
+        assertTrue( subject.get( "keyA" ).isPresent() );
+        assertEquals( valueMap, subject.get( "keyA" ).get() );
+        assertFalse( subject.get( "keyB" ).isPresent() );
+    }
+
+    @Test
+    public void testInvalidatePartitions()
+    {
+        subject.put( "keyA", Sets.newHashSet( "analytics_2018" ), params, valueMap );
+        subject.put( "keyB", Sets.newHashSet( "analytics_2019" ), params, valueMap );
+        subject.put( "keyC", Sets.newHashSet( "analytics" ), params, valueMap );
+
+        Period period = new YearlyPeriodType().createPeriod( new DateTime( 2019, 1, 1, 0, 0 ).toDate() );
+
+        AnalyticsTable table = new AnalyticsTable( AnalyticsTableType.DATA_VALUE, Lists.newArrayList(),
+            Lists.newArrayList() );
+        table.addPartitionTable( 2019, period.getStartDate(), period.getEndDate() );
+
+        subject.invalidatePartitions( table.getTablePartitions() );
+
+        assertTrue( subject.get( "keyA" ).isPresent() );
+        assertFalse( subject.get( "keyB" ).isPresent() );
+        assertFalse( subject.get( "keyC" ).isPresent() );
+    }
+
+    @Test
+    public void testInvalidateTable()
+    {
+        subject.put( "keyA", Sets.newHashSet( "analytics_2018" ), params, valueMap );
+        subject.put( "keyB", Sets.newHashSet( "analytics_completeness_2018" ), params, valueMap );
+
+        subject.invalidateTable( "analytics" );
+
+        assertFalse( subject.get( "keyA" ).isPresent() );
+        assertTrue( subject.get( "keyB" ).isPresent() );
+    }
+
+    @Test
+    public void testPruneTags()
+    {
+        subject.put( "keyA", Sets.newHashSet( "analytics_2018" ), params, valueMap );
+        subject.put( "keyB", Sets.newHashSet( "analytics_2018", "analytics_2019" ), params, valueMap );
+
+        cache.invalidate( "keyB" );
+
+        subject.pruneTags();
+
+        assertEquals( Sets.newHashSet( "analytics_2018" ), subject.getTags() );
+        assertTrue( subject.get( "keyA" ).isPresent() );
+    }
+
+    @Test
+    public void testHandleApplicationCachesCleared()
+    {
+        subject.put( "keyA", Sets.newHashSet( "analytics_2018" ), params, valueMap );
+
+        subject.handleApplicationCachesCleared( new ApplicationCacheClearedEvent() );
+
+        assertFalse( subject.get( "keyA" ).isPresent() );
+        assertTrue( subject.getTags().isEmpty() );
+    }
+}
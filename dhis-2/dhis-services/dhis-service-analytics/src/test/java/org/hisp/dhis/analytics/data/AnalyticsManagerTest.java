@@ -45,6 +45,8 @@ import org.hisp.dhis.analytics.AnalyticsManager;
 import org.hisp.dhis.analytics.DataQueryParams;
 import org.hisp.dhis.analytics.DataType;
 import org.hisp.dhis.analytics.QueryPlanner;
+import org.hisp.dhis.analytics.admission.AnalyticsAdmissionController;
+import org.hisp.dhis.analytics.cache.AnalyticsFragmentCache;
 import org.hisp.dhis.common.DimensionalItemObject;
 import org.hisp.dhis.common.ListMap;
 import org.hisp.dhis.period.Period;
@@ -78,6 +80,12 @@ public class AnalyticsManagerTest
         @Mock
         private JdbcTemplate jdbcTemplate;
 
+        @Mock
+        private AnalyticsFragmentCache fragmentCache;
+
+        @Mock
+        private AnalyticsAdmissionController admissionController;
+
         @Rule
         public MockitoRule mockitoRule = MockitoJUnit.rule();
 
@@ -98,7 +106,8 @@ public class AnalyticsManagerTest
         @Before
         public void setUp()
         {
-            analyticsManager = new JdbcAnalyticsManager( queryPlanner, jdbcTemplate );
+            analyticsManager = new JdbcAnalyticsManager( queryPlanner, jdbcTemplate, fragmentCache,
+                admissionController );
         }
 
         @Test
@@ -142,13 +151,20 @@ public class AnalyticsManagerTest
         @Mock
         private JdbcTemplate jdbcTemplate;
 
+        @Mock
+        private AnalyticsFragmentCache fragmentCache;
+
+        @Mock
+        private AnalyticsAdmissionController admissionController;
+
         @Rule
         public MockitoRule mockitoRule = MockitoJUnit.rule();
 
         @Test
         public void testReplaceDataPeriodsWithAggregationPeriods()
         {
-            AnalyticsManager analyticsManager = new JdbcAnalyticsManager( queryPlanner, jdbcTemplate );
+            AnalyticsManager analyticsManager = new JdbcAnalyticsManager( queryPlanner, jdbcTemplate, fragmentCache,
+                admissionController );
             Period y2012 = createPeriod( "2012" );
 
             AnalyticsAggregationType aggregationType = new AnalyticsAggregationType(
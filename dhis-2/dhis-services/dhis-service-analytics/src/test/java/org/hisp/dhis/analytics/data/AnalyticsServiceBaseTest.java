@@ -39,6 +39,7 @@ import org.hisp.dhis.analytics.DataQueryService;
 import org.hisp.dhis.analytics.QueryPlanner;
 import org.hisp.dhis.analytics.QueryPlannerParams;
 import org.hisp.dhis.analytics.RawAnalyticsManager;
+import org.hisp.dhis.analytics.admission.AnalyticsAdmissionController;
 import org.hisp.dhis.analytics.cache.AnalyticsCache;
 import org.hisp.dhis.analytics.cache.AnalyticsCacheSettings;
 import org.hisp.dhis.analytics.data.handler.DataAggregator;
@@ -115,6 +116,9 @@ public abstract class AnalyticsServiceBaseTest
     @Mock
     private NestedIndicatorCyclicDependencyInspector nestedIndicatorCyclicDependencyInspector;
 
+    @Mock
+    private AnalyticsAdmissionController admissionController;
+
     DataAggregator target;
 
     @Before
@@ -126,7 +130,7 @@ public abstract class AnalyticsServiceBaseTest
         MetadataHandler metadataHandler = new MetadataHandler( dataQueryService, schemaIdResponseMapper );
         DataHandler dataHandler = new DataHandler( eventAnalyticsService, rawAnalyticsManager, constantService,
             resolvers, expressionService, queryPlanner, queryValidator, systemSettingManager, analyticsManager,
-            organisationUnitService );
+            organisationUnitService, admissionController );
 
         target = new DataAggregator( headerHandler, metadataHandler, dataHandler );
         target.feedHandlers();
@@ -35,6 +35,8 @@ import static org.hisp.dhis.common.DimensionalObjectUtils.getList;
 import static org.mockito.Mockito.when;
 
 import org.hisp.dhis.analytics.*;
+import org.hisp.dhis.analytics.admission.AnalyticsAdmissionController;
+import org.hisp.dhis.analytics.cache.AnalyticsFragmentCache;
 import org.hisp.dhis.analytics.partition.PartitionManager;
 import org.hisp.dhis.common.BaseDimensionalObject;
 import org.hisp.dhis.common.DimensionType;
@@ -72,6 +74,12 @@ public class JdbcAnalyticsManagerTest
     @Mock
     private JdbcTemplate jdbcTemplate;
 
+    @Mock
+    private AnalyticsFragmentCache fragmentCache;
+
+    @Mock
+    private AnalyticsAdmissionController admissionController;
+
     @Mock
     private SqlRowSet rowSet;
 
@@ -88,13 +96,14 @@ public class JdbcAnalyticsManagerTest
     {
         QueryPlanner queryPlanner = new DefaultQueryPlanner(
             new DefaultQueryValidator( this.systemSettingManager ),
-            partitionManager );
+            partitionManager, systemSettingManager );
 
         mockRowSet();
 
         when( jdbcTemplate.queryForRowSet( sql.capture() ) ).thenReturn( rowSet );
 
-        subject = new JdbcAnalyticsManager( queryPlanner, jdbcTemplate );
+        subject = new JdbcAnalyticsManager( queryPlanner, jdbcTemplate, fragmentCache,
+            admissionController );
     }
 
     @Test
@@ -47,6 +47,7 @@ import org.hisp.dhis.common.ValueType;
 import org.hisp.dhis.dataelement.DataElementDomain;
 import org.hisp.dhis.organisationunit.OrganisationUnit;
 import org.hisp.dhis.period.MonthlyPeriodType;
+import org.hisp.dhis.setting.SystemSettingManager;
 import org.joda.time.DateTime;
 import org.junit.Before;
 import org.junit.Rule;
@@ -71,13 +72,16 @@ public class QueryPlannerGroupByAggregationTypeTest
     @Mock
     private PartitionManager partitionManager;
 
+    @Mock
+    private SystemSettingManager systemSettingManager;
+
     @Rule
     public MockitoRule mockitoRule = MockitoJUnit.rule();
 
     @Before
     public void setUp()
     {
-        subject = new DefaultQueryPlanner( queryValidator, partitionManager );
+        subject = new DefaultQueryPlanner( queryValidator, partitionManager, systemSettingManager );
     }
 
     @Test
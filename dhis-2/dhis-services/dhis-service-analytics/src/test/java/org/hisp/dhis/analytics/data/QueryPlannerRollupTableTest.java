@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.analytics.data;
+
+import static org.hisp.dhis.DhisConvenienceTest.createDataElement;
+import static org.hisp.dhis.DhisConvenienceTest.createOrganisationUnit;
+import static org.hisp.dhis.analytics.DataQueryParams.DISPLAY_NAME_DATA_X;
+import static org.hisp.dhis.analytics.DataQueryParams.DISPLAY_NAME_ORGUNIT;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.hisp.dhis.analytics.AnalyticsTableType;
+import org.hisp.dhis.analytics.DataQueryGroups;
+import org.hisp.dhis.analytics.DataQueryParams;
+import org.hisp.dhis.analytics.QueryPlannerParams;
+import org.hisp.dhis.analytics.QueryValidator;
+import org.hisp.dhis.analytics.partition.PartitionManager;
+import org.hisp.dhis.category.CategoryCombo;
+import org.hisp.dhis.common.BaseDimensionalObject;
+import org.hisp.dhis.common.DimensionType;
+import org.hisp.dhis.organisationunit.OrganisationUnit;
+import org.hisp.dhis.period.MonthlyPeriodType;
+import org.hisp.dhis.period.PeriodType;
+import org.hisp.dhis.period.YearlyPeriodType;
+import org.hisp.dhis.setting.SettingKey;
+import org.hisp.dhis.setting.SystemSettingManager;
+import org.joda.time.DateTime;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+import com.google.common.collect.Lists;
+
+public class QueryPlannerRollupTableTest
+{
+    private static final String ROLLUP_TABLE = "analytics_rollup_l2";
+
+    @Mock
+    private QueryValidator queryValidator;
+
+    @Mock
+    private PartitionManager partitionManager;
+
+    @Mock
+    private SystemSettingManager systemSettingManager;
+
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    private DefaultQueryPlanner subject;
+
+    private OrganisationUnit ouA;
+
+    private OrganisationUnit ouC;
+
+    @Before
+    public void setUp()
+    {
+        subject = new DefaultQueryPlanner( queryValidator, partitionManager, systemSettingManager );
+
+        ouA = createOrganisationUnit( 'A' );
+        ouA.setPath( "/ouA" );
+
+        ouC = createOrganisationUnit( 'C' );
+        ouC.setPath( "/ouA/ouB/ouC" );
+
+        when( systemSettingManager.getIntegerSetting( SettingKey.ANALYTICS_ROLLUP_ORG_UNIT_LEVEL ) ).thenReturn( 2 );
+    }
+
+    @Test
+    public void testRouteYearlySumQueryToRollupTable()
+    {
+        when( partitionManager.tableExists( ROLLUP_TABLE ) ).thenReturn( true );
+
+        List<DataQueryParams> queries = planQuery( new YearlyPeriodType(), ouA );
+
+        assertEquals( 1, queries.size() );
+        assertEquals( ROLLUP_TABLE, queries.get( 0 ).getTableName() );
+        assertTrue( queries.get( 0 ).isSkipPartitioning() );
+    }
+
+    @Test
+    public void testDoNotRouteMonthlyQueryToRollupTable()
+    {
+        when( partitionManager.tableExists( ROLLUP_TABLE ) ).thenReturn( true );
+
+        List<DataQueryParams> queries = planQuery( new MonthlyPeriodType(), ouA );
+
+        assertEquals( 1, queries.size() );
+        assertEquals( AnalyticsTableType.DATA_VALUE.getTableName(), queries.get( 0 ).getTableName() );
+        assertFalse( queries.get( 0 ).isSkipPartitioning() );
+    }
+
+    @Test
+    public void testDoNotRouteQueryBelowRollupLevel()
+    {
+        when( partitionManager.tableExists( ROLLUP_TABLE ) ).thenReturn( true );
+
+        List<DataQueryParams> queries = planQuery( new YearlyPeriodType(), ouC );
+
+        assertEquals( 1, queries.size() );
+        assertEquals( AnalyticsTableType.DATA_VALUE.getTableName(), queries.get( 0 ).getTableName() );
+    }
+
+    @Test
+    public void testDoNotRouteQueryWhenRollupTableMissing()
+    {
+        when( partitionManager.tableExists( ROLLUP_TABLE ) ).thenReturn( false );
+
+        List<DataQueryParams> queries = planQuery( new YearlyPeriodType(), ouA );
+
+        assertEquals( 1, queries.size() );
+        assertEquals( AnalyticsTableType.DATA_VALUE.getTableName(), queries.get( 0 ).getTableName() );
+    }
+
+    @Test
+    public void testDoNotRouteQueryWhenRollupDisabled()
+    {
+        when( systemSettingManager.getIntegerSetting( SettingKey.ANALYTICS_ROLLUP_ORG_UNIT_LEVEL ) ).thenReturn( 0 );
+
+        List<DataQueryParams> queries = planQuery( new YearlyPeriodType(), ouA );
+
+        assertEquals( 1, queries.size() );
+        assertEquals( AnalyticsTableType.DATA_VALUE.getTableName(), queries.get( 0 ).getTableName() );
+    }
+
+    private List<DataQueryParams> planQuery( PeriodType periodType, OrganisationUnit orgUnit )
+    {
+        DataQueryParams params = DataQueryParams.newBuilder()
+            .withDimensions( Lists.newArrayList(
+                new BaseDimensionalObject( "dx", DimensionType.DATA_X, DISPLAY_NAME_DATA_X, "display name",
+                    Lists.newArrayList( createDataElement( 'A', new CategoryCombo() ) ) ),
+                new BaseDimensionalObject( "pe", DimensionType.PERIOD, Lists.newArrayList(
+                    periodType.createPeriod( new DateTime( 2020, 1, 1, 0, 0 ).toDate() ) ) ) ) )
+            .withFilters( Lists.newArrayList(
+                new BaseDimensionalObject( "ou", DimensionType.ORGANISATION_UNIT, null, DISPLAY_NAME_ORGUNIT,
+                    Lists.newArrayList( orgUnit ) ) ) )
+            .build();
+
+        DataQueryGroups queryGroups = subject.planQuery( params,
+            QueryPlannerParams.newBuilder().withTableType( AnalyticsTableType.DATA_VALUE ).build() );
+
+        return queryGroups.getAllQueries();
+    }
+}
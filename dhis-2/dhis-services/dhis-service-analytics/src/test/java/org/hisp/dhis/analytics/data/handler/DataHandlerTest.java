@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.analytics.data.handler;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hisp.dhis.common.DimensionItemType.DATA_ELEMENT;
+import static org.hisp.dhis.expression.ParseType.INDICATOR_EXPRESSION;
+import static org.mockito.Mockito.when;
+import static org.mockito.junit.MockitoJUnit.rule;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.hisp.dhis.analytics.AnalyticsManager;
+import org.hisp.dhis.analytics.QueryPlanner;
+import org.hisp.dhis.analytics.QueryValidator;
+import org.hisp.dhis.analytics.RawAnalyticsManager;
+import org.hisp.dhis.analytics.admission.AnalyticsAdmissionController;
+import org.hisp.dhis.analytics.event.EventAnalyticsService;
+import org.hisp.dhis.analytics.resolver.ExpressionResolvers;
+import org.hisp.dhis.common.DimensionalItemId;
+import org.hisp.dhis.common.DimensionalItemObject;
+import org.hisp.dhis.constant.ConstantService;
+import org.hisp.dhis.dataelement.DataElement;
+import org.hisp.dhis.expression.ExpressionService;
+import org.hisp.dhis.organisationunit.OrganisationUnitService;
+import org.hisp.dhis.setting.SystemSettingManager;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoRule;
+
+import com.google.common.collect.ImmutableSet;
+
+public class DataHandlerTest
+{
+    @Rule
+    public MockitoRule mockitoRule = rule();
+
+    @Mock
+    private EventAnalyticsService eventAnalyticsService;
+
+    @Mock
+    private RawAnalyticsManager rawAnalyticsManager;
+
+    @Mock
+    private ConstantService constantService;
+
+    @Mock
+    private ExpressionResolvers resolvers;
+
+    @Mock
+    private ExpressionService expressionService;
+
+    @Mock
+    private QueryPlanner queryPlanner;
+
+    @Mock
+    private QueryValidator queryValidator;
+
+    @Mock
+    private SystemSettingManager systemSettingManager;
+
+    @Mock
+    private AnalyticsManager analyticsManager;
+
+    @Mock
+    private OrganisationUnitService organisationUnitService;
+
+    @Mock
+    private AnalyticsAdmissionController admissionController;
+
+    private DataHandler dataHandler;
+
+    private DataElement dataElementA;
+
+    private DataElement dataElementB;
+
+    private DimensionalItemId itemIdA;
+
+    private DimensionalItemId itemIdB;
+
+    private Map<DimensionalItemId, DimensionalItemObject> itemMap;
+
+    @Before
+    public void setUp()
+    {
+        dataHandler = new DataHandler( eventAnalyticsService, rawAnalyticsManager, constantService, resolvers,
+            expressionService, queryPlanner, queryValidator, systemSettingManager, analyticsManager,
+            organisationUnitService, admissionController );
+
+        dataElementA = new DataElement( "A" );
+        dataElementA.setUid( "deabcdefghA" );
+        dataElementB = new DataElement( "B" );
+        dataElementB.setUid( "deabcdefghB" );
+
+        itemIdA = new DimensionalItemId( DATA_ELEMENT, dataElementA.getUid() );
+        itemIdB = new DimensionalItemId( DATA_ELEMENT, dataElementB.getUid() );
+
+        itemMap = new HashMap<>();
+        itemMap.put( itemIdA, dataElementA );
+        itemMap.put( itemIdB, dataElementB );
+    }
+
+    @Test
+    public void testGetExpressionItems()
+    {
+        String expression = "#{deabcdefghA}+#{deabcdefghB}";
+
+        when( expressionService.getExpressionDimensionalItemIds( expression, INDICATOR_EXPRESSION ) )
+            .thenReturn( ImmutableSet.of( itemIdA, itemIdB ) );
+
+        assertThat( dataHandler.getExpressionItems( expression, itemMap ),
+            containsInAnyOrder( dataElementA, dataElementB ) );
+    }
+
+    @Test
+    public void testGetExpressionItemsWithUnresolvedItem()
+    {
+        String expression = "#{deabcdefghA}+#{deabcdefghC}";
+
+        when( expressionService.getExpressionDimensionalItemIds( expression, INDICATOR_EXPRESSION ) )
+            .thenReturn( ImmutableSet.of( itemIdA, new DimensionalItemId( DATA_ELEMENT, "deabcdefghC" ) ) );
+
+        assertThat( dataHandler.getExpressionItems( expression, itemMap ), empty() );
+    }
+
+    @Test
+    public void testGetExpressionItemsWithFirstNonNull()
+    {
+        assertThat( dataHandler.getExpressionItems( "firstNonNull(#{deabcdefghA},0)", itemMap ), empty() );
+    }
+
+    @Test
+    public void testGetExpressionItemsWithIsNull()
+    {
+        assertThat( dataHandler.getExpressionItems( "if(isNull(#{deabcdefghA}),1,0)", itemMap ), empty() );
+    }
+
+    @Test
+    public void testGetExpressionItemsWithIsNotNull()
+    {
+        assertThat( dataHandler.getExpressionItems( "if( isNotNull( #{deabcdefghB} ), 1, 0 )", itemMap ),
+            empty() );
+    }
+
+    @Test
+    public void testGetExpressionItemsWithoutExpression()
+    {
+        assertThat( dataHandler.getExpressionItems( null, itemMap ), empty() );
+    }
+}
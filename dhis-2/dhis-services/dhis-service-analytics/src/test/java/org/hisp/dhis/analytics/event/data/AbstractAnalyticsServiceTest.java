@@ -36,10 +36,13 @@ import static org.hisp.dhis.DhisConvenienceTest.createOrganisationUnit;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import org.hisp.dhis.analytics.AggregationType;
+import org.hisp.dhis.analytics.AnalyticsMetaDataKey;
 import org.hisp.dhis.analytics.AnalyticsSecurityManager;
+import org.hisp.dhis.analytics.event.EventPagingCursor;
 import org.hisp.dhis.analytics.event.EventQueryParams;
 import org.hisp.dhis.analytics.event.EventQueryValidator;
 import org.hisp.dhis.common.BaseDimensionalObject;
@@ -147,6 +150,45 @@ public class AbstractAnalyticsServiceTest
         assertHeader( headers.get( 3 ), deC.getUid(), deC.getName(), ValueType.NUMBER, Double.class.getName() );
     }
 
+    @Test
+    public void verifyLookAheadRowIsRemovedBeforeMetadata()
+    {
+        // Given
+        EventQueryParams params = new EventQueryParams.Builder()
+            .withCursor( "" )
+            .withPageSize( 2 )
+            .build();
+
+        when( securityManager.withUserConstraints( any( EventQueryParams.class ) ) ).thenReturn( params );
+
+        List<Integer> metadataGridHeights = new ArrayList<>();
+
+        DummyAnalyticsService service = new DummyAnalyticsService( securityManager, eventQueryValidator )
+        {
+            @Override
+            protected long addEventData( Grid grid, EventQueryParams params )
+            {
+                grid.addRow().addValue( "evA" ).addRow().addValue( "evB" ).addRow().addValue( "evC" );
+                return 0;
+            }
+
+            @Override
+            protected void addMetadata( EventQueryParams params, Grid grid )
+            {
+                metadataGridHeights.add( grid.getHeight() );
+            }
+        };
+
+        // When
+        Grid grid = service.getGrid( params );
+
+        // Then
+        assertThat( metadataGridHeights, is( Lists.newArrayList( 2 ) ) );
+        assertThat( grid.getHeight(), is( 2 ) );
+        assertThat( grid.getMetaData().get( AnalyticsMetaDataKey.NEXT_CURSOR.getKey() ),
+            is( EventPagingCursor.encode( "evB" ) ) );
+    }
+
     private void assertHeader( GridHeader expected, String name, String column, ValueType valueType, String type )
     {
         assertThat( "Header name does not match", expected.getName(), is( name ) );
@@ -48,6 +48,7 @@ import java.util.List;
 
 import org.hisp.dhis.analytics.AggregationType;
 import org.hisp.dhis.analytics.AnalyticsAggregationType;
+import org.hisp.dhis.analytics.admission.AnalyticsAdmissionController;
 import org.hisp.dhis.analytics.event.EventQueryParams;
 import org.hisp.dhis.analytics.event.data.programindicator.DefaultProgramIndicatorSubqueryBuilder;
 import org.hisp.dhis.common.BaseDimensionalItemObject;
@@ -86,6 +87,9 @@ public class AbstractJdbcEventAnalyticsManagerTest
     @Mock
     private JdbcTemplate jdbcTemplate;
 
+    @Mock
+    private AnalyticsAdmissionController admissionController;
+
     @Mock
     private ProgramIndicatorService programIndicatorService;
 
@@ -106,7 +110,8 @@ public class AbstractJdbcEventAnalyticsManagerTest
         DefaultProgramIndicatorSubqueryBuilder programIndicatorSubqueryBuilder = new DefaultProgramIndicatorSubqueryBuilder(
             programIndicatorService );
         subject = new JdbcEventAnalyticsManager( jdbcTemplate, statementBuilder, programIndicatorService,
-            programIndicatorSubqueryBuilder, new EventTimeFieldSqlRenderer( statementBuilder ) );
+            programIndicatorSubqueryBuilder, new EventTimeFieldSqlRenderer( statementBuilder ),
+            admissionController );
 
         // data init
 
@@ -41,6 +41,9 @@ import static org.hisp.dhis.common.QueryOperator.EQ;
 import static org.hisp.dhis.common.QueryOperator.IN;
 import static org.hisp.dhis.common.QueryOperator.NE;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -50,10 +53,13 @@ import java.util.Date;
 import java.util.function.Consumer;
 
 import org.hisp.dhis.analytics.TimeField;
+import org.hisp.dhis.analytics.admission.AnalyticsAdmissionController;
 import org.hisp.dhis.analytics.event.EventQueryParams;
 import org.hisp.dhis.analytics.event.data.programindicator.DefaultProgramIndicatorSubqueryBuilder;
 import org.hisp.dhis.common.BaseDimensionalItemObject;
 import org.hisp.dhis.common.DimensionalItemObject;
+import org.hisp.dhis.common.Grid;
+import org.hisp.dhis.common.GridHeader;
 import org.hisp.dhis.common.QueryItem;
 import org.hisp.dhis.common.QueryOperator;
 import org.hisp.dhis.common.ValueType;
@@ -66,6 +72,8 @@ import org.hisp.dhis.random.BeanRandomizer;
 import org.hisp.dhis.relationship.RelationshipConstraint;
 import org.hisp.dhis.relationship.RelationshipEntity;
 import org.hisp.dhis.relationship.RelationshipType;
+import org.hisp.dhis.setting.SettingKey;
+import org.hisp.dhis.setting.SystemSettingManager;
 import org.hisp.dhis.system.grid.ListGrid;
 import org.junit.Before;
 import org.junit.Rule;
@@ -93,12 +101,18 @@ public class EnrollmentAnalyticsManagerTest
     @Mock
     private JdbcTemplate jdbcTemplate;
 
+    @Mock
+    private AnalyticsAdmissionController admissionController;
+
     @Mock
     private SqlRowSet rowSet;
 
     @Mock
     private ProgramIndicatorService programIndicatorService;
 
+    @Mock
+    private SystemSettingManager systemSettingManager;
+
     @Captor
     private ArgumentCaptor<String> sql;
 
@@ -119,7 +133,8 @@ public class EnrollmentAnalyticsManagerTest
             programIndicatorService );
 
         subject = new JdbcEnrollmentAnalyticsManager( jdbcTemplate, statementBuilder, programIndicatorService,
-            programIndicatorSubqueryBuilder, new EnrollmentTimeFieldSqlRenderer( statementBuilder ) );
+            programIndicatorSubqueryBuilder, new EnrollmentTimeFieldSqlRenderer( statementBuilder ),
+            systemSettingManager, admissionController, Runnable::run );
     }
 
     @Test
@@ -325,6 +340,65 @@ public class EnrollmentAnalyticsManagerTest
         assertions.forEach( consumer -> consumer.accept( sql.getValue() ) );
     }
 
+    @Test
+    public void verifyWithSetBasedProgramIndicator()
+    {
+        ProgramIndicator programIndicatorA = createProgramIndicator( 'A', programA, "", "" );
+
+        when( systemSettingManager.getBoolSetting( SettingKey.ANALYTICS_SET_BASED_PROGRAM_INDICATORS ) )
+            .thenReturn( true );
+        when( rowSet.next() ).thenReturn( true, true, false );
+        when( rowSet.getString( 1 ) ).thenReturn( "enrollmentA", "enrollmentB" );
+
+        SqlRowSet piRowSet = mock( SqlRowSet.class );
+        when( piRowSet.next() ).thenReturn( true, false );
+        when( piRowSet.getString( 1 ) ).thenReturn( "enrollmentA" );
+        when( piRowSet.getDouble( 2 ) ).thenReturn( 3.5 );
+        when( jdbcTemplate.queryForRowSet( startsWith( "SELECT subax.pi" ) ) ).thenReturn( piRowSet );
+
+        Grid grid = new ListGrid()
+            .addHeader( new GridHeader( "pi", "Enrollment", ValueType.TEXT, false, true ) )
+            .addHeader( new GridHeader( programIndicatorA.getUid(), programIndicatorA.getName(),
+                ValueType.NUMBER, false, true ) );
+
+        subject.getEnrollments( createRequestParams( programIndicatorA, null ), grid, 100 );
+
+        verify( jdbcTemplate, times( 2 ) ).queryForRowSet( sql.capture() );
+
+        assertThat( sql.getAllValues().get( 0 ), containsString( "null as \"" + programIndicatorA.getUid() + "\"" ) );
+        assertThat( sql.getAllValues().get( 1 ), containsString( "WHERE subax.pi in ('enrollmentA', 'enrollmentB')" ) );
+
+        assertThat( grid.getValue( 0, 1 ), is( 3.5 ) );
+        assertThat( grid.getValue( 1, 1 ), is( 0d ) );
+    }
+
+    @Test
+    public void verifyWithSortedSetBasedProgramIndicator()
+    {
+        ProgramIndicator programIndicatorA = createProgramIndicator( 'A', programA, "", "" );
+
+        when( systemSettingManager.getBoolSetting( SettingKey.ANALYTICS_SET_BASED_PROGRAM_INDICATORS ) )
+            .thenReturn( true );
+        when( rowSet.next() ).thenReturn( true, false );
+        when( rowSet.getString( 1 ) ).thenReturn( "enrollmentA" );
+
+        EventQueryParams params = new EventQueryParams.Builder( createRequestParams( programIndicatorA, null ) )
+            .addAscSortItem( programIndicatorA )
+            .build();
+
+        Grid grid = new ListGrid()
+            .addHeader( new GridHeader( "pi", "Enrollment", ValueType.TEXT, false, true ) )
+            .addHeader( new GridHeader( programIndicatorA.getUid(), programIndicatorA.getName(),
+                ValueType.NUMBER, false, true ) );
+
+        subject.getEnrollments( params, grid, 100 );
+
+        verify( jdbcTemplate ).queryForRowSet( sql.capture() );
+
+        assertThat( sql.getValue(), not( containsString( "null as \"" + programIndicatorA.getUid() + "\"" ) ) );
+        assertThat( sql.getValue(), containsString( "order by \"" + programIndicatorA.getUid() + "\" asc" ) );
+    }
+
     @Test
     public void verifyWithProgramIndicatorAndRelationshipTypeBothSidesTei()
     {
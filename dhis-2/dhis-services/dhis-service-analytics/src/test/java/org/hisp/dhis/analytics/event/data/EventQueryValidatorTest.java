@@ -36,6 +36,7 @@ import org.hisp.dhis.analytics.AggregationType;
 import org.hisp.dhis.analytics.DataQueryParams;
 import org.hisp.dhis.analytics.QueryValidator;
 import org.hisp.dhis.analytics.TimeField;
+import org.hisp.dhis.analytics.event.EventPagingCursor;
 import org.hisp.dhis.analytics.event.EventQueryParams;
 import org.hisp.dhis.analytics.event.EventQueryValidator;
 import org.hisp.dhis.common.IdentifiableObjectManager;
@@ -312,6 +313,37 @@ public class EventQueryValidatorTest
         assertEquals( ErrorCode.E7208, error.getErrorCode() );
     }
 
+    @Test
+    public void validateErrorCursor()
+    {
+        EventQueryParams params = new EventQueryParams.Builder()
+            .withProgram( prA )
+            .withStartDate( new DateTime( 2010, 6, 1, 0, 0 ).toDate() )
+            .withEndDate( new DateTime( 2012, 3, 20, 0, 0 ).toDate() )
+            .withOrganisationUnits( Lists.newArrayList( ouB ) )
+            .withCursor( "notACursor" ).build();
+
+        ErrorMessage error = queryValidator.validateForErrorMessage( params );
+
+        assertEquals( ErrorCode.E7230, error.getErrorCode() );
+    }
+
+    @Test
+    public void validateErrorCursorWithSorting()
+    {
+        EventQueryParams params = new EventQueryParams.Builder()
+            .withProgram( prA )
+            .withStartDate( new DateTime( 2010, 6, 1, 0, 0 ).toDate() )
+            .withEndDate( new DateTime( 2012, 3, 20, 0, 0 ).toDate() )
+            .withOrganisationUnits( Lists.newArrayList( ouB ) )
+            .addAscSortItem( deA )
+            .withCursor( EventPagingCursor.encode( "psiabcdefgh" ) ).build();
+
+        ErrorMessage error = queryValidator.validateForErrorMessage( params );
+
+        assertEquals( ErrorCode.E7231, error.getErrorCode() );
+    }
+
     @Test
     public void validateErrorMaxLimit()
     {
@@ -45,19 +45,29 @@ import static org.hisp.dhis.common.DimensionalObjectUtils.getList;
 import static org.hisp.dhis.common.QueryOperator.EQ;
 import static org.hisp.dhis.common.QueryOperator.IN;
 import static org.hisp.dhis.common.QueryOperator.NE;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 
 import org.hisp.dhis.analytics.AggregationType;
 import org.hisp.dhis.analytics.AnalyticsAggregationType;
 import org.hisp.dhis.analytics.DataQueryParams;
 import org.hisp.dhis.analytics.DataType;
+import org.hisp.dhis.analytics.admission.AnalyticsAdmissionController;
+import org.hisp.dhis.analytics.admission.AnalyticsQueryOrigin;
+import org.hisp.dhis.analytics.admission.AnalyticsQueryPriority;
+import org.hisp.dhis.analytics.event.EventPagingCursor;
 import org.hisp.dhis.analytics.event.EventQueryParams;
 import org.hisp.dhis.analytics.event.data.programindicator.DefaultProgramIndicatorSubqueryBuilder;
 import org.hisp.dhis.common.BaseDimensionalObject;
@@ -85,9 +95,11 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnit;
 import org.mockito.junit.MockitoRule;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
 
 import com.google.common.collect.ImmutableList;
@@ -103,6 +115,9 @@ public class EventsAnalyticsManagerTest extends EventAnalyticsTest
     @Mock
     private JdbcTemplate jdbcTemplate;
 
+    @Mock
+    private AnalyticsAdmissionController admissionController;
+
     private JdbcEventAnalyticsManager subject;
 
     @Captor
@@ -122,7 +137,7 @@ public class EventsAnalyticsManagerTest extends EventAnalyticsTest
             programIndicatorService );
 
         subject = new JdbcEventAnalyticsManager( jdbcTemplate, statementBuilder, programIndicatorService,
-            programIndicatorSubqueryBuilder, timeCoordinateSelector );
+            programIndicatorSubqueryBuilder, timeCoordinateSelector, admissionController );
 
         when( jdbcTemplate.queryForRowSet( anyString() ) ).thenReturn( this.rowSet );
     }
@@ -145,6 +160,79 @@ public class EventsAnalyticsManagerTest extends EventAnalyticsTest
         assertThat( sql.getValue(), is( expected ) );
     }
 
+    @Test
+    public void verifyGetEventsIsAdmitted()
+    {
+        mockEmptyRowSet();
+
+        AnalyticsQueryOrigin origin = new AnalyticsQueryOrigin( "userA", AnalyticsQueryPriority.INTERACTIVE );
+
+        when( admissionController.getCurrentOrigin() ).thenReturn( origin );
+
+        subject.getEvents( createRequestParams(), createGrid(), 100 );
+
+        verify( admissionController ).acquire( origin );
+    }
+
+    @Test
+    public void verifyStreamRowsRunsInTransaction()
+        throws Exception
+    {
+        Connection connection = mock( Connection.class );
+        PreparedStatement statement = mock( PreparedStatement.class );
+        ResultSet resultSet = mock( ResultSet.class );
+
+        when( connection.getAutoCommit() ).thenReturn( true );
+        when( connection.prepareStatement( "select psi from analytics_event" ) ).thenReturn( statement );
+        when( statement.executeQuery() ).thenReturn( resultSet );
+        when( jdbcTemplate.execute( any( ConnectionCallback.class ) ) )
+            .thenAnswer( invocation -> invocation.<ConnectionCallback<?>> getArgument( 0 )
+                .doInConnection( connection ) );
+
+        AtomicBoolean handled = new AtomicBoolean();
+
+        subject.streamRows( "select psi from analytics_event", rowSet -> handled.set( true ) );
+
+        assertThat( handled.get(), is( true ) );
+
+        InOrder inOrder = inOrder( connection, statement );
+        inOrder.verify( connection ).setAutoCommit( false );
+        inOrder.verify( statement ).setFetchSize( 1000 );
+        inOrder.verify( statement ).executeQuery();
+        inOrder.verify( connection ).rollback();
+        inOrder.verify( connection ).setAutoCommit( true );
+    }
+
+    @Test
+    public void verifyGetEventSqlWithCursor()
+    {
+        EventQueryParams params = new EventQueryParams.Builder( createRequestParams() )
+            .withPageSize( 50 )
+            .withCursor( EventPagingCursor.encode( "psiabcdefgh" ) )
+            .build();
+
+        String expected = "ax.\"monthly\",ax.\"ou\"  from " + getTable( programA.getUid() )
+            + " as ax where ax.\"monthly\" in ('2000Q1') and ax.\"uidlevel1\" in ('ouabcdefghA') "
+            + "and ax.\"psi\" > 'psiabcdefgh' order by ax.\"psi\" limit 51";
+
+        assertSql( expected, subject.getEventsOrEnrollmentsSql( params, 100 ) );
+    }
+
+    @Test
+    public void verifyGetEventSqlWithFirstPageCursor()
+    {
+        EventQueryParams params = new EventQueryParams.Builder( createRequestParams() )
+            .withPageSize( 50 )
+            .withCursor( "" )
+            .build();
+
+        String expected = "ax.\"monthly\",ax.\"ou\"  from " + getTable( programA.getUid() )
+            + " as ax where ax.\"monthly\" in ('2000Q1') and ax.\"uidlevel1\" in ('ouabcdefghA') "
+            + "order by ax.\"psi\" limit 51";
+
+        assertSql( expected, subject.getEventsOrEnrollmentsSql( params, 100 ) );
+    }
+
     @Test
     public void verifyGetEventSqlWithOrgUnitTypeDataElement()
     {
@@ -48,6 +48,8 @@ import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnit;
 import org.mockito.junit.MockitoRule;
 
+import com.google.common.collect.Lists;
+
 /**
  * @author Luciano Fiandesio
  */
@@ -173,4 +175,23 @@ public class ProgramIndicatorSubqueryBuilderTest
             + " as subax WHERE pi = ax.pi AND a = b)" ) );
     }
 
+    @Test
+    public void verifyProgramIndicatorQueryForEnrollments()
+    {
+        ProgramIndicator pi = createProgramIndicator( 'A', program, DUMMY_EXPRESSION, "" );
+        pi.setFilter( DUMMY_FILTER_EXPRESSION );
+
+        when( programIndicatorService.getAnalyticsSql( DUMMY_EXPRESSION, pi, startDate, endDate, "subax" ) )
+            .thenReturn( "distinct psi" );
+        when( programIndicatorService.getAnalyticsSql( DUMMY_FILTER_EXPRESSION, pi, startDate, endDate, "subax" ) )
+            .thenReturn( "a = b" );
+
+        String sql = subject.getAggregateQueryForEnrollments( pi, Lists.newArrayList( "enrollmentA", "enrollmentB" ),
+            startDate, endDate );
+
+        assertThat( sql, is( "SELECT subax.pi, avg (distinct psi) FROM analytics_event_"
+            + program.getUid().toLowerCase() + " as subax WHERE subax.pi in ('enrollmentA', 'enrollmentB')"
+            + " AND a = b GROUP BY subax.pi" ) );
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.analytics.table;
+
+import static org.hisp.dhis.analytics.ColumnDataType.CHARACTER_11;
+import static org.hisp.dhis.analytics.ColumnDataType.GEOMETRY;
+import static org.hisp.dhis.analytics.ColumnDataType.INTEGER;
+import static org.hisp.dhis.analytics.ColumnDataType.TIMESTAMP;
+import static org.hisp.dhis.analytics.util.AnalyticsSqlUtils.quote;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import org.hisp.dhis.analytics.AnalyticsColumnStatistics;
+import org.hisp.dhis.analytics.AnalyticsIndex;
+import org.hisp.dhis.analytics.AnalyticsTable;
+import org.hisp.dhis.analytics.AnalyticsTableColumn;
+import org.hisp.dhis.analytics.AnalyticsTablePartition;
+import org.hisp.dhis.analytics.AnalyticsTableType;
+import org.hisp.dhis.analytics.IndexType;
+import org.joda.time.DateTime;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+
+public class AnalyticsIndexPlannerTest
+{
+    private static final AnalyticsColumnStatistics SELECTIVE = new AnalyticsColumnStatistics( 0d, -0.5, 0.1, 100,
+        0.001 );
+
+    private static final AnalyticsColumnStatistics ORDERED = new AnalyticsColumnStatistics( 0d, -0.2, 0.98, 100,
+        0.001 );
+
+    private static final AnalyticsColumnStatistics CONSTANT = new AnalyticsColumnStatistics( 0d, 1d, 1d, 1, 1d );
+
+    private static final AnalyticsColumnStatistics ALL_NULL = new AnalyticsColumnStatistics( 1d, 0d, null, 0, null );
+
+    @Test
+    public void testGetIndexesWithoutStatistics()
+    {
+        List<AnalyticsIndex> indexes = AnalyticsIndexPlanner.getIndexes( getPartition(), Collections.emptyMap() );
+
+        assertEquals( 5, indexes.size() );
+        assertIndex( indexes.get( 0 ), IndexType.BTREE, quote( "dx" ) );
+        assertIndex( indexes.get( 1 ), IndexType.BTREE, quote( "dx" ), quote( "co" ) );
+        assertIndex( indexes.get( 2 ), IndexType.BTREE, quote( "year" ) );
+        assertIndex( indexes.get( 3 ), IndexType.BTREE, quote( "pestartdate" ) );
+        assertIndex( indexes.get( 4 ), IndexType.GIST, quote( "geometry" ) );
+    }
+
+    @Test
+    public void testGetIndexesWithStatistics()
+    {
+        Map<String, AnalyticsColumnStatistics> statistics = ImmutableMap.of(
+            "dx", SELECTIVE,
+            "co", CONSTANT,
+            "year", CONSTANT,
+            "pestartdate", ORDERED,
+            "geometry", ALL_NULL );
+
+        List<AnalyticsIndex> indexes = AnalyticsIndexPlanner.getIndexes( getPartition(), statistics );
+
+        assertEquals( 4, indexes.size() );
+        assertIndex( indexes.get( 0 ), IndexType.BTREE, quote( "dx" ) );
+        assertIndex( indexes.get( 1 ), IndexType.BTREE, quote( "dx" ), quote( "co" ) );
+        assertIndex( indexes.get( 2 ), IndexType.BRIN, quote( "pestartdate" ) );
+        assertIndex( indexes.get( 3 ), IndexType.GIST, quote( "geometry" ) );
+    }
+
+    @Test
+    public void testIsLowSelectivity()
+    {
+        assertTrue( AnalyticsIndexPlanner.isLowSelectivity( CONSTANT ) );
+        assertTrue( AnalyticsIndexPlanner.isLowSelectivity( ALL_NULL ) );
+        assertTrue( AnalyticsIndexPlanner
+            .isLowSelectivity( new AnalyticsColumnStatistics( 0d, 3d, 0.3, 3, 0.25 ) ) );
+        assertFalse( AnalyticsIndexPlanner
+            .isLowSelectivity( new AnalyticsColumnStatistics( 0d, 3d, 0.3, 3, 0.01 ) ) );
+        assertFalse( AnalyticsIndexPlanner
+            .isLowSelectivity( new AnalyticsColumnStatistics( 0d, 300d, 0.3, 100, 0.3 ) ) );
+        assertFalse( AnalyticsIndexPlanner.isLowSelectivity( SELECTIVE ) );
+    }
+
+    @Test
+    public void testIsNaturallyOrdered()
+    {
+        AnalyticsTableColumn date = new AnalyticsTableColumn( quote( "created" ), TIMESTAMP, "psi.created" );
+        AnalyticsTableColumn level = new AnalyticsTableColumn( quote( "oulevel" ), INTEGER, "ous.level" );
+
+        assertTrue( AnalyticsIndexPlanner.isNaturallyOrdered( date, ORDERED ) );
+        assertTrue( AnalyticsIndexPlanner.isNaturallyOrdered( date,
+            new AnalyticsColumnStatistics( 0d, -0.2, -0.95, 100, 0.001 ) ) );
+        assertFalse( AnalyticsIndexPlanner.isNaturallyOrdered( date, SELECTIVE ) );
+        assertFalse( AnalyticsIndexPlanner.isNaturallyOrdered( date, ALL_NULL ) );
+        assertFalse( AnalyticsIndexPlanner.isNaturallyOrdered( level, ORDERED ) );
+    }
+
+    private AnalyticsTablePartition getPartition()
+    {
+        List<AnalyticsTableColumn> columns = Lists.newArrayList(
+            new AnalyticsTableColumn( quote( "dx" ), CHARACTER_11, "de.uid" ),
+            new AnalyticsTableColumn( quote( "co" ), CHARACTER_11, "co.uid" )
+                .withIndexColumns( Lists.newArrayList( quote( "dx" ), quote( "co" ) ) ),
+            new AnalyticsTableColumn( quote( "year" ), INTEGER, "ps.year" ),
+            new AnalyticsTableColumn( quote( "pestartdate" ), TIMESTAMP, "pe.startdate" ),
+            new AnalyticsTableColumn( quote( "value" ), CHARACTER_11, "dv.value" )
+                .withSkipIndex( true ),
+            new AnalyticsTableColumn( quote( "geometry" ), GEOMETRY, "ou.geometry" )
+                .withIndexType( IndexType.GIST ) );
+
+        Date startDate = new DateTime( 2019, 1, 1, 0, 0 ).toDate();
+        Date endDate = new DateTime( 2019, 12, 31, 0, 0 ).toDate();
+
+        AnalyticsTable table = new AnalyticsTable( AnalyticsTableType.DATA_VALUE, columns, Lists.newArrayList() )
+            .addPartitionTable( 2019, startDate, endDate );
+
+        return table.getTablePartitions().get( 0 );
+    }
+
+    private void assertIndex( AnalyticsIndex index, IndexType type, String... columns )
+    {
+        assertEquals( "analytics_temp_2019", index.getTable() );
+        assertEquals( type, index.getType() );
+        assertEquals( Lists.newArrayList( columns ), index.getColumns() );
+    }
+}
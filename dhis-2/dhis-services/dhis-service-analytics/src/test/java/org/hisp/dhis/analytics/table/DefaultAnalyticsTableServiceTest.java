@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.analytics.table;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.hisp.dhis.analytics.AnalyticsTable;
+import org.hisp.dhis.analytics.AnalyticsTableColumn;
+import org.hisp.dhis.analytics.AnalyticsTableManager;
+import org.hisp.dhis.analytics.AnalyticsTablePartition;
+import org.hisp.dhis.analytics.AnalyticsTableType;
+import org.hisp.dhis.analytics.AnalyticsTableUpdateParams;
+import org.hisp.dhis.analytics.ColumnDataType;
+import org.hisp.dhis.analytics.cache.AnalyticsFragmentCache;
+import org.hisp.dhis.commons.util.ConcurrentUtils;
+import org.hisp.dhis.dataelement.DataElementService;
+import org.hisp.dhis.organisationunit.OrganisationUnitService;
+import org.hisp.dhis.period.Period;
+import org.hisp.dhis.period.YearlyPeriodType;
+import org.hisp.dhis.resourcetable.ResourceTableService;
+import org.hisp.dhis.setting.SystemSettingManager;
+import org.hisp.dhis.system.notification.Notifier;
+import org.joda.time.DateTime;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+import com.google.common.collect.Lists;
+
+public class DefaultAnalyticsTableServiceTest
+{
+    @Mock
+    private AnalyticsTableManager tableManager;
+
+    @Mock
+    private OrganisationUnitService organisationUnitService;
+
+    @Mock
+    private DataElementService dataElementService;
+
+    @Mock
+    private ResourceTableService resourceTableService;
+
+    @Mock
+    private Notifier notifier;
+
+    @Mock
+    private SystemSettingManager systemSettingManager;
+
+    @Mock
+    private AnalyticsFragmentCache fragmentCache;
+
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    private DefaultAnalyticsTableService subject;
+
+    private AnalyticsTable table;
+
+    @Before
+    public void setUp()
+    {
+        subject = new DefaultAnalyticsTableService( tableManager, organisationUnitService, dataElementService,
+            resourceTableService, notifier, systemSettingManager, fragmentCache );
+
+        List<AnalyticsTableColumn> dimensionColumns = Lists.newArrayList(
+            new AnalyticsTableColumn( "dx", ColumnDataType.CHARACTER_11, "dx" ),
+            new AnalyticsTableColumn( "ou", ColumnDataType.CHARACTER_11, "ou" ) );
+
+        Period periodA = new YearlyPeriodType().createPeriod( new DateTime( 2018, 1, 1, 0, 0 ).toDate() );
+        Period periodB = new YearlyPeriodType().createPeriod( new DateTime( 2019, 1, 1, 0, 0 ).toDate() );
+
+        table = new AnalyticsTable( AnalyticsTableType.DATA_VALUE, dimensionColumns, Lists.newArrayList() );
+        table.addPartitionTable( 2018, periodA.getStartDate(), periodA.getEndDate() );
+        table.addPartitionTable( 2019, periodB.getStartDate(), periodB.getEndDate() );
+
+        when( tableManager.getAnalyticsTableType() ).thenReturn( AnalyticsTableType.DATA_VALUE );
+        when( tableManager.getAnalyticsTables( any() ) ).thenReturn( Lists.newArrayList( table ) );
+    }
+
+    @Test
+    public void testUpdateWithPartitionPipeline()
+    {
+        AnalyticsTableUpdateParams params = AnalyticsTableUpdateParams.newBuilder().build();
+
+        subject.update( params );
+
+        for ( AnalyticsTablePartition partition : table.getTablePartitions() )
+        {
+            verify( tableManager ).populateTablePartition( params, partition );
+            verify( tableManager ).analyzeTable( partition.getTempTableName() );
+        }
+
+        verify( tableManager, times( 4 ) ).createIndex( any() );
+        verify( tableManager, never() ).populateTablesAsync( any(), any() );
+        verify( tableManager, never() ).invokeAnalyticsTableSqlHooks();
+        verify( tableManager ).swapTable( params, table );
+        verify( fragmentCache ).invalidateTable( "analytics" );
+    }
+
+    @Test
+    public void testUpdateWithTableHooks()
+    {
+        AnalyticsTableUpdateParams params = AnalyticsTableUpdateParams.newBuilder().build();
+
+        when( tableManager.hasAnalyticsTableSqlHooks() ).thenReturn( true );
+        doReturn( ConcurrentUtils.getImmediateFuture() ).when( tableManager ).populateTablesAsync( any(), any() );
+        doReturn( ConcurrentUtils.getImmediateFuture() ).when( tableManager ).createIndexesAsync( any() );
+
+        subject.update( params );
+
+        verify( tableManager, never() ).populateTablePartition( any(), any() );
+        verify( tableManager ).invokeAnalyticsTableSqlHooks();
+        verify( tableManager ).swapTable( params, table );
+    }
+}
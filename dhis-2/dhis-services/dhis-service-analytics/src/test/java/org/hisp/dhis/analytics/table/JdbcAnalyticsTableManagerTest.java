@@ -28,9 +28,12 @@
 package org.hisp.dhis.analytics.table;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.Date;
@@ -38,10 +41,13 @@ import java.util.List;
 import java.util.Map;
 
 import org.hisp.dhis.analytics.AnalyticsTable;
+import org.hisp.dhis.analytics.AnalyticsTableColumn;
 import org.hisp.dhis.analytics.AnalyticsTableHookService;
 import org.hisp.dhis.analytics.AnalyticsTableManager;
 import org.hisp.dhis.analytics.AnalyticsTablePartition;
+import org.hisp.dhis.analytics.AnalyticsTableType;
 import org.hisp.dhis.analytics.AnalyticsTableUpdateParams;
+import org.hisp.dhis.analytics.ColumnDataType;
 import org.hisp.dhis.analytics.partition.PartitionManager;
 import org.hisp.dhis.category.CategoryService;
 import org.hisp.dhis.common.IdentifiableObjectManager;
@@ -56,6 +62,7 @@ import org.joda.time.DateTime;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatchers;
 import org.mockito.Mock;
 import org.mockito.Mockito;
@@ -186,4 +193,61 @@ public class JdbcAnalyticsTableManagerTest
 
         subject.getAnalyticsTables( params );
     }
+
+    @Test
+    public void testCreateAndSwapUnloggedTable()
+    {
+        when( systemSettingManager.getBoolSetting( SettingKey.ANALYTICS_TABLE_UNLOGGED ) ).thenReturn( true );
+
+        AnalyticsTable table = getAnalyticsTable();
+
+        subject.createTable( table );
+        subject.swapTable( AnalyticsTableUpdateParams.newBuilder().build(), table );
+
+        List<String> statements = getExecutedStatements();
+
+        assertTrue( table.isUnlogged() );
+        assertTrue( statements.contains( "create table if not exists analytics (dx character(11))" +
+            " partition by list(\"year\")" ) );
+        assertTrue(
+            statements.contains( "create unlogged table if not exists analytics_temp_2019 (dx character(11))" ) );
+        assertTrue( statements.stream().noneMatch( sql -> sql.contains( "set logged" ) ) );
+    }
+
+    @Test
+    public void testCreateAndSwapLoggedTable()
+    {
+        AnalyticsTable table = getAnalyticsTable();
+
+        subject.createTable( table );
+        subject.swapTable( AnalyticsTableUpdateParams.newBuilder().build(), table );
+
+        List<String> statements = getExecutedStatements();
+
+        assertFalse( table.isUnlogged() );
+        assertTrue( statements.contains( "create table if not exists analytics_temp_2019 (dx character(11))" ) );
+        assertTrue( statements.stream()
+            .noneMatch( sql -> sql.contains( "unlogged" ) || sql.contains( "set logged" ) ) );
+    }
+
+    private AnalyticsTable getAnalyticsTable()
+    {
+        Date startDate = new DateTime( 2019, 1, 1, 0, 0 ).toDate();
+        Date endDate = new DateTime( 2019, 12, 31, 0, 0 ).toDate();
+
+        AnalyticsTable table = new AnalyticsTable( AnalyticsTableType.DATA_VALUE,
+            Lists.newArrayList( new AnalyticsTableColumn( "dx", ColumnDataType.CHARACTER_11, "dx" ) ),
+            Lists.newArrayList() );
+
+        return table.addPartitionTable( 2019, startDate, endDate );
+    }
+
+    private List<String> getExecutedStatements()
+    {
+        ArgumentCaptor<String> captor = ArgumentCaptor.forClass( String.class );
+
+        verify( jdbcTemplate, atLeastOnce() ).execute( captor.capture() );
+
+        return captor.getAllValues();
+    }
 }
@@ -61,6 +61,7 @@ import org.hisp.dhis.system.util.ValidationUtils;
 import org.hisp.dhis.user.CurrentUserService;
 import org.hisp.dhis.user.CurrentUserServiceTarget;
 import org.hisp.dhis.user.User;
+import org.hisp.dhis.user.UserAccessSnapshot;
 import org.hisp.dhis.user.UserSettingKey;
 import org.hisp.dhis.user.UserSettingService;
 import org.springframework.stereotype.Service;
@@ -499,14 +500,16 @@ public class DefaultOrganisationUnitService
     @Transactional( readOnly = true )
     public boolean isInUserDataViewHierarchy( OrganisationUnit organisationUnit )
     {
-        return isInUserDataViewHierarchy( currentUserService.getCurrentUser(), organisationUnit );
+        UserAccessSnapshot snapshot = currentUserService.getCurrentUserAccessSnapshot();
+
+        return snapshot != null && snapshot.isInDataViewHierarchy( organisationUnit );
     }
 
     @Override
     @Transactional( readOnly = true )
     public boolean isInUserDataViewHierarchyCached( OrganisationUnit organisationUnit )
     {
-        return isInUserDataViewHierarchy( currentUserService.getCurrentUser(), organisationUnit );
+        return isInUserDataViewHierarchy( organisationUnit );
     }
 
     @Override
@@ -536,14 +539,16 @@ public class DefaultOrganisationUnitService
     @Transactional( readOnly = true )
     public boolean isInUserSearchHierarchy( OrganisationUnit organisationUnit )
     {
-        return isInUserSearchHierarchy( currentUserService.getCurrentUser(), organisationUnit );
+        UserAccessSnapshot snapshot = currentUserService.getCurrentUserAccessSnapshot();
+
+        return snapshot != null && snapshot.isInTeiSearchHierarchy( organisationUnit );
     }
 
     @Override
     @Transactional( readOnly = true )
     public boolean isInUserSearchHierarchyCached( OrganisationUnit organisationUnit )
     {
-        return isInUserSearchHierarchyCached( currentUserService.getCurrentUser(), organisationUnit );
+        return isInUserSearchHierarchy( organisationUnit );
     }
 
     @Override
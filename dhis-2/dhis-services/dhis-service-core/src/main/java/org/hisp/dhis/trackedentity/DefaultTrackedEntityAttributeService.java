@@ -286,8 +286,7 @@ public class DefaultTrackedEntityAttributeService
             return validateImage( value );
         }
         else if ( null != trackedEntityAttribute.getOptionSet()
-            && trackedEntityAttribute.getOptionSet().getOptions().stream().filter( Objects::nonNull )
-                .noneMatch( o -> o.getCode().equalsIgnoreCase( value ) ) )
+            && !trackedEntityAttribute.getOptionSet().getOptionIndex().containsCodeIgnoreCase( value ) )
         {
             return "Value '" + errorValue + "' is not a valid option for attribute " +
                 trackedEntityAttribute.getUid() + " and option set " + trackedEntityAttribute.getOptionSet().getUid();
@@ -633,6 +633,17 @@ public class DefaultTrackedEntityInstanceService
             violation = "Duration is not valid: " + params.getLastUpdatedDuration();
         }
 
+        if ( params.hasPageAfter() && params.hasOrders() )
+        {
+            violation = "Page after cannot be specified together with order, keyset paging requires the default order";
+        }
+
+        if ( params.hasPageAfter() && !params.hasOrders()
+            && !trackedEntityInstanceStore.existsIncludingDeleted( params.getPageAfter() ) )
+        {
+            violation = "Page after tracked entity instance does not exist: " + params.getPageAfter();
+        }
+
         if ( violation != null )
         {
             log.warn( "Validation failed: " + violation );
@@ -79,6 +79,8 @@ import org.hisp.dhis.commons.collection.CollectionUtils;
 import org.hisp.dhis.commons.util.SqlHelper;
 import org.hisp.dhis.dxf2.events.event.EventContext;
 import org.hisp.dhis.event.EventStatus;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.hisp.dhis.jdbc.StatementBuilder;
 import org.hisp.dhis.organisationunit.OrganisationUnit;
 import org.hisp.dhis.organisationunit.OrganisationUnitStore;
@@ -96,8 +98,6 @@ import org.springframework.jdbc.support.rowset.SqlRowSet;
 import org.springframework.stereotype.Repository;
 
 import com.google.common.collect.Lists;
-import org.hisp.dhis.external.conf.ConfigurationKey;
-import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 
 /**
  * @author Abyot Asalefew Gizaw
@@ -480,7 +480,7 @@ public class HibernateTrackedEntityInstanceStore
             .append( getFromSubQueryJoinOrderByAttributes( params ) )
 
             // WHERE
-            .append( getFromSubQueryTrackedEntityConditions( whereAnd, params ) )
+            .append( getFromSubQueryTrackedEntityConditions( whereAnd, params, isCountQuery ) )
             .append( getFromSubQueryProgramInstanceConditions( whereAnd, params ) );
 
         if ( !isCountQuery )
@@ -552,9 +552,12 @@ public class HibernateTrackedEntityInstanceStore
      *
      * @param whereAnd tracking if where has been invoked or not
      * @param params
+     * @param isCountQuery indicates if the query is a count query. In that case
+     *        we skip the keyset paging condition, so all pages are counted.
      * @return a SQL segment for the WHERE clause used in the subquery
      */
-    private String getFromSubQueryTrackedEntityConditions( SqlHelper whereAnd, TrackedEntityInstanceQueryParams params )
+    private String getFromSubQueryTrackedEntityConditions( SqlHelper whereAnd, TrackedEntityInstanceQueryParams params,
+        boolean isCountQuery )
     {
         StringBuilder trackedEntity = new StringBuilder();
 
@@ -584,6 +587,17 @@ public class HibernateTrackedEntityInstanceStore
                 .append( ") " );
         }
 
+        if ( params.isKeysetPaging() && !isCountQuery )
+        {
+            trackedEntity
+                .append( whereAnd.whereAnd() )
+                .append( "TEI.trackedentityinstanceid > (" )
+                .append( "SELECT trackedentityinstanceid FROM trackedentityinstance WHERE uid = " )
+                .append( SINGLE_QUOTE )
+                .append( statementBuilder.encode( params.getPageAfter(), false ) )
+                .append( "') " );
+        }
+
         if ( params.hasLastUpdatedDuration() )
         {
             trackedEntity.append( whereAnd.whereAnd() )
@@ -650,10 +664,11 @@ public class HibernateTrackedEntityInstanceStore
     /**
      * Generates a single INNER JOIN for searching for an attribute by query
      * strings. Searches are done using lower() expression, since attribute
-     * values are case insensitive. The query search is extremely slow compared
-     * to alternatives. A query string (Can be multiple) has to match at least 1
-     * attribute value for each attribute we have access to. We use Regex to
-     * search, allowing both exact match and with wildcards (EQ or LIKE).
+     * values are case insensitive. A query string (Can be multiple) has to
+     * match at least 1 attribute value for each attribute we have access to. We
+     * use Regex to search, allowing both exact match and with wildcards (EQ or
+     * LIKE). The regex and LIKE matches on lower(value) are served by the
+     * trigram index on trackedentityattributevalue, if present.
      *
      * @param params
      * @param attributes
@@ -675,8 +690,8 @@ public class HibernateTrackedEntityInstanceStore
             .collect( Collectors.toList() );
 
         attributes
-            .append( "INNER JOIN trackedentityattributevalue Q " )
-            .append( "ON Q.trackedentityinstanceid IN (" )
+            .append( "INNER JOIN (SELECT DISTINCT Q.trackedentityinstanceid FROM trackedentityattributevalue Q " )
+            .append( "WHERE Q.trackedentityattributeid IN (" )
             .append( getCommaDelimitedString( itemIds ) )
             .append( ") AND (" );
 
@@ -695,7 +710,8 @@ public class HibernateTrackedEntityInstanceStore
                 .append( SINGLE_QUOTE );
         }
 
-        attributes.append( ")" );
+        attributes
+            .append( ")) Q ON Q.trackedentityinstanceid = TEI.trackedentityinstanceid " );
     }
 
     /**
@@ -1338,6 +1354,9 @@ public class HibernateTrackedEntityInstanceStore
      * <p>
      * The limit is set in the subquery, so the latter joins have fewer rows to
      * consider.
+     * <p>
+     * With keyset paging, the offset is always 0, as the previous pages are
+     * skipped by the tracked entity instance id condition instead.
      *
      * @param params
      * @return a SQL LIMIT and OFFSET clause, or empty string if no LIMIT can be
@@ -65,6 +65,14 @@ public class DefaultCurrentUserService
      */
     private final Cache<CurrentUserGroupInfo> currentUserGroupInfoCache;
 
+    /**
+     * Cache for the {@link UserAccessSnapshot} of each user. Key is username.
+     * Invalidated together with {@link #currentUserGroupInfoCache} when the
+     * user, its user groups or its user roles are changed, see
+     * {@link org.hisp.dhis.user.hibernate.UserAccessCacheInvalidationListener}.
+     */
+    private final Cache<UserAccessSnapshot> userAccessSnapshotCache;
+
     // -------------------------------------------------------------------------
     // Dependencies
     // -------------------------------------------------------------------------
@@ -80,6 +88,7 @@ public class DefaultCurrentUserService
         this.userStore = userStore;
         this.usernameIdCache = cacheProvider.createUserIdCache();
         this.currentUserGroupInfoCache = cacheProvider.createCurrentUserGroupInfoCache();
+        this.userAccessSnapshotCache = cacheProvider.createUserAccessSnapshotCache();
     }
 
     // -------------------------------------------------------------------------
@@ -227,9 +236,9 @@ public class DefaultCurrentUserService
     @Transactional( readOnly = true )
     public boolean currentUserIsAuthorized( String auth )
     {
-        User user = getCurrentUser();
+        UserAccessSnapshot snapshot = getCurrentUserAccessSnapshot();
 
-        return user != null && user.getUserCredentials().isAuthorized( auth );
+        return snapshot != null && snapshot.isAuthorized( auth );
     }
 
     @Override
@@ -267,12 +276,27 @@ public class DefaultCurrentUserService
             .get( userInfo.getUsername(), this::getCurrentUserGroupsInfo );
     }
 
+    @Override
+    @Transactional( readOnly = true )
+    public UserAccessSnapshot getCurrentUserAccessSnapshot()
+    {
+        String username = getCurrentUsername();
+
+        if ( username == null )
+        {
+            return null;
+        }
+
+        return userAccessSnapshotCache.get( username, this::getUserAccessSnapshot );
+    }
+
     @Override
     public void invalidateUserGroupCache( String username )
     {
         try
         {
             currentUserGroupInfoCache.invalidate( username );
+            userAccessSnapshotCache.invalidate( username );
         }
         catch ( NullPointerException exception )
         {
@@ -280,6 +304,20 @@ public class DefaultCurrentUserService
         }
     }
 
+    @Override
+    public void invalidateAllUserGroupCaches()
+    {
+        currentUserGroupInfoCache.invalidateAll();
+        userAccessSnapshotCache.invalidateAll();
+    }
+
+    private UserAccessSnapshot getUserAccessSnapshot( String username )
+    {
+        User user = getCurrentUser();
+
+        return user != null ? UserAccessSnapshot.of( user ) : null;
+    }
+
     private CurrentUserGroupInfo getCurrentUserGroupsInfo( String username )
     {
         if ( username == null )
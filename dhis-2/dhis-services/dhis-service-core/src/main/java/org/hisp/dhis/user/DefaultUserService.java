@@ -552,6 +552,8 @@ public class DefaultUserService
     public void updateUserCredentials( UserCredentials userCredentials )
     {
         userCredentialsStore.update( userCredentials );
+
+        currentUserService.invalidateUserGroupCache( userCredentials.getUsername() );
     }
 
     @Override
@@ -33,6 +33,7 @@ import org.hisp.dhis.common.hibernate.HibernateIdentifiableObjectStore;
 import org.hisp.dhis.dataset.DataSet;
 import org.hisp.dhis.security.acl.AclService;
 import org.hisp.dhis.user.CurrentUserService;
+import org.hisp.dhis.user.User;
 import org.hisp.dhis.user.UserAuthorityGroup;
 import org.hisp.dhis.user.UserAuthorityGroupStore;
 import org.springframework.context.ApplicationEventPublisher;
@@ -54,6 +55,13 @@ public class HibernateUserAuthorityGroupStore
             true );
     }
 
+    @Override
+    public void update( UserAuthorityGroup object, User user )
+    {
+        super.update( object, user );
+        object.getMembers().forEach( member -> currentUserService.invalidateUserGroupCache( member.getUsername() ) );
+    }
+
     @Override
     public int countDataSetUserAuthorityGroups( DataSet dataSet )
     {
@@ -113,6 +113,14 @@ public class HibernateUserStore
         currentUserService.invalidateUserGroupCache( user.getUsername() );
     }
 
+    @Override
+    public void update( User user, User currentUser )
+    {
+        super.update( user, currentUser );
+
+        currentUserService.invalidateUserGroupCache( user.getUsername() );
+    }
+
     @Override
     public List<User> getUsers( UserQueryParams params, @Nullable List<String> orders )
     {
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.user.hibernate;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceUnit;
+
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.internal.SessionFactoryImpl;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hisp.dhis.user.CurrentUserService;
+import org.hisp.dhis.user.User;
+import org.hisp.dhis.user.UserAuthorityGroup;
+import org.hisp.dhis.user.UserCredentials;
+import org.hisp.dhis.user.UserGroup;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+/**
+ * Invalidates the cached user group info and access snapshots once a
+ * transaction creating, updating or deleting a user, user credentials, user
+ * group or user role is committed, no matter whether the change was made
+ * through the user services or the metadata import. Changes of a user or its
+ * credentials invalidate the entries of that user only. Members of groups and
+ * roles are lazily loaded and can no longer be read once the transaction is
+ * committed, so changes of those invalidate the entries of all users.
+ */
+@Component
+public class UserAccessCacheInvalidationListener
+    implements PostCommitInsertEventListener, PostCommitUpdateEventListener, PostCommitDeleteEventListener
+{
+    @PersistenceUnit
+    private EntityManagerFactory emf;
+
+    private final CurrentUserService currentUserService;
+
+    public UserAccessCacheInvalidationListener( @Lazy CurrentUserService currentUserService )
+    {
+        this.currentUserService = currentUserService;
+    }
+
+    @PostConstruct
+    protected void init()
+    {
+        SessionFactoryImpl sessionFactory = emf.unwrap( SessionFactoryImpl.class );
+
+        EventListenerRegistry registry = sessionFactory.getServiceRegistry().getService( EventListenerRegistry.class );
+
+        registry.getEventListenerGroup( EventType.POST_COMMIT_INSERT ).appendListener( this );
+
+        registry.getEventListenerGroup( EventType.POST_COMMIT_UPDATE ).appendListener( this );
+
+        registry.getEventListenerGroup( EventType.POST_COMMIT_DELETE ).appendListener( this );
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding( EntityPersister persister )
+    {
+        return true;
+    }
+
+    @Override
+    public void onPostInsert( PostInsertEvent event )
+    {
+        invalidate( event.getEntity() );
+    }
+
+    @Override
+    public void onPostUpdate( PostUpdateEvent event )
+    {
+        invalidate( event.getEntity() );
+    }
+
+    @Override
+    public void onPostDelete( PostDeleteEvent event )
+    {
+        invalidate( event.getEntity() );
+    }
+
+    @Override
+    public void onPostInsertCommitFailed( PostInsertEvent event )
+    {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed( PostUpdateEvent event )
+    {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed( PostDeleteEvent event )
+    {
+    }
+
+    private void invalidate( Object entity )
+    {
+        if ( entity instanceof User )
+        {
+            invalidate( ((User) entity).getUsername() );
+        }
+        else if ( entity instanceof UserCredentials )
+        {
+            invalidate( ((UserCredentials) entity).getUsername() );
+        }
+        else if ( entity instanceof UserGroup || entity instanceof UserAuthorityGroup )
+        {
+            currentUserService.invalidateAllUserGroupCaches();
+        }
+    }
+
+    private void invalidate( String username )
+    {
+        if ( username != null )
+        {
+            currentUserService.invalidateUserGroupCache( username );
+        }
+        else
+        {
+            currentUserService.invalidateAllUserGroupCaches();
+        }
+    }
+}
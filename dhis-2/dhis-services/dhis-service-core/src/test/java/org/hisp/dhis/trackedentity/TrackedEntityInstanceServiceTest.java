@@ -30,11 +30,14 @@ package org.hisp.dhis.trackedentity;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
 
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 
 import org.hisp.dhis.DhisSpringTest;
+import org.hisp.dhis.common.IllegalQueryException;
 import org.hisp.dhis.mock.MockCurrentUserService;
 import org.hisp.dhis.organisationunit.OrganisationUnit;
 import org.hisp.dhis.organisationunit.OrganisationUnitService;
@@ -50,6 +53,7 @@ import org.hisp.dhis.security.acl.AccessStringHelper;
 import org.hisp.dhis.user.CurrentUserService;
 import org.hisp.dhis.user.User;
 import org.hisp.dhis.user.UserService;
+import org.hisp.dhis.webapi.controller.event.mapper.OrderParam;
 import org.joda.time.DateTime;
 import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -282,4 +286,38 @@ public class TrackedEntityInstanceServiceTest
         TrackedEntityInstance tei = entityInstanceService.getTrackedEntityInstance( entityInstanceA1.getUid() );
         assertEquals( "test", tei.getStoredBy() );
     }
+
+    @Test
+    public void testValidatePageAfterUnknownTrackedEntityInstance()
+    {
+        TrackedEntityInstanceQueryParams params = new TrackedEntityInstanceQueryParams()
+            .setTrackedEntityType( trackedEntityTypeA )
+            .addOrganisationUnit( organisationUnit )
+            .setPageAfter( "unknownTei1" );
+
+        IllegalQueryException ex = assertThrows( IllegalQueryException.class,
+            () -> entityInstanceService.validate( params ) );
+
+        assertEquals( "Page after tracked entity instance does not exist: unknownTei1", ex.getMessage() );
+    }
+
+    @Test
+    public void testValidatePageAfterWithOrders()
+    {
+        entityInstanceService.addTrackedEntityInstance( entityInstanceA1 );
+
+        TrackedEntityInstanceQueryParams params = new TrackedEntityInstanceQueryParams()
+            .setTrackedEntityType( trackedEntityTypeA )
+            .addOrganisationUnit( organisationUnit )
+            .setPageAfter( entityInstanceA1.getUid() );
+        params.setOrders( Collections.singletonList( OrderParam.builder()
+            .field( TrackedEntityInstanceQueryParams.CREATED_ID )
+            .direction( OrderParam.SortDirection.DESC ).build() ) );
+
+        IllegalQueryException ex = assertThrows( IllegalQueryException.class,
+            () -> entityInstanceService.validate( params ) );
+
+        assertEquals( "Page after cannot be specified together with order, keyset paging requires the default order",
+            ex.getMessage() );
+    }
 }
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.user.hibernate;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hisp.dhis.dataelement.DataElement;
+import org.hisp.dhis.user.CurrentUserService;
+import org.hisp.dhis.user.User;
+import org.hisp.dhis.user.UserAuthorityGroup;
+import org.hisp.dhis.user.UserCredentials;
+import org.hisp.dhis.user.UserGroup;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+public class UserAccessCacheInvalidationListenerTest
+{
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    @Mock
+    private CurrentUserService currentUserService;
+
+    private UserAccessCacheInvalidationListener listener;
+
+    @Before
+    public void setUp()
+    {
+        listener = new UserAccessCacheInvalidationListener( currentUserService );
+    }
+
+    @Test
+    public void shouldInvalidateUserWhenUserIsUpdated()
+    {
+        UserCredentials userCredentials = new UserCredentials();
+        userCredentials.setUsername( "usernameA" );
+        User user = new User();
+        user.setUserCredentials( userCredentials );
+
+        PostUpdateEvent event = mock( PostUpdateEvent.class );
+        when( event.getEntity() ).thenReturn( user );
+
+        listener.onPostUpdate( event );
+
+        verify( currentUserService ).invalidateUserGroupCache( "usernameA" );
+        verify( currentUserService, never() ).invalidateAllUserGroupCaches();
+    }
+
+    @Test
+    public void shouldInvalidateUserWhenCredentialsAreDeleted()
+    {
+        UserCredentials userCredentials = new UserCredentials();
+        userCredentials.setUsername( "usernameA" );
+
+        PostDeleteEvent event = mock( PostDeleteEvent.class );
+        when( event.getEntity() ).thenReturn( userCredentials );
+
+        listener.onPostDelete( event );
+
+        verify( currentUserService ).invalidateUserGroupCache( "usernameA" );
+    }
+
+    @Test
+    public void shouldInvalidateAllUsersWhenGroupOrRoleIsChanged()
+    {
+        PostInsertEvent groupEvent = mock( PostInsertEvent.class );
+        when( groupEvent.getEntity() ).thenReturn( new UserGroup() );
+        PostUpdateEvent roleEvent = mock( PostUpdateEvent.class );
+        when( roleEvent.getEntity() ).thenReturn( new UserAuthorityGroup() );
+
+        listener.onPostInsert( groupEvent );
+        verify( currentUserService ).invalidateAllUserGroupCaches();
+
+        listener.onPostUpdate( roleEvent );
+        verify( currentUserService, times( 2 ) ).invalidateAllUserGroupCaches();
+    }
+
+    @Test
+    public void shouldNotInvalidateWhenOtherTypeIsUpdated()
+    {
+        PostUpdateEvent event = mock( PostUpdateEvent.class );
+        when( event.getEntity() ).thenReturn( new DataElement() );
+
+        listener.onPostUpdate( event );
+
+        verifyNoInteractions( currentUserService );
+    }
+}
@@ -91,7 +91,9 @@ import org.hisp.dhis.dxf2.metadata.objectbundle.validation.UpdateCheck;
 import org.hisp.dhis.dxf2.metadata.objectbundle.validation.ValidationCheck;
 import org.hisp.dhis.dxf2.metadata.objectbundle.validation.ValidationHooksCheck;
 import org.hisp.dhis.dxf2.metadata.sync.exception.MetadataSyncServiceException;
+import org.hisp.dhis.external.conf.ConfigurationKey;
 import org.hisp.dhis.external.conf.ConfigurationPropertyFactoryBean;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.hisp.dhis.importexport.ImportStrategy;
 import org.hisp.dhis.programrule.ProgramRuleActionType;
 import org.hisp.dhis.programrule.action.validation.AlwaysValidProgramRuleActionValidator;
@@ -111,6 +113,7 @@ import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.retry.backoff.ExponentialBackOffPolicy;
 import org.springframework.retry.policy.SimpleRetryPolicy;
 import org.springframework.retry.support.RetryTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import com.google.common.collect.ImmutableMap;
 
@@ -153,6 +156,23 @@ public class ServiceConfig
         return retryTemplate;
     }
 
+    /**
+     * Executor exporting metadata types concurrently, shared by all exports and
+     * sized by {@link ConfigurationKey#METADATA_EXPORT_PARALLEL_THREADS}.
+     */
+    @Bean( "metadataExportExecutor" )
+    public ThreadPoolTaskExecutor metadataExportExecutor( DhisConfigurationProvider config )
+    {
+        int threads = Math.max( 1,
+            Integer.parseInt( config.getProperty( ConfigurationKey.METADATA_EXPORT_PARALLEL_THREADS ) ) );
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize( threads );
+        executor.setMaxPoolSize( threads );
+        executor.setThreadNamePrefix( "metadata-export-" );
+        return executor;
+    }
+
     private final static List<Class<? extends ValidationCheck>> CREATE_UPDATE_CHECKS = newArrayList(
         DuplicateIdsCheck.class,
         ValidationHooksCheck.class,
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.dxf2.datavalueset;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+import lombok.Value;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Keyset position in the data value table, used to page through data values
+ * in a stable order of last updated followed by the composite primary key.
+ * Unlike offset paging, the position is not affected by rows being written
+ * while paging, and can be persisted to resume an interrupted export.
+ */
+@Value
+public class DataValueSetCursor
+{
+    private static final String SEPARATOR = ";";
+
+    /**
+     * Last updated timestamp, kept at full database precision.
+     */
+    private final Timestamp lastUpdated;
+
+    private final long dataElementId;
+
+    private final long periodId;
+
+    private final long sourceId;
+
+    private final long categoryOptionComboId;
+
+    private final long attributeOptionComboId;
+
+    /**
+     * Creates a cursor from the current row of the given result set. The
+     * result set must contain the keyset columns of the data value table.
+     *
+     * @param rs the {@link ResultSet}.
+     * @return a {@link DataValueSetCursor}.
+     */
+    public static DataValueSetCursor fromResultSet( ResultSet rs )
+        throws SQLException
+    {
+        return new DataValueSetCursor(
+            rs.getTimestamp( "lastupdated" ),
+            rs.getLong( "dataelementid" ),
+            rs.getLong( "periodid" ),
+            rs.getLong( "sourceid" ),
+            rs.getLong( "categoryoptioncomboid" ),
+            rs.getLong( "attributeoptioncomboid" ) );
+    }
+
+    /**
+     * Parses a cursor from the string representation produced by
+     * {@link #toString()}.
+     *
+     * @param value the string representation.
+     * @return a {@link DataValueSetCursor}, or null if the value is blank or
+     *         cannot be parsed.
+     */
+    public static DataValueSetCursor fromString( String value )
+    {
+        if ( StringUtils.isBlank( value ) )
+        {
+            return null;
+        }
+
+        String[] parts = value.split( SEPARATOR );
+
+        if ( parts.length != 6 )
+        {
+            return null;
+        }
+
+        try
+        {
+            return new DataValueSetCursor(
+                Timestamp.valueOf( parts[0] ),
+                Long.parseLong( parts[1] ),
+                Long.parseLong( parts[2] ),
+                Long.parseLong( parts[3] ),
+                Long.parseLong( parts[4] ),
+                Long.parseLong( parts[5] ) );
+        }
+        catch ( IllegalArgumentException ex )
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Returns an SQL filter clause which matches data values positioned after
+     * this cursor. Relies on row value comparison, which lets the database
+     * seek directly to the position.
+     *
+     * @return an SQL filter clause starting with "and".
+     */
+    public String getSqlFilter()
+    {
+        return "and (dv.lastupdated, dv.dataelementid, dv.periodid, dv.sourceid, dv.categoryoptioncomboid, " +
+            "dv.attributeoptioncomboid) > ('" + lastUpdated + "', " + dataElementId + ", " + periodId + ", " +
+            sourceId + ", " + categoryOptionComboId + ", " + attributeOptionComboId + ") ";
+    }
+
+    @Override
+    public String toString()
+    {
+        return StringUtils.joinWith( SEPARATOR, lastUpdated, dataElementId, periodId, sourceId,
+            categoryOptionComboId, attributeOptionComboId );
+    }
+}
@@ -67,4 +67,21 @@ public interface DataValueSetStore
      */
     void writeDataValueSetJson( Date lastUpdated, OutputStream outputStream, IdSchemes idSchemes, int pageSize,
         int page );
+
+    /**
+     * Query for {@link DataValueSet DataValueSets} positioned after the given
+     * cursor, ordered by last updated and key, and write result as JSON.
+     *
+     * @param lastUpdated specifies the date to filter data values last updated
+     *        after
+     * @param cursor the position to continue after, null to start from the
+     *        beginning
+     * @param outputStream the stream to write to
+     * @param idSchemes idSchemes
+     * @param pageSize the maximum number of data values to write
+     * @return the position of the last written data value, or null if no data
+     *         values were written
+     */
+    DataValueSetCursor writeDataValueSetJson( Date lastUpdated, DataValueSetCursor cursor,
+        OutputStream outputStream, IdSchemes idSchemes, int pageSize );
 }
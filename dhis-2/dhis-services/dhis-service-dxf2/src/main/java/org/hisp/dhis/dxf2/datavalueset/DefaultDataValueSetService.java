@@ -405,6 +405,14 @@ public class DefaultDataValueSetService
         dataValueSetStore.writeDataValueSetJson( lastUpdated, outputStream, idSchemes, pageSize, page );
     }
 
+    @Override
+    @Transactional
+    public DataValueSetCursor writeDataValueSetJson( Date lastUpdated, DataValueSetCursor cursor,
+        OutputStream outputStream, IdSchemes idSchemes, int pageSize )
+    {
+        return dataValueSetStore.writeDataValueSetJson( lastUpdated, cursor, outputStream, idSchemes, pageSize );
+    }
+
     @Override
     @Transactional
     public void writeDataValueSetCsv( DataExportParams params, Writer writer )
@@ -147,6 +147,30 @@ public class SpringDataValueSetStore
         writeDataValueSet( sql, new DataExportParams(), null, dataValueSet );
     }
 
+    @Override
+    public DataValueSetCursor writeDataValueSetJson( Date lastUpdated, DataValueSetCursor cursor,
+        OutputStream outputStream, IdSchemes idSchemes, int pageSize )
+    {
+        DataValueSet dataValueSet = new StreamingJsonDataValueSet( outputStream );
+
+        final String sql = buildDataValueSql( lastUpdated, idSchemes ) +
+            (cursor != null ? cursor.getSqlFilter() : "") +
+            "order by dv.lastupdated asc, dv.dataelementid asc, dv.periodid asc, dv.sourceid asc, " +
+            "dv.categoryoptioncomboid asc, dv.attributeoptioncomboid asc limit " + pageSize;
+
+        final Calendar calendar = PeriodType.getCalendar();
+        final DataValueSetCursor[] last = new DataValueSetCursor[1];
+
+        jdbcTemplate.query( sql, (RowCallbackHandler) rs -> {
+            writeDataValue( rs, dataValueSet, calendar );
+            last[0] = DataValueSetCursor.fromResultSet( rs );
+        } );
+
+        dataValueSet.close();
+
+        return last[0];
+    }
+
     private String buildDataValueSql( Date lastUpdated, IdSchemes idSchemes )
     {
         String deScheme = idSchemes.getDataElementIdScheme().getIdentifiableString().toLowerCase();
@@ -157,7 +181,8 @@ public class SpringDataValueSetStore
         final String sql = "select de." + deScheme + " as deid, pe.startdate as pestart, pt.name as ptname, ou."
             + ouScheme + " as ouid, " +
             "coc." + ocScheme + " as cocid, aoc." + aocScheme + " as aocid, " +
-            "dv.value, dv.storedby, dv.created, dv.lastupdated, dv.comment, dv.followup, dv.deleted " +
+            "dv.value, dv.storedby, dv.created, dv.lastupdated, dv.comment, dv.followup, dv.deleted, " +
+            "dv.dataelementid, dv.periodid, dv.sourceid, dv.categoryoptioncomboid, dv.attributeoptioncomboid " +
             "from datavalue dv " +
             "join dataelement de on (dv.dataelementid=de.dataelementid) " +
             "join period pe on (dv.periodid=pe.periodid) " +
@@ -193,34 +218,40 @@ public class SpringDataValueSetStore
             public void processRow( ResultSet rs )
                 throws SQLException
             {
-                DataValue dataValue = dataValueSet.getDataValueInstance();
-                PeriodType pt = PeriodType.getPeriodTypeByName( rs.getString( "ptname" ) );
-                boolean deleted = rs.getBoolean( "deleted" );
-
-                dataValue.setDataElement( rs.getString( "deid" ) );
-                dataValue.setPeriod( pt.createPeriod( rs.getDate( "pestart" ), calendar ).getIsoDate() );
-                dataValue.setOrgUnit( rs.getString( "ouid" ) );
-                dataValue.setCategoryOptionCombo( rs.getString( "cocid" ) );
-                dataValue.setAttributeOptionCombo( rs.getString( "aocid" ) );
-                dataValue.setValue( rs.getString( "value" ) );
-                dataValue.setStoredBy( rs.getString( "storedby" ) );
-                dataValue.setCreated( getLongGmtDateString( rs.getTimestamp( "created" ) ) );
-                dataValue.setLastUpdated( getLongGmtDateString( rs.getTimestamp( "lastupdated" ) ) );
-                dataValue.setComment( rs.getString( "comment" ) );
-                dataValue.setFollowup( rs.getBoolean( "followup" ) );
-
-                if ( deleted )
-                {
-                    dataValue.setDeleted( deleted );
-                }
-
-                dataValue.close();
+                writeDataValue( rs, dataValueSet, calendar );
             }
         } );
 
         dataValueSet.close();
     }
 
+    private void writeDataValue( ResultSet rs, DataValueSet dataValueSet, Calendar calendar )
+        throws SQLException
+    {
+        DataValue dataValue = dataValueSet.getDataValueInstance();
+        PeriodType pt = PeriodType.getPeriodTypeByName( rs.getString( "ptname" ) );
+        boolean deleted = rs.getBoolean( "deleted" );
+
+        dataValue.setDataElement( rs.getString( "deid" ) );
+        dataValue.setPeriod( pt.createPeriod( rs.getDate( "pestart" ), calendar ).getIsoDate() );
+        dataValue.setOrgUnit( rs.getString( "ouid" ) );
+        dataValue.setCategoryOptionCombo( rs.getString( "cocid" ) );
+        dataValue.setAttributeOptionCombo( rs.getString( "aocid" ) );
+        dataValue.setValue( rs.getString( "value" ) );
+        dataValue.setStoredBy( rs.getString( "storedby" ) );
+        dataValue.setCreated( getLongGmtDateString( rs.getTimestamp( "created" ) ) );
+        dataValue.setLastUpdated( getLongGmtDateString( rs.getTimestamp( "lastupdated" ) ) );
+        dataValue.setComment( rs.getString( "comment" ) );
+        dataValue.setFollowup( rs.getBoolean( "followup" ) );
+
+        if ( deleted )
+        {
+            dataValue.setDeleted( deleted );
+        }
+
+        dataValue.close();
+    }
+
     // --------------------------------------------------------------------------
     // Supportive methods
     // --------------------------------------------------------------------------
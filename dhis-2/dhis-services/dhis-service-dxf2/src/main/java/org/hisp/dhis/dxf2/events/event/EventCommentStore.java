@@ -30,6 +30,7 @@ package org.hisp.dhis.dxf2.events.event;
 import java.util.List;
 
 import org.hisp.dhis.program.ProgramStageInstance;
+import org.hisp.dhis.trackedentitycomment.TrackedEntityComment;
 
 /**
  * @author Giuseppe Nespolino <g.nespolino@gmail.com>
@@ -40,8 +41,8 @@ public interface EventCommentStore
      * Inserts non-empty comments from a List {@see ProgramStageInstance}
      *
      * @param programStageInstances a List of {@see ProgramStageInstance}
-     *
+     * @return the saved comments
      */
-    void saveAllComments( List<ProgramStageInstance> programStageInstances );
+    List<TrackedEntityComment> saveAllComments( List<ProgramStageInstance> programStageInstances );
 
 }
@@ -47,7 +47,8 @@ public interface EventStore
      *
      * @param programStageInstances a List of {@see ProgramStageInstance}
      *
-     * @return a list of saved program stage instances
+     * @return a list of saved program stage instances, without the ones which
+     *         failed to be saved
      */
     List<ProgramStageInstance> saveEvents( List<ProgramStageInstance> programStageInstances );
 
@@ -57,7 +58,8 @@ public interface EventStore
      *
      * @param programStageInstances a List of {@see ProgramStageInstance}
      *
-     * @return a list of saved program stage instances
+     * @return a list of updated program stage instances, without the ones
+     *         which failed to be updated
      */
     List<ProgramStageInstance> updateEvents( List<ProgramStageInstance> programStageInstances );
 
@@ -30,6 +30,7 @@ package org.hisp.dhis.dxf2.events.event;
 import static java.util.stream.Collectors.toList;
 
 import java.sql.PreparedStatement;
+import java.util.ArrayList;
 import java.util.List;
 
 import lombok.RequiredArgsConstructor;
@@ -72,9 +73,12 @@ public class JdbcEventCommentStore implements EventCommentStore
      * {@see ProgramStageInstance}
      *
      * @param batch a List of {@see ProgramStageInstance}
+     * @return the saved comments
      */
-    public void saveAllComments( List<ProgramStageInstance> batch )
+    public List<TrackedEntityComment> saveAllComments( List<ProgramStageInstance> batch )
     {
+        List<TrackedEntityComment> savedComments = new ArrayList<>();
+
         try
         {
             // List of PSI that has at least one non empty comment (i.e. PSI
@@ -96,6 +100,7 @@ public class JdbcEventCommentStore implements EventCommentStore
                     if ( commentId != null && commentId != 0 )
                     {
                         saveCommentToEvent( psi.getId(), commentId, sortOrder );
+                        savedComments.add( comment );
                         sortOrder++;
                     }
                 }
@@ -106,6 +111,8 @@ public class JdbcEventCommentStore implements EventCommentStore
             log.error( "An error occurred saving a Program Stage Instance comment", dae );
             throw dae;
         }
+
+        return savedComments;
     }
 
     private boolean hasComments( ProgramStageInstance programStageInstance )
@@ -168,7 +175,7 @@ public class JdbcEventCommentStore implements EventCommentStore
         catch ( DataAccessException e )
         {
             log.error( "An error occurred saving a TrackedEntityComment", e );
-            return null;
+            throw e;
         }
 
         return (Long) keyHolder.getKey();
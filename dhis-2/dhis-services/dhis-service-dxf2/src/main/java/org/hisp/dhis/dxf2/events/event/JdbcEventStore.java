@@ -597,6 +597,8 @@ public class JdbcEventStore implements EventStore
     @Override
     public List<ProgramStageInstance> updateEvents( List<ProgramStageInstance> programStageInstances )
     {
+        Set<String> failed = new HashSet<>();
+
         try
         {
             jdbcTemplate.batchUpdate( UPDATE_EVENT_SQL, sort( programStageInstances ), programStageInstances.size(),
@@ -609,6 +611,8 @@ public class JdbcEventStore implements EventStore
                     {
                         log.warn( "PSI failed to update and will be ignored. PSI UID: " + programStageInstance.getUid(),
                             programStageInstance.getUid(), e );
+
+                        failed.add( programStageInstance.getUid() );
                     }
                 } );
         }
@@ -618,7 +622,7 @@ public class JdbcEventStore implements EventStore
             throw e;
         }
 
-        return programStageInstances;
+        return withoutFailed( programStageInstances, failed );
     }
 
     @Override
@@ -1621,10 +1625,12 @@ public class JdbcEventStore implements EventStore
      *
      * @param batch the list of {@see ProgramStageInstance}
      * @return the list of created {@see ProgramStageInstance} with primary keys
-     *         assigned
+     *         assigned, without the ones which failed to bind
      */
     private List<ProgramStageInstance> saveAllEvents( List<ProgramStageInstance> batch )
     {
+        Set<String> failed = new HashSet<>();
+
         JdbcUtils.batchUpdateWithKeyHolder( jdbcTemplate, INSERT_EVENT_SQL,
             new BatchPreparedStatementSetterWithKeyHolder<ProgramStageInstance>( sort( batch ) )
             {
@@ -1639,6 +1645,8 @@ public class JdbcEventStore implements EventStore
                     {
                         log.warn( "PSI failed to persist and will be ignored. PSI UID: " + event.getUid(),
                             event.getUid(), e );
+
+                        failed.add( event.getUid() );
                     }
                 }
 
@@ -1676,7 +1684,7 @@ public class JdbcEventStore implements EventStore
 
             // @formatter:off
             return batch.stream()
-                .filter( psi -> persisted.containsKey( psi.getUid() ) )
+                .filter( psi -> persisted.containsKey( psi.getUid() ) && !failed.contains( psi.getUid() ) )
                 .peek( psi -> psi.setId( persisted.get( psi.getUid() ) ) )
                 .collect( Collectors.toList() );
             // @formatter:on
@@ -1687,8 +1695,28 @@ public class JdbcEventStore implements EventStore
             {
                 batch.get( i ).setId( eventIds.get( i ) );
             }
-            return batch;
+            return withoutFailed( batch, failed );
+        }
+    }
+
+    /**
+     * Returns the given events without the ones whose statement parameters
+     * failed to bind.
+     *
+     * @param events the list of {@see ProgramStageInstance}
+     * @param failed the UIDs of the events which failed to bind
+     * @return the list of {@see ProgramStageInstance} which were bound
+     */
+    private List<ProgramStageInstance> withoutFailed( List<ProgramStageInstance> events, Set<String> failed )
+    {
+        if ( failed.isEmpty() )
+        {
+            return events;
         }
+
+        return events.stream()
+            .filter( psi -> !failed.contains( psi.getUid() ) )
+            .collect( Collectors.toList() );
     }
 
     @Override
@@ -1765,15 +1793,8 @@ public class JdbcEventStore implements EventStore
 
         ps.setLong( 1, programStageInstance.getProgramInstance().getId() );
         ps.setLong( 2, programStageInstance.getProgramStage().getId() );
-        ps.setTimestamp( 3, new Timestamp( programStageInstance.getDueDate().getTime() ) );
-        if ( programStageInstance.getExecutionDate() != null )
-        {
-            ps.setTimestamp( 4, new Timestamp( programStageInstance.getExecutionDate().getTime() ) );
-        }
-        else
-        {
-            ps.setObject( 4, null );
-        }
+        ps.setTimestamp( 3, JdbcEventSupport.toTimestamp( programStageInstance.getDueDate() ) );
+        ps.setTimestamp( 4, JdbcEventSupport.toTimestamp( programStageInstance.getExecutionDate() ) );
         ps.setLong( 5, programStageInstance.getOrganisationUnit().getId() );
         ps.setString( 6, programStageInstance.getStatus().toString() );
         ps.setTimestamp( 7, JdbcEventSupport.toTimestamp( programStageInstance.getCompletedDate() ) );
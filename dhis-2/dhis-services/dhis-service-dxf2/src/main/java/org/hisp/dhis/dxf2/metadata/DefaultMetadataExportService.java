@@ -27,11 +27,19 @@
  */
 package org.hisp.dhis.dxf2.metadata;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
 
 import javax.annotation.Nonnull;
 
@@ -61,6 +69,8 @@ import org.hisp.dhis.document.Document;
 import org.hisp.dhis.dxf2.common.OrderParams;
 import org.hisp.dhis.eventchart.EventChart;
 import org.hisp.dhis.eventreport.EventReport;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.hisp.dhis.fieldfilter.Defaults;
 import org.hisp.dhis.fieldfilter.FieldFilterParams;
 import org.hisp.dhis.fieldfilter.FieldFilterService;
@@ -102,9 +112,15 @@ import org.hisp.dhis.trackedentity.TrackedEntityAttribute;
 import org.hisp.dhis.trackedentity.TrackedEntityType;
 import org.hisp.dhis.user.CurrentUserService;
 import org.hisp.dhis.user.User;
+import org.hisp.dhis.user.UserService;
 import org.hisp.dhis.visualization.Visualization;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.google.common.base.Enums;
 import com.google.common.collect.Lists;
@@ -141,59 +157,37 @@ public class DefaultMetadataExportService implements MetadataExportService
     @Autowired
     private AttributeService attributeService;
 
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private DhisConfigurationProvider dhisConfig;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    @Qualifier( "metadataExportExecutor" )
+    private Executor metadataExportExecutor;
+
     @Override
-    @SuppressWarnings( "unchecked" )
     public Map<Class<? extends IdentifiableObject>, List<? extends IdentifiableObject>> getMetadata(
         MetadataExportParams params )
     {
         Timer timer = new SystemTimer().start();
         Map<Class<? extends IdentifiableObject>, List<? extends IdentifiableObject>> metadata = new HashMap<>();
 
-        if ( params.getUser() == null )
-        {
-            params.setUser( currentUserService.getCurrentUser() );
-        }
-
-        if ( params.getClasses().isEmpty() )
-        {
-            schemaService.getMetadataSchemas().stream()
-                .filter( schema -> schema.isIdentifiableObject() && schema.isPersisted() )
-                .filter( s -> !s.isSecondaryMetadata() )
-                .forEach(
-                    schema -> params.getClasses().add( (Class<? extends IdentifiableObject>) schema.getKlass() ) );
-        }
+        initParams( params );
 
         log.info( "(" + params.getUsername() + ") Export:Start" );
 
         for ( Class<? extends IdentifiableObject> klass : params.getClasses() )
         {
-            Query query;
-
-            if ( params.getQuery( klass ) != null )
-            {
-                query = params.getQuery( klass );
-            }
-            else
-            {
-                OrderParams orderParams = new OrderParams( Sets.newHashSet( params.getDefaultOrder() ) );
-                query = queryService.getQueryFromUrl( klass, params.getDefaultFilter(),
-                    orderParams.getOrders( schemaService.getDynamicSchema( klass ) ) );
-            }
-
-            if ( query.getUser() == null )
-            {
-                query.setUser( params.getUser() );
-            }
-
-            query.setDefaultOrder();
-            query.setDefaults( params.getDefaults() );
-
-            List<? extends IdentifiableObject> objects = queryService.query( query );
+            List<? extends IdentifiableObject> objects = getObjects( klass, getQuery( klass, params ),
+                params.getUser(), params.getUsername() );
 
             if ( !objects.isEmpty() )
             {
-                log.info( "(" + params.getUsername() + ") Exported " + objects.size() + " objects of type "
-                    + klass.getSimpleName() );
                 metadata.put( klass, objects );
             }
         }
@@ -217,15 +211,21 @@ public class DefaultMetadataExportService implements MetadataExportService
         system.addChild( new SimpleNode( "version", systemInfo.getVersion() ) );
         system.addChild( new SimpleNode( "date", systemInfo.getServerDate() ) );
 
+        int threads = Integer.parseInt( dhisConfig.getProperty( ConfigurationKey.METADATA_EXPORT_PARALLEL_THREADS ) );
+
+        if ( threads > 1 )
+        {
+            rootNode.setStreamedChildren( getCollectionNodesInParallel( params, threads ) );
+
+            return rootNode;
+        }
+
         Map<Class<? extends IdentifiableObject>, List<? extends IdentifiableObject>> metadata = getMetadata( params );
 
         for ( Class<? extends IdentifiableObject> klass : metadata.keySet() )
         {
-            FieldFilterParams fieldFilterParams = new FieldFilterParams( metadata.get( klass ),
-                params.getFields( klass ), params.getDefaults(), params.getSkipSharing() );
-            fieldFilterParams.setUser( params.getUser() );
-
-            CollectionNode collectionNode = fieldFilterService.toCollectionNode( klass, fieldFilterParams );
+            CollectionNode collectionNode = toCollectionNode( klass, metadata.get( klass ), params.getFields( klass ),
+                params.getDefaults(), params.getSkipSharing(), params.getUser() );
 
             if ( !collectionNode.getChildren().isEmpty() )
             {
@@ -236,6 +236,265 @@ public class DefaultMetadataExportService implements MetadataExportService
         return rootNode;
     }
 
+    /**
+     * Exports the metadata types of the given params concurrently on the shared
+     * metadata export executor, each type in a separate read-only transaction.
+     * The returned iterator yields the collection nodes in the order of the
+     * requested types while the root node is serialized. At most the given
+     * number of types are exported ahead of the type being written, so only
+     * their collection nodes are held in memory. The workers receive the
+     * identifier of the user only and load the user in their own transaction.
+     *
+     * @param params the {@link MetadataExportParams}.
+     * @param threads the number of types to export concurrently.
+     * @return an iterator of the non-empty collection nodes.
+     */
+    private Iterator<CollectionNode> getCollectionNodesInParallel( MetadataExportParams params, int threads )
+    {
+        initParams( params );
+
+        final String userUid = params.getUser() != null ? params.getUser().getUid() : null;
+        final String username = params.getUsername();
+        final SecurityContext securityContext = SecurityContextHolder.getContext();
+        final TransactionTemplate transactionTemplate = new TransactionTemplate( transactionManager );
+        transactionTemplate.setReadOnly( true );
+
+        log.info( "(" + username + ") Export:Start with " + threads + " threads" );
+
+        Iterator<Class<? extends IdentifiableObject>> classes = new ArrayList<>( params.getClasses() ).iterator();
+
+        return new ParallelCollectionNodeIterator( classes, threads, username, klass -> {
+            final Query query = getQuery( klass, params );
+            final List<String> fields = params.getFields( klass );
+            final Defaults defaults = params.getDefaults();
+            final boolean skipSharing = params.getSkipSharing();
+
+            return CompletableFuture.supplyAsync( () -> {
+                SecurityContextHolder.setContext( securityContext );
+
+                try
+                {
+                    return transactionTemplate.execute( status -> {
+                        User user = userUid != null ? userService.getUser( userUid ) : null;
+                        List<? extends IdentifiableObject> objects = getObjects( klass, query, user, username );
+
+                        return objects.isEmpty() ? null
+                            : toCollectionNode( klass, objects, fields, defaults, skipSharing, user );
+                    } );
+                }
+                finally
+                {
+                    SecurityContextHolder.clearContext();
+                }
+            }, metadataExportExecutor );
+        } );
+    }
+
+    /**
+     * Iterates the collection nodes of metadata types exported concurrently.
+     * Keeps up to a given number of exports in flight and submits the next
+     * type whenever a node is taken, skipping types without objects.
+     */
+    private static class ParallelCollectionNodeIterator
+        implements Iterator<CollectionNode>
+    {
+        private final Iterator<Class<? extends IdentifiableObject>> classes;
+
+        private final int threads;
+
+        private final String username;
+
+        private final Function<Class<? extends IdentifiableObject>, CompletableFuture<CollectionNode>> exporter;
+
+        private final Deque<CompletableFuture<CollectionNode>> inFlight = new ArrayDeque<>();
+
+        private final Timer timer = new SystemTimer().start();
+
+        private CollectionNode next;
+
+        private boolean done;
+
+        ParallelCollectionNodeIterator( Iterator<Class<? extends IdentifiableObject>> classes, int threads,
+            String username, Function<Class<? extends IdentifiableObject>, CompletableFuture<CollectionNode>> exporter )
+        {
+            this.classes = classes;
+            this.threads = threads;
+            this.username = username;
+            this.exporter = exporter;
+
+            submit();
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            while ( next == null && !inFlight.isEmpty() )
+            {
+                CollectionNode collectionNode = take( inFlight.poll() );
+
+                submit();
+
+                if ( collectionNode != null && !collectionNode.getChildren().isEmpty() )
+                {
+                    next = collectionNode;
+                }
+            }
+
+            if ( next == null && !done )
+            {
+                done = true;
+
+                log.info( "(" + username + ") Export:Done took " + timer.toString() );
+            }
+
+            return next != null;
+        }
+
+        @Override
+        public CollectionNode next()
+        {
+            if ( !hasNext() )
+            {
+                throw new NoSuchElementException();
+            }
+
+            CollectionNode collectionNode = next;
+            next = null;
+
+            return collectionNode;
+        }
+
+        private void submit()
+        {
+            while ( inFlight.size() < threads && classes.hasNext() )
+            {
+                inFlight.add( exporter.apply( classes.next() ) );
+            }
+        }
+
+        private CollectionNode take( CompletableFuture<CollectionNode> future )
+        {
+            try
+            {
+                return future.get();
+            }
+            catch ( InterruptedException ex )
+            {
+                cancel();
+                Thread.currentThread().interrupt();
+                throw new RuntimeException( "Metadata export was interrupted", ex );
+            }
+            catch ( ExecutionException ex )
+            {
+                cancel();
+                throw ex.getCause() instanceof RuntimeException ? (RuntimeException) ex.getCause()
+                    : new RuntimeException( ex.getCause() );
+            }
+        }
+
+        private void cancel()
+        {
+            inFlight.forEach( future -> future.cancel( true ) );
+            inFlight.clear();
+
+            while ( classes.hasNext() )
+            {
+                classes.next();
+            }
+        }
+    }
+
+    /**
+     * Sets the current user and, if no classes are specified, all persisted
+     * metadata classes on the given params.
+     *
+     * @param params the {@link MetadataExportParams}.
+     */
+    @SuppressWarnings( "unchecked" )
+    private void initParams( MetadataExportParams params )
+    {
+        if ( params.getUser() == null )
+        {
+            params.setUser( currentUserService.getCurrentUser() );
+        }
+
+        if ( params.getClasses().isEmpty() )
+        {
+            schemaService.getMetadataSchemas().stream()
+                .filter( schema -> schema.isIdentifiableObject() && schema.isPersisted() )
+                .filter( s -> !s.isSecondaryMetadata() )
+                .forEach(
+                    schema -> params.getClasses().add( (Class<? extends IdentifiableObject>) schema.getKlass() ) );
+        }
+    }
+
+    /**
+     * Returns the query of the given class, from the params or else built from
+     * the default filter and order of the params.
+     *
+     * @param klass the class of objects to query.
+     * @param params the {@link MetadataExportParams}.
+     * @return the {@link Query}.
+     */
+    private Query getQuery( Class<? extends IdentifiableObject> klass, MetadataExportParams params )
+    {
+        Query query;
+
+        if ( params.getQuery( klass ) != null )
+        {
+            query = params.getQuery( klass );
+        }
+        else
+        {
+            OrderParams orderParams = new OrderParams( Sets.newHashSet( params.getDefaultOrder() ) );
+            query = queryService.getQueryFromUrl( klass, params.getDefaultFilter(),
+                orderParams.getOrders( schemaService.getDynamicSchema( klass ) ) );
+        }
+
+        query.setDefaultOrder();
+        query.setDefaults( params.getDefaults() );
+
+        return query;
+    }
+
+    /**
+     * Queries the objects of the given class.
+     *
+     * @param klass the class of objects to query.
+     * @param query the {@link Query} of the class.
+     * @param user the user to query as.
+     * @param username the name of the user, for logging.
+     * @return a list of objects.
+     */
+    private List<? extends IdentifiableObject> getObjects( Class<? extends IdentifiableObject> klass, Query query,
+        User user, String username )
+    {
+        if ( query.getUser() == null )
+        {
+            query.setUser( user );
+        }
+
+        List<? extends IdentifiableObject> objects = queryService.query( query );
+
+        if ( !objects.isEmpty() )
+        {
+            log.info( "(" + username + ") Exported " + objects.size() + " objects of type "
+                + klass.getSimpleName() );
+        }
+
+        return objects;
+    }
+
+    private CollectionNode toCollectionNode( Class<? extends IdentifiableObject> klass,
+        List<? extends IdentifiableObject> objects, List<String> fields, Defaults defaults, boolean skipSharing,
+        User user )
+    {
+        FieldFilterParams fieldFilterParams = new FieldFilterParams( objects, fields, defaults, skipSharing );
+        fieldFilterParams.setUser( user );
+
+        return fieldFilterService.toCollectionNode( klass, fieldFilterParams );
+    }
+
     @Override
     public void validate( MetadataExportParams params )
     {
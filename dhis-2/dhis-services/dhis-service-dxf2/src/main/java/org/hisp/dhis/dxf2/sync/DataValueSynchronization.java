@@ -30,11 +30,13 @@ package org.hisp.dhis.dxf2.sync;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.util.Date;
+import java.util.zip.GZIPOutputStream;
 
 import lombok.extern.slf4j.Slf4j;
 
 import org.hisp.dhis.common.IdSchemes;
 import org.hisp.dhis.datavalue.DataValueService;
+import org.hisp.dhis.dxf2.datavalueset.DataValueSetCursor;
 import org.hisp.dhis.dxf2.datavalueset.DataValueSetService;
 import org.hisp.dhis.setting.SettingKey;
 import org.hisp.dhis.setting.SystemSettingManager;
@@ -46,6 +48,12 @@ import org.springframework.web.client.RequestCallback;
 import org.springframework.web.client.RestTemplate;
 
 /**
+ * Synchronizes data values to the remote instance in pages. Pages are read
+ * with keyset paging in order of last updated and key, and each page is
+ * streamed as gzip-compressed JSON. The position of the last page acknowledged
+ * by the remote instance is stored as a checkpoint, so that an interrupted
+ * synchronization resumes from where it stopped.
+ *
  * @author David Katuscak <katuscak.d@gmail.com>
  */
 @Slf4j
@@ -62,6 +70,16 @@ public class DataValueSynchronization extends DataSynchronizationWithPaging
 
     private Date lastUpdatedAfter;
 
+    /**
+     * Position of the last data value acknowledged by the remote instance.
+     */
+    private DataValueSetCursor cursor;
+
+    /**
+     * Position of the last data value written to the current request.
+     */
+    private DataValueSetCursor pendingCursor;
+
     public DataValueSynchronization( DataValueService dataValueService, DataValueSetService dataValueSetService,
         SystemSettingManager systemSettingManager, RestTemplate restTemplate )
     {
@@ -101,6 +119,7 @@ public class DataValueSynchronization extends DataSynchronizationWithPaging
         if ( syncResult )
         {
             clock.logTime( "SUCCESS! DataValueSynchronization job is done. It took" );
+            systemSettingManager.deleteSystemSetting( SettingKey.DATA_VALUE_SYNC_CHECKPOINT );
             SyncUtils.setLastSyncSuccess( systemSettingManager, SettingKey.LAST_SUCCESSFUL_DATA_VALUE_SYNC,
                 new Date( clock.getStartTime() ) );
             return SynchronizationResult
@@ -119,10 +138,24 @@ public class DataValueSynchronization extends DataSynchronizationWithPaging
             .getDateSetting( SettingKey.SKIP_SYNCHRONIZATION_FOR_DATA_CHANGED_BEFORE );
         lastUpdatedAfter = lastSuccessTime.after( skipChangedBefore ) ? lastSuccessTime : skipChangedBefore;
 
-        objectsToSynchronize = dataValueService.getDataValueCountLastUpdatedAfter( lastUpdatedAfter, true );
+        cursor = DataValueSetCursor.fromString(
+            systemSettingManager.getStringSetting( SettingKey.DATA_VALUE_SYNC_CHECKPOINT ) );
+
+        // Resume after the last acknowledged data value of an interrupted run
+
+        final Date countLastUpdatedAfter = cursor != null && cursor.getLastUpdated().after( lastUpdatedAfter )
+            ? cursor.getLastUpdated()
+            : lastUpdatedAfter;
+
+        objectsToSynchronize = dataValueService.getDataValueCountLastUpdatedAfter( countLastUpdatedAfter, true );
 
         log.info( "DataValues last changed before " + skipChangedBefore + " will not be synchronized." );
 
+        if ( cursor != null )
+        {
+            log.info( "Resuming DataValueSynchronization after checkpoint: " + cursor );
+        }
+
         if ( objectsToSynchronize != 0 )
         {
             instance = SyncUtils.getRemoteInstance( systemSettingManager, SyncEndpoint.DATA_VALUE_SETS );
@@ -137,25 +170,48 @@ public class DataValueSynchronization extends DataSynchronizationWithPaging
         }
     }
 
+    @Override
     protected void synchronizePage( int page, int pageSize )
     {
+        if ( !syncResult )
+        {
+            // Pages after a failed page are skipped, as the checkpoint must
+            // not move past data values which were not acknowledged
+
+            return;
+        }
+
         log.info( String.format( "Synchronizing page %d with page size %d", page, pageSize ) );
 
-        if ( !sendSyncRequest( pageSize, page ) )
+        pendingCursor = null;
+
+        if ( !sendSyncRequest( pageSize ) )
         {
             syncResult = false;
+            return;
+        }
+
+        if ( pendingCursor != null )
+        {
+            cursor = pendingCursor;
+            systemSettingManager.saveSystemSetting( SettingKey.DATA_VALUE_SYNC_CHECKPOINT, cursor.toString() );
         }
     }
 
-    private boolean sendSyncRequest( int syncPageSize, int page )
+    private boolean sendSyncRequest( int syncPageSize )
     {
         final RequestCallback requestCallback = request -> {
             request.getHeaders().setContentType( MediaType.APPLICATION_JSON );
             request.getHeaders().add( SyncUtils.HEADER_AUTHORIZATION,
                 CodecUtils.getBasicAuthString( instance.getUsername(), instance.getPassword() ) );
 
-            dataValueSetService.writeDataValueSetJson( lastUpdatedAfter, request.getBody(), new IdSchemes(),
-                syncPageSize, page );
+            // The receiving instance detects gzip by the stream signature
+
+            try ( GZIPOutputStream gzipOut = new GZIPOutputStream( request.getBody() ) )
+            {
+                pendingCursor = dataValueSetService.writeDataValueSetJson( lastUpdatedAfter, cursor, gzipOut,
+                    new IdSchemes(), syncPageSize );
+            }
         };
 
         return SyncUtils.sendSyncRequest( systemSettingManager, restTemplate, requestCallback, instance,
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.dxf2.datavalueset;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Timestamp;
+
+import org.junit.Test;
+
+public class DataValueSetCursorTest
+{
+    @Test
+    public void testToStringFromString()
+    {
+        Timestamp lastUpdated = Timestamp.valueOf( "2021-03-04 10:15:30.123456" );
+
+        DataValueSetCursor cursor = new DataValueSetCursor( lastUpdated, 11, 12, 13, 14, 15 );
+
+        DataValueSetCursor parsed = DataValueSetCursor.fromString( cursor.toString() );
+
+        assertEquals( cursor, parsed );
+        assertEquals( 123456000, parsed.getLastUpdated().getNanos() );
+    }
+
+    @Test
+    public void testFromStringInvalid()
+    {
+        assertNull( DataValueSetCursor.fromString( null ) );
+        assertNull( DataValueSetCursor.fromString( "" ) );
+        assertNull( DataValueSetCursor.fromString( "2021-03-04 10:15:30.0;1;2" ) );
+        assertNull( DataValueSetCursor.fromString( "notadate;1;2;3;4;5" ) );
+    }
+
+    @Test
+    public void testGetSqlFilter()
+    {
+        DataValueSetCursor cursor = new DataValueSetCursor( Timestamp.valueOf( "2021-03-04 10:15:30.5" ),
+            11, 12, 13, 14, 15 );
+
+        assertTrue( cursor.getSqlFilter().contains( "> ('2021-03-04 10:15:30.5', 11, 12, 13, 14, 15)" ) );
+    }
+}
@@ -27,6 +27,8 @@
  */
 package org.hisp.dhis.dxf2.events.event;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
@@ -37,7 +39,10 @@ import org.hisp.dhis.trackedentitycomment.TrackedEntityComment;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mockito;
+import org.springframework.dao.DataAccessResourceFailureException;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.support.KeyHolder;
 
 import com.google.common.collect.ImmutableList;
 
@@ -83,6 +88,30 @@ public class JdbcEventCommentStoreTest
         verify( jdbcEventCommentStore ).getInitialSortOrder( any() );
     }
 
+    @Test
+    public void verifySavedCommentsAreReturned()
+    {
+        List<ProgramStageInstance> programStageInstanceList = getProgramStageList( true );
+
+        List<TrackedEntityComment> savedComments = jdbcEventCommentStore.saveAllComments( programStageInstanceList );
+
+        assertEquals( programStageInstanceList.get( 0 ).getComments(), savedComments );
+    }
+
+    @Test
+    public void verifyCommentFailureIsPropagated()
+    {
+        JdbcTemplate jdbcTemplate = mock( JdbcTemplate.class );
+        when( jdbcTemplate.update( any( PreparedStatementCreator.class ), any( KeyHolder.class ) ) )
+            .thenThrow( new DataAccessResourceFailureException( "Connection lost" ) );
+
+        JdbcEventCommentStore store = new JdbcEventCommentStore( jdbcTemplate );
+        List<ProgramStageInstance> programStageInstanceList = getProgramStageList( true );
+
+        assertThrows( DataAccessResourceFailureException.class,
+            () -> store.saveAllComments( programStageInstanceList ) );
+    }
+
     private List<ProgramStageInstance> getProgramStageList( boolean withComments )
     {
         return getProgramStageList( withComments, false );
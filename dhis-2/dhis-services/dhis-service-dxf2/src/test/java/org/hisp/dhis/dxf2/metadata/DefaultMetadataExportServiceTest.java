@@ -31,22 +31,31 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 import org.hisp.dhis.attribute.Attribute;
 import org.hisp.dhis.common.IdentifiableObject;
 import org.hisp.dhis.common.SetMap;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.hisp.dhis.fieldfilter.FieldFilterParams;
 import org.hisp.dhis.fieldfilter.FieldFilterService;
+import org.hisp.dhis.node.Node;
 import org.hisp.dhis.node.types.CollectionNode;
+import org.hisp.dhis.node.types.RootNode;
+import org.hisp.dhis.node.types.SimpleNode;
 import org.hisp.dhis.option.Option;
 import org.hisp.dhis.programrule.ProgramRuleService;
 import org.hisp.dhis.programrule.ProgramRuleVariableService;
+import org.hisp.dhis.query.Query;
 import org.hisp.dhis.query.QueryService;
 import org.hisp.dhis.scheduling.JobConfiguration;
 import org.hisp.dhis.schema.Schema;
 import org.hisp.dhis.schema.SchemaService;
+import org.hisp.dhis.system.SystemInfo;
 import org.hisp.dhis.system.SystemService;
 import org.hisp.dhis.user.CurrentUserService;
 import org.junit.Assert;
@@ -58,6 +67,8 @@ import org.mockito.Mockito;
 import org.mockito.junit.MockitoJUnit;
 import org.mockito.junit.MockitoRule;
 import org.mockito.stubbing.Answer;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
 
 /**
  * Unit tests for {@link DefaultMetadataExportService}.
@@ -87,6 +98,12 @@ public class DefaultMetadataExportServiceTest
     @Mock
     private SystemService systemService;
 
+    @Mock
+    private DhisConfigurationProvider dhisConfig;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
     @InjectMocks
     private DefaultMetadataExportService service;
 
@@ -189,4 +206,42 @@ public class DefaultMetadataExportServiceTest
         Assert.assertFalse( exportParams.getClasses().contains( JobConfiguration.class ) );
         Assert.assertTrue( exportParams.getClasses().contains( Option.class ) );
     }
-}
\ No newline at end of file
+
+    @Test
+    public void getMetadataAsNodeStreamsTypesInParallel()
+    {
+        Mockito.when( dhisConfig.getProperty( ConfigurationKey.METADATA_EXPORT_PARALLEL_THREADS ) )
+            .thenReturn( "2" );
+        Mockito.when( systemService.getSystemInfo() ).thenReturn( new SystemInfo() );
+        ReflectionTestUtils.setField( service, "metadataExportExecutor", (Executor) Runnable::run );
+
+        Query attributeQuery = Query.from( new Schema( Attribute.class, "attribute", "attributes" ) );
+        Query optionQuery = Query.from( new Schema( Option.class, "option", "options" ) );
+
+        Mockito.when( queryService.query( Mockito.same( attributeQuery ) ) )
+            .then( invocation -> Collections.singletonList( new Attribute() ) );
+        Mockito.when( queryService.query( Mockito.same( optionQuery ) ) ).then( invocation -> Collections.emptyList() );
+
+        CollectionNode attributes = new CollectionNode( "attributes" );
+        attributes.addChild( new SimpleNode( "attribute", "a" ) );
+        Mockito.when( fieldFilterService.toCollectionNode( Mockito.eq( Attribute.class ), Mockito.any() ) )
+            .thenReturn( attributes );
+
+        MetadataExportParams params = new MetadataExportParams();
+        params.addQuery( attributeQuery );
+        params.addQuery( optionQuery );
+
+        RootNode rootNode = service.getMetadataAsNode( params );
+
+        Assert.assertEquals( 1, rootNode.getChildren().size() );
+        Assert.assertEquals( "system", rootNode.getChildren().get( 0 ).getName() );
+
+        Iterator<? extends Node> streamedChildren = rootNode.getStreamedChildren();
+
+        Assert.assertTrue( streamedChildren.hasNext() );
+        Assert.assertSame( attributes, streamedChildren.next() );
+        Assert.assertFalse( streamedChildren.hasNext() );
+        Mockito.verify( fieldFilterService, Mockito.only() ).toCollectionNode( Mockito.eq( Attribute.class ),
+            Mockito.any() );
+    }
+}
@@ -418,7 +418,7 @@ public class DefaultFieldFilterService implements FieldFilterService
                 continue;
             }
 
-            Object returnValue = ReflectionUtils.invokeMethod( object, property.getGetterMethod() );
+            Object returnValue = ReflectionUtils.invokeGetter( object, property.getGetterMethod() );
 
             Class<?> propertyClass = property.getKlass();
             Schema propertySchema = schemaService.getDynamicSchema( propertyClass );
@@ -783,7 +783,7 @@ public class DefaultFieldFilterService implements FieldFilterService
                 continue;
             }
 
-            Object returnValue = ReflectionUtils.invokeMethod( object, property.getGetterMethod() );
+            Object returnValue = ReflectionUtils.invokeGetter( object, property.getGetterMethod() );
 
             SimpleNode simpleNode = new SimpleNode( field, returnValue );
             simpleNode.setAttribute( property.isAttribute() );
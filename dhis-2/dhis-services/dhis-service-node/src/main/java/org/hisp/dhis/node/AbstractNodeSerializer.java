@@ -28,6 +28,7 @@
 package org.hisp.dhis.node;
 
 import java.io.OutputStream;
+import java.util.Iterator;
 
 import org.hisp.dhis.node.config.Config;
 import org.hisp.dhis.node.types.CollectionNode;
@@ -85,6 +86,16 @@ public abstract class AbstractNodeSerializer implements NodeSerializer
             flushStream();
         }
 
+        Iterator<? extends Node> streamedChildren = rootNode.getStreamedChildren();
+
+        while ( streamedChildren.hasNext() )
+        {
+            Node node = streamedChildren.next();
+            ((AbstractNode) node).setParent( rootNode );
+            dispatcher( node );
+            flushStream();
+        }
+
         endWriteRootNode( rootNode );
         flushStream();
     }
@@ -27,6 +27,8 @@
  */
 package org.hisp.dhis.node.types;
 
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.Objects;
 
 import org.hisp.dhis.node.Node;
@@ -45,6 +47,8 @@ public class RootNode extends ComplexNode
 
     private final Config config = new Config();
 
+    private Iterator<? extends Node> streamedChildren = Collections.emptyIterator();
+
     public RootNode( String name )
     {
         super( name );
@@ -73,6 +77,22 @@ public class RootNode extends ComplexNode
         return config;
     }
 
+    /**
+     * Children which are only produced while this node is serialized. They are
+     * written after the other children, each one as soon as the iterator
+     * returns it, and are not kept by this node. Hence this node can only be
+     * serialized once.
+     */
+    public Iterator<? extends Node> getStreamedChildren()
+    {
+        return streamedChildren;
+    }
+
+    public void setStreamedChildren( Iterator<? extends Node> streamedChildren )
+    {
+        this.streamedChildren = streamedChildren;
+    }
+
     @Override
     public boolean equals( Object o )
     {
@@ -50,6 +50,8 @@ import javax.imageio.ImageIO;
 import lombok.extern.slf4j.Slf4j;
 
 import org.apache.velocity.VelocityContext;
+import org.hisp.dhis.analytics.admission.AnalyticsQueryContext;
+import org.hisp.dhis.analytics.admission.AnalyticsQueryPriority;
 import org.hisp.dhis.common.IdentifiableObjectStore;
 import org.hisp.dhis.commons.util.Encoder;
 import org.hisp.dhis.dashboard.DashboardItem;
@@ -258,27 +260,36 @@ public class DefaultPushAnalysisService
 
         log( jobId, NotificationLevel.INFO, "Generating and sending reports", false, null );
 
-        for ( User user : receivingUsers )
+        AnalyticsQueryContext.setPriority( AnalyticsQueryPriority.PUSH_ANALYSIS );
+
+        try
         {
-            try
+            for ( User user : receivingUsers )
             {
-                String title = pushAnalysis.getTitle();
-                String html = generateHtmlReport( pushAnalysis, user, jobId );
+                try
+                {
+                    String title = pushAnalysis.getTitle();
+                    String html = generateHtmlReport( pushAnalysis, user, jobId );
 
-                // TODO: Better handling of messageStatus; Might require
-                // refactoring of EmailMessageSender
-                @SuppressWarnings( "unused" )
-                Future<OutboundMessageResponse> status = messageSender
-                    .sendMessageAsync( title, html, "", null, Sets.newHashSet( user ), true );
+                    // TODO: Better handling of messageStatus; Might require
+                    // refactoring of EmailMessageSender
+                    @SuppressWarnings( "unused" )
+                    Future<OutboundMessageResponse> status = messageSender
+                        .sendMessageAsync( title, html, "", null, Sets.newHashSet( user ), true );
 
+                }
+                catch ( Exception e )
+                {
+                    log( jobId, NotificationLevel.ERROR,
+                        "Could not create or send report for PushAnalysis '" + pushAnalysis.getName() + "' and User '" +
+                            user.getUsername() + "': " + e.getMessage(),
+                        false, e );
+                }
             }
-            catch ( Exception e )
-            {
-                log( jobId, NotificationLevel.ERROR,
-                    "Could not create or send report for PushAnalysis '" + pushAnalysis.getName() + "' and User '" +
-                        user.getUsername() + "': " + e.getMessage(),
-                    false, e );
-            }
+        }
+        finally
+        {
+            AnalyticsQueryContext.clearPriority();
         }
     }
 
@@ -105,6 +105,12 @@ public enum SettingKey
     CAN_GRANT_OWN_USER_AUTHORITY_GROUPS( "keyCanGrantOwnUserAuthorityGroups", Boolean.FALSE, Boolean.class ),
     IGNORE_ANALYTICS_APPROVAL_YEAR_THRESHOLD( "keyIgnoreAnalyticsApprovalYearThreshold", -1, Integer.class ),
     ANALYTICS_MAX_LIMIT( "keyAnalyticsMaxLimit", 100000, Integer.class ),
+
+    /**
+     * Deepest organisation unit level of the yearly analytics rollup table. A
+     * value of 0 disables the rollup table.
+     */
+    ANALYTICS_ROLLUP_ORG_UNIT_LEVEL( "keyAnalyticsRollupOrgUnitLevel", 0, Integer.class ),
     SQL_VIEW_MAX_LIMIT( "keySqlViewMaxLimit", -1, Integer.class ),
     RESPECT_META_DATA_START_END_DATES_IN_ANALYTICS_TABLE_EXPORT(
         "keyRespectMetaDataStartEndDatesInAnalyticsTableExport", Boolean.FALSE, Boolean.class ),
@@ -113,6 +119,28 @@ public enum SettingKey
     CUSTOM_LOGIN_PAGE_LOGO( "keyCustomLoginPageLogo", Boolean.FALSE, Boolean.class ),
     CUSTOM_TOP_MENU_LOGO( "keyCustomTopMenuLogo", Boolean.FALSE, Boolean.class ),
     ANALYTICS_MAINTENANCE_MODE( "keyAnalyticsMaintenanceMode", Boolean.FALSE, Boolean.class ),
+
+    /**
+     * Create analytics tables and partitions as unlogged tables, which stay
+     * unlogged when swapped into place. The table data is never written to
+     * the write-ahead log. Analytics tables are derived data, so after a
+     * database crash, when PostgreSQL truncates unlogged tables, they are
+     * restored by the next analytics table update. Unlogged tables are not
+     * replicated, so analytics tables are empty on standby servers.
+     */
+    ANALYTICS_TABLE_UNLOGGED( "keyAnalyticsTableUnlogged", Boolean.FALSE, Boolean.class ),
+
+    /**
+     * Refine analytics table indexes with the column statistics of the previous
+     * analytics tables.
+     */
+    ANALYTICS_TABLE_INDEX_PLANNING( "keyAnalyticsTableIndexPlanning", Boolean.FALSE, Boolean.class ),
+
+    /**
+     * Compute event program indicators of enrollment queries with one grouped
+     * query per program indicator instead of correlated subqueries.
+     */
+    ANALYTICS_SET_BASED_PROGRAM_INDICATORS( "keyAnalyticsSetBasedProgramIndicators", Boolean.FALSE, Boolean.class ),
     DATABASE_SERVER_CPUS( "keyDatabaseServerCpus", 0, Integer.class ),
     LAST_SUCCESSFUL_ANALYTICS_TABLES_RUNTIME( "keyLastSuccessfulAnalyticsTablesRuntime" ),
     LAST_SUCCESSFUL_LATEST_ANALYTICS_PARTITION_RUNTIME( "keyLastSuccessfulLatestAnalyticsPartitionRuntime" ),
@@ -121,6 +149,7 @@ public enum SettingKey
     LAST_SUCCESSFUL_EVENT_DATA_SYNC( "keyLastSuccessfulEventsDataSynch", new Date( 0 ), Date.class ),
     LAST_SUCCESSFUL_COMPLETE_DATA_SET_REGISTRATION_SYNC( "keyLastCompleteDataSetRegistrationSyncSuccess", new Date( 0 ),
         Date.class ),
+    DATA_VALUE_SYNC_CHECKPOINT( "keyDataValueSyncCheckpoint", "", String.class ),
     SKIP_SYNCHRONIZATION_FOR_DATA_CHANGED_BEFORE( "syncSkipSyncForDataChangedBefore", new Date( 0 ), Date.class ),
     LAST_SUCCESSFUL_ANALYTICS_TABLES_UPDATE( "keyLastSuccessfulAnalyticsTablesUpdate", Date.class ),
     LAST_SUCCESSFUL_LATEST_ANALYTICS_PARTITION_UPDATE( "keyLastSuccessfulLatestAnalyticsPartitionUpdate", Date.class ),
@@ -206,7 +235,18 @@ public enum SettingKey
     /**
      * The caching strategy enabled.
      */
-    ANALYTICS_CACHE_TTL_MODE( "keyAnalyticsCacheTtlMode", AnalyticsCacheTtlMode.FIXED, AnalyticsCacheTtlMode.class );
+    ANALYTICS_CACHE_TTL_MODE( "keyAnalyticsCacheTtlMode", AnalyticsCacheTtlMode.FIXED, AnalyticsCacheTtlMode.class ),
+
+    /**
+     * Number of most viewed visualizations to warm up the analytics cache for
+     * after analytics tables are updated. A value of 0 disables warm-up.
+     */
+    ANALYTICS_CACHE_WARM_UP_VISUALIZATIONS( "keyAnalyticsCacheWarmUpVisualizations", 0, Integer.class ),
+
+    /**
+     * Time budget in seconds for starting analytics cache warm-up queries.
+     */
+    ANALYTICS_CACHE_WARM_UP_TIME_BUDGET( "keyAnalyticsCacheWarmUpTimeBudget", 600, Integer.class );
 
     private final String name;
 
@@ -28,6 +28,10 @@
 package org.hisp.dhis.tracker;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -39,6 +43,8 @@ import org.hisp.dhis.category.CategoryOptionCombo;
 import org.hisp.dhis.common.IdentifiableObject;
 import org.hisp.dhis.commons.util.TextUtils;
 import org.hisp.dhis.dataelement.DataElement;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.hisp.dhis.organisationunit.OrganisationUnit;
 import org.hisp.dhis.program.Program;
 import org.hisp.dhis.program.ProgramStage;
@@ -55,15 +61,22 @@ import org.hisp.dhis.tracker.domain.Note;
 import org.hisp.dhis.tracker.domain.Relationship;
 import org.hisp.dhis.tracker.domain.TrackedEntity;
 import org.hisp.dhis.tracker.preheat.RelationshipPreheatKeySupport;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
 
 import com.google.common.base.MoreObjects;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
 
 /**
  * This class "collects" identifiers from all input objects. This resulting map
  * of all identifiers will then be used to "preheat/cache" all the objects
  * needed into memory to speed up the validation process.
+ * <p>
+ * Large payloads can be collected concurrently, see
+ * {@link ConfigurationKey#TRACKER_IMPORT_IDENTIFIER_COLLECTION_PARALLEL_THREADS}.
+ * Every partition of the payload is then collected into its own map, and the
+ * maps are merged once all partitions are done.
  *
  * @author Morten Olav Hansen <mortenoh@gmail.com>
  * @see org.hisp.dhis.tracker.preheat.DefaultTrackerPreheatService
@@ -74,17 +87,37 @@ public class TrackerIdentifierCollector
 {
     public final static String ID_WILDCARD = "*";
 
+    /**
+     * Payloads with fewer tracked entities, enrollments, events and
+     * relationships are always collected on the calling thread
+     */
+    private static final int MIN_PARALLEL_SIZE = 1000;
+
+    private static final int MIN_PARTITION_SIZE = 250;
+
+    /**
+     * Number of payload partitions per thread, so that threads finishing early
+     * can pick up remaining partitions
+     */
+    private static final int PARTITIONS_PER_THREAD = 4;
+
     private final ProgramRuleService programRuleService;
 
+    private final DhisConfigurationProvider config;
+
+    @Qualifier( "trackerIdentifierCollectionExecutor" )
+    private final Executor executor;
+
     public Map<Class<?>, Set<String>> collect( TrackerImportParams params,
         Map<Class<? extends IdentifiableObject>, IdentifiableObject> defaults )
     {
-        Map<Class<?>, Set<String>> map = new HashMap<>();
+        int threads = Integer.parseInt(
+            config.getProperty( ConfigurationKey.TRACKER_IMPORT_IDENTIFIER_COLLECTION_PARALLEL_THREADS ) );
+
+        Map<Class<?>, Set<String>> map = threads > 1 && getSize( params ) >= MIN_PARALLEL_SIZE
+            ? collectConcurrently( params, threads )
+            : collectSequentially( params );
 
-        collectTrackedEntities( map, params.getIdentifiers(), params.getTrackedEntities() );
-        collectEnrollments( map, params.getIdentifiers(), params.getEnrollments() );
-        collectEvents( map, params.getIdentifiers(), params.getEvents() );
-        collectRelationships( map, params.getRelationships() );
         // Using "*" signals that all the entities of the given type have to be
         // preloaded in the Preheat
         map.put( TrackedEntityType.class, ImmutableSet.of( ID_WILDCARD ) );
@@ -95,6 +128,88 @@ public class TrackerIdentifierCollector
         return map;
     }
 
+    private Map<Class<?>, Set<String>> collectSequentially( TrackerImportParams params )
+    {
+        Map<Class<?>, Set<String>> map = new HashMap<>();
+
+        collectTrackedEntities( map, params.getIdentifiers(), params.getTrackedEntities() );
+        collectEnrollments( map, params.getIdentifiers(), params.getEnrollments() );
+        collectEvents( map, params.getIdentifiers(), params.getEvents() );
+        collectRelationships( map, params.getRelationships() );
+
+        return map;
+    }
+
+    /**
+     * Collects the identifiers of the tracked entities, enrollments, events and
+     * relationships on the shared identifier collection executor, in
+     * partitions sized for the given number of threads. Each partition is
+     * collected into its own map, so no map is shared between threads, and the
+     * maps are merged on the calling thread.
+     */
+    private Map<Class<?>, Set<String>> collectConcurrently( TrackerImportParams params, int threads )
+    {
+        TrackerIdentifierParams identifiers = params.getIdentifiers();
+
+        int partitionSize = Math.max( MIN_PARTITION_SIZE,
+            (getSize( params ) + threads * PARTITIONS_PER_THREAD - 1) / (threads * PARTITIONS_PER_THREAD) );
+
+        try
+        {
+            List<CompletableFuture<Map<Class<?>, Set<String>>>> futures = new ArrayList<>();
+
+            submit( futures, params.getTrackedEntities(), partitionSize,
+                ( map, partition ) -> collectTrackedEntities( map, identifiers, partition ) );
+            submit( futures, params.getEnrollments(), partitionSize,
+                ( map, partition ) -> collectEnrollments( map, identifiers, partition ) );
+            submit( futures, params.getEvents(), partitionSize,
+                ( map, partition ) -> collectEvents( map, identifiers, partition ) );
+            submit( futures, params.getRelationships(), partitionSize, this::collectRelationships );
+
+            Map<Class<?>, Set<String>> map = new HashMap<>();
+
+            futures.forEach( future -> merge( map, future.join() ) );
+
+            return map;
+        }
+        catch ( CompletionException ex )
+        {
+            if ( ex.getCause() instanceof RuntimeException )
+            {
+                throw (RuntimeException) ex.getCause();
+            }
+
+            throw ex;
+        }
+    }
+
+    private <T> void submit( List<CompletableFuture<Map<Class<?>, Set<String>>>> futures, List<T> objects,
+        int partitionSize, BiConsumer<Map<Class<?>, Set<String>>, List<T>> collector )
+    {
+        for ( List<T> partition : Lists.partition( objects, partitionSize ) )
+        {
+            futures.add( CompletableFuture.supplyAsync( () -> {
+                Map<Class<?>, Set<String>> map = new HashMap<>();
+                collector.accept( map, partition );
+                return map;
+            }, executor ) );
+        }
+    }
+
+    private void merge( Map<Class<?>, Set<String>> map, Map<Class<?>, Set<String>> partition )
+    {
+        partition.forEach( ( klass, identifiers ) -> map.merge( klass, identifiers, ( existing, added ) -> {
+            existing.addAll( added );
+            return existing;
+        } ) );
+    }
+
+    private int getSize( TrackerImportParams params )
+    {
+        return params.getTrackedEntities().size() + params.getEnrollments().size() + params.getEvents().size()
+            + params.getRelationships().size();
+    }
+
     private void collectProgramRulesFields( Map<Class<?>, Set<String>> map,
         TrackerIdentifierParams params )
     {
@@ -203,7 +318,7 @@ public class TrackerIdentifierCollector
     private void collectRelationships(
         Map<Class<?>, Set<String>> map, List<Relationship> relationships )
     {
-        relationships.parallelStream().forEach( relationship -> {
+        relationships.forEach( relationship -> {
 
             RelationshipKey relationshipKey = RelationshipPreheatKeySupport.getRelationshipKey( relationship );
 
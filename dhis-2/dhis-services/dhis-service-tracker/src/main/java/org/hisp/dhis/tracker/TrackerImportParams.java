@@ -43,6 +43,7 @@ import org.hisp.dhis.tracker.domain.Enrollment;
 import org.hisp.dhis.tracker.domain.Event;
 import org.hisp.dhis.tracker.domain.Relationship;
 import org.hisp.dhis.tracker.domain.TrackedEntity;
+import org.hisp.dhis.tracker.validation.service.attribute.TrackedAttributeUniquenessService;
 import org.hisp.dhis.user.User;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
@@ -138,6 +139,12 @@ public class TrackerImportParams
      */
     private JobConfiguration jobConfiguration;
 
+    /**
+     * Reservation of the unique attribute values of the import, filled while
+     * preheating.
+     */
+    private TrackedAttributeUniquenessService.Reservation uniqueAttributeReservation;
+
     /**
      * Tracked entities to import.
      */
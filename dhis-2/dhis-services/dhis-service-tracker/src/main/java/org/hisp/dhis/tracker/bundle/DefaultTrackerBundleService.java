@@ -42,6 +42,8 @@ import lombok.RequiredArgsConstructor;
 
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.hisp.dhis.rules.models.RuleEffects;
 import org.hisp.dhis.trackedentity.TrackedEntityInstanceService;
 import org.hisp.dhis.tracker.ParamsConverter;
@@ -82,6 +84,10 @@ public class DefaultTrackerBundleService
 
     private final TrackedEntityInstanceService trackedEntityInstanceService;
 
+    private final TrackerDeltaDetector deltaDetector;
+
+    private final DhisConfigurationProvider config;
+
     private List<SideEffectHandlerService> sideEffectHandlers = new ArrayList<>();
 
     @Autowired( required = false )
@@ -148,6 +154,11 @@ public class DefaultTrackerBundleService
             return bundleReport;
         }
 
+        if ( config.isEnabled( ConfigurationKey.TRACKER_IMPORT_SKIP_UNCHANGED_VALUES ) )
+        {
+            deltaDetector.removeUnchanged( bundle );
+        }
+
         Session session = sessionFactory.getCurrentSession();
 
         TrackerType.getOrderedByPriority()
@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.tracker.bundle;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import org.hisp.dhis.eventdatavalue.EventDataValue;
+import org.hisp.dhis.program.ProgramStageInstance;
+import org.hisp.dhis.trackedentity.TrackedEntityInstance;
+import org.hisp.dhis.trackedentityattributevalue.TrackedEntityAttributeValue;
+import org.hisp.dhis.tracker.TrackerIdScheme;
+import org.hisp.dhis.tracker.domain.Attribute;
+import org.hisp.dhis.tracker.domain.DataValue;
+import org.hisp.dhis.tracker.domain.Enrollment;
+import org.hisp.dhis.tracker.domain.Event;
+import org.hisp.dhis.tracker.domain.Note;
+import org.hisp.dhis.tracker.domain.TrackedEntity;
+import org.hisp.dhis.tracker.preheat.TrackerPreheat;
+import org.springframework.stereotype.Component;
+
+/**
+ * Removes the attributes, data values and notes which are already persisted
+ * with the same value from a validated bundle, so that re-sending unchanged
+ * data (e.g. when a client synchronizes full tracked entities) does not write
+ * and audit the unchanged values again.
+ *
+ * The comparison is made against the persisted state loaded in the preheat.
+ * Attributes are compared in commit order: tracked entity attributes first,
+ * then enrollment attributes, so an enrollment attribute restoring a value
+ * changed by its tracked entity in the same payload is kept.
+ */
+@Component
+public class TrackerDeltaDetector
+{
+    public void removeUnchanged( TrackerBundle bundle )
+    {
+        TrackerPreheat preheat = bundle.getPreheat();
+
+        Map<String, Map<String, String>> attributeValues = new HashMap<>();
+
+        for ( TrackedEntity trackedEntity : bundle.getTrackedEntities() )
+        {
+            if ( !trackedEntity.getAttributes().isEmpty() )
+            {
+                trackedEntity.setAttributes( removeUnchangedAttributes( trackedEntity.getAttributes(),
+                    getAttributeValues( preheat, attributeValues, trackedEntity.getTrackedEntity() ) ) );
+            }
+        }
+
+        for ( Enrollment enrollment : bundle.getEnrollments() )
+        {
+            if ( !enrollment.getAttributes().isEmpty() )
+            {
+                enrollment.setAttributes( removeUnchangedAttributes( enrollment.getAttributes(),
+                    getAttributeValues( preheat, attributeValues, enrollment.getTrackedEntity() ) ) );
+            }
+
+            enrollment.setNotes( removePersistedNotes( preheat, enrollment.getNotes() ) );
+        }
+
+        for ( Event event : bundle.getEvents() )
+        {
+            ProgramStageInstance programStageInstance = preheat.getEvent( TrackerIdScheme.UID, event.getEvent() );
+
+            if ( programStageInstance != null )
+            {
+                Map<String, EventDataValue> persisted = programStageInstance.getEventDataValues().stream()
+                    .collect( Collectors.toMap( EventDataValue::getDataElement, dv -> dv, ( a, b ) -> a ) );
+
+                event.setDataValues( event.getDataValues().stream()
+                    .filter( dv -> !isUnchanged( dv, persisted.get( dv.getDataElement() ) ) )
+                    .collect( Collectors.toCollection( HashSet::new ) ) );
+            }
+
+            event.setNotes( removePersistedNotes( preheat, event.getNotes() ) );
+        }
+    }
+
+    /**
+     * Returns the attribute values of the given tracked entity, as they will be
+     * once the attributes already processed are persisted, or null if the
+     * tracked entity is not persisted yet.
+     */
+    private Map<String, String> getAttributeValues( TrackerPreheat preheat,
+        Map<String, Map<String, String>> attributeValues, String trackedEntity )
+    {
+        if ( trackedEntity == null )
+        {
+            return null;
+        }
+
+        return attributeValues.computeIfAbsent( trackedEntity, uid -> {
+            TrackedEntityInstance trackedEntityInstance = preheat.getTrackedEntity( TrackerIdScheme.UID, uid );
+
+            if ( trackedEntityInstance == null )
+            {
+                return null;
+            }
+
+            Map<String, String> values = new HashMap<>();
+
+            for ( TrackedEntityAttributeValue value : trackedEntityInstance.getTrackedEntityAttributeValues() )
+            {
+                values.put( value.getAttribute().getUid(), value.getPlainValue() );
+            }
+
+            return values;
+        } );
+    }
+
+    private List<Attribute> removeUnchangedAttributes( List<Attribute> attributes, Map<String, String> values )
+    {
+        if ( values == null )
+        {
+            return attributes;
+        }
+
+        List<Attribute> changed = new ArrayList<>();
+
+        for ( Attribute attribute : attributes )
+        {
+            String value = attribute.getValue() == null || attribute.getValue().isEmpty() ? null
+                : attribute.getValue();
+
+            if ( !Objects.equals( value, values.get( attribute.getAttribute() ) ) )
+            {
+                changed.add( attribute );
+
+                values.put( attribute.getAttribute(), value );
+            }
+        }
+
+        return changed;
+    }
+
+    private boolean isUnchanged( DataValue dataValue, EventDataValue persisted )
+    {
+        return persisted != null
+            && Objects.equals( dataValue.getValue(), persisted.getValue() )
+            && dataValue.isProvidedElsewhere() == Boolean.TRUE.equals( persisted.getProvidedElsewhere() );
+    }
+
+    private List<Note> removePersistedNotes( TrackerPreheat preheat, List<Note> notes )
+    {
+        return notes.stream()
+            .filter( note -> note.getNote() == null || !preheat.getNote( note.getNote() ).isPresent() )
+            .collect( Collectors.toList() );
+    }
+}
@@ -30,9 +30,13 @@ package org.hisp.dhis.tracker.bundle.persister;
 import static com.google.api.client.util.Preconditions.checkNotNull;
 
 import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
@@ -41,13 +45,27 @@ import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import org.hibernate.Session;
+import org.hisp.dhis.artemis.audit.Audit;
+import org.hisp.dhis.artemis.audit.AuditManager;
+import org.hisp.dhis.artemis.audit.AuditableEntity;
+import org.hisp.dhis.artemis.audit.listener.AbstractHibernateListener;
+import org.hisp.dhis.artemis.audit.listener.PostInsertAuditListener;
+import org.hisp.dhis.artemis.audit.listener.PostUpdateAuditListener;
+import org.hisp.dhis.audit.AuditScope;
+import org.hisp.dhis.audit.AuditType;
 import org.hisp.dhis.dataelement.DataElement;
+import org.hisp.dhis.dxf2.events.event.EventCommentStore;
+import org.hisp.dhis.dxf2.events.event.EventStore;
 import org.hisp.dhis.eventdatavalue.EventDataValue;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.hisp.dhis.program.ProgramStageInstance;
 import org.hisp.dhis.reservedvalue.ReservedValueService;
 import org.hisp.dhis.trackedentityattributevalue.TrackedEntityAttributeValueAuditService;
 import org.hisp.dhis.trackedentitycomment.TrackedEntityComment;
 import org.hisp.dhis.trackedentitycomment.TrackedEntityCommentService;
+import org.hisp.dhis.tracker.AtomicMode;
+import org.hisp.dhis.tracker.FlushMode;
 import org.hisp.dhis.tracker.TrackerIdScheme;
 import org.hisp.dhis.tracker.TrackerType;
 import org.hisp.dhis.tracker.bundle.TrackerBundle;
@@ -57,32 +75,286 @@ import org.hisp.dhis.tracker.domain.DataValue;
 import org.hisp.dhis.tracker.domain.Event;
 import org.hisp.dhis.tracker.job.TrackerSideEffectDataBundle;
 import org.hisp.dhis.tracker.preheat.TrackerPreheat;
+import org.hisp.dhis.tracker.report.TrackerObjectReport;
+import org.hisp.dhis.tracker.report.TrackerTypeReport;
 import org.hisp.dhis.util.DateUtils;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 
+import com.google.common.collect.Lists;
+
 /**
  * @author Luciano Fiandesio
  */
 @Component
 public class EventPersister extends AbstractTrackerPersister<Event, ProgramStageInstance>
 {
+    private static final int JDBC_BATCH_SIZE = 1000;
+
     private final TrackerConverterService<Event, ProgramStageInstance> eventConverter;
 
     private final TrackedEntityCommentService trackedEntityCommentService;
 
     private final TrackerSideEffectConverterService sideEffectConverterService;
 
+    private final EventStore eventStore;
+
+    private final EventCommentStore eventCommentStore;
+
+    private final AuditManager auditManager;
+
+    private final PostInsertAuditListener postInsertAuditListener;
+
+    private final PostUpdateAuditListener postUpdateAuditListener;
+
+    private final DhisConfigurationProvider config;
+
     public EventPersister( ReservedValueService reservedValueService,
         TrackerConverterService<Event, ProgramStageInstance> eventConverter,
         TrackedEntityCommentService trackedEntityCommentService,
         TrackerSideEffectConverterService sideEffectConverterService,
-        TrackedEntityAttributeValueAuditService trackedEntityAttributeValueAuditService )
+        TrackedEntityAttributeValueAuditService trackedEntityAttributeValueAuditService,
+        EventStore eventStore,
+        EventCommentStore eventCommentStore,
+        AuditManager auditManager,
+        PostInsertAuditListener postInsertAuditListener,
+        PostUpdateAuditListener postUpdateAuditListener,
+        DhisConfigurationProvider config )
     {
         super( reservedValueService, trackedEntityAttributeValueAuditService );
         this.eventConverter = eventConverter;
         this.trackedEntityCommentService = trackedEntityCommentService;
         this.sideEffectConverterService = sideEffectConverterService;
+        this.eventStore = eventStore;
+        this.eventCommentStore = eventCommentStore;
+        this.auditManager = auditManager;
+        this.postInsertAuditListener = postInsertAuditListener;
+        this.postUpdateAuditListener = postUpdateAuditListener;
+        this.config = config;
+    }
+
+    /**
+     * Persists the events of the bundle. Atomic imports flushed automatically
+     * are written with batched JDBC statements, if enabled in the
+     * configuration. All other imports use the Hibernate session.
+     */
+    @Override
+    public TrackerTypeReport persist( Session session, TrackerBundle bundle )
+    {
+        if ( config.isEnabled( ConfigurationKey.TRACKER_IMPORT_EVENT_JDBC_PERSISTENCE )
+            && AtomicMode.ALL == bundle.getAtomicMode() && FlushMode.AUTO == bundle.getFlushMode() )
+        {
+            return persistWithJdbc( session, bundle );
+        }
+
+        return super.persist( session, bundle );
+    }
+
+    /**
+     * Persists the events of the bundle, including the event data values and
+     * the notes, with batched JDBC statements. The events are converted and
+     * reported exactly like in {@link AbstractTrackerPersister#persist}, but
+     * bypass the Hibernate session and its dirty checking. Any failure aborts
+     * the import, as the batches cannot report single events.
+     */
+    private TrackerTypeReport persistWithJdbc( Session session, TrackerBundle bundle )
+    {
+        TrackerTypeReport typeReport = new TrackerTypeReport( getType() );
+
+        TrackerPreheat preheat = bundle.getPreheat();
+
+        Set<String> updatedTeiList = bundle.getUpdatedTeis();
+
+        List<ProgramStageInstance> created = new ArrayList<>();
+
+        List<ProgramStageInstance> updated = new ArrayList<>();
+
+        Map<ProgramStageInstance, AuditType> persisted = new LinkedHashMap<>();
+
+        Map<ProgramStageInstance, List<TrackedEntityComment>> newNotes = new LinkedHashMap<>();
+
+        List<Event> events = bundle.getEvents();
+
+        for ( int idx = 0; idx < events.size(); idx++ )
+        {
+            final Event event = events.get( idx );
+
+            try
+            {
+                ProgramStageInstance programStageInstance = convert( bundle, event );
+
+                updateDataValues( session, preheat, event, programStageInstance );
+
+                if ( isNew( preheat, event ) )
+                {
+                    created.add( programStageInstance );
+                    persisted.put( programStageInstance, AuditType.CREATE );
+                    typeReport.getStats().incCreated();
+                }
+                else
+                {
+                    // make sure the session does not write the event again
+                    if ( session.contains( programStageInstance ) )
+                    {
+                        session.detach( programStageInstance );
+                    }
+
+                    updated.add( programStageInstance );
+                    persisted.put( programStageInstance, AuditType.UPDATE );
+                    typeReport.getStats().incUpdated();
+                    Optional.ofNullable( getUpdatedTrackedEntity( programStageInstance ) )
+                        .ifPresent( updatedTeiList::add );
+                }
+
+                typeReport.addObjectReport( new TrackerObjectReport( getType(), event.getUid(), idx ) );
+
+                List<TrackedEntityComment> notes = getNewNotes( preheat, programStageInstance );
+
+                if ( !notes.isEmpty() )
+                {
+                    newNotes.put( programStageInstance, notes );
+                }
+            }
+            catch ( Exception e )
+            {
+                throw new PersistenceException( "A Tracker Entity of type '" + getType().getName() + "' ("
+                    + event.getUid() + ") failed to persist.", e );
+            }
+        }
+
+        // the JDBC statements must see the enrollments and file resources
+        // persisted through the session
+        session.flush();
+
+        for ( List<ProgramStageInstance> batch : Lists.partition( created, JDBC_BATCH_SIZE ) )
+        {
+            verifyBatch( batch, eventStore.saveEvents( batch ), "saved" );
+        }
+
+        for ( List<ProgramStageInstance> batch : Lists.partition( updated, JDBC_BATCH_SIZE ) )
+        {
+            verifyBatch( batch, eventStore.updateEvents( batch ), "updated" );
+        }
+
+        // only the new notes are written, linked by the ids the events got
+        // when they were saved
+        List<ProgramStageInstance> notesHolders = newNotes.entrySet().stream()
+            .map( e -> withNotes( e.getKey(), e.getValue() ) )
+            .collect( Collectors.toList() );
+
+        for ( List<ProgramStageInstance> batch : Lists.partition( notesHolders, JDBC_BATCH_SIZE ) )
+        {
+            verifyNotesBatch( batch, eventCommentStore.saveAllComments( batch ) );
+        }
+
+        bundle.setUpdatedTeis( updatedTeiList );
+
+        persisted.forEach( ( programStageInstance, auditType ) -> {
+            audit( session, bundle, programStageInstance, auditType );
+
+            updatePreheat( preheat, programStageInstance );
+
+            if ( !bundle.isSkipSideEffects() )
+            {
+                typeReport.getSideEffectDataBundles().add( handleSideEffects( bundle, programStageInstance ) );
+            }
+        } );
+
+        return typeReport;
+    }
+
+    /**
+     * Makes sure that all the events of a batch were written, as the event
+     * store leaves out the events it fails to write. Throws a
+     * {@link PersistenceException} otherwise, so the import is rolled back.
+     */
+    private void verifyBatch( List<ProgramStageInstance> batch, List<ProgramStageInstance> written, String action )
+    {
+        Set<String> writtenUids = written.stream()
+            .map( ProgramStageInstance::getUid )
+            .collect( Collectors.toSet() );
+
+        List<String> failedUids = batch.stream()
+            .map( ProgramStageInstance::getUid )
+            .filter( uid -> !writtenUids.contains( uid ) )
+            .collect( Collectors.toList() );
+
+        if ( !failedUids.isEmpty() )
+        {
+            throw new PersistenceException( "Tracker Entities of type '" + getType().getName() + "' failed to be "
+                + action + ": " + failedUids );
+        }
+    }
+
+    /**
+     * Makes sure that all the notes of a batch were written, as the comment
+     * store leaves out the notes it fails to link to their event. Throws a
+     * {@link PersistenceException} otherwise, so the import is rolled back.
+     */
+    private void verifyNotesBatch( List<ProgramStageInstance> batch, List<TrackedEntityComment> written )
+    {
+        Set<String> writtenUids = written.stream()
+            .map( TrackedEntityComment::getUid )
+            .collect( Collectors.toSet() );
+
+        List<String> failedUids = batch.stream()
+            .flatMap( notesHolder -> notesHolder.getComments().stream() )
+            .map( TrackedEntityComment::getUid )
+            .filter( uid -> !writtenUids.contains( uid ) )
+            .collect( Collectors.toList() );
+
+        if ( !failedUids.isEmpty() )
+        {
+            throw new PersistenceException( "Notes of Tracker Entities of type '" + getType().getName()
+                + "' failed to be saved: " + failedUids );
+        }
+    }
+
+    /**
+     * Returns the notes of the event which are not persisted yet. Notes
+     * without text are never persisted and are left out.
+     */
+    private List<TrackedEntityComment> getNewNotes( TrackerPreheat preheat,
+        ProgramStageInstance programStageInstance )
+    {
+        return programStageInstance.getComments().stream()
+            .filter( comment -> !preheat.getNote( comment.getUid() ).isPresent() )
+            .filter( comment -> StringUtils.hasLength( comment.getCommentText() ) )
+            .collect( Collectors.toList() );
+    }
+
+    private ProgramStageInstance withNotes( ProgramStageInstance programStageInstance,
+        List<TrackedEntityComment> notes )
+    {
+        ProgramStageInstance notesHolder = new ProgramStageInstance();
+        notesHolder.setId( programStageInstance.getId() );
+        notesHolder.setUid( programStageInstance.getUid() );
+        notesHolder.setComments( notes );
+        return notesHolder;
+    }
+
+    /**
+     * Sends the audit the Hibernate listeners would send for the event, as
+     * JDBC statements do not trigger them. The audit attributes and entry are
+     * created the same way as by {@link PostInsertAuditListener} and
+     * {@link PostUpdateAuditListener}.
+     */
+    private void audit( Session session, TrackerBundle bundle, ProgramStageInstance programStageInstance,
+        AuditType auditType )
+    {
+        AbstractHibernateListener auditListener = AuditType.CREATE == auditType ? postInsertAuditListener
+            : postUpdateAuditListener;
+
+        auditManager.send( Audit.builder()
+            .auditType( auditType )
+            .auditScope( AuditScope.TRACKER )
+            .createdAt( LocalDateTime.now() )
+            .createdBy( bundle.getUsername() )
+            .object( programStageInstance )
+            .attributes( auditManager.collectAuditAttributes( programStageInstance, ProgramStageInstance.class ) )
+            .auditableEntity( new AuditableEntity( ProgramStageInstance.class,
+                auditListener.createAuditEntry( programStageInstance, programStageInstance.getId(), session ) ) )
+            .build() );
     }
 
     @Override
@@ -29,17 +29,27 @@ package org.hisp.dhis.tracker.config;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.stream.Collectors;
 
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.hisp.dhis.tracker.preheat.supplier.*;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import com.google.common.collect.ImmutableList;
 
 @Configuration
 public class TrackerPreheatConfig
 {
+    /**
+     * Maximum number of preheat suppliers waiting for a thread of the preheat
+     * executor. Further suppliers run on the calling thread.
+     */
+    private static final int PREHEAT_EXECUTOR_QUEUE_CAPACITY = 100;
+
     private final List<Class<? extends PreheatSupplier>> preheatOrder = ImmutableList.of(
         ClassBasedSupplier.class,
         TrackedEntityProgramInstanceSupplier.class,
@@ -65,4 +75,42 @@ public class TrackerPreheatConfig
     {
         return new PreheatStrategyScanner().scanSupplierStrategies();
     }
+
+    /**
+     * Executor collecting the identifiers of large tracker import payloads,
+     * shared by all imports and sized by
+     * {@link ConfigurationKey#TRACKER_IMPORT_IDENTIFIER_COLLECTION_PARALLEL_THREADS}.
+     */
+    @Bean( "trackerIdentifierCollectionExecutor" )
+    public ThreadPoolTaskExecutor trackerIdentifierCollectionExecutor( DhisConfigurationProvider config )
+    {
+        int threads = Math.max( 1, Integer.parseInt(
+            config.getProperty( ConfigurationKey.TRACKER_IMPORT_IDENTIFIER_COLLECTION_PARALLEL_THREADS ) ) );
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize( threads );
+        executor.setMaxPoolSize( threads );
+        executor.setThreadNamePrefix( "tracker-identifier-collection-" );
+        return executor;
+    }
+
+    /**
+     * Executor running the JDBC based preheat suppliers of tracker imports,
+     * shared by all imports and sized by
+     * {@link ConfigurationKey#TRACKER_IMPORT_PREHEAT_PARALLEL_THREADS}.
+     */
+    @Bean( "trackerPreheatExecutor" )
+    public ThreadPoolTaskExecutor trackerPreheatExecutor( DhisConfigurationProvider config )
+    {
+        int threads = Math.max( 1, Integer.parseInt(
+            config.getProperty( ConfigurationKey.TRACKER_IMPORT_PREHEAT_PARALLEL_THREADS ) ) );
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize( threads );
+        executor.setMaxPoolSize( threads );
+        executor.setQueueCapacity( PREHEAT_EXECUTOR_QUEUE_CAPACITY );
+        executor.setRejectedExecutionHandler( new ThreadPoolExecutor.CallerRunsPolicy() );
+        executor.setThreadNamePrefix( "tracker-preheat-" );
+        return executor;
+    }
 }
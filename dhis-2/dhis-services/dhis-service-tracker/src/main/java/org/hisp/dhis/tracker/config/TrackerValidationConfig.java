@@ -31,13 +31,17 @@ import static java.util.stream.Collectors.toMap;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.function.Function;
 import java.util.stream.IntStream;
 
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.hisp.dhis.tracker.validation.TrackerValidationHook;
 import org.hisp.dhis.tracker.validation.hooks.*;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import com.google.common.collect.ImmutableList;
 
@@ -50,6 +54,13 @@ import com.google.common.collect.ImmutableList;
 @Configuration( "trackerImportValidationConfig" )
 public class TrackerValidationConfig
 {
+    /**
+     * Maximum number of bundle partitions waiting for a thread of the
+     * validation executor. Further partitions are validated on the calling
+     * thread.
+     */
+    private static final int VALIDATION_EXECUTOR_QUEUE_CAPACITY = 1000;
+
     @Bean( "ruleEngineValidationHooks" )
     public List<Class<? extends TrackerValidationHook>> getRuleEngineValidationHooks()
     {
@@ -106,4 +117,24 @@ public class TrackerValidationConfig
             .boxed()
             .collect( toMap( getValidationOrder()::get, Function.identity() ) );
     }
+
+    /**
+     * Executor validating the bundle partitions of parallelizable validation
+     * hooks, shared by all imports and sized by
+     * {@link ConfigurationKey#TRACKER_IMPORT_VALIDATION_PARALLEL_THREADS}.
+     */
+    @Bean( "trackerValidationExecutor" )
+    public ThreadPoolTaskExecutor trackerValidationExecutor( DhisConfigurationProvider config )
+    {
+        int threads = Math.max( 1, Integer.parseInt(
+            config.getProperty( ConfigurationKey.TRACKER_IMPORT_VALIDATION_PARALLEL_THREADS ) ) );
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize( threads );
+        executor.setMaxPoolSize( threads );
+        executor.setQueueCapacity( VALIDATION_EXECUTOR_QUEUE_CAPACITY );
+        executor.setRejectedExecutionHandler( new ThreadPoolExecutor.CallerRunsPolicy() );
+        executor.setThreadNamePrefix( "tracker-validation-" );
+        return executor;
+    }
 }
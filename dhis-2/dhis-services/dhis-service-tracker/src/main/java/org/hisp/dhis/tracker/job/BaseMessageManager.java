@@ -28,6 +28,12 @@
 package org.hisp.dhis.tracker.job;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import javax.jms.JMSException;
 import javax.jms.TextMessage;
@@ -35,37 +41,107 @@ import javax.jms.TextMessage;
 import org.hisp.dhis.artemis.MessageManager;
 import org.hisp.dhis.common.AsyncTaskExecutor;
 import org.hisp.dhis.common.CodeGenerator;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.hisp.dhis.render.RenderService;
 import org.springframework.stereotype.Component;
 
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import com.google.common.collect.Lists;
+
 /**
+ * Producer and consumer base for tracker side effects. The side effects of an
+ * import are grouped by program and sent in batches, so that consumers
+ * process a batch in a single job.
+ *
  * @author Zubair Asghar
  */
 @Component
 public abstract class BaseMessageManager
 {
+    private static final String METRIC_PREFIX = "tracker.side_effects.batch.";
+
     private final MessageManager messageManager;
 
     private final AsyncTaskExecutor taskExecutor;
 
     private final RenderService renderService;
 
+    private final DhisConfigurationProvider config;
+
+    private final DistributionSummary batchSizeSummary;
+
+    private final Timer batchLagTimer;
+
     public BaseMessageManager(
         MessageManager messageManager,
         AsyncTaskExecutor taskExecutor,
-        RenderService renderService )
+        RenderService renderService,
+        DhisConfigurationProvider config,
+        MeterRegistry meterRegistry )
     {
         this.messageManager = messageManager;
         this.taskExecutor = taskExecutor;
         this.renderService = renderService;
+        this.config = config;
+
+        this.batchSizeSummary = DistributionSummary.builder( METRIC_PREFIX + "size" )
+            .description( "Number of tracker side effects sent in a batch" )
+            .tag( "topic", getTopic() )
+            .register( meterRegistry );
+
+        this.batchLagTimer = Timer.builder( METRIC_PREFIX + "lag" )
+            .description( "Time tracker side effect batches wait in the queue" )
+            .tag( "topic", getTopic() )
+            .register( meterRegistry );
     }
 
     public String addJob( TrackerSideEffectDataBundle sideEffectDataBundle )
+    {
+        return addJobs( Collections.singletonList( sideEffectDataBundle ) );
+    }
+
+    /**
+     * Sends the side effects of an import. All side effects share the same
+     * job id, and are sent in batches of side effects of the same program.
+     *
+     * @param sideEffectDataBundles the side effects of the import.
+     * @return the job id.
+     */
+    public String addJobs( List<TrackerSideEffectDataBundle> sideEffectDataBundles )
     {
         String jobId = CodeGenerator.generateUid();
-        sideEffectDataBundle.setJobId( jobId );
 
-        messageManager.sendQueue( getTopic(), sideEffectDataBundle );
+        int batchSize = Integer.parseInt(
+            config.getProperty( ConfigurationKey.TRACKER_IMPORT_SIDE_EFFECT_BATCH_SIZE ) );
+
+        Map<String, List<TrackerSideEffectDataBundle>> bundlesByProgram = new LinkedHashMap<>();
+
+        for ( TrackerSideEffectDataBundle bundle : sideEffectDataBundles )
+        {
+            bundle.setJobId( jobId );
+
+            String program = bundle.getProgram() != null ? bundle.getProgram().getUid() : null;
+
+            bundlesByProgram.computeIfAbsent( program, p -> new ArrayList<>() ).add( bundle );
+        }
+
+        bundlesByProgram.forEach( ( program, bundles ) -> {
+            for ( List<TrackerSideEffectDataBundle> batch : Lists.partition( bundles, Math.max( 1, batchSize ) ) )
+            {
+                messageManager.sendQueue( getTopic(), TrackerSideEffectBatch.builder()
+                    .jobId( jobId )
+                    .program( program )
+                    .accessedBy( batch.get( 0 ).getAccessedBy() )
+                    .bundles( new ArrayList<>( batch ) )
+                    .build() );
+
+                batchSizeSummary.record( batch.size() );
+            }
+        } );
 
         return jobId;
     }
@@ -75,13 +151,18 @@ public abstract class BaseMessageManager
         taskExecutor.executeTask( runnable );
     }
 
-    public TrackerSideEffectDataBundle toBundle( TextMessage message )
+    public TrackerSideEffectBatch toBatch( TextMessage message )
         throws JMSException,
         IOException
     {
+        if ( message.getJMSTimestamp() > 0 )
+        {
+            batchLagTimer.record( System.currentTimeMillis() - message.getJMSTimestamp(), TimeUnit.MILLISECONDS );
+        }
+
         String payload = message.getText();
 
-        return renderService.fromJson( payload, TrackerSideEffectDataBundle.class );
+        return renderService.fromJson( payload, TrackerSideEffectBatch.class );
     }
 
     public abstract String getTopic();
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.tracker.job;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.Striped;
+
+/**
+ * Serializes async tracker import jobs which touch the same org units. A job
+ * holds the locks of all its org units while it is imported, so a job
+ * touching several org units never runs concurrently with a job touching any
+ * of them. Jobs whose org units are not known, see
+ * {@link TrackerImportPartitionKeys#getOrgUnits}, run exclusively.
+ *
+ * Locks are held by the consuming instance only; jobs consumed by different
+ * instances are ordered by their partition key.
+ */
+public class TrackerImportLocks
+{
+    private static final int ORG_UNIT_STRIPES = 256;
+
+    private final ReadWriteLock exclusiveLock = new ReentrantReadWriteLock( true );
+
+    private final Striped<Lock> orgUnitLocks = Striped.lock( ORG_UNIT_STRIPES );
+
+    /**
+     * Acquires the locks of the given org units, waiting for jobs holding any
+     * of them to finish.
+     *
+     * @param orgUnits the org unit uids, or null if not known.
+     * @return the acquired locks, to be passed to {@link #unlock(List)}.
+     */
+    public List<Lock> lock( Set<String> orgUnits )
+    {
+        List<Lock> locks = new ArrayList<>();
+
+        if ( orgUnits == null )
+        {
+            locks.add( exclusiveLock.writeLock() );
+        }
+        else
+        {
+            locks.add( exclusiveLock.readLock() );
+
+            // stripes are returned in a fixed order, so overlapping jobs
+            // cannot deadlock
+
+            orgUnitLocks.bulkGet( orgUnits ).forEach( locks::add );
+        }
+
+        List<Lock> acquired = new ArrayList<>();
+
+        try
+        {
+            for ( Lock lock : locks )
+            {
+                lock.lockInterruptibly();
+                acquired.add( lock );
+            }
+        }
+        catch ( InterruptedException e )
+        {
+            unlock( acquired );
+            Thread.currentThread().interrupt();
+
+            throw new IllegalStateException( "Interrupted while waiting for tracker import locks", e );
+        }
+
+        return acquired;
+    }
+
+    /**
+     * Releases locks acquired by {@link #lock(Set)}.
+     *
+     * @param locks the acquired locks.
+     */
+    public void unlock( List<Lock> locks )
+    {
+        Lists.reverse( locks ).forEach( Lock::unlock );
+    }
+}
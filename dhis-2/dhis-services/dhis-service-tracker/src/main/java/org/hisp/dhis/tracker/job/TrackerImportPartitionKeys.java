@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.tracker.job;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.hisp.dhis.tracker.TrackerImportParams;
+import org.hisp.dhis.tracker.domain.Enrollment;
+import org.hisp.dhis.tracker.domain.Event;
+import org.hisp.dhis.tracker.domain.TrackedEntity;
+
+/**
+ * Computes the keys used to partition async tracker import jobs. Every key is
+ * derived from the org units of the tracked entities, enrollments and events
+ * of a job, so jobs touching the same data always share an org unit.
+ *
+ * A job which only touches one org unit is keyed by the org unit, and jobs
+ * with the same key are imported one after the other, in the order they were
+ * queued. Jobs touching several org units have no partition key, and are
+ * serialized with the jobs they overlap with by {@link TrackerImportLocks}.
+ */
+public final class TrackerImportPartitionKeys
+{
+    private static final String ORG_UNIT_PREFIX = "orgUnit:";
+
+    private TrackerImportPartitionKeys()
+    {
+        throw new UnsupportedOperationException( "util" );
+    }
+
+    /**
+     * Returns the partition key of the given import. Only jobs with equal
+     * keys are imported in queue order.
+     *
+     * @param params the {@link TrackerImportParams}.
+     * @return the partition key, or null if the import does not touch
+     *         exactly one known org unit.
+     */
+    public static String getPartitionKey( TrackerImportParams params )
+    {
+        Set<String> orgUnits = getOrgUnits( params );
+
+        if ( orgUnits != null && orgUnits.size() == 1 )
+        {
+            return ORG_UNIT_PREFIX + orgUnits.iterator().next();
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns the org units touched by the given import.
+     *
+     * @param params the {@link TrackerImportParams}.
+     * @return the org unit uids, or null if the import has relationships or
+     *         objects without an org unit, so the touched org units are not
+     *         known.
+     */
+    public static Set<String> getOrgUnits( TrackerImportParams params )
+    {
+        if ( !params.getRelationships().isEmpty() )
+        {
+            return null;
+        }
+
+        Set<String> orgUnits = Stream.of(
+            params.getTrackedEntities().stream().map( TrackedEntity::getOrgUnit ),
+            params.getEnrollments().stream().map( Enrollment::getOrgUnit ),
+            params.getEvents().stream().map( Event::getOrgUnit ) )
+            .flatMap( s -> s )
+            .collect( Collectors.toSet() );
+
+        return orgUnits.contains( null ) ? null : orgUnits;
+    }
+}
@@ -34,6 +34,7 @@ import org.hisp.dhis.artemis.MessageType;
 import org.hisp.dhis.artemis.SerializableMessage;
 import org.hisp.dhis.tracker.TrackerImportParams;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonPOJOBuilder;
@@ -58,6 +59,13 @@ public class TrackerMessage implements SerializableMessage
     @JsonProperty
     private final TrackerImportParams trackerImportParams;
 
+    /**
+     * The partition key of the import, see {@link TrackerImportPartitionKeys}.
+     * It is only used to group the message in the queue.
+     */
+    @JsonIgnore
+    private final String groupId;
+
     @Override
     public MessageType getMessageType()
     {
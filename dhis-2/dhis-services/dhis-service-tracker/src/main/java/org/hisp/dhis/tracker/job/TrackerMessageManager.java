@@ -27,11 +27,18 @@
  */
 package org.hisp.dhis.tracker.job;
 
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+
 import javax.jms.JMSException;
 import javax.jms.TextMessage;
 
+import lombok.extern.slf4j.Slf4j;
+
+import org.hisp.dhis.artemis.MessageManager;
 import org.hisp.dhis.artemis.Topics;
-import org.hisp.dhis.common.AsyncTaskExecutor;
 import org.hisp.dhis.scheduling.JobConfiguration;
 import org.hisp.dhis.scheduling.JobType;
 import org.hisp.dhis.security.AuthenticationSerializer;
@@ -41,36 +48,80 @@ import org.springframework.jms.annotation.JmsListener;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 /**
+ * Consumes the async tracker import jobs. Jobs are imported on the listener
+ * threads, so the number of concurrent imports is bounded by the number of
+ * consumers. Jobs queued with the same partition key are imported in order,
+ * see {@link TrackerImportPartitionKeys}, and jobs touching the same org units
+ * are never imported concurrently, see {@link TrackerImportLocks}.
+ *
  * @author Morten Olav Hansen <mortenoh@gmail.com>
  */
+@Slf4j
 @Component
 public class TrackerMessageManager
 {
-    private final ObjectMapper objectMapper;
+    private static final String METRIC_PREFIX = "tracker.import.queue.";
 
-    private final AsyncTaskExecutor taskExecutor;
+    private final ObjectMapper objectMapper;
 
     private final ObjectFactory<TrackerImportThread> trackerImportThreadFactory;
 
+    private final MessageManager messageManager;
+
+    private final TrackerImportLocks importLocks = new TrackerImportLocks();
+
+    private final AtomicInteger runningJobs = new AtomicInteger();
+
+    private final Timer latencyTimer;
+
+    private final Timer durationTimer;
+
     public TrackerMessageManager(
         ObjectMapper objectMapper,
-        AsyncTaskExecutor taskExecutor,
-        ObjectFactory<TrackerImportThread> trackerImportThreadFactory )
+        ObjectFactory<TrackerImportThread> trackerImportThreadFactory,
+        MessageManager messageManager,
+        MeterRegistry meterRegistry )
     {
         this.objectMapper = objectMapper;
-        this.taskExecutor = taskExecutor;
         this.trackerImportThreadFactory = trackerImportThreadFactory;
+        this.messageManager = messageManager;
+
+        Gauge.builder( METRIC_PREFIX + "depth", this, TrackerMessageManager::getQueueDepth )
+            .description( "Number of tracker import jobs waiting in the queue" )
+            .register( meterRegistry );
+
+        Gauge.builder( METRIC_PREFIX + "running", runningJobs, AtomicInteger::get )
+            .description( "Number of tracker import jobs being imported" )
+            .register( meterRegistry );
+
+        this.latencyTimer = Timer.builder( METRIC_PREFIX + "latency" )
+            .description( "Time tracker import jobs wait in the queue" )
+            .register( meterRegistry );
+
+        this.durationTimer = Timer.builder( METRIC_PREFIX + "duration" )
+            .description( "Time taken to import tracker import jobs" )
+            .register( meterRegistry );
     }
 
-    @JmsListener( destination = Topics.TRACKER_IMPORT_JOB_TOPIC_NAME, containerFactory = "jmsQueueListenerContainerFactory" )
+    @JmsListener( destination = Topics.TRACKER_IMPORT_JOB_TOPIC_NAME,
+        containerFactory = "jmsTrackerImportListenerContainerFactory" )
     public void consume( TextMessage message )
         throws JMSException,
         JsonProcessingException
     {
+        if ( message.getJMSTimestamp() > 0 )
+        {
+            latencyTimer.record( System.currentTimeMillis() - message.getJMSTimestamp(), TimeUnit.MILLISECONDS );
+        }
+
         String payload = message.getText();
 
         TrackerMessage trackerMessage = objectMapper.readValue( payload, TrackerMessage.class );
@@ -91,6 +142,39 @@ public class TrackerMessageManager
         SecurityContextHolder.getContext()
             .setAuthentication( AuthenticationSerializer.deserialize( trackerMessage.getAuthentication() ) );
 
-        taskExecutor.executeTask( trackerImportThread );
+        List<Lock> locks = importLocks.lock( TrackerImportPartitionKeys.getOrgUnits( trackerImportParams ) );
+
+        long start = System.nanoTime();
+
+        runningJobs.incrementAndGet();
+
+        try
+        {
+            trackerImportThread.run();
+        }
+        finally
+        {
+            runningJobs.decrementAndGet();
+
+            durationTimer.record( System.nanoTime() - start, TimeUnit.NANOSECONDS );
+
+            importLocks.unlock( locks );
+        }
+    }
+
+    private double getQueueDepth()
+    {
+        try
+        {
+            Long depth = messageManager.getQueueDepth( Topics.TRACKER_IMPORT_JOB_TOPIC_NAME );
+
+            return depth != null ? depth : Double.NaN;
+        }
+        catch ( Exception e )
+        {
+            log.debug( "Unable to read the depth of the tracker import queue", e );
+
+            return Double.NaN;
+        }
     }
 }
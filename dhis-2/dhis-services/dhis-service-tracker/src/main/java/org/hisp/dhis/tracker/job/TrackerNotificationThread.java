@@ -27,8 +27,16 @@
  */
 package org.hisp.dhis.tracker.job;
 
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.mapping;
+import static java.util.stream.Collectors.toList;
+
+import java.util.List;
+import java.util.Map;
 import java.util.function.Consumer;
 
+import lombok.extern.slf4j.Slf4j;
+
 import org.hisp.dhis.common.BaseIdentifiableObject;
 import org.hisp.dhis.common.IdentifiableObjectManager;
 import org.hisp.dhis.program.ProgramInstance;
@@ -46,10 +54,12 @@ import com.google.common.collect.ImmutableMap;
 /**
  * Class represents a thread which will be triggered as soon as tracker
  * notification consumer consumes a message from tracker notification queue.
+ * The enrollments and events of the batch are loaded with one query per type.
  *
  * @author Zubair Asghar
  */
 
+@Slf4j
 @Component
 @Scope( BeanDefinition.SCOPE_PROTOTYPE )
 public class TrackerNotificationThread extends SecurityContextRunnable
@@ -58,7 +68,7 @@ public class TrackerNotificationThread extends SecurityContextRunnable
 
     private ProgramNotificationService programNotificationService;
 
-    private TrackerSideEffectDataBundle sideEffectDataBundle;
+    private TrackerSideEffectBatch sideEffectBatch;
 
     private IdentifiableObjectManager manager;
 
@@ -78,25 +88,39 @@ public class TrackerNotificationThread extends SecurityContextRunnable
     @Override
     public void call()
     {
-        if ( sideEffectDataBundle == null )
+        if ( sideEffectBatch == null )
         {
             return;
         }
 
-        if ( serviceMapper.containsKey( sideEffectDataBundle.getKlass() ) )
-        {
-            BaseIdentifiableObject object = manager.get( sideEffectDataBundle.getKlass(),
-                sideEffectDataBundle.getObject() );
+        Map<Class<? extends BaseIdentifiableObject>, List<String>> objectsByClass = sideEffectBatch.getBundles()
+            .stream()
+            .filter( bundle -> serviceMapper.containsKey( bundle.getKlass() ) && bundle.getObject() != null )
+            .collect( groupingBy( TrackerSideEffectDataBundle::getKlass,
+                mapping( TrackerSideEffectDataBundle::getObject, toList() ) ) );
 
-            serviceMapper.get( sideEffectDataBundle.getKlass() ).accept( object.getId() );
-        }
+        objectsByClass.forEach( ( klass, uids ) -> manager.getByUid( klass, uids )
+            .forEach( object -> sendNotifications( klass, object ) ) );
 
-        notifier.notify( sideEffectDataBundle.getJobConfiguration(), NotificationLevel.DEBUG,
+        notifier.notify( sideEffectBatch.getJobConfiguration(), NotificationLevel.DEBUG,
             "Tracker notification side effects completed" );
     }
 
-    public void setSideEffectDataBundle( TrackerSideEffectDataBundle sideEffectDataBundle )
+    private void sendNotifications( Class<? extends BaseIdentifiableObject> klass, BaseIdentifiableObject object )
+    {
+        try
+        {
+            serviceMapper.get( klass ).accept( object.getId() );
+        }
+        catch ( Exception e )
+        {
+            log.error( String.format( "Failed to send tracker notifications for %s %s",
+                klass.getSimpleName(), object.getUid() ), e );
+        }
+    }
+
+    public void setSideEffectBatch( TrackerSideEffectBatch sideEffectBatch )
     {
-        this.sideEffectDataBundle = sideEffectDataBundle;
+        this.sideEffectBatch = sideEffectBatch;
     }
 }
@@ -35,6 +35,7 @@ import javax.jms.TextMessage;
 import org.hisp.dhis.artemis.MessageManager;
 import org.hisp.dhis.artemis.Topics;
 import org.hisp.dhis.common.AsyncTaskExecutor;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.hisp.dhis.render.RenderService;
 import org.hisp.dhis.scheduling.JobConfiguration;
 import org.hisp.dhis.scheduling.JobType;
@@ -42,6 +43,8 @@ import org.springframework.beans.factory.ObjectFactory;
 import org.springframework.jms.annotation.JmsListener;
 import org.springframework.stereotype.Component;
 
+import io.micrometer.core.instrument.MeterRegistry;
+
 /**
  * Producer and consumer for handling program rule actions.
  *
@@ -56,9 +59,11 @@ public class TrackerRuleEngineMessageManager extends BaseMessageManager
         MessageManager messageManager,
         AsyncTaskExecutor taskExecutor,
         RenderService renderService,
+        DhisConfigurationProvider config,
+        MeterRegistry meterRegistry,
         ObjectFactory<TrackerRuleEngineThread> trackerRuleEngineThreadObjectFactory )
     {
-        super( messageManager, taskExecutor, renderService );
+        super( messageManager, taskExecutor, renderService, config, meterRegistry );
         this.trackerRuleEngineThreadObjectFactory = trackerRuleEngineThreadObjectFactory;
     }
 
@@ -73,21 +78,21 @@ public class TrackerRuleEngineMessageManager extends BaseMessageManager
         throws JMSException,
         IOException
     {
-        TrackerSideEffectDataBundle bundle = toBundle( message );
+        TrackerSideEffectBatch batch = toBatch( message );
 
-        if ( bundle == null )
+        if ( batch == null || batch.getBundles().isEmpty() )
         {
             return;
         }
 
         JobConfiguration jobConfiguration = new JobConfiguration( "", JobType.TRACKER_IMPORT_RULE_ENGINE_JOB,
-            bundle.getAccessedBy(), true );
+            batch.getAccessedBy(), true );
 
-        bundle.setJobConfiguration( jobConfiguration );
+        batch.setJobConfiguration( jobConfiguration );
 
         TrackerRuleEngineThread notificationThread = trackerRuleEngineThreadObjectFactory.getObject();
 
-        notificationThread.setSideEffectDataBundle( bundle );
+        notificationThread.setSideEffectBatch( batch );
 
         executeJob( notificationThread );
     }
@@ -29,7 +29,11 @@ package org.hisp.dhis.tracker.job;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
+import lombok.extern.slf4j.Slf4j;
+
+import org.hisp.dhis.program.Program;
 import org.hisp.dhis.program.ProgramInstance;
 import org.hisp.dhis.program.ProgramStageInstance;
 import org.hisp.dhis.programrule.engine.RuleActionImplementer;
@@ -48,10 +52,12 @@ import com.google.common.collect.Lists;
  * Class represents a thread which will be triggered as soon as tracker rule
  * engine consumer consumes a message from tracker rule engine queue. It loops
  * through the list of rule effects and implement it if it has an associated
- * rule implementer class.
+ * rule implementer class. All side effects of the batch belong to the same
+ * program, which is shared by the enrollments and events of the batch.
  *
  * @author Zubair Asghar
  */
+@Slf4j
 @Component
 @Scope( BeanDefinition.SCOPE_PROTOTYPE )
 public class TrackerRuleEngineThread extends SecurityContextRunnable
@@ -62,7 +68,7 @@ public class TrackerRuleEngineThread extends SecurityContextRunnable
 
     private final Notifier notifier;
 
-    private TrackerSideEffectDataBundle sideEffectDataBundle;
+    private TrackerSideEffectBatch sideEffectBatch;
 
     public TrackerRuleEngineThread(
         @Qualifier( "org.hisp.dhis.programrule.engine.RuleActionSendMessageImplementer" ) RuleActionImplementer sendMessageRuleActionImplementer,
@@ -79,11 +85,36 @@ public class TrackerRuleEngineThread extends SecurityContextRunnable
     @Override
     public void call()
     {
-        if ( sideEffectDataBundle == null )
+        if ( sideEffectBatch == null )
         {
             return;
         }
 
+        Program program = sideEffectBatch.getBundles().stream()
+            .map( TrackerSideEffectDataBundle::getProgram )
+            .filter( Objects::nonNull )
+            .findFirst()
+            .orElse( null );
+
+        for ( TrackerSideEffectDataBundle sideEffectDataBundle : sideEffectBatch.getBundles() )
+        {
+            try
+            {
+                implement( sideEffectDataBundle, program );
+            }
+            catch ( Exception e )
+            {
+                log.error( String.format( "Failed to implement rule engine side effects for %s %s",
+                    sideEffectDataBundle.getKlass() != null ? sideEffectDataBundle.getKlass().getSimpleName() : null,
+                    sideEffectDataBundle.getObject() ), e );
+            }
+        }
+
+        notifier.notify( sideEffectBatch.getJobConfiguration(), "Tracker Rule-engine side effects completed" );
+    }
+
+    private void implement( TrackerSideEffectDataBundle sideEffectDataBundle, Program program )
+    {
         Map<String, List<RuleEffect>> enrollmentRuleEffects = trackerSideEffectConverterService
             .toRuleEffects( sideEffectDataBundle.getEnrollmentRuleEffects() );
         Map<String, List<RuleEffect>> eventRuleEffects = trackerSideEffectConverterService
@@ -94,7 +125,7 @@ public class TrackerRuleEngineThread extends SecurityContextRunnable
             for ( Map.Entry<String, List<RuleEffect>> entry : enrollmentRuleEffects.entrySet() )
             {
                 ProgramInstance pi = sideEffectDataBundle.getProgramInstance();
-                pi.setProgram( sideEffectDataBundle.getProgram() );
+                pi.setProgram( program );
 
                 entry.getValue()
                     .stream()
@@ -105,7 +136,7 @@ public class TrackerRuleEngineThread extends SecurityContextRunnable
             for ( Map.Entry<String, List<RuleEffect>> entry : eventRuleEffects.entrySet() )
             {
                 ProgramStageInstance psi = sideEffectDataBundle.getProgramStageInstance();
-                psi.getProgramStage().setProgram( sideEffectDataBundle.getProgram() );
+                psi.getProgramStage().setProgram( program );
 
                 entry.getValue()
                     .stream()
@@ -113,12 +144,10 @@ public class TrackerRuleEngineThread extends SecurityContextRunnable
                     .forEach( effect -> ruleActionImplementer.implement( effect, psi ) );
             }
         }
-
-        notifier.notify( sideEffectDataBundle.getJobConfiguration(), "Tracker Rule-engine side effects completed" );
     }
 
-    public void setSideEffectDataBundle( TrackerSideEffectDataBundle sideEffectDataBundle )
+    public void setSideEffectBatch( TrackerSideEffectBatch sideEffectBatch )
     {
-        this.sideEffectDataBundle = sideEffectDataBundle;
+        this.sideEffectBatch = sideEffectBatch;
     }
 }
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.tracker.job;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Builder;
+import lombok.Data;
+
+import org.hisp.dhis.artemis.Message;
+import org.hisp.dhis.artemis.MessageType;
+import org.hisp.dhis.scheduling.JobConfiguration;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonPOJOBuilder;
+
+/**
+ * Side effects of a tracker import for a single program, sent and processed
+ * together.
+ *
+ * @see BaseMessageManager#addJobs(List)
+ */
+@Data
+@Builder( builderClassName = "TrackerSideEffectBatchBuilder" )
+@JsonDeserialize( builder = TrackerSideEffectBatch.TrackerSideEffectBatchBuilder.class )
+public class TrackerSideEffectBatch implements Message
+{
+    @JsonProperty
+    private String jobId;
+
+    @JsonProperty
+    private String program;
+
+    @JsonProperty
+    private String accessedBy;
+
+    @JsonProperty
+    private JobConfiguration jobConfiguration;
+
+    @JsonProperty
+    @Builder.Default
+    private List<TrackerSideEffectDataBundle> bundles = new ArrayList<>();
+
+    @Override
+    @JsonProperty
+    public MessageType getMessageType()
+    {
+        return MessageType.TRACKER_SIDE_EFFECT;
+    }
+
+    @JsonPOJOBuilder( withPrefix = "" )
+    public static final class TrackerSideEffectBatchBuilder
+    {
+    }
+}
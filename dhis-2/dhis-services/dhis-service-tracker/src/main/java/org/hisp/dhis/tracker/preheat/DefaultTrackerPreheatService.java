@@ -30,20 +30,32 @@ package org.hisp.dhis.tracker.preheat;
 import static com.google.api.client.util.Preconditions.checkNotNull;
 
 import java.beans.Introspector;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 import org.hisp.dhis.common.IdentifiableObjectManager;
+import org.hisp.dhis.commons.timer.SystemTimer;
+import org.hisp.dhis.commons.timer.Timer;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.hisp.dhis.preheat.PreheatException;
 import org.hisp.dhis.tracker.TrackerImportParams;
+import org.hisp.dhis.tracker.preheat.supplier.JdbcAbstractPreheatSupplier;
 import org.hisp.dhis.tracker.preheat.supplier.PreheatSupplier;
+import org.hisp.dhis.tracker.preheat.supplier.SupplierDependsOn;
 import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
+import org.springframework.core.annotation.AnnotationUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -70,6 +82,12 @@ public class DefaultTrackerPreheatService implements TrackerPreheatService, Appl
     @Qualifier( "preheatOrder" )
     private final List<String> preheatSuppliers;
 
+    @NonNull
+    private final DhisConfigurationProvider config;
+
+    @Qualifier( "trackerPreheatExecutor" )
+    private final Executor preheatExecutor;
+
     // TODO this flag should be configurable
     private final static boolean FAIL_FAST_ON_PREHEAT_ERROR = false;
 
@@ -84,28 +102,121 @@ public class DefaultTrackerPreheatService implements TrackerPreheatService, Appl
 
         checkNotNull( preheat.getUser(), "TrackerPreheat is missing the user object." );
 
+        int threads = Integer.parseInt(
+            config.getProperty( ConfigurationKey.TRACKER_IMPORT_PREHEAT_PARALLEL_THREADS ) );
+
+        runSuppliers( params, preheat, threads > 1 ? preheatExecutor : null );
+
+        preheat.createReferenceTree();
+
+        return preheat;
+    }
+
+    /**
+     * Runs the preheat suppliers in order, respecting the dependencies declared
+     * with {@link SupplierDependsOn}. If an executor is given, JDBC based
+     * suppliers run on the executor as soon as the suppliers they depend on
+     * are done, concurrently with the remaining suppliers. All other suppliers
+     * use the Hibernate session of the import and run on the calling thread.
+     *
+     * @param params the {@link TrackerImportParams}.
+     * @param preheat the {@link TrackerPreheat} to populate.
+     * @param executor the {@link Executor}, or null to run all suppliers on
+     *        the calling thread.
+     */
+    private void runSuppliers( TrackerImportParams params, TrackerPreheat preheat, Executor executor )
+    {
+        Map<String, CompletableFuture<Void>> suppliers = new HashMap<>();
+
         for ( String supplier : preheatSuppliers )
         {
             final String beanName = Introspector.decapitalize( supplier );
+
+            PreheatSupplier preheatSupplier;
+
             try
             {
-                ctx.getBean( beanName, PreheatSupplier.class ).add( params, preheat );
+                preheatSupplier = ctx.getBean( beanName, PreheatSupplier.class );
             }
             catch ( BeansException beanException )
             {
                 processException( "Unable to find a preheat supplier with name " + beanName
                     + " in the Spring context. Skipping supplier.", beanException, supplier );
+
+                continue;
             }
-            catch ( Exception e )
+
+            CompletableFuture<Void> dependencies = getDependencies( preheatSupplier, suppliers );
+
+            if ( executor != null && preheatSupplier instanceof JdbcAbstractPreheatSupplier )
             {
-                processException( "An error occurred while executing a preheat supplier with name "
-                    + supplier, e, supplier );
+                suppliers.put( supplier, dependencies.thenRunAsync(
+                    () -> runSupplier( supplier, preheatSupplier, params, preheat ), executor ) );
+            }
+            else
+            {
+                join( dependencies );
+
+                runSupplier( supplier, preheatSupplier, params, preheat );
+
+                suppliers.put( supplier, CompletableFuture.completedFuture( null ) );
             }
         }
 
-        preheat.createReferenceTree();
+        join( CompletableFuture.allOf( suppliers.values().toArray( new CompletableFuture[0] ) ) );
+    }
 
-        return preheat;
+    /**
+     * Returns a future which completes when the suppliers the given supplier
+     * depends on are done. Dependencies which are not part of the preheat
+     * order, or which come later in the order, are ignored.
+     */
+    private CompletableFuture<Void> getDependencies( PreheatSupplier preheatSupplier,
+        Map<String, CompletableFuture<Void>> suppliers )
+    {
+        SupplierDependsOn dependsOn = AnnotationUtils.findAnnotation( preheatSupplier.getClass(),
+            SupplierDependsOn.class );
+
+        CompletableFuture<Void> dependency = dependsOn != null
+            ? suppliers.get( dependsOn.value().getSimpleName() )
+            : null;
+
+        return dependency != null ? dependency : CompletableFuture.completedFuture( null );
+    }
+
+    private void runSupplier( String supplier, PreheatSupplier preheatSupplier, TrackerImportParams params,
+        TrackerPreheat preheat )
+    {
+        Timer timer = new SystemTimer().start();
+
+        try
+        {
+            preheatSupplier.add( params, preheat );
+        }
+        catch ( Exception e )
+        {
+            processException( "An error occurred while executing a preheat supplier with name "
+                + supplier, e, supplier );
+        }
+
+        preheat.getSupplierTimings().put( supplier, timer.stop().toString() );
+    }
+
+    private void join( CompletableFuture<Void> future )
+    {
+        try
+        {
+            future.join();
+        }
+        catch ( CompletionException ex )
+        {
+            if ( ex.getCause() instanceof RuntimeException )
+            {
+                throw (RuntimeException) ex.getCause();
+            }
+
+            throw ex;
+        }
     }
 
     private void processException( String message, Exception e, String supplier )
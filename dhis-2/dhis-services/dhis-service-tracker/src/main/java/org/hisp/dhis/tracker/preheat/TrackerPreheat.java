@@ -31,13 +31,16 @@ import static org.hisp.dhis.tracker.preheat.RelationshipPreheatKeySupport.getRel
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -95,7 +98,7 @@ public class TrackerPreheat
      * attribute value
      */
     @Getter
-    private Map<Class<? extends IdentifiableObject>, Map<String, IdentifiableObject>> map = new HashMap<>();
+    private Map<Class<? extends IdentifiableObject>, Map<String, IdentifiableObject>> map = new ConcurrentHashMap<>();
 
     /**
      * List of all payload references by tracker type which are not present in
@@ -251,6 +254,13 @@ public class TrackerPreheat
     @Setter
     private Map<String, List<String>> programWithOrgUnitsMap;
 
+    /**
+     * Elapsed time of each preheat supplier, by supplier name, in order of
+     * completion. Suppliers may complete concurrently.
+     */
+    @Getter
+    private Map<String, String> supplierTimings = Collections.synchronizedMap( new LinkedHashMap<>() );
+
     public TrackerPreheat()
     {
     }
@@ -284,6 +294,11 @@ public class TrackerPreheat
     public <T extends IdentifiableObject> T get( Class<? extends IdentifiableObject> klass,
         String key )
     {
+        if ( key == null )
+        {
+            return null;
+        }
+
         return (T) map.getOrDefault( klass, new HashMap<>() ).get( key );
     }
 
@@ -314,30 +329,22 @@ public class TrackerPreheat
 
         Class<? extends IdentifiableObject> klass = HibernateProxyUtils.getRealClass( object );
 
-        if ( !map.containsKey( klass ) )
-        {
-            map.put( klass, new HashMap<>() );
-        }
+        Map<String, IdentifiableObject> classMap = map.computeIfAbsent( klass, k -> new ConcurrentHashMap<>() );
 
         if ( User.class.isAssignableFrom( klass ) )
         {
-            if ( !map.containsKey( UserCredentials.class ) )
-            {
-                map.put( UserCredentials.class, new HashMap<>() );
-            }
+            Map<String, IdentifiableObject> identifierMap = map.computeIfAbsent( UserCredentials.class,
+                k -> new ConcurrentHashMap<>() );
 
             User user = (User) object;
 
-            Map<String, IdentifiableObject> identifierMap = map.get( UserCredentials.class );
-
-            if ( !StringUtils.isEmpty( identifier.getIdentifier( user ) ) &&
-                !identifierMap.containsKey( identifier.getIdentifier( user ) ) )
+            if ( !StringUtils.isEmpty( identifier.getIdentifier( user ) ) && user.getUserCredentials() != null )
             {
-                identifierMap.put( identifier.getIdentifier( user ), user.getUserCredentials() );
+                identifierMap.putIfAbsent( identifier.getIdentifier( user ), user.getUserCredentials() );
             }
         }
 
-        PreheatUtils.resolveKey( identifier, object ).ifPresent( k -> map.get( klass ).put( k, object ) );
+        PreheatUtils.resolveKey( identifier, object ).ifPresent( k -> classMap.put( k, object ) );
 
         return this;
     }
@@ -27,58 +27,81 @@
  */
 package org.hisp.dhis.tracker.preheat.cache;
 
-import java.util.ArrayList;
-import java.util.HashMap;
+import static org.hisp.dhis.commons.util.SystemUtils.isTestRun;
+
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.TimeUnit;
-
-import lombok.RequiredArgsConstructor;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
-import org.cache2k.Cache;
-import org.cache2k.Cache2kBuilder;
 import org.hisp.dhis.common.IdentifiableObject;
 import org.hisp.dhis.common.event.ApplicationCacheClearedEvent;
+import org.hisp.dhis.external.conf.ConfigurationKey;
 import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.hisp.dhis.tracker.TrackerIdScheme;
 import org.springframework.context.event.EventListener;
 import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Service;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
 /**
  * Pre-heat cache implementation for metadata objects.
  *
+ * The cache only holds objects detached from the session they were loaded in
+ * (see the pre-heat mappers) and shares them between concurrent imports, so
+ * cached objects must not be modified.
+ *
  * @author Luciano Fiandesio
  */
-@RequiredArgsConstructor
 @Service
 public class DefaultPreheatCacheService implements PreheatCacheService
 {
+    private static final String METRIC_PREFIX = "tracker.preheat.cache.";
+
     private final DhisConfigurationProvider config;
 
     private final Environment environment;
 
+    private final MeterRegistry meterRegistry;
+
     /**
      * Data structure to hold the metadata cache:
      *
-     * - the key is the full class name of the metadata class getting cached
-     * (e.g. "org.hisp.dhis.program.Program")
+     * - the key is the class name of the metadata class getting cached (e.g.
+     * "org.hisp.dhis.program.Program")
      *
-     * - the value is a Cache2K cache holding the objects to cache
+     * - the value is the region holding the objects to cache
      *
      * Caveat: this data structure may reference multiple times the same
      * objects, if different {@link TrackerIdScheme} are used during different
      * imports.
      */
-    private static Map<String, Cache<String, IdentifiableObject>> cache = new HashMap<>();
+    private final ConcurrentMap<String, PreheatCacheRegion> cache = new ConcurrentHashMap<>();
+
+    public DefaultPreheatCacheService( DhisConfigurationProvider config, Environment environment,
+        MeterRegistry meterRegistry )
+    {
+        this.config = config;
+        this.environment = environment;
+        this.meterRegistry = meterRegistry;
+
+        Gauge.builder( METRIC_PREFIX + "size", this, DefaultPreheatCacheService::size )
+            .description( "Number of metadata objects in the tracker preheat cache" )
+            .register( meterRegistry );
+    }
 
     @Override
     public Optional<IdentifiableObject> get( final String cacheKey, final String id )
     {
-        if ( isCacheEnabled() && cache.containsKey( cacheKey ) )
+        PreheatCacheRegion region = cache.get( cacheKey );
+
+        if ( isCacheEnabled() && region != null )
         {
-            return Optional.ofNullable( cache.get( cacheKey ).get( id ) );
+            return Optional.ofNullable( region.get( id ) );
         }
 
         return Optional.empty();
@@ -87,54 +110,52 @@ public class DefaultPreheatCacheService implements PreheatCacheService
     @Override
     public boolean hasKey( String cacheKey )
     {
-        return cache.containsKey( cacheKey );
+        PreheatCacheRegion region = cache.get( cacheKey );
+
+        return isCacheEnabled() && region != null && region.hasAll();
     }
 
+    @Override
     public List<IdentifiableObject> getAll( String cacheKey )
     {
-        List<IdentifiableObject> res = new ArrayList<>();
-        if ( hasKey( cacheKey ) )
-        {
-            cache.get( cacheKey ).keys().forEach( k -> {
-                res.add( cache.get( cacheKey ).get( k ) );
-            } );
-        }
-        return res;
+        PreheatCacheRegion region = cache.get( cacheKey );
 
+        return region == null ? Collections.emptyList() : region.getAll();
     }
 
     @Override
     public void put( final String cacheKey, final String id, IdentifiableObject object,
         final int cacheTTL, final long capacity )
     {
-        if ( cacheKey == null || id == null || object == null )
+        if ( cacheKey == null || id == null || object == null || !isCacheEnabled() )
+        {
             return;
+        }
+
+        PreheatCacheRegion region = cache.computeIfAbsent( cacheKey,
+            key -> createRegion( key, cacheTTL, capacity ) );
 
-        if ( isCacheEnabled() )
+        if ( region.contains( id ) || size() < getMaxEntries() )
         {
-            if ( cache.containsKey( cacheKey ) )
-            {
-                cache.get( cacheKey ).put( id, object );
-            }
-            else
-            {
-                Cache<String, IdentifiableObject> c = new Cache2kBuilder<String, IdentifiableObject>()
-                {
-                }
-                    .expireAfterWrite( cacheTTL, TimeUnit.MINUTES )
-                    .name( cacheKey )
-                    .permitNullValues( false )
-                    .entryCapacity( capacity == -1 ? Long.MAX_VALUE : capacity )
-                    .resilienceDuration( 30, TimeUnit.SECONDS ) // cope with at
-                                                                // most 30
-                                                                // seconds
-                    // outage before propagating exceptions
-                    .build();
-
-                c.put( id, object );
-
-                cache.put( cacheKey, c );
-            }
+            region.put( id, object );
+        }
+    }
+
+    @Override
+    public void putAll( String cacheKey, Map<String, ? extends IdentifiableObject> objects, int cacheTTL,
+        long capacity )
+    {
+        if ( cacheKey == null || objects.isEmpty() || !isCacheEnabled() )
+        {
+            return;
+        }
+
+        PreheatCacheRegion region = cache.computeIfAbsent( cacheKey,
+            key -> createRegion( key, cacheTTL, capacity ) );
+
+        if ( size() + objects.size() <= getMaxEntries() )
+        {
+            region.putAll( objects );
         }
     }
 
@@ -148,18 +169,39 @@ public class DefaultPreheatCacheService implements PreheatCacheService
     @Override
     public void invalidateCache()
     {
-        cache.values().forEach( Cache::removeAll );
+        cache.values().forEach( PreheatCacheRegion::clear );
+    }
+
+    private PreheatCacheRegion createRegion( String cacheKey, int cacheTTL, long capacity )
+    {
+        long maxEntries = getMaxEntries();
+
+        PreheatCacheRegion region = new PreheatCacheRegion( cacheTTL,
+            capacity == -1 ? maxEntries : Math.min( capacity, maxEntries ),
+            meterRegistry.counter( METRIC_PREFIX + "gets", "type", cacheKey, "result", "hit" ),
+            meterRegistry.counter( METRIC_PREFIX + "gets", "type", cacheKey, "result", "miss" ) );
+
+        Gauge.builder( METRIC_PREFIX + "entries", region, PreheatCacheRegion::size )
+            .tag( "type", cacheKey )
+            .description( "Number of metadata objects of a type in the tracker preheat cache" )
+            .register( meterRegistry );
+
+        return region;
+    }
+
+    private int size()
+    {
+        return cache.values().stream().mapToInt( PreheatCacheRegion::size ).sum();
+    }
+
+    private int getMaxEntries()
+    {
+        return Integer.parseInt( config.getProperty( ConfigurationKey.TRACKER_IMPORT_PREHEAT_CACHE_MAX_ENTRIES ) );
     }
 
     private boolean isCacheEnabled()
     {
-        return false;
-
-        // Due to concerns and issues with the current cache implementation, we
-        // decided to
-        // deactivate the cache in the preheat completely for now.
-        // return !isTestRun( this.environment.getActiveProfiles() )
-        // && config.isEnabled(
-        // ConfigurationKey.TRACKER_IMPORT_PREHEAT_CACHE_ENABLED );
+        return !isTestRun( environment.getActiveProfiles() )
+            && config.isEnabled( ConfigurationKey.TRACKER_IMPORT_PREHEAT_CACHE_ENABLED );
     }
 }
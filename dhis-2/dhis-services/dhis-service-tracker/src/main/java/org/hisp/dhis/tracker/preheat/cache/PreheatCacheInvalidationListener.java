@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.tracker.preheat.cache;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceUnit;
+
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.internal.SessionFactoryImpl;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hisp.dhis.dataelement.DataElement;
+import org.hisp.dhis.option.Option;
+import org.hisp.dhis.option.OptionSet;
+import org.hisp.dhis.program.ProgramStageDataElement;
+import org.hisp.dhis.program.ProgramTrackedEntityAttribute;
+import org.hisp.dhis.trackedentity.TrackedEntityAttribute;
+import org.hisp.dhis.tracker.preheat.supplier.strategy.ClassBasedSupplierStrategy;
+import org.hisp.dhis.tracker.preheat.supplier.strategy.StrategyFor;
+import org.hisp.dhis.user.User;
+import org.hisp.dhis.user.UserCredentials;
+import org.hisp.dhis.user.UserGroup;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.stereotype.Component;
+
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Invalidates the tracker pre-heat cache once a transaction creating, updating
+ * or deleting an object of a cached type is committed. The cached types are
+ * the ones of the {@link StrategyFor} strategies with caching enabled, and the
+ * types reachable from cached objects, such as the attributes and data
+ * elements of cached programs and the users and user groups they are shared
+ * with. Cached objects reference each other, so the whole cache is invalidated
+ * rather than the type of the changed object.
+ */
+@Component
+public class PreheatCacheInvalidationListener
+    implements PostCommitInsertEventListener, PostCommitUpdateEventListener, PostCommitDeleteEventListener
+{
+    /**
+     * Types which are not cached themselves but are reachable from cached
+     * objects, and whose changes are therefore visible in the cache.
+     */
+    private static final Set<Class<?>> REFERENCED_CLASSES = ImmutableSet.of(
+        TrackedEntityAttribute.class,
+        DataElement.class,
+        OptionSet.class,
+        Option.class,
+        ProgramTrackedEntityAttribute.class,
+        ProgramStageDataElement.class,
+        User.class,
+        UserCredentials.class,
+        UserGroup.class );
+
+    @PersistenceUnit
+    private EntityManagerFactory emf;
+
+    private final PreheatCacheService preheatCacheService;
+
+    private final Set<Class<?>> cachedClasses;
+
+    public PreheatCacheInvalidationListener( PreheatCacheService preheatCacheService,
+        List<ClassBasedSupplierStrategy> strategies )
+    {
+        this.preheatCacheService = preheatCacheService;
+        this.cachedClasses = Stream.concat( strategies.stream()
+            .map( strategy -> AnnotationUtils.findAnnotation( strategy.getClass(), StrategyFor.class ) )
+            .filter( strategyFor -> strategyFor != null && strategyFor.cache() )
+            .map( StrategyFor::value ), REFERENCED_CLASSES.stream() )
+            .collect( Collectors.toSet() );
+    }
+
+    @PostConstruct
+    protected void init()
+    {
+        SessionFactoryImpl sessionFactory = emf.unwrap( SessionFactoryImpl.class );
+
+        EventListenerRegistry registry = sessionFactory.getServiceRegistry().getService( EventListenerRegistry.class );
+
+        registry.getEventListenerGroup( EventType.POST_COMMIT_INSERT ).appendListener( this );
+
+        registry.getEventListenerGroup( EventType.POST_COMMIT_UPDATE ).appendListener( this );
+
+        registry.getEventListenerGroup( EventType.POST_COMMIT_DELETE ).appendListener( this );
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding( EntityPersister persister )
+    {
+        return true;
+    }
+
+    @Override
+    public void onPostInsert( PostInsertEvent event )
+    {
+        invalidateIfCached( event.getEntity() );
+    }
+
+    @Override
+    public void onPostUpdate( PostUpdateEvent event )
+    {
+        invalidateIfCached( event.getEntity() );
+    }
+
+    @Override
+    public void onPostDelete( PostDeleteEvent event )
+    {
+        invalidateIfCached( event.getEntity() );
+    }
+
+    @Override
+    public void onPostInsertCommitFailed( PostInsertEvent event )
+    {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed( PostUpdateEvent event )
+    {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed( PostDeleteEvent event )
+    {
+    }
+
+    private void invalidateIfCached( Object entity )
+    {
+        if ( isCached( entity ) )
+        {
+            preheatCacheService.invalidateCache();
+        }
+    }
+
+    private boolean isCached( Object entity )
+    {
+        return entity != null && cachedClasses.stream().anyMatch( klass -> klass.isInstance( entity ) );
+    }
+}
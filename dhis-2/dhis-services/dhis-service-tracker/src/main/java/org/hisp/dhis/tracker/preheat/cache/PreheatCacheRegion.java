@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.tracker.preheat.cache;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.cache2k.Cache;
+import org.cache2k.Cache2kBuilder;
+import org.cache2k.event.CacheEntryEvictedListener;
+import org.cache2k.event.CacheEntryExpiredListener;
+import org.hisp.dhis.common.IdentifiableObject;
+
+import io.micrometer.core.instrument.Counter;
+
+/**
+ * The pre-heat cache of a single metadata class.
+ *
+ * Objects added with {@link #putAll(Map)} are also kept as an immutable list,
+ * returned by {@link #getAll()} without copying. The list is dropped as soon
+ * as one of its objects is evicted or expires, or the region is cleared, so
+ * {@link #getAll()} never returns a partial list of the objects of the class.
+ */
+class PreheatCacheRegion
+{
+    private final Cache<String, IdentifiableObject> cache;
+
+    private final Counter hits;
+
+    private final Counter misses;
+
+    /**
+     * Incremented whenever objects leave the region.
+     */
+    private final AtomicLong removals = new AtomicLong();
+
+    private volatile List<IdentifiableObject> all;
+
+    PreheatCacheRegion( int cacheTTL, long capacity, Counter hits, Counter misses )
+    {
+        this.hits = hits;
+        this.misses = misses;
+        this.cache = new Cache2kBuilder<String, IdentifiableObject>()
+        {
+        }
+            .expireAfterWrite( cacheTTL, TimeUnit.MINUTES )
+            .permitNullValues( false )
+            .entryCapacity( capacity )
+            .addListener( (CacheEntryEvictedListener<String, IdentifiableObject>) ( c, e ) -> dropAll() )
+            .addListener( (CacheEntryExpiredListener<String, IdentifiableObject>) ( c, e ) -> dropAll() )
+            .build();
+    }
+
+    IdentifiableObject get( String id )
+    {
+        return count( cache.peek( id ) );
+    }
+
+    boolean hasAll()
+    {
+        return count( all ) != null;
+    }
+
+    List<IdentifiableObject> getAll()
+    {
+        List<IdentifiableObject> objects = all;
+
+        return objects == null ? Collections.emptyList() : objects;
+    }
+
+    boolean contains( String id )
+    {
+        return cache.containsKey( id );
+    }
+
+    void put( String id, IdentifiableObject object )
+    {
+        cache.put( id, object );
+    }
+
+    void putAll( Map<String, ? extends IdentifiableObject> objects )
+    {
+        long removed = removals.get();
+
+        cache.putAll( objects );
+
+        List<IdentifiableObject> objectList = Collections.unmodifiableList( objects.values().stream()
+            .distinct()
+            .collect( Collectors.toList() ) );
+
+        if ( removals.get() == removed )
+        {
+            all = objectList;
+        }
+    }
+
+    int size()
+    {
+        return cache.asMap().size();
+    }
+
+    void clear()
+    {
+        dropAll();
+        cache.clear();
+    }
+
+    private void dropAll()
+    {
+        removals.incrementAndGet();
+        all = null;
+    }
+
+    private <T> T count( T value )
+    {
+        if ( value == null )
+        {
+            misses.increment();
+        }
+        else
+        {
+            hits.increment();
+        }
+
+        return value;
+    }
+}
@@ -28,6 +28,7 @@
 package org.hisp.dhis.tracker.preheat.cache;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.hisp.dhis.common.IdentifiableObject;
@@ -50,7 +51,8 @@ public interface PreheatCacheService
     Optional<IdentifiableObject> get( String cacheKey, String id );
 
     /**
-     * Check whether a class type is part of the cache
+     * Check whether all the objects of a class type are in the cache, see
+     * {@link #putAll(String, Map, int, long)}
      *
      * @param cacheKey the full class name of a metadata object
      *
@@ -58,7 +60,9 @@ public interface PreheatCacheService
     boolean hasKey( String cacheKey );
 
     /**
-     * Fetch all the cached entries for the given class type key
+     * Fetch all the cached entries for the given class type key. The returned
+     * list is immutable and shared, it is empty unless all the objects of the
+     * class type are in the cache.
      *
      * @param cacheKey the full class name of a metadata object
      *
@@ -76,6 +80,17 @@ public interface PreheatCacheService
      */
     void put( String cacheKey, String id, IdentifiableObject object, int cacheTTL, long capacity );
 
+    /**
+     * Adds all the objects of a class type to the pre-heat cache, so they can
+     * be fetched with {@link #getAll(String)}.
+     *
+     * @param cacheKey the full class name of the objects being cached
+     * @param objects the objects being cached, by identifier
+     * @param cacheTTL The amount of **minutes**
+     * @param capacity The maximum number of entries hold by the cache.
+     */
+    void putAll( String cacheKey, Map<String, ? extends IdentifiableObject> objects, int cacheTTL, long capacity );
+
     /**
      * Invalidates all caches.
      */
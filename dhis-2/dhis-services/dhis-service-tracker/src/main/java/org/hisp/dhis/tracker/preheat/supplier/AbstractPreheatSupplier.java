@@ -27,7 +27,9 @@
  */
 package org.hisp.dhis.tracker.preheat.supplier;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 import lombok.extern.slf4j.Slf4j;
@@ -87,16 +89,25 @@ public abstract class AbstractPreheatSupplier implements PreheatSupplier
         preheat.put( TrackerIdentifier.UID, relationshipTypes );
     }
 
+    /**
+     * Adds all the objects of a class to the cache, by UID.
+     */
     protected void addToCache( PreheatCacheService cache, List<? extends IdentifiableObject> objects, int ttl,
         long capacity )
     {
-        objects.forEach(
-            rt -> cache.put( HibernateProxyUtils.getRealClass( rt ).getName(), rt.getUid(), rt, ttl, capacity ) );
+        if ( objects.isEmpty() )
+        {
+            return;
+        }
+
+        Map<String, IdentifiableObject> objectsByUid = new LinkedHashMap<>();
+        objects.forEach( o -> objectsByUid.putIfAbsent( o.getUid(), o ) );
+
+        cache.putAll( HibernateProxyUtils.getRealClass( objects.get( 0 ) ).getName(), objectsByUid, ttl, capacity );
     }
 
     protected void addToCache( PreheatCacheService cache, List<? extends IdentifiableObject> objects )
     {
-        objects.forEach( rt -> cache.put( HibernateProxyUtils.getRealClass( rt ).getName(), rt.getUid(), rt, CACHE_TTL,
-            CACHE_CAPACITY ) );
+        addToCache( cache, objects, CACHE_TTL, CACHE_CAPACITY );
     }
 }
@@ -33,6 +33,9 @@ import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 
 /**
  * Allows a {@link PreheatSupplier} to access the database using JDBC.
+ * Suppliers of this type only use the read-only JDBC template and not the
+ * Hibernate session of the import, hence they can run concurrently with other
+ * suppliers.
  *
  * @author Luciano Fiandesio
  */
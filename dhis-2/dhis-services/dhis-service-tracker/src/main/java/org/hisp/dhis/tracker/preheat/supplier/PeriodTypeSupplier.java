@@ -59,7 +59,7 @@ public class PeriodTypeSupplier extends AbstractPreheatSupplier
     {
         if ( cache.hasKey( Period.class.getName() ) )
         {
-            addToPreheat( preheat, cache.getAll( Period.class.getName() ) );
+            _addToPreheat( preheat, cache.getAll( Period.class.getName() ) );
         }
         else
         {
@@ -27,18 +27,12 @@
  */
 package org.hisp.dhis.tracker.preheat.supplier;
 
-import static java.util.stream.Collectors.groupingBy;
-import static java.util.stream.Collectors.mapping;
 import static java.util.stream.Collectors.toList;
-import static java.util.stream.Collectors.toMap;
+import static java.util.stream.Collectors.toSet;
 
-import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
-import java.util.Objects;
-import java.util.Optional;
-import java.util.TreeMap;
-import java.util.function.Function;
+import java.util.Set;
 import java.util.stream.Stream;
 
 import lombok.NonNull;
@@ -46,23 +40,17 @@ import lombok.RequiredArgsConstructor;
 
 import org.hisp.dhis.trackedentity.TrackedEntityAttribute;
 import org.hisp.dhis.trackedentity.TrackedEntityAttributeService;
-import org.hisp.dhis.trackedentity.TrackedEntityInstance;
-import org.hisp.dhis.trackedentityattributevalue.TrackedEntityAttributeValue;
-import org.hisp.dhis.trackedentityattributevalue.TrackedEntityAttributeValueService;
-import org.hisp.dhis.tracker.TrackerIdScheme;
 import org.hisp.dhis.tracker.TrackerImportParams;
-import org.hisp.dhis.tracker.domain.Attribute;
-import org.hisp.dhis.tracker.domain.TrackedEntity;
 import org.hisp.dhis.tracker.preheat.TrackerPreheat;
 import org.hisp.dhis.tracker.preheat.UniqueAttributeValue;
+import org.hisp.dhis.tracker.validation.service.attribute.TrackedAttributeUniquenessService;
 import org.springframework.stereotype.Component;
 
-import com.google.common.collect.Lists;
-
 /**
  * This supplier will populate a list of {@link UniqueAttributeValue}s that
  * contains all the attribute values that are unique and which value is either
- * already present in the DB or duplicated in the payload
+ * already present in the DB, duplicated in the payload or reserved by a
+ * concurrent import
  *
  * @author Luciano Fiandesio
  */
@@ -74,183 +62,41 @@ public class UniqueAttributesSupplier extends AbstractPreheatSupplier
     private final TrackedEntityAttributeService trackedEntityAttributeService;
 
     @NonNull
-    private final TrackedEntityAttributeValueService trackedEntityAttributeValueService;
+    private final TrackedAttributeUniquenessService uniquenessService;
 
     @Override
     public void preheatAdd( TrackerImportParams params, TrackerPreheat preheat )
     {
-        List<TrackedEntityAttribute> uniqueTrackedEntityAttributes = trackedEntityAttributeService
-            .getAllUniqueTrackedEntityAttributes();
-
-        Map<TrackedEntity, List<Attribute>> allUniqueAttributesByTrackedEntity = getAllAttributesByTrackedEntity(
-            params, preheat, uniqueTrackedEntityAttributes );
-
-        List<UniqueAttributeValue> uniqueAttributeValuesFromPayload = getDuplicatedUniqueValuesInPayload(
-            allUniqueAttributesByTrackedEntity );
-
-        List<UniqueAttributeValue> uniqueAttributeValuesFromDB = getAlreadyPresentInDbUniqueValues(
-            allUniqueAttributesByTrackedEntity, uniqueTrackedEntityAttributes );
-
-        List<UniqueAttributeValue> uniqueAttributeValues = Stream
-            .concat( uniqueAttributeValuesFromPayload.stream(), uniqueAttributeValuesFromDB.stream() )
-            .distinct()
-            .collect( toList() );
-
-        preheat.setUniqueAttributeValues( uniqueAttributeValues );
-    }
-
-    private Map<TrackedEntity, List<Attribute>> getAllAttributesByTrackedEntity( TrackerImportParams params,
-        TrackerPreheat preheat, List<TrackedEntityAttribute> uniqueTrackedEntityAttributes )
-    {
-        Map<TrackedEntity, List<Attribute>> teiUniqueAttributes = params.getTrackedEntities()
+        Set<String> uniqueTrackedEntityAttributes = trackedEntityAttributeService
+            .getAllUniqueTrackedEntityAttributes()
             .stream()
-            .collect( toMap( Function.identity(),
-                tei -> filterUniqueAttributes( tei.getAttributes(), uniqueTrackedEntityAttributes ) ) );
-
-        Map<TrackedEntity, List<Attribute>> enrollmentUniqueAttributes = params.getEnrollments()
-            .stream()
-            .collect( groupingBy( e -> getEntityForEnrollment( params, preheat, e.getTrackedEntity() ) ) )
-            .entrySet()
-            .stream()
-            .collect( toMap( Map.Entry::getKey, e -> e.getValue().stream().flatMap(
-                en -> filterUniqueAttributes(
-                    en.getAttributes(), uniqueTrackedEntityAttributes ).stream() )
-                .collect( toList() ) ) );
-
-        return mergeAttributes( teiUniqueAttributes, enrollmentUniqueAttributes );
-    }
-
-    private TrackedEntity getEntityForEnrollment( TrackerImportParams params, TrackerPreheat preheat, String teiUid )
-    {
-        TrackedEntityInstance trackedEntity = preheat.getTrackedEntity( TrackerIdScheme.UID, teiUid );
-
-        // Get tei from Preheat
-        Optional<TrackedEntity> optionalTei = params.getTrackedEntities()
-            .stream()
-            .filter( tei -> Objects.equals( tei.getTrackedEntity(), teiUid ) )
-            .findAny();
-        if ( optionalTei.isPresent() )
-        {
-            return optionalTei.get();
-        }
-        else if ( trackedEntity != null ) // Otherwise build it from Payload
-        {
-            TrackedEntity tei = new TrackedEntity();
-            tei.setTrackedEntity( teiUid );
-            tei.setOrgUnit( trackedEntity.getOrganisationUnit().getUid() );
-            return tei;
-        }
-        else // TEI is not present. but we do not fail here.
-             // A validation error will be thrown in validation phase
-        {
-            TrackedEntity tei = new TrackedEntity();
-            tei.setTrackedEntity( teiUid );
-            return tei;
-        }
-    }
-
-    private Map<TrackedEntity, List<Attribute>> mergeAttributes( Map<TrackedEntity, List<Attribute>> teiAttributes,
-        Map<TrackedEntity, List<Attribute>> enrollmentAttributes )
-    {
-        return Stream.concat( teiAttributes.entrySet().stream(),
-            enrollmentAttributes.entrySet().stream() )
-            .collect( toMap(
-                Map.Entry::getKey,
-                Map.Entry::getValue,
-                ( v1, v2 ) -> {
-                    List<Attribute> attributes = Lists.newArrayList( v1 );
-                    attributes.addAll( v2 );
-                    return attributes;
-                } ) );
-    }
+            .map( TrackedEntityAttribute::getUid )
+            .collect( toSet() );
 
-    private List<UniqueAttributeValue> getDuplicatedUniqueValuesInPayload(
-        Map<TrackedEntity, List<Attribute>> allAttributes )
-    {
+        List<UniqueAttributeValue> uniqueAttributeValuesInPayload = uniquenessService.getPayloadValues(
+            params.getTrackedEntities(), params.getEnrollments(), preheat, uniqueTrackedEntityAttributes );
 
-        // TEIs grouped by attribute and value.
-        // Two attributes with the same value and uid are considered equals
-        TreeMap<Attribute, List<TrackedEntity>> teiByAttributeValue = new TreeMap<>( ( o1, o2 ) -> {
-            if ( Objects.equals( o1.getValue(), o2.getValue() )
-                && Objects.equals( o1.getAttribute(), o2.getAttribute() ) )
-            {
-                return 0;
-            }
-            return 1;
-        } );
+        List<UniqueAttributeValue> uniqueAttributeValuesFromPayload = uniquenessService
+            .getDuplicatedValues( uniqueAttributeValuesInPayload );
 
-        for ( Map.Entry<TrackedEntity, List<Attribute>> entry : allAttributes.entrySet() )
-        {
-            for ( Attribute attribute : entry.getValue() )
-            {
-                if ( !teiByAttributeValue.containsKey( attribute ) )
-                {
-                    teiByAttributeValue.put( attribute, Lists.newArrayList() );
-                }
-                teiByAttributeValue.get( attribute ).add( entry.getKey() );
-            }
-        }
+        // Reserve before querying the DB, so that a value stored by a
+        // concurrent import is either reserved or already persisted
+        TrackedAttributeUniquenessService.Reservation reservation = params.getUniqueAttributeReservation();
 
-        // If an attribute and value appear in 2 or more teis
-        // it means that is not unique
-        return teiByAttributeValue
-            .entrySet()
-            .stream()
-            .filter( e -> e.getValue().size() > 1 )
-            .flatMap( av -> buildUniqueAttributeValues( av.getKey(), av.getValue() ).stream() )
-            .collect( toList() );
-    }
+        List<UniqueAttributeValue> uniqueAttributeValuesFromReservations = reservation != null
+            ? uniquenessService.reserve( reservation, uniqueAttributeValuesInPayload )
+            : Collections.emptyList();
 
-    private Collection<UniqueAttributeValue> buildUniqueAttributeValues( Attribute attribute,
-        List<TrackedEntity> teis )
-    {
-        return teis.stream()
-            .map( tei -> new UniqueAttributeValue( tei.getUid(), attribute.getAttribute(), attribute.getValue(),
-                tei.getOrgUnit() ) )
-            .collect( toList() );
+        List<UniqueAttributeValue> uniqueAttributeValuesFromDB = uniquenessService
+            .getPersistedValues( uniqueAttributeValuesInPayload );
 
-    }
-
-    private List<UniqueAttributeValue> getAlreadyPresentInDbUniqueValues(
-        Map<TrackedEntity, List<Attribute>> allAttributesByTrackedEntity,
-        List<TrackedEntityAttribute> uniqueTrackedEntityAttributes )
-    {
-
-        Map<TrackedEntityAttribute, List<String>> uniqueValuesByAttribute = allAttributesByTrackedEntity
-            .values()
-            .stream()
-            .flatMap( Collection::stream )
+        List<UniqueAttributeValue> uniqueAttributeValues = Stream
+            .of( uniqueAttributeValuesFromPayload, uniqueAttributeValuesFromReservations,
+                uniqueAttributeValuesFromDB )
+            .flatMap( List::stream )
             .distinct()
-            .collect( groupingBy( a -> extractAttribute( a.getAttribute(), uniqueTrackedEntityAttributes ),
-                mapping( Attribute::getValue, toList() ) ) );
-
-        List<TrackedEntityAttributeValue> uniqueAttributeAlreadyPresentInDB = trackedEntityAttributeValueService
-            .getUniqueAttributeByValues( uniqueValuesByAttribute );
-
-        return uniqueAttributeAlreadyPresentInDB
-            .stream()
-            .map( av -> new UniqueAttributeValue( av.getEntityInstance().getUid(), av.getAttribute().getUid(),
-                av.getValue(), av.getEntityInstance().getOrganisationUnit().getUid() ) )
             .collect( toList() );
-    }
-
-    private TrackedEntityAttribute extractAttribute( String attribute,
-        List<TrackedEntityAttribute> uniqueTrackedEntityAttributes )
-    {
-        return uniqueTrackedEntityAttributes
-            .stream()
-            .filter( a -> a.getUid().equals( attribute ) )
-            .findAny()
-            .orElse( null );
-    }
 
-    private List<Attribute> filterUniqueAttributes( List<Attribute> attributes,
-        List<TrackedEntityAttribute> uniqueTrackedEntityAttributes )
-    {
-        return attributes.stream()
-            .filter( tea -> uniqueTrackedEntityAttributes.stream().anyMatch(
-                uniqueAttr -> uniqueAttr.getUid().equals( tea.getAttribute() ) ) )
-            .distinct()
-            .collect( toList() );
+        preheat.setUniqueAttributeValues( uniqueAttributeValues );
     }
 }
@@ -31,6 +31,7 @@ import static org.hisp.dhis.tracker.TrackerIdentifierCollector.ID_WILDCARD;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -39,7 +40,6 @@ import org.hisp.dhis.attribute.Attribute;
 import org.hisp.dhis.common.IdentifiableObject;
 import org.hisp.dhis.common.IdentifiableObjectManager;
 import org.hisp.dhis.fieldfilter.Defaults;
-import org.hisp.dhis.hibernate.HibernateProxyUtils;
 import org.hisp.dhis.query.Query;
 import org.hisp.dhis.query.QueryService;
 import org.hisp.dhis.query.Restriction;
@@ -65,6 +65,8 @@ import org.mapstruct.factory.Mappers;
  */
 public abstract class AbstractSchemaStrategy implements ClassBasedSupplierStrategy
 {
+    private static final String SYSTEM_USER_KEY = "system";
+
     protected final SchemaService schemaService;
 
     private final QueryService queryService;
@@ -127,6 +129,16 @@ public abstract class AbstractSchemaStrategy implements ClassBasedSupplierStrate
         return schema.getKlass().getSimpleName();
     }
 
+    /**
+     * Returns the key of an object fetched by identifier. Such objects are
+     * fetched with the sharing restrictions of the importing user, so they are
+     * cached per user.
+     */
+    private String buildObjectCacheKey( User user, String id )
+    {
+        return (user != null ? user.getUid() : SYSTEM_USER_KEY) + ":" + id;
+    }
+
     @SuppressWarnings( { "unchecked", "rawtypes" } )
     private List<IdentifiableObject> cacheAwareFetch( User user, Schema schema, TrackerIdentifier identifier,
         List<String> ids, Class<? extends PreheatMapper> mapper )
@@ -140,7 +152,7 @@ public abstract class AbstractSchemaStrategy implements ClassBasedSupplierStrate
         {
             if ( isLoadAllEntities( ids ) )
             {
-                return map( cacheAndReturnLookupData( schema ), mapper );
+                return cacheAndReturnLookupData( schema, mapper );
             }
             else
             {
@@ -148,7 +160,7 @@ public abstract class AbstractSchemaStrategy implements ClassBasedSupplierStrate
                 for ( String id : ids )
                 {
                     // is the object reference by the given id in cache?
-                    cache.get( cacheKey, id )
+                    cache.get( cacheKey, buildObjectCacheKey( user, id ) )
                         .ifPresent( identifiableObject -> foundInCache.put( id, identifiableObject ) );
                 }
 
@@ -164,11 +176,13 @@ public abstract class AbstractSchemaStrategy implements ClassBasedSupplierStrate
                         (List<IdentifiableObject>) queryService.query( buildQuery( schema, user, idScheme, ids ) ),
                         mapper );
 
-                    // put objects in query based on given scheme. If the key
-                    // can't get resolved, send null to the
+                    // put objects in query based on given scheme and user. If
+                    // the key can't get resolved, send null to the
                     // cacheService, which will ignore the entry
                     objects.forEach( o -> cache.put( cacheKey,
-                        PreheatUtils.resolveKey( identifier, o ).orElseGet( null ), o, getCacheTTL(), getCapacity() ) );
+                        PreheatUtils.resolveKey( identifier, o ).map( id -> buildObjectCacheKey( user, id ) )
+                            .orElse( null ),
+                        o, getCacheTTL(), getCapacity() ) );
 
                     // add back the cached objects to the final list
                     objects.addAll( foundInCache.values() );
@@ -231,23 +245,30 @@ public abstract class AbstractSchemaStrategy implements ClassBasedSupplierStrate
         }
     }
 
-    @SuppressWarnings( "unchecked" )
-    private List<IdentifiableObject> cacheAndReturnLookupData( Schema schema )
+    /**
+     * Returns all the objects of the schema, from the cache if they are all
+     * cached. Otherwise the objects are loaded and mapped, and the mapped
+     * copies are cached so they can be shared between imports.
+     */
+    @SuppressWarnings( { "unchecked", "rawtypes" } )
+    private List<IdentifiableObject> cacheAndReturnLookupData( Schema schema,
+        Class<? extends PreheatMapper> mapper )
     {
-        List<IdentifiableObject> objects;
-        if ( cache.hasKey( buildCacheKey( schema ) ) && !cache.getAll( buildCacheKey( schema ) ).isEmpty() )
-        {
-            objects = new ArrayList<>( cache.getAll( buildCacheKey( schema ) ) );
+        final String cacheKey = buildCacheKey( schema );
 
-        }
-        else
+        if ( cache.hasKey( cacheKey ) )
         {
-            objects = manager.getAll( (Class<IdentifiableObject>) schema.getKlass() );
-
-            objects.forEach( rt -> cache.put( HibernateProxyUtils.getRealClass( rt ).getSimpleName(),
-                rt.getUid(), rt, getCacheTTL(), getCapacity() ) );
+            return cache.getAll( cacheKey );
         }
 
+        List<IdentifiableObject> objects = map( manager.getAll( (Class<IdentifiableObject>) schema.getKlass() ),
+            mapper );
+
+        Map<String, IdentifiableObject> objectsByUid = new LinkedHashMap<>();
+        objects.forEach( o -> objectsByUid.putIfAbsent( o.getUid(), o ) );
+
+        cache.putAll( cacheKey, objectsByUid, getCacheTTL(), getCapacity() );
+
         return objects;
     }
 
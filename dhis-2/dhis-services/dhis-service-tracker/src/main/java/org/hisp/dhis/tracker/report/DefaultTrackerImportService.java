@@ -29,6 +29,7 @@ package org.hisp.dhis.tracker.report;
 
 import static org.hisp.dhis.tracker.report.TrackerTimingsStats.COMMIT_OPS;
 import static org.hisp.dhis.tracker.report.TrackerTimingsStats.PREHEAT_OPS;
+import static org.hisp.dhis.tracker.report.TrackerTimingsStats.PREHEAT_SUPPLIER_OPS_PREFIX;
 import static org.hisp.dhis.tracker.report.TrackerTimingsStats.PREPROCESS_OPS;
 import static org.hisp.dhis.tracker.report.TrackerTimingsStats.PROGRAMRULE_OPS;
 import static org.hisp.dhis.tracker.report.TrackerTimingsStats.TOTAL_OPS;
@@ -61,6 +62,7 @@ import org.hisp.dhis.tracker.bundle.TrackerBundleService;
 import org.hisp.dhis.tracker.job.TrackerSideEffectDataBundle;
 import org.hisp.dhis.tracker.preprocess.TrackerPreprocessService;
 import org.hisp.dhis.tracker.validation.TrackerValidationService;
+import org.hisp.dhis.tracker.validation.service.attribute.TrackedAttributeUniquenessService;
 import org.springframework.stereotype.Service;
 
 import com.google.common.collect.ImmutableMap;
@@ -89,6 +91,9 @@ public class DefaultTrackerImportService
     @NonNull
     private final Notifier notifier;
 
+    @NonNull
+    private final TrackedAttributeUniquenessService uniquenessService;
+
     @Override
     public TrackerImportReport importTracker( TrackerImportParams params )
     {
@@ -102,8 +107,16 @@ public class DefaultTrackerImportService
 
         TrackerBundleReport bundleReport;
 
+        TrackedAttributeUniquenessService.Reservation reservation = null;
+
         try
         {
+            if ( !params.getImportStrategy().isDelete() )
+            {
+                reservation = uniquenessService.createReservation();
+                params.setUniqueAttributeReservation( reservation );
+            }
+
             TrackerBundle trackerBundle = preHeat( params, opsTimer );
 
             Map<TrackerType, Integer> bundleSize = calculatePayloadSize( trackerBundle );
@@ -139,6 +152,13 @@ public class DefaultTrackerImportService
 
             return report;
         }
+        finally
+        {
+            if ( reservation != null )
+            {
+                reservation.release();
+            }
+        }
     }
 
     private TrackerBundle preHeat( TrackerImportParams params, TrackerTimingsStats opsTimer )
@@ -146,6 +166,12 @@ public class DefaultTrackerImportService
         TrackerBundle trackerBundle = opsTimer.exec( PREHEAT_OPS,
             () -> preheatBundle( params ) );
 
+        if ( trackerBundle != null && trackerBundle.getPreheat() != null )
+        {
+            trackerBundle.getPreheat().getSupplierTimings()
+                .forEach( ( supplier, elapsed ) -> opsTimer.set( PREHEAT_SUPPLIER_OPS_PREFIX + supplier, elapsed ) );
+        }
+
         notifyOps( params, PREHEAT_OPS, opsTimer );
 
         return trackerBundle;
@@ -49,6 +49,8 @@ public class TrackerTimingsStats
 {
     public static final String PREHEAT_OPS = "preheat";
 
+    public static final String PREHEAT_SUPPLIER_OPS_PREFIX = PREHEAT_OPS + ".";
+
     public static final String PREPROCESS_OPS = "preprocess";
 
     public static final String COMMIT_OPS = "commit";
@@ -28,9 +28,12 @@
 package org.hisp.dhis.tracker.report;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import lombok.Data;
 
@@ -76,9 +79,11 @@ public class ValidationErrorReporter
 
     /*
      * A map that keep tracks of all the invalid Tracker objects encountered
-     * during the validation process
+     * during the validation process. The uids are kept in hash sets, as they
+     * are looked up for every validated object, and can be updated
+     * concurrently when validation hooks run in parallel.
      */
-    private Map<TrackerType, List<String>> invalidDTOs;
+    private Map<TrackerType, Set<String>> invalidDTOs;
 
     public static ValidationErrorReporter emptyReporter()
     {
@@ -91,7 +96,7 @@ public class ValidationErrorReporter
         this.reportList = new ArrayList<>();
         this.isFailFast = false;
         this.validationContext = null;
-        this.invalidDTOs = new HashMap<>();
+        this.invalidDTOs = new ConcurrentHashMap<>();
     }
 
     public ValidationErrorReporter( TrackerImportValidationContext context )
@@ -100,7 +105,7 @@ public class ValidationErrorReporter
         this.reportList = new ArrayList<>();
         this.warningsReportList = new ArrayList<>();
         this.isFailFast = validationContext.getBundle().getValidationMode() == ValidationMode.FAIL_FAST;
-        this.invalidDTOs = new HashMap<>();
+        this.invalidDTOs = new ConcurrentHashMap<>();
     }
 
     public ValidationErrorReporter( TrackerImportValidationContext context, TrackerDto dto, TrackerType trackerType )
@@ -191,20 +196,33 @@ public class ValidationErrorReporter
         // add the root invalid object to the map, if invalid
         if ( reporter.getReportList().size() > 0 )
         {
-            this.invalidDTOs.computeIfAbsent( reporter.dtoType, k -> new ArrayList<>() ).add( reporter.mainId );
+            addInvalid( reporter.dtoType, reporter.mainId );
 
             this.reportList.addAll( reporter.getReportList() );
         }
         this.warningsReportList.addAll( reporter.getWarningsReportList() );
     }
 
+    /**
+     * Marks the provided uid and Tracker Type as invalid. This method is
+     * thread-safe.
+     */
+    public void addInvalid( TrackerType trackerType, String uid )
+    {
+        if ( trackerType != null )
+        {
+            this.invalidDTOs.computeIfAbsent( trackerType, k -> Collections.synchronizedSet( new HashSet<>() ) )
+                .add( uid );
+        }
+    }
+
     /**
      * Checks if the provided uid and Tracker Type is part of the invalid
      * entities
      */
     public boolean isInvalid( TrackerType trackerType, String uid )
     {
-        return this.invalidDTOs.getOrDefault( trackerType, new ArrayList<>() ).contains( uid );
+        return this.invalidDTOs.getOrDefault( trackerType, Collections.emptySet() ).contains( uid );
     }
 
     public boolean isInvalid( TrackerDto dto )
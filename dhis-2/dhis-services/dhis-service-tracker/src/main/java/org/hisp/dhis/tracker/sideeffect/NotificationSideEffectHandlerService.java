@@ -56,6 +56,6 @@ public class NotificationSideEffectHandlerService implements SideEffectHandlerSe
     @Override
     public void handleSideEffects( List<TrackerSideEffectDataBundle> sideEffectDataBundles )
     {
-        sideEffectDataBundles.forEach( this::handleSideEffect );
+        notificationMessageManager.addJobs( sideEffectDataBundles );
     }
 }
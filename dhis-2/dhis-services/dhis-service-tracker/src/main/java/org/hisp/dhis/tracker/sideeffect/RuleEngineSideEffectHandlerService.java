@@ -56,6 +56,6 @@ public class RuleEngineSideEffectHandlerService implements SideEffectHandlerServ
     @Override
     public void handleSideEffects( List<TrackerSideEffectDataBundle> sideEffectDataBundles )
     {
-        sideEffectDataBundles.forEach( this::handleSideEffect );
+        ruleEngineMessageManager.addJobs( sideEffectDataBundles );
     }
 }
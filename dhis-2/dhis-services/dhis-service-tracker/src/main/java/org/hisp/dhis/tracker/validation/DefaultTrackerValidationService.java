@@ -29,12 +29,15 @@ package org.hisp.dhis.tracker.validation;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 import org.hisp.dhis.commons.timer.Timer;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.hisp.dhis.tracker.ValidationMode;
 import org.hisp.dhis.tracker.bundle.TrackerBundle;
 import org.hisp.dhis.tracker.report.TrackerValidationHookTimerReport;
@@ -42,6 +45,7 @@ import org.hisp.dhis.tracker.report.TrackerValidationReport;
 import org.hisp.dhis.tracker.report.ValidationErrorReporter;
 import org.hisp.dhis.user.User;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
 /**
@@ -53,12 +57,23 @@ import org.springframework.stereotype.Service;
 public class DefaultTrackerValidationService
     implements TrackerValidationService
 {
+    /**
+     * Number of bundle partitions per validation thread, so that threads
+     * finishing early can pick up remaining partitions
+     */
+    private static final int PARTITIONS_PER_THREAD = 4;
+
     private List<TrackerValidationHook> validationHooks = new ArrayList<>();
 
     private List<TrackerValidationHook> ruleEngineValidationHooks = new ArrayList<>();
 
     private final TrackerValidationHookService trackerValidationHookService;
 
+    private final DhisConfigurationProvider config;
+
+    @Qualifier( "trackerValidationExecutor" )
+    private final Executor validationExecutor;
+
     @Autowired( required = false )
     public void setValidationHooks( List<TrackerValidationHook> validationHooks )
     {
@@ -96,6 +111,17 @@ public class DefaultTrackerValidationService
         // is always available
         TrackerImportValidationContext context = new TrackerImportValidationContext( bundle );
 
+        // Fail fast validation stops at the first error, which must not depend
+        // on the scheduling of the partitions
+        int threads = ValidationMode.FAIL_FAST == bundle.getValidationMode() ? 0
+            : Integer.parseInt( config.getProperty( ConfigurationKey.TRACKER_IMPORT_VALIDATION_PARALLEL_THREADS ) );
+
+        if ( threads > 1 && hooks.stream().anyMatch( TrackerValidationHook::isParallelizable ) )
+        {
+            context.setExecutor( validationExecutor );
+            context.setMaxPartitions( threads * PARTITIONS_PER_THREAD );
+        }
+
         try
         {
             for ( TrackerValidationHook hook : hooks )
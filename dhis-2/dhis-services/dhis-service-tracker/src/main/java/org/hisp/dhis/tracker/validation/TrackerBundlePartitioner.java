@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.tracker.validation;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.hisp.dhis.tracker.bundle.TrackerBundle;
+import org.hisp.dhis.tracker.domain.Enrollment;
+import org.hisp.dhis.tracker.domain.Event;
+import org.hisp.dhis.tracker.domain.TrackedEntity;
+import org.hisp.dhis.tracker.domain.TrackerDto;
+
+/**
+ * Splits the tracked entities, enrollments and events of a
+ * {@link TrackerBundle} into partitions which can be validated independently
+ * of each other.
+ *
+ * A partition holds a tracked entity together with its enrollments and the
+ * events of these enrollments. Enrollments and events whose parent is not part
+ * of the bundle are grouped by the uid of the parent. Events without an
+ * enrollment form their own root. Within a partition, tracked entities come
+ * before enrollments and enrollments come before events, so that a validation
+ * hook sees its parent objects first, as it does during sequential validation.
+ *
+ * Relationships may span several partitions and are not partitioned.
+ */
+public final class TrackerBundlePartitioner
+{
+    private TrackerBundlePartitioner()
+    {
+        throw new UnsupportedOperationException( "util" );
+    }
+
+    /**
+     * Partitions the given bundle by independent roots and packs the roots
+     * into at most the given number of partitions of about the same size. The
+     * result only depends on the order of the objects in the bundle.
+     *
+     * @param bundle the {@link TrackerBundle}.
+     * @param maxPartitions the maximum number of partitions.
+     * @return a list of partitions.
+     */
+    public static List<List<TrackerDto>> partition( TrackerBundle bundle, int maxPartitions )
+    {
+        Map<String, List<TrackerDto>> roots = new LinkedHashMap<>();
+
+        Map<String, String> enrollmentRoots = new HashMap<>();
+
+        for ( TrackedEntity trackedEntity : bundle.getTrackedEntities() )
+        {
+            add( roots, trackedEntity.getTrackedEntity(), trackedEntity );
+        }
+
+        for ( Enrollment enrollment : bundle.getEnrollments() )
+        {
+            String root = enrollment.getTrackedEntity() != null ? enrollment.getTrackedEntity()
+                : enrollment.getEnrollment();
+
+            enrollmentRoots.put( enrollment.getEnrollment(), root );
+
+            add( roots, root, enrollment );
+        }
+
+        for ( Event event : bundle.getEvents() )
+        {
+            String root = event.getEnrollment() != null
+                ? enrollmentRoots.getOrDefault( event.getEnrollment(), event.getEnrollment() )
+                : event.getEvent();
+
+            add( roots, root, event );
+        }
+
+        return pack( roots.values(), maxPartitions );
+    }
+
+    private static void add( Map<String, List<TrackerDto>> roots, String root, TrackerDto dto )
+    {
+        roots.computeIfAbsent( root, k -> new ArrayList<>() ).add( dto );
+    }
+
+    /**
+     * Packs consecutive roots into partitions, so that each partition holds
+     * about the same number of objects. Objects of a root are never split
+     * across partitions.
+     */
+    private static List<List<TrackerDto>> pack( Collection<List<TrackerDto>> roots, int maxPartitions )
+    {
+        int total = roots.stream().mapToInt( List::size ).sum();
+
+        int partitionSize = Math.max( 1, (int) Math.ceil( (double) total / Math.max( 1, maxPartitions ) ) );
+
+        List<List<TrackerDto>> partitions = new ArrayList<>();
+
+        List<TrackerDto> partition = new ArrayList<>();
+
+        for ( List<TrackerDto> root : roots )
+        {
+            partition.addAll( root );
+
+            if ( partition.size() >= partitionSize )
+            {
+                partitions.add( partition );
+                partition = new ArrayList<>();
+            }
+        }
+
+        if ( !partition.isEmpty() )
+        {
+            partitions.add( partition );
+        }
+
+        return partitions;
+    }
+}
@@ -27,10 +27,12 @@
  */
 package org.hisp.dhis.tracker.validation;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.Executor;
 
 import lombok.Data;
 
@@ -67,12 +69,24 @@ import com.google.common.base.Preconditions;
 @Data
 public class TrackerImportValidationContext
 {
-    private Map<String, CategoryOptionCombo> eventCocCacheMap = new HashMap<>();
+    private Map<String, CategoryOptionCombo> eventCocCacheMap = Collections.synchronizedMap( new HashMap<>() );
 
-    private Map<String, String> cachedEventAOCProgramCC = new HashMap<>();
+    private Map<String, String> cachedEventAOCProgramCC = Collections.synchronizedMap( new HashMap<>() );
 
     private TrackerBundle bundle;
 
+    /**
+     * Executor used to run parallelizable validation hooks, or null if the
+     * validation runs sequentially
+     */
+    private Executor executor;
+
+    /**
+     * Maximum number of partitions the bundle is split into for parallelizable
+     * validation hooks, see {@link TrackerBundlePartitioner}
+     */
+    private int maxPartitions;
+
     /**
      * Holds the accumulated errors generated during the validation process
      */
@@ -97,10 +111,7 @@ public class TrackerImportValidationContext
 
         Preconditions.checkNotNull( categoryOptionCombo, "Event Category Option Combo can't be null or empty" );
 
-        if ( !eventCocCacheMap.containsKey( key ) )
-        {
-            eventCocCacheMap.put( key, categoryOptionCombo );
-        }
+        eventCocCacheMap.putIfAbsent( key, categoryOptionCombo );
     }
 
     public CategoryOptionCombo getCachedEventCategoryOptionCombo( String key )
@@ -40,6 +40,17 @@ public interface TrackerValidationHook extends Ordered
         return true;
     }
 
+    /**
+     * Indicates whether the hook can validate independent partitions of the
+     * bundle concurrently. Hooks which access services, the Hibernate session
+     * or lazy loaded associations of the preheated objects must not be
+     * parallelizable.
+     */
+    default boolean isParallelizable()
+    {
+        return false;
+    }
+
     ValidationErrorReporter validate( TrackerImportValidationContext bundle );
 
     void setOrder( int order );
@@ -34,18 +34,22 @@ import static org.hisp.dhis.tracker.report.ValidationErrorReporter.newWarningRep
 import static org.hisp.dhis.tracker.validation.hooks.TrackerImporterAssertErrors.DATE_STRING_CANT_BE_NULL;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.function.BiConsumer;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import org.hisp.dhis.common.ValueTypedDimensionalItemObject;
-import org.hisp.dhis.option.Option;
+import org.hisp.dhis.option.OptionSet;
+import org.hisp.dhis.option.OptionSetIndex;
 import org.hisp.dhis.tracker.TrackerImportStrategy;
 import org.hisp.dhis.tracker.TrackerType;
 import org.hisp.dhis.tracker.bundle.TrackerBundle;
 import org.hisp.dhis.tracker.domain.*;
 import org.hisp.dhis.tracker.report.TrackerErrorCode;
 import org.hisp.dhis.tracker.report.ValidationErrorReporter;
+import org.hisp.dhis.tracker.validation.TrackerBundlePartitioner;
 import org.hisp.dhis.tracker.validation.TrackerImportValidationContext;
 import org.hisp.dhis.tracker.validation.TrackerValidationHook;
 import org.hisp.dhis.util.DateUtils;
@@ -135,12 +139,20 @@ public abstract class AbstractTrackerDtoValidationHook
     protected <T extends ValueTypedDimensionalItemObject> void validateOptionSet( ValidationErrorReporter reporter,
         T optionalObject, String value )
     {
-        Optional.ofNullable( optionalObject.getOptionSet() )
-            .ifPresent( optionSet -> addErrorIf( () -> optionSet.getOptions().stream().filter( Objects::nonNull )
-                .noneMatch( o -> o.getCode().equalsIgnoreCase( value ) ), reporter, E1125, value,
-                optionalObject.getUid(), optionalObject.getClass().getSimpleName(),
-                optionalObject.getOptionSet().getOptions().stream().filter( Objects::nonNull ).map( Option::getCode )
-                    .collect( Collectors.joining( "," ) ) ) );
+        OptionSet optionSet = optionalObject.getOptionSet();
+
+        if ( optionSet == null )
+        {
+            return;
+        }
+
+        OptionSetIndex optionIndex = optionSet.getOptionIndex();
+
+        if ( !optionIndex.containsCodeIgnoreCase( value ) )
+        {
+            addError( reporter, E1125, value, optionalObject.getUid(), optionalObject.getClass().getSimpleName(),
+                String.join( ",", optionIndex.getCodes() ) );
+        }
     }
 
     /**
@@ -162,14 +174,105 @@ public abstract class AbstractTrackerDtoValidationHook
          * removed from the bundle.
          */
 
-        validateTrackerDtos( context, bundle.getTrackedEntities() );
-        validateTrackerDtos( context, bundle.getEnrollments() );
-        validateTrackerDtos( context, bundle.getEvents() );
+        if ( isParallelizable() && context.getExecutor() != null )
+        {
+            validatePartitions( context );
+        }
+        else
+        {
+            validateTrackerDtos( context, bundle.getTrackedEntities() );
+            validateTrackerDtos( context, bundle.getEnrollments() );
+            validateTrackerDtos( context, bundle.getEvents() );
+        }
+
         validateTrackerDtos( context, bundle.getRelationships() );
 
         return context.getRootReporter();
     }
 
+    /**
+     * Validates the tracked entities, enrollments and events of each partition
+     * of the bundle concurrently. The bundle is partitioned for every hook, as
+     * previous hooks may have removed invalid objects from it. The reports are
+     * merged into the root reporter in the order of the objects in the bundle,
+     * so the result is the same as for a sequential validation.
+     */
+    private void validatePartitions( TrackerImportValidationContext context )
+    {
+        List<List<TrackerDto>> partitions = TrackerBundlePartitioner.partition( context.getBundle(),
+            context.getMaxPartitions() );
+
+        List<CompletableFuture<Map<TrackerDto, ValidationErrorReporter>>> futures = partitions.stream()
+            .map( partition -> CompletableFuture.supplyAsync( () -> validatePartition( context, partition ),
+                context.getExecutor() ) )
+            .collect( Collectors.toList() );
+
+        Map<TrackerDto, ValidationErrorReporter> reporters = new IdentityHashMap<>();
+
+        try
+        {
+            futures.forEach( future -> reporters.putAll( future.join() ) );
+        }
+        catch ( CompletionException ex )
+        {
+            if ( ex.getCause() instanceof RuntimeException )
+            {
+                throw (RuntimeException) ex.getCause();
+            }
+
+            throw ex;
+        }
+
+        TrackerBundle bundle = context.getBundle();
+
+        mergeTrackerDtos( context, bundle.getTrackedEntities(), reporters );
+        mergeTrackerDtos( context, bundle.getEnrollments(), reporters );
+        mergeTrackerDtos( context, bundle.getEvents(), reporters );
+    }
+
+    private Map<TrackerDto, ValidationErrorReporter> validatePartition( TrackerImportValidationContext context,
+        List<TrackerDto> partition )
+    {
+        Map<TrackerDto, ValidationErrorReporter> reporters = new IdentityHashMap<>();
+
+        for ( TrackerDto dto : partition )
+        {
+            if ( needsToRun( context.getStrategy( dto ) ) )
+            {
+                final ValidationErrorReporter reporter = validateTrackerDto( context, dto );
+
+                // children of an invalid object are validated in the same
+                // partition, and must see it as invalid right away
+                if ( reporter.hasErrors() )
+                {
+                    context.getRootReporter().addInvalid( reporter.getDtoType(), reporter.getMainId() );
+                }
+
+                reporters.put( dto, reporter );
+            }
+        }
+
+        return reporters;
+    }
+
+    private void mergeTrackerDtos( TrackerImportValidationContext context, List<? extends TrackerDto> dtos,
+        Map<TrackerDto, ValidationErrorReporter> reporters )
+    {
+        Iterator<? extends TrackerDto> iter = dtos.iterator();
+        while ( iter.hasNext() )
+        {
+            final ValidationErrorReporter reporter = reporters.get( iter.next() );
+            if ( reporter != null )
+            {
+                context.getRootReporter().merge( reporter );
+                if ( removeOnError() && reporter.hasErrors() )
+                {
+                    iter.remove();
+                }
+            }
+        }
+    }
+
     private void validateTrackerDtos( TrackerImportValidationContext context, List<? extends TrackerDto> dtos )
     {
         Iterator<? extends TrackerDto> iter = dtos.iterator();
@@ -180,7 +283,7 @@ public abstract class AbstractTrackerDtoValidationHook
             {
                 final ValidationErrorReporter reporter = validateTrackerDto( context, dto );
                 context.getRootReporter().merge( reporter );
-                if ( removeOnError() && didNotPassValidation( reporter, dto.getUid() ) )
+                if ( removeOnError() && reporter.hasErrors() )
                 {
                     iter.remove();
                 }
@@ -246,9 +349,4 @@ public abstract class AbstractTrackerDtoValidationHook
     {
         return false;
     }
-
-    private boolean didNotPassValidation( ValidationErrorReporter reporter, String uid )
-    {
-        return reporter.getReportList().stream().anyMatch( r -> r.getUid().equals( uid ) );
-    }
 }
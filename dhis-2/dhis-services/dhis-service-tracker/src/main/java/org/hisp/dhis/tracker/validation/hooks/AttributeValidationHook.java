@@ -35,6 +35,7 @@ import static org.hisp.dhis.tracker.validation.hooks.TrackerImporterAssertErrors
 import java.util.List;
 import java.util.Objects;
 
+import org.apache.commons.lang3.StringUtils;
 import org.hisp.dhis.common.ValueType;
 import org.hisp.dhis.organisationunit.OrganisationUnit;
 import org.hisp.dhis.trackedentity.TrackedEntityAttribute;
@@ -127,7 +128,7 @@ public abstract class AttributeValidationHook extends AbstractTrackerDtoValidati
 
             boolean isTheSameTea = Objects.equals( uniqueAttributeValue.getAttributeUid(),
                 trackedEntityAttribute.getUid() );
-            boolean hasTheSameValue = Objects.equals( uniqueAttributeValue.getValue(), value );
+            boolean hasTheSameValue = StringUtils.equalsIgnoreCase( uniqueAttributeValue.getValue(), value );
             boolean isNotSameTei = trackedEntityInstance == null
                 || !Objects.equals( trackedEntityInstance.getUid(),
                     uniqueAttributeValue.getTeiUid() );
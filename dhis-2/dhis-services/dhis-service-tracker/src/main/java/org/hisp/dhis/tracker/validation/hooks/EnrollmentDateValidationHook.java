@@ -101,4 +101,10 @@ public class EnrollmentDateValidationHook
             addError( reporter, E1021, enrollment.getOccurredAt() );
         }
     }
+
+    @Override
+    public boolean isParallelizable()
+    {
+        return true;
+    }
 }
@@ -59,4 +59,9 @@ public class EnrollmentGeoValidationHook
         }
     }
 
-}
\ No newline at end of file
+    @Override
+    public boolean isParallelizable()
+    {
+        return true;
+    }
+}
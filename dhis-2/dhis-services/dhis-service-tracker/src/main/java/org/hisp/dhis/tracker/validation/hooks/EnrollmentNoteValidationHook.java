@@ -42,4 +42,10 @@ public class EnrollmentNoteValidationHook extends AbstractTrackerDtoValidationHo
     {
         enrollment.setNotes( ValidationUtils.validateNotes( reporter, enrollment.getNotes() ) );
     }
+
+    @Override
+    public boolean isParallelizable()
+    {
+        return true;
+    }
 }
@@ -42,4 +42,10 @@ public class EventNoteValidationHook extends AbstractTrackerDtoValidationHook
     {
         event.setNotes( ValidationUtils.validateNotes( reporter, event.getNotes() ) );
     }
+
+    @Override
+    public boolean isParallelizable()
+    {
+        return true;
+    }
 }
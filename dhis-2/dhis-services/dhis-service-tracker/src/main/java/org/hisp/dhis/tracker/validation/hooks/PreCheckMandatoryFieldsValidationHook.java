@@ -84,4 +84,10 @@ public class PreCheckMandatoryFieldsValidationHook
     {
         return true;
     }
+
+    @Override
+    public boolean isParallelizable()
+    {
+        return true;
+    }
 }
@@ -104,4 +104,9 @@ public class PreCheckUidValidationHook
         return true;
     }
 
+    @Override
+    public boolean isParallelizable()
+    {
+        return true;
+    }
 }
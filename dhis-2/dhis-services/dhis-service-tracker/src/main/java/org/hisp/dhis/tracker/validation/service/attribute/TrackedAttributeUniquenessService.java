@@ -0,0 +1,302 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.tracker.validation.service.attribute;
+
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+
+import org.apache.commons.lang3.StringUtils;
+import org.hisp.dhis.trackedentity.TrackedEntityInstance;
+import org.hisp.dhis.tracker.TrackerIdScheme;
+import org.hisp.dhis.tracker.domain.Attribute;
+import org.hisp.dhis.tracker.domain.Enrollment;
+import org.hisp.dhis.tracker.domain.TrackedEntity;
+import org.hisp.dhis.tracker.preheat.TrackerPreheat;
+import org.hisp.dhis.tracker.preheat.UniqueAttributeValue;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Checks the values of unique tracked entity attributes in a tracker import
+ * against the database, against each other and against the values of
+ * concurrent imports.
+ * <p>
+ * Imports reserve the unique values of their payload before the database is
+ * queried and keep them until they are done. A value reserved by a concurrent
+ * import for another tracked entity is treated like a value already present in
+ * the database, so two concurrent imports cannot both store the same unique
+ * value. Values are compared ignoring case, like the database lookup.
+ * Reservations are held in memory, hence they only cover imports running on
+ * the same instance.
+ */
+@Component
+@RequiredArgsConstructor
+public class TrackedAttributeUniquenessService
+{
+    /**
+     * Matches the payload values against the stored values with a single
+     * join on the key set built from the attribute and value arrays, instead
+     * of one IN-list per attribute. Values are compared ignoring case.
+     */
+    private static final String PERSISTED_VALUES_SQL = "select tei.uid as teiuid, tea.uid as attributeuid, "
+        + "teav.value as value, ou.uid as orgunituid "
+        + "from unnest( ?, ? ) as k (attribute, value) "
+        + "join trackedentityattribute tea on tea.uid = k.attribute "
+        + "join trackedentityattributevalue teav on teav.trackedentityattributeid = tea.trackedentityattributeid "
+        + "and lower( teav.value ) = k.value "
+        + "join trackedentityinstance tei on tei.trackedentityinstanceid = teav.trackedentityinstanceid "
+        + "join organisationunit ou on ou.organisationunitid = tei.organisationunitid";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ConcurrentMap<Key, ReservedValue> reservations = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the values of the given unique attributes in the tracked
+     * entities and enrollments of a payload. Enrollment values are assigned to
+     * the tracked entity of the enrollment, taken from the payload or from the
+     * preheat.
+     *
+     * @param trackedEntities the tracked entities of the payload.
+     * @param enrollments the enrollments of the payload.
+     * @param preheat the {@link TrackerPreheat} of the import.
+     * @param uniqueAttributes the UIDs of the unique attributes.
+     * @return the unique attribute values of the payload.
+     */
+    public List<UniqueAttributeValue> getPayloadValues( List<TrackedEntity> trackedEntities,
+        List<Enrollment> enrollments, TrackerPreheat preheat, Set<String> uniqueAttributes )
+    {
+        List<UniqueAttributeValue> values = new ArrayList<>();
+
+        Map<String, String> orgUnitsByTrackedEntity = new HashMap<>();
+
+        for ( TrackedEntity trackedEntity : trackedEntities )
+        {
+            orgUnitsByTrackedEntity.putIfAbsent( trackedEntity.getTrackedEntity(), trackedEntity.getOrgUnit() );
+
+            addPayloadValues( values, trackedEntity.getTrackedEntity(), trackedEntity.getOrgUnit(),
+                trackedEntity.getAttributes(), uniqueAttributes );
+        }
+
+        for ( Enrollment enrollment : enrollments )
+        {
+            String trackedEntity = enrollment.getTrackedEntity();
+
+            String orgUnit = orgUnitsByTrackedEntity.computeIfAbsent( trackedEntity,
+                uid -> getOrgUnit( preheat, uid ) );
+
+            addPayloadValues( values, trackedEntity, orgUnit, enrollment.getAttributes(), uniqueAttributes );
+        }
+
+        return values;
+    }
+
+    /**
+     * Returns the payload values which are used by more than one tracked
+     * entity, ignoring case, in a single pass over the values.
+     *
+     * @param values the unique attribute values of the payload.
+     * @return the duplicated values, once per tracked entity.
+     */
+    public List<UniqueAttributeValue> getDuplicatedValues( List<UniqueAttributeValue> values )
+    {
+        Map<Key, Map<String, UniqueAttributeValue>> valuesByKey = new HashMap<>();
+
+        for ( UniqueAttributeValue value : values )
+        {
+            valuesByKey.computeIfAbsent( Key.of( value.getAttributeUid(), value.getValue() ),
+                k -> new LinkedHashMap<>() ).putIfAbsent( value.getTeiUid(), value );
+        }
+
+        return valuesByKey.values().stream()
+            .filter( trackedEntities -> trackedEntities.size() > 1 )
+            .flatMap( trackedEntities -> trackedEntities.values().stream() )
+            .collect( toList() );
+    }
+
+    /**
+     * Returns the stored values matching the given payload values, ignoring
+     * case, with a single query.
+     *
+     * @param values the unique attribute values of the payload.
+     * @return the matching stored values.
+     */
+    public List<UniqueAttributeValue> getPersistedValues( List<UniqueAttributeValue> values )
+    {
+        Set<Key> keys = values.stream()
+            .map( value -> Key.of( value.getAttributeUid(), value.getValue() ) )
+            .collect( toSet() );
+
+        if ( keys.isEmpty() )
+        {
+            return Collections.emptyList();
+        }
+
+        Object[] attributes = keys.stream().map( Key::getAttribute ).toArray();
+        Object[] keyValues = keys.stream().map( Key::getValue ).toArray();
+
+        return jdbcTemplate.query( connection -> {
+            PreparedStatement statement = connection.prepareStatement( PERSISTED_VALUES_SQL );
+            statement.setArray( 1, connection.createArrayOf( "text", attributes ) );
+            statement.setArray( 2, connection.createArrayOf( "text", keyValues ) );
+            return statement;
+        }, ( rs, i ) -> new UniqueAttributeValue( rs.getString( "teiuid" ), rs.getString( "attributeuid" ),
+            rs.getString( "value" ), rs.getString( "orgunituid" ) ) );
+    }
+
+    /**
+     * Creates an empty {@link Reservation} for an import. The reservation must
+     * be released once the import is done.
+     *
+     * @return the {@link Reservation}.
+     */
+    public Reservation createReservation()
+    {
+        return new Reservation( reservations );
+    }
+
+    /**
+     * Reserves the given unique attribute values for an import. Must be called
+     * before the stored values are queried, so that a value stored by a
+     * concurrent import is either found in the database or reported here.
+     *
+     * @param reservation the {@link Reservation} of the import.
+     * @param values the unique attribute values of the payload.
+     * @return the values already reserved by a concurrent import for another
+     *         tracked entity.
+     */
+    public List<UniqueAttributeValue> reserve( Reservation reservation, List<UniqueAttributeValue> values )
+    {
+        List<UniqueAttributeValue> conflicts = new ArrayList<>();
+
+        for ( UniqueAttributeValue value : values )
+        {
+            Key key = Key.of( value.getAttributeUid(), value.getValue() );
+            ReservedValue reservedValue = new ReservedValue( reservation, value );
+            ReservedValue existing = reservations.putIfAbsent( key, reservedValue );
+
+            if ( existing == null )
+            {
+                reservation.values.put( key, reservedValue );
+            }
+            else if ( existing.getReservation() != reservation
+                && !Objects.equals( existing.getValue().getTeiUid(), value.getTeiUid() ) )
+            {
+                conflicts.add( existing.getValue() );
+            }
+        }
+
+        return conflicts;
+    }
+
+    private void addPayloadValues( List<UniqueAttributeValue> values, String trackedEntity, String orgUnit,
+        List<Attribute> attributes, Set<String> uniqueAttributes )
+    {
+        Set<Key> keys = new LinkedHashSet<>();
+
+        for ( Attribute attribute : attributes )
+        {
+            if ( attribute.getValue() != null && uniqueAttributes.contains( attribute.getAttribute() )
+                && keys.add( Key.of( attribute.getAttribute(), attribute.getValue() ) ) )
+            {
+                values.add( new UniqueAttributeValue( trackedEntity, attribute.getAttribute(), attribute.getValue(),
+                    orgUnit ) );
+            }
+        }
+    }
+
+    private String getOrgUnit( TrackerPreheat preheat, String trackedEntity )
+    {
+        TrackedEntityInstance trackedEntityInstance = preheat.getTrackedEntity( TrackerIdScheme.UID,
+            trackedEntity );
+
+        // A missing tracked entity is reported in the validation phase
+        return trackedEntityInstance != null ? trackedEntityInstance.getOrganisationUnit().getUid() : null;
+    }
+
+    /**
+     * Unique attribute values reserved by an import.
+     */
+    public static class Reservation
+    {
+        private final ConcurrentMap<Key, ReservedValue> reservations;
+
+        private final Map<Key, ReservedValue> values = new HashMap<>();
+
+        private Reservation( ConcurrentMap<Key, ReservedValue> reservations )
+        {
+            this.reservations = reservations;
+        }
+
+        /**
+         * Releases the reserved values, so that other imports can use them.
+         */
+        public void release()
+        {
+            values.forEach( reservations::remove );
+            values.clear();
+        }
+    }
+
+    @Value
+    private static class Key
+    {
+        String attribute;
+
+        String value;
+
+        static Key of( String attribute, String value )
+        {
+            return new Key( attribute, StringUtils.lowerCase( value ) );
+        }
+    }
+
+    @Value
+    private static class ReservedValue
+    {
+        Reservation reservation;
+
+        UniqueAttributeValue value;
+    }
+}
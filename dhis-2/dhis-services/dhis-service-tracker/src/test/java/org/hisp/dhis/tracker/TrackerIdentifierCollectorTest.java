@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.tracker;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.hisp.dhis.common.CodeGenerator;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.hisp.dhis.organisationunit.OrganisationUnit;
+import org.hisp.dhis.program.Program;
+import org.hisp.dhis.programrule.ProgramRuleService;
+import org.hisp.dhis.trackedentity.TrackedEntityType;
+import org.hisp.dhis.tracker.domain.Enrollment;
+import org.hisp.dhis.tracker.domain.Event;
+import org.hisp.dhis.tracker.domain.Relationship;
+import org.hisp.dhis.tracker.domain.RelationshipItem;
+import org.hisp.dhis.tracker.domain.TrackedEntity;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+public class TrackerIdentifierCollectorTest
+{
+    @Rule
+    public MockitoRule rule = MockitoJUnit.rule();
+
+    @Mock
+    private ProgramRuleService programRuleService;
+
+    @Mock
+    private DhisConfigurationProvider config;
+
+    private ExecutorService executor;
+
+    private TrackerIdentifierCollector collector;
+
+    private TrackerImportParams params;
+
+    @Before
+    public void setUp()
+    {
+        executor = Executors.newFixedThreadPool( 4 );
+        collector = new TrackerIdentifierCollector( programRuleService, config, executor );
+
+        List<TrackedEntity> trackedEntities = new ArrayList<>();
+        List<Event> events = new ArrayList<>();
+        List<Relationship> relationships = new ArrayList<>();
+
+        for ( int i = 0; i < 1000; i++ )
+        {
+            String trackedEntity = CodeGenerator.generateUid();
+            String enrollment = CodeGenerator.generateUid();
+
+            trackedEntities.add( TrackedEntity.builder()
+                .trackedEntity( trackedEntity )
+                .orgUnit( "orgUnit" + i % 10 )
+                .enrollments( Collections.singletonList( Enrollment.builder()
+                    .enrollment( enrollment )
+                    .trackedEntity( trackedEntity )
+                    .program( "program" )
+                    .orgUnit( "orgUnit" + i % 10 )
+                    .build() ) )
+                .build() );
+
+            events.add( Event.builder()
+                .event( CodeGenerator.generateUid() )
+                .enrollment( enrollment )
+                .program( "program" )
+                .programStage( "programStage" + i % 3 )
+                .orgUnit( "orgUnit" + i % 20 )
+                .build() );
+
+            relationships.add( Relationship.builder()
+                .relationship( CodeGenerator.generateUid() )
+                .relationshipType( "relationshipType" )
+                .from( RelationshipItem.builder().trackedEntity( trackedEntity ).build() )
+                .to( RelationshipItem.builder().enrollment( enrollment ).build() )
+                .build() );
+        }
+
+        params = TrackerImportParams.builder()
+            .trackedEntities( trackedEntities )
+            .events( events )
+            .relationships( relationships )
+            .build();
+    }
+
+    @After
+    public void tearDown()
+    {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testCollectSequentially()
+    {
+        Map<Class<?>, Set<String>> identifiers = collect( "0" );
+
+        assertThat( identifiers.get( TrackedEntity.class ), hasSize( 1000 ) );
+        assertThat( identifiers.get( Enrollment.class ), hasSize( 1000 ) );
+        assertThat( identifiers.get( Event.class ), hasSize( 1000 ) );
+        assertThat( identifiers.get( Relationship.class ), hasSize( 2000 ) );
+        assertThat( identifiers.get( OrganisationUnit.class ), hasSize( 20 ) );
+        assertThat( identifiers.get( Program.class ), containsInAnyOrder( "program" ) );
+        assertThat( identifiers.get( TrackedEntityType.class ),
+            containsInAnyOrder( TrackerIdentifierCollector.ID_WILDCARD ) );
+    }
+
+    @Test
+    public void testCollectConcurrentlyMatchesSequentialCollection()
+    {
+        assertThat( collect( "4" ), is( collect( "0" ) ) );
+    }
+
+    private Map<Class<?>, Set<String>> collect( String threads )
+    {
+        when( config.getProperty( ConfigurationKey.TRACKER_IMPORT_IDENTIFIER_COLLECTION_PARALLEL_THREADS ) )
+            .thenReturn( threads );
+
+        return collector.collect( params, Collections.emptyMap() );
+    }
+}
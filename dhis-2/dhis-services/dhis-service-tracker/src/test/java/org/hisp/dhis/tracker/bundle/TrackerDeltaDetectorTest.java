@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.tracker.bundle;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+
+import java.util.Collections;
+
+import org.hisp.dhis.eventdatavalue.EventDataValue;
+import org.hisp.dhis.program.ProgramStageInstance;
+import org.hisp.dhis.trackedentity.TrackedEntityAttribute;
+import org.hisp.dhis.trackedentity.TrackedEntityInstance;
+import org.hisp.dhis.trackedentityattributevalue.TrackedEntityAttributeValue;
+import org.hisp.dhis.trackedentitycomment.TrackedEntityComment;
+import org.hisp.dhis.tracker.TrackerIdScheme;
+import org.hisp.dhis.tracker.domain.Attribute;
+import org.hisp.dhis.tracker.domain.DataValue;
+import org.hisp.dhis.tracker.domain.Enrollment;
+import org.hisp.dhis.tracker.domain.Event;
+import org.hisp.dhis.tracker.domain.Note;
+import org.hisp.dhis.tracker.domain.TrackedEntity;
+import org.hisp.dhis.tracker.preheat.TrackerPreheat;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+public class TrackerDeltaDetectorTest
+{
+    private TrackerDeltaDetector deltaDetector;
+
+    private TrackerPreheat preheat;
+
+    @Before
+    public void setUp()
+    {
+        deltaDetector = new TrackerDeltaDetector();
+        preheat = new TrackerPreheat();
+
+        TrackedEntityInstance trackedEntityInstance = new TrackedEntityInstance();
+        trackedEntityInstance.setUid( "teiA" );
+        trackedEntityInstance.getTrackedEntityAttributeValues()
+            .add( new TrackedEntityAttributeValue( attribute( "attributeA" ), trackedEntityInstance, "valueA" ) );
+        trackedEntityInstance.getTrackedEntityAttributeValues()
+            .add( new TrackedEntityAttributeValue( attribute( "attributeB" ), trackedEntityInstance, "valueB" ) );
+        preheat.putTrackedEntities( TrackerIdScheme.UID, Collections.singletonList( trackedEntityInstance ) );
+
+        ProgramStageInstance programStageInstance = new ProgramStageInstance();
+        programStageInstance.setUid( "eventA" );
+        programStageInstance.getEventDataValues().add( new EventDataValue( "dataElementA", "valueA" ) );
+        programStageInstance.getEventDataValues().add( new EventDataValue( "dataElementB", "valueB" ) );
+        preheat.putEvents( TrackerIdScheme.UID, Collections.singletonList( programStageInstance ) );
+
+        TrackedEntityComment comment = new TrackedEntityComment();
+        comment.setUid( "noteA" );
+        preheat.putNotes( Collections.singletonList( comment ) );
+    }
+
+    @Test
+    public void shouldRemoveUnchangedAttributes()
+    {
+        Attribute unchanged = Attribute.builder().attribute( "attributeA" ).value( "valueA" ).build();
+        Attribute changed = Attribute.builder().attribute( "attributeB" ).value( "valueC" ).build();
+        Attribute added = Attribute.builder().attribute( "attributeC" ).value( "valueC" ).build();
+        TrackedEntity trackedEntity = TrackedEntity.builder().trackedEntity( "teiA" )
+            .attributes( Lists.newArrayList( unchanged, changed, added ) ).build();
+
+        deltaDetector.removeUnchanged( TrackerBundle.builder().preheat( preheat )
+            .trackedEntities( Lists.newArrayList( trackedEntity ) ).build() );
+
+        assertThat( trackedEntity.getAttributes(), contains( changed, added ) );
+    }
+
+    @Test
+    public void shouldKeepEnrollmentAttributeRestoringValueChangedByTrackedEntity()
+    {
+        TrackedEntity trackedEntity = TrackedEntity.builder().trackedEntity( "teiA" )
+            .attributes( Lists.newArrayList( Attribute.builder().attribute( "attributeA" ).value( "valueC" ).build() ) )
+            .build();
+        Attribute restored = Attribute.builder().attribute( "attributeA" ).value( "valueA" ).build();
+        Attribute unchanged = Attribute.builder().attribute( "attributeB" ).value( "valueB" ).build();
+        Enrollment enrollment = Enrollment.builder().enrollment( "enrollmentA" ).trackedEntity( "teiA" )
+            .attributes( Lists.newArrayList( restored, unchanged ) ).build();
+
+        deltaDetector.removeUnchanged( TrackerBundle.builder().preheat( preheat )
+            .trackedEntities( Lists.newArrayList( trackedEntity ) )
+            .enrollments( Lists.newArrayList( enrollment ) ).build() );
+
+        assertThat( enrollment.getAttributes(), contains( restored ) );
+    }
+
+    @Test
+    public void shouldRemoveUnchangedDataValuesAndPersistedNotes()
+    {
+        DataValue unchanged = DataValue.builder().dataElement( "dataElementA" ).value( "valueA" ).build();
+        DataValue changed = DataValue.builder().dataElement( "dataElementB" ).value( "valueC" ).build();
+        DataValue added = DataValue.builder().dataElement( "dataElementC" ).value( "valueC" ).build();
+        Note persistedNote = Note.builder().note( "noteA" ).value( "note" ).build();
+        Note newNote = Note.builder().note( "noteB" ).value( "note" ).build();
+        Event event = Event.builder().event( "eventA" )
+            .dataValues( Sets.newHashSet( unchanged, changed, added ) )
+            .notes( Lists.newArrayList( persistedNote, newNote ) ).build();
+
+        deltaDetector.removeUnchanged( TrackerBundle.builder().preheat( preheat )
+            .events( Lists.newArrayList( event ) ).build() );
+
+        assertThat( event.getDataValues(), containsInAnyOrder( changed, added ) );
+        assertThat( event.getNotes(), contains( newNote ) );
+    }
+
+    @Test
+    public void shouldKeepValuesOfObjectsNotPersisted()
+    {
+        DataValue dataValue = DataValue.builder().dataElement( "dataElementA" ).value( "valueA" ).build();
+        Event event = Event.builder().event( "eventB" ).dataValues( Sets.newHashSet( dataValue ) ).build();
+        TrackedEntity trackedEntity = TrackedEntity.builder().trackedEntity( "teiB" ).build();
+
+        deltaDetector.removeUnchanged( TrackerBundle.builder().preheat( preheat )
+            .trackedEntities( Lists.newArrayList( trackedEntity ) )
+            .events( Lists.newArrayList( event ) ).build() );
+
+        assertThat( event.getDataValues(), contains( dataValue ) );
+        assertThat( trackedEntity.getAttributes(), empty() );
+    }
+
+    private TrackedEntityAttribute attribute( String uid )
+    {
+        TrackedEntityAttribute attribute = new TrackedEntityAttribute();
+        attribute.setUid( uid );
+        return attribute;
+    }
+}
@@ -46,6 +46,7 @@ import org.hisp.dhis.tracker.report.DefaultTrackerImportService;
 import org.hisp.dhis.tracker.report.TrackerBundleReport;
 import org.hisp.dhis.tracker.report.TrackerValidationReport;
 import org.hisp.dhis.tracker.validation.TrackerValidationService;
+import org.hisp.dhis.tracker.validation.service.attribute.TrackedAttributeUniquenessService;
 import org.hisp.dhis.user.User;
 import org.junit.Before;
 import org.junit.Rule;
@@ -77,6 +78,9 @@ public class TrackerImporterServiceTest
     @Mock
     private Notifier notifier;
 
+    @Mock
+    private TrackedAttributeUniquenessService uniquenessService;
+
     private DefaultTrackerImportService subject;
 
     private BeanRandomizer rnd = new BeanRandomizer();
@@ -88,7 +92,7 @@ public class TrackerImporterServiceTest
     {
         subject = new DefaultTrackerImportService( trackerBundleService, trackerValidationService,
             trackerPreprocessService,
-            trackerUserService, notifier );
+            trackerUserService, notifier, uniquenessService );
 
         final List<Event> events = rnd.randomObjects( Event.class, 3 );
 
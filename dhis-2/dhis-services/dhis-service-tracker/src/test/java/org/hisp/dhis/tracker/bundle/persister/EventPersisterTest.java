@@ -0,0 +1,309 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.tracker.bundle.persister;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.hibernate.Session;
+import org.hisp.dhis.artemis.audit.Audit;
+import org.hisp.dhis.artemis.audit.AuditAttributes;
+import org.hisp.dhis.artemis.audit.AuditManager;
+import org.hisp.dhis.artemis.audit.listener.PostInsertAuditListener;
+import org.hisp.dhis.artemis.audit.listener.PostUpdateAuditListener;
+import org.hisp.dhis.audit.AuditType;
+import org.hisp.dhis.dxf2.events.event.EventCommentStore;
+import org.hisp.dhis.dxf2.events.event.EventStore;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.hisp.dhis.program.ProgramStageInstance;
+import org.hisp.dhis.reservedvalue.ReservedValueService;
+import org.hisp.dhis.trackedentityattributevalue.TrackedEntityAttributeValueAuditService;
+import org.hisp.dhis.trackedentitycomment.TrackedEntityComment;
+import org.hisp.dhis.trackedentitycomment.TrackedEntityCommentService;
+import org.hisp.dhis.tracker.TrackerIdScheme;
+import org.hisp.dhis.tracker.bundle.TrackerBundle;
+import org.hisp.dhis.tracker.converter.TrackerConverterService;
+import org.hisp.dhis.tracker.converter.TrackerSideEffectConverterService;
+import org.hisp.dhis.tracker.domain.Event;
+import org.hisp.dhis.tracker.preheat.TrackerPreheat;
+import org.hisp.dhis.tracker.report.TrackerTypeReport;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+public class EventPersisterTest
+{
+    private static final String EVENT_UID = "eventUid001";
+
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    @Mock
+    private ReservedValueService reservedValueService;
+
+    @Mock
+    private TrackerConverterService<Event, ProgramStageInstance> eventConverter;
+
+    @Mock
+    private TrackedEntityCommentService trackedEntityCommentService;
+
+    @Mock
+    private TrackerSideEffectConverterService sideEffectConverterService;
+
+    @Mock
+    private TrackedEntityAttributeValueAuditService trackedEntityAttributeValueAuditService;
+
+    @Mock
+    private EventStore eventStore;
+
+    @Mock
+    private EventCommentStore eventCommentStore;
+
+    @Mock
+    private AuditManager auditManager;
+
+    @Mock
+    private PostInsertAuditListener postInsertAuditListener;
+
+    @Mock
+    private PostUpdateAuditListener postUpdateAuditListener;
+
+    @Mock
+    private DhisConfigurationProvider config;
+
+    @Mock
+    private Session session;
+
+    @Captor
+    private ArgumentCaptor<List<ProgramStageInstance>> notesCaptor;
+
+    @Captor
+    private ArgumentCaptor<Audit> auditCaptor;
+
+    private final AuditAttributes auditAttributes = new AuditAttributes();
+
+    private final Map<String, Object> auditEntry = Collections.singletonMap( "uid", EVENT_UID );
+
+    private EventPersister persister;
+
+    private TrackerPreheat preheat;
+
+    private TrackerBundle bundle;
+
+    private ProgramStageInstance programStageInstance;
+
+    @Before
+    public void setUp()
+    {
+        persister = new EventPersister( reservedValueService, eventConverter, trackedEntityCommentService,
+            sideEffectConverterService, trackedEntityAttributeValueAuditService, eventStore, eventCommentStore,
+            auditManager, postInsertAuditListener, postUpdateAuditListener, config );
+
+        preheat = new TrackerPreheat();
+
+        Event event = Event.builder().event( EVENT_UID ).build();
+
+        bundle = TrackerBundle.builder()
+            .preheat( preheat )
+            .events( Collections.singletonList( event ) )
+            .skipSideEffects( true )
+            .build();
+
+        programStageInstance = new ProgramStageInstance();
+        programStageInstance.setUid( EVENT_UID );
+
+        when( config.isEnabled( ConfigurationKey.TRACKER_IMPORT_EVENT_JDBC_PERSISTENCE ) ).thenReturn( true );
+        when( eventConverter.from( preheat, event ) ).thenReturn( programStageInstance );
+        when( eventStore.saveEvents( anyList() ) ).thenAnswer( invocation -> invocation.getArgument( 0 ) );
+        when( eventStore.updateEvents( anyList() ) ).thenAnswer( invocation -> invocation.getArgument( 0 ) );
+        when( eventCommentStore.saveAllComments( anyList() ) ).thenAnswer( invocation -> invocation
+            .<List<ProgramStageInstance>> getArgument( 0 ).stream()
+            .flatMap( notesHolder -> notesHolder.getComments().stream() )
+            .collect( Collectors.toList() ) );
+        when( auditManager.collectAuditAttributes( programStageInstance, ProgramStageInstance.class ) )
+            .thenReturn( auditAttributes );
+        when( postInsertAuditListener.createAuditEntry( eq( programStageInstance ), any(), eq( session ) ) )
+            .thenReturn( auditEntry );
+        when( postUpdateAuditListener.createAuditEntry( eq( programStageInstance ), any(), eq( session ) ) )
+            .thenReturn( auditEntry );
+    }
+
+    @Test
+    public void testPersistCreatedEventWithJdbc()
+    {
+        TrackerTypeReport report = persister.persist( session, bundle );
+
+        assertEquals( 1, report.getStats().getCreated() );
+        assertEquals( 0, report.getStats().getUpdated() );
+
+        verify( session ).flush();
+        verify( session, never() ).persist( any() );
+        verify( eventStore ).saveEvents( Collections.singletonList( programStageInstance ) );
+        verify( eventStore, never() ).updateEvents( anyList() );
+        verify( auditManager ).send( auditCaptor.capture() );
+
+        assertAudit( auditCaptor.getValue(), AuditType.CREATE );
+        assertThat( preheat.getEvent( TrackerIdScheme.UID, EVENT_UID ), is( sameInstance( programStageInstance ) ) );
+    }
+
+    @Test
+    public void testPersistUpdatedEventWithJdbc()
+    {
+        preheat.putEvents( TrackerIdScheme.UID, Collections.singletonList( programStageInstance ) );
+
+        when( session.contains( programStageInstance ) ).thenReturn( true );
+
+        TrackerTypeReport report = persister.persist( session, bundle );
+
+        assertEquals( 0, report.getStats().getCreated() );
+        assertEquals( 1, report.getStats().getUpdated() );
+
+        verify( session ).detach( programStageInstance );
+        verify( session, never() ).merge( any() );
+        verify( eventStore ).updateEvents( Collections.singletonList( programStageInstance ) );
+        verify( eventStore, never() ).saveEvents( anyList() );
+        verify( auditManager ).send( auditCaptor.capture() );
+        verify( postInsertAuditListener, never() ).createAuditEntry( any(), any(), any() );
+
+        assertAudit( auditCaptor.getValue(), AuditType.UPDATE );
+    }
+
+    @Test
+    public void testPersistNewNotesWithJdbc()
+    {
+        TrackedEntityComment existingNote = new TrackedEntityComment( "existing", "admin" );
+        existingNote.setUid( "noteUid0001" );
+        TrackedEntityComment newNote = new TrackedEntityComment( "new", "admin" );
+        newNote.setUid( "noteUid0002" );
+
+        programStageInstance.setId( 42L );
+        programStageInstance.getComments().add( existingNote );
+        programStageInstance.getComments().add( newNote );
+
+        preheat.putNotes( Collections.singletonList( existingNote ) );
+
+        persister.persist( session, bundle );
+
+        verify( eventCommentStore ).saveAllComments( notesCaptor.capture() );
+
+        List<ProgramStageInstance> notesHolders = notesCaptor.getValue();
+
+        assertThat( notesHolders, hasSize( 1 ) );
+        assertEquals( 42L, notesHolders.get( 0 ).getId() );
+        assertEquals( EVENT_UID, notesHolders.get( 0 ).getUid() );
+        assertThat( notesHolders.get( 0 ).getComments(), contains( newNote ) );
+    }
+
+    @Test
+    public void testPersistSkipsNotesWithoutText()
+    {
+        TrackedEntityComment emptyNote = new TrackedEntityComment( "", "admin" );
+        emptyNote.setUid( "noteUid0001" );
+
+        programStageInstance.getComments().add( emptyNote );
+
+        persister.persist( session, bundle );
+
+        verify( eventCommentStore, never() ).saveAllComments( anyList() );
+    }
+
+    @Test( expected = PersistenceException.class )
+    public void testPersistAbortsWhenNoteIsNotSaved()
+    {
+        TrackedEntityComment note = new TrackedEntityComment( "new", "admin" );
+        note.setUid( "noteUid0001" );
+
+        programStageInstance.getComments().add( note );
+
+        when( eventCommentStore.saveAllComments( anyList() ) ).thenReturn( Collections.emptyList() );
+
+        try
+        {
+            persister.persist( session, bundle );
+        }
+        finally
+        {
+            verify( auditManager, never() ).send( any() );
+        }
+    }
+
+    @Test( expected = PersistenceException.class )
+    public void testPersistAbortsWhenEventIsNotSaved()
+    {
+        when( eventStore.saveEvents( anyList() ) ).thenReturn( Collections.emptyList() );
+
+        try
+        {
+            persister.persist( session, bundle );
+        }
+        finally
+        {
+            verify( eventCommentStore, never() ).saveAllComments( anyList() );
+            verify( auditManager, never() ).send( any() );
+        }
+    }
+
+    @Test( expected = PersistenceException.class )
+    public void testPersistAbortsWhenEventIsNotUpdated()
+    {
+        preheat.putEvents( TrackerIdScheme.UID, Collections.singletonList( programStageInstance ) );
+
+        when( eventStore.updateEvents( anyList() ) ).thenReturn( Collections.emptyList() );
+
+        persister.persist( session, bundle );
+    }
+
+    private void assertAudit( Audit audit, AuditType auditType )
+    {
+        assertEquals( auditType, audit.getAuditType() );
+        assertThat( audit.getAttributes(), is( sameInstance( auditAttributes ) ) );
+        assertEquals( ProgramStageInstance.class, audit.getAuditableEntity().getEntityClass() );
+        assertThat( audit.getAuditableEntity().getEntity(), is( sameInstance( auditEntry ) ) );
+    }
+}
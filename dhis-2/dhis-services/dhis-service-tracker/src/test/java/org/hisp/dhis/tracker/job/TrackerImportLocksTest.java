@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.tracker.job;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+
+import org.junit.Test;
+
+import com.google.common.collect.Sets;
+
+public class TrackerImportLocksTest
+{
+    private final TrackerImportLocks importLocks = new TrackerImportLocks();
+
+    @Test
+    public void shouldBlockJobTouchingLockedOrgUnit()
+        throws Exception
+    {
+        List<Lock> locks = importLocks.lock( Sets.newHashSet( "ouA", "ouB" ) );
+
+        CompletableFuture<Void> job = CompletableFuture
+            .runAsync( () -> importLocks.unlock( importLocks.lock( Sets.newHashSet( "ouB" ) ) ) );
+
+        assertFalse( isDone( job ) );
+
+        importLocks.unlock( locks );
+
+        job.get( 5, TimeUnit.SECONDS );
+    }
+
+    @Test
+    public void shouldBlockAllJobsWhileJobWithUnknownOrgUnitsRuns()
+        throws Exception
+    {
+        List<Lock> locks = importLocks.lock( null );
+
+        CompletableFuture<Void> job = CompletableFuture
+            .runAsync( () -> importLocks.unlock( importLocks.lock( Sets.newHashSet( "ouA" ) ) ) );
+
+        assertFalse( isDone( job ) );
+
+        importLocks.unlock( locks );
+
+        job.get( 5, TimeUnit.SECONDS );
+    }
+
+    @Test
+    public void shouldNotBlockJobsTouchingOtherOrgUnits()
+        throws Exception
+    {
+        List<Lock> locks = importLocks.lock( Sets.newHashSet( "ouA" ) );
+
+        CompletableFuture<Void> job = CompletableFuture
+            .runAsync( () -> importLocks.unlock( importLocks.lock( Sets.newHashSet( "ouC" ) ) ) );
+
+        assertTrue( isDone( job ) );
+
+        importLocks.unlock( locks );
+    }
+
+    private boolean isDone( CompletableFuture<Void> job )
+    {
+        try
+        {
+            job.get( 200, TimeUnit.MILLISECONDS );
+
+            return true;
+        }
+        catch ( Exception e )
+        {
+            return false;
+        }
+    }
+}
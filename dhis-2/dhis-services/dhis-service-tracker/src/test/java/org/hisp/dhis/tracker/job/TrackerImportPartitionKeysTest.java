@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.tracker.job;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.hisp.dhis.tracker.TrackerImportParams;
+import org.hisp.dhis.tracker.domain.Enrollment;
+import org.hisp.dhis.tracker.domain.Event;
+import org.hisp.dhis.tracker.domain.Relationship;
+import org.hisp.dhis.tracker.domain.TrackedEntity;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+public class TrackerImportPartitionKeysTest
+{
+    @Test
+    public void shouldKeyByOrgUnitWhenImportTouchesOneOrgUnit()
+    {
+        TrackerImportParams params = TrackerImportParams.builder()
+            .trackedEntities( Lists.newArrayList( trackedEntity( "teiA", "ouA" ), trackedEntity( "teiB", "ouA" ) ) )
+            .enrollments( Lists.newArrayList( enrollment( "enrollmentA", "teiA", "ouA" ) ) )
+            .events( Lists.newArrayList( event( "eventA", "enrollmentB", "ouA" ) ) )
+            .build();
+
+        assertEquals( "orgUnit:ouA", TrackerImportPartitionKeys.getPartitionKey( params ) );
+    }
+
+    @Test
+    public void shouldKeyImportsOfSameTrackedEntityByOrgUnit()
+    {
+        TrackerImportParams trackedEntityParams = TrackerImportParams.builder()
+            .trackedEntities( Lists.newArrayList( trackedEntity( "teiA", "ouA" ) ) )
+            .build();
+
+        TrackerImportParams sameOrgUnitParams = TrackerImportParams.builder()
+            .trackedEntities( Lists.newArrayList( trackedEntity( "teiA", "ouA" ), trackedEntity( "teiB", "ouA" ) ) )
+            .build();
+
+        assertEquals( "orgUnit:ouA", TrackerImportPartitionKeys.getPartitionKey( trackedEntityParams ) );
+        assertEquals( "orgUnit:ouA", TrackerImportPartitionKeys.getPartitionKey( sameOrgUnitParams ) );
+    }
+
+    @Test
+    public void shouldNotKeyImportTouchingSeveralOrgUnits()
+    {
+        TrackerImportParams params = TrackerImportParams.builder()
+            .trackedEntities( Lists.newArrayList( trackedEntity( "teiA", "ouA" ) ) )
+            .enrollments( Lists.newArrayList( enrollment( "enrollmentA", "teiA", "ouB" ) ) )
+            .build();
+
+        assertNull( TrackerImportPartitionKeys.getPartitionKey( params ) );
+        assertEquals( Sets.newHashSet( "ouA", "ouB" ), TrackerImportPartitionKeys.getOrgUnits( params ) );
+    }
+
+    @Test
+    public void shouldNotKnowOrgUnitsOfImportWithRelationships()
+    {
+        TrackerImportParams params = TrackerImportParams.builder()
+            .trackedEntities( Lists.newArrayList( trackedEntity( "teiA", "ouA" ) ) )
+            .relationships( Lists.newArrayList( Relationship.builder().relationship( "relationshipA" ).build() ) )
+            .build();
+
+        assertNull( TrackerImportPartitionKeys.getPartitionKey( params ) );
+        assertNull( TrackerImportPartitionKeys.getOrgUnits( params ) );
+    }
+
+    @Test
+    public void shouldNotKnowOrgUnitsOfImportWithObjectsWithoutOrgUnit()
+    {
+        TrackerImportParams params = TrackerImportParams.builder()
+            .trackedEntities( Lists.newArrayList( trackedEntity( "teiA", "ouA" ) ) )
+            .events( Lists.newArrayList( event( "eventA", "enrollmentA", null ) ) )
+            .build();
+
+        assertNull( TrackerImportPartitionKeys.getPartitionKey( params ) );
+        assertNull( TrackerImportPartitionKeys.getOrgUnits( params ) );
+    }
+
+    @Test
+    public void shouldNotKeyEmptyImport()
+    {
+        assertNull( TrackerImportPartitionKeys.getPartitionKey( TrackerImportParams.builder().build() ) );
+    }
+
+    private TrackedEntity trackedEntity( String uid, String orgUnit )
+    {
+        return TrackedEntity.builder().trackedEntity( uid ).orgUnit( orgUnit ).build();
+    }
+
+    private Enrollment enrollment( String uid, String trackedEntity, String orgUnit )
+    {
+        return Enrollment.builder().enrollment( uid ).trackedEntity( trackedEntity ).orgUnit( orgUnit ).build();
+    }
+
+    private Event event( String uid, String enrollment, String orgUnit )
+    {
+        return Event.builder().event( uid ).enrollment( enrollment ).orgUnit( orgUnit ).build();
+    }
+}
@@ -39,6 +39,8 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
 
 import javax.jms.JMSException;
 import javax.jms.TextMessage;
@@ -46,18 +48,23 @@ import javax.jms.TextMessage;
 import org.hisp.dhis.artemis.MessageManager;
 import org.hisp.dhis.artemis.Topics;
 import org.hisp.dhis.common.AsyncTaskExecutor;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.hisp.dhis.program.Program;
 import org.hisp.dhis.render.RenderService;
+import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.MockitoJUnit;
 import org.mockito.junit.MockitoRule;
 import org.springframework.beans.factory.ObjectFactory;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
 /**
  * @author Zubair Asghar
  */
@@ -84,31 +91,43 @@ public class TrackerNotificationMessageManagerTest
     @Mock
     private TrackerNotificationThread trackerNotificationThread;
 
-    @InjectMocks
+    @Mock
+    private DhisConfigurationProvider config;
+
     private TrackerNotificationMessageManager trackerNotificationMessageManager;
 
     @Captor
     private ArgumentCaptor<String> topicCaptor;
 
     @Captor
-    private ArgumentCaptor<TrackerSideEffectDataBundle> bundleArgumentCaptor;
+    private ArgumentCaptor<TrackerSideEffectBatch> batchArgumentCaptor;
 
     @Captor
     private ArgumentCaptor<Runnable> runnableCaptor;
 
+    @Before
+    public void setUp()
+    {
+        when( config.getProperty( ConfigurationKey.TRACKER_IMPORT_SIDE_EFFECT_BATCH_SIZE ) ).thenReturn( "2" );
+
+        trackerNotificationMessageManager = new TrackerNotificationMessageManager( messageManager, taskExecutor,
+            renderService, config, new SimpleMeterRegistry(), objectFactory );
+    }
+
     @Test
     public void test_add_job()
     {
-        doNothing().when( messageManager ).sendQueue( anyString(), any( TrackerSideEffectDataBundle.class ) );
+        doNothing().when( messageManager ).sendQueue( anyString(), any( TrackerSideEffectBatch.class ) );
 
         TrackerSideEffectDataBundle dataBundle = TrackerSideEffectDataBundle.builder().build();
 
         trackerNotificationMessageManager.addJob( dataBundle );
 
-        Mockito.verify( messageManager ).sendQueue( topicCaptor.capture(), bundleArgumentCaptor.capture() );
+        Mockito.verify( messageManager ).sendQueue( topicCaptor.capture(), batchArgumentCaptor.capture() );
 
         assertEquals( Topics.TRACKER_IMPORT_NOTIFICATION_TOPIC_NAME, topicCaptor.getValue() );
-        assertEquals( dataBundle, bundleArgumentCaptor.getValue() );
+        assertEquals( 1, batchArgumentCaptor.getValue().getBundles().size() );
+        assertEquals( dataBundle, batchArgumentCaptor.getValue().getBundles().get( 0 ) );
     }
 
     @Test
@@ -116,22 +135,57 @@ public class TrackerNotificationMessageManagerTest
         throws JMSException,
         IOException
     {
-        TrackerSideEffectDataBundle bundle = TrackerSideEffectDataBundle.builder().accessedBy( "test-user" ).build();
+        TrackerSideEffectBatch batch = TrackerSideEffectBatch.builder().accessedBy( "test-user" )
+            .bundles( Arrays.asList( TrackerSideEffectDataBundle.builder().accessedBy( "test-user" ).build() ) )
+            .build();
 
         when( textMessage.getText() ).thenReturn( "text" );
         when( objectFactory.getObject() ).thenReturn( trackerNotificationThread );
         doNothing().when( taskExecutor ).executeTask( any( Runnable.class ) );
 
-        when( renderService.fromJson( anyString(), eq( TrackerSideEffectDataBundle.class ) ) ).thenReturn( null );
+        when( renderService.fromJson( anyString(), eq( TrackerSideEffectBatch.class ) ) ).thenReturn( null );
         trackerNotificationMessageManager.consume( textMessage );
 
         verify( taskExecutor, times( 0 ) ).executeTask( any( Runnable.class ) );
 
-        doReturn( bundle ).when( renderService ).fromJson( anyString(), eq( TrackerSideEffectDataBundle.class ) );
+        doReturn( batch ).when( renderService ).fromJson( anyString(), eq( TrackerSideEffectBatch.class ) );
         trackerNotificationMessageManager.consume( textMessage );
 
         Mockito.verify( taskExecutor ).executeTask( runnableCaptor.capture() );
 
         assertTrue( runnableCaptor.getValue() instanceof TrackerNotificationThread );
     }
+
+    @Test
+    public void test_add_jobs_in_batches_by_program()
+    {
+        doNothing().when( messageManager ).sendQueue( anyString(), any( TrackerSideEffectBatch.class ) );
+
+        List<TrackerSideEffectDataBundle> bundles = Arrays.asList( bundle( "programA" ), bundle( "programB" ),
+            bundle( "programA" ), bundle( "programA" ) );
+
+        String jobId = trackerNotificationMessageManager.addJobs( bundles );
+
+        verify( messageManager, times( 3 ) ).sendQueue( topicCaptor.capture(), batchArgumentCaptor.capture() );
+
+        List<TrackerSideEffectBatch> batches = batchArgumentCaptor.getAllValues();
+
+        assertEquals( "programA", batches.get( 0 ).getProgram() );
+        assertEquals( 2, batches.get( 0 ).getBundles().size() );
+        assertEquals( "programA", batches.get( 1 ).getProgram() );
+        assertEquals( 1, batches.get( 1 ).getBundles().size() );
+        assertEquals( "programB", batches.get( 2 ).getProgram() );
+        assertEquals( 1, batches.get( 2 ).getBundles().size() );
+
+        batches.forEach( batch -> assertEquals( jobId, batch.getJobId() ) );
+        bundles.forEach( bundle -> assertEquals( jobId, bundle.getJobId() ) );
+    }
+
+    private TrackerSideEffectDataBundle bundle( String program )
+    {
+        Program p = new Program();
+        p.setUid( program );
+
+        return TrackerSideEffectDataBundle.builder().program( p ).accessedBy( "test-user" ).build();
+    }
 }
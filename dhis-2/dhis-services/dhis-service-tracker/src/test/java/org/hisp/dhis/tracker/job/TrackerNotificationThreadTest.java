@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.tracker.job;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.hisp.dhis.common.IdentifiableObjectManager;
+import org.hisp.dhis.program.ProgramInstance;
+import org.hisp.dhis.program.notification.ProgramNotificationService;
+import org.hisp.dhis.system.notification.NotificationLevel;
+import org.hisp.dhis.system.notification.Notifier;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+import com.google.common.collect.Lists;
+
+public class TrackerNotificationThreadTest
+{
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    @Mock
+    private ProgramNotificationService programNotificationService;
+
+    @Mock
+    private Notifier notifier;
+
+    @Mock
+    private IdentifiableObjectManager manager;
+
+    @Test
+    public void shouldSendNotificationsOfRemainingEnrollmentsWhenOneFails()
+    {
+        ProgramInstance failing = programInstance( 1L, "enrollmentA" );
+        ProgramInstance remaining = programInstance( 2L, "enrollmentB" );
+
+        when( manager.getByUid( eq( ProgramInstance.class ), anyCollection() ) )
+            .thenReturn( Lists.newArrayList( failing, remaining ) );
+        doThrow( new IllegalStateException( "failed" ) ).when( programNotificationService )
+            .sendEnrollmentNotifications( 1L );
+
+        TrackerNotificationThread thread = new TrackerNotificationThread( programNotificationService, notifier,
+            manager );
+        thread.setSideEffectBatch( TrackerSideEffectBatch.builder()
+            .bundles( Lists.newArrayList( bundle( "enrollmentA" ), bundle( "enrollmentB" ) ) )
+            .build() );
+
+        thread.call();
+
+        verify( programNotificationService ).sendEnrollmentNotifications( 2L );
+        verify( notifier ).notify( any(), eq( NotificationLevel.DEBUG ), any( String.class ) );
+    }
+
+    private ProgramInstance programInstance( long id, String uid )
+    {
+        ProgramInstance programInstance = new ProgramInstance();
+        programInstance.setId( id );
+        programInstance.setUid( uid );
+
+        return programInstance;
+    }
+
+    private TrackerSideEffectDataBundle bundle( String uid )
+    {
+        return TrackerSideEffectDataBundle.builder()
+            .klass( ProgramInstance.class )
+            .object( uid )
+            .build();
+    }
+}
@@ -40,6 +40,8 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
 
 import javax.jms.JMSException;
 import javax.jms.TextMessage;
@@ -47,18 +49,23 @@ import javax.jms.TextMessage;
 import org.hisp.dhis.artemis.MessageManager;
 import org.hisp.dhis.artemis.Topics;
 import org.hisp.dhis.common.AsyncTaskExecutor;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.hisp.dhis.program.Program;
 import org.hisp.dhis.render.RenderService;
+import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.MockitoJUnit;
 import org.mockito.junit.MockitoRule;
 import org.springframework.beans.factory.ObjectFactory;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
 /**
  * @author Zubair Asghar
  */
@@ -85,32 +92,44 @@ public class TrackerRuleEngineMessageManagerTest
     @Mock
     private TrackerRuleEngineThread trackerRuleEngineThread;
 
-    @InjectMocks
+    @Mock
+    private DhisConfigurationProvider config;
+
     private TrackerRuleEngineMessageManager trackerRuleEngineMessageManager;
 
     @Captor
     private ArgumentCaptor<String> topicCaptor;
 
     @Captor
-    private ArgumentCaptor<TrackerSideEffectDataBundle> bundleArgumentCaptor;
+    private ArgumentCaptor<TrackerSideEffectBatch> batchArgumentCaptor;
 
     @Captor
     private ArgumentCaptor<Runnable> runnableArgumentCaptor;
 
+    @Before
+    public void setUp()
+    {
+        when( config.getProperty( ConfigurationKey.TRACKER_IMPORT_SIDE_EFFECT_BATCH_SIZE ) ).thenReturn( "2" );
+
+        trackerRuleEngineMessageManager = new TrackerRuleEngineMessageManager( messageManager, taskExecutor,
+            renderService, config, new SimpleMeterRegistry(), objectFactory );
+    }
+
     @Test
     public void test_add_job()
     {
-        doNothing().when( messageManager ).sendQueue( anyString(), any( TrackerSideEffectDataBundle.class ) );
+        doNothing().when( messageManager ).sendQueue( anyString(), any( TrackerSideEffectBatch.class ) );
 
         TrackerSideEffectDataBundle dataBundle = TrackerSideEffectDataBundle.builder().build();
 
         trackerRuleEngineMessageManager.addJob( dataBundle );
 
-        Mockito.verify( messageManager ).sendQueue( topicCaptor.capture(), bundleArgumentCaptor.capture() );
+        Mockito.verify( messageManager ).sendQueue( topicCaptor.capture(), batchArgumentCaptor.capture() );
 
         assertNotNull( topicCaptor.getValue() );
         assertEquals( Topics.TRACKER_IMPORT_RULE_ENGINE_TOPIC_NAME, topicCaptor.getValue() );
-        assertEquals( dataBundle, bundleArgumentCaptor.getValue() );
+        assertEquals( 1, batchArgumentCaptor.getValue().getBundles().size() );
+        assertEquals( dataBundle, batchArgumentCaptor.getValue().getBundles().get( 0 ) );
     }
 
     @Test
@@ -118,22 +137,57 @@ public class TrackerRuleEngineMessageManagerTest
         throws JMSException,
         IOException
     {
-        TrackerSideEffectDataBundle bundle = TrackerSideEffectDataBundle.builder().accessedBy( "test-user" ).build();
+        TrackerSideEffectBatch batch = TrackerSideEffectBatch.builder().accessedBy( "test-user" )
+            .bundles( Arrays.asList( TrackerSideEffectDataBundle.builder().accessedBy( "test-user" ).build() ) )
+            .build();
 
         when( textMessage.getText() ).thenReturn( "text" );
         when( objectFactory.getObject() ).thenReturn( trackerRuleEngineThread );
         doNothing().when( taskExecutor ).executeTask( any( Runnable.class ) );
 
-        when( renderService.fromJson( anyString(), eq( TrackerSideEffectDataBundle.class ) ) ).thenReturn( null );
+        when( renderService.fromJson( anyString(), eq( TrackerSideEffectBatch.class ) ) ).thenReturn( null );
         trackerRuleEngineMessageManager.consume( textMessage );
 
         verify( taskExecutor, times( 0 ) ).executeTask( any( Runnable.class ) );
 
-        doReturn( bundle ).when( renderService ).fromJson( anyString(), eq( TrackerSideEffectDataBundle.class ) );
+        doReturn( batch ).when( renderService ).fromJson( anyString(), eq( TrackerSideEffectBatch.class ) );
         trackerRuleEngineMessageManager.consume( textMessage );
 
         Mockito.verify( taskExecutor ).executeTask( runnableArgumentCaptor.capture() );
 
         assertTrue( runnableArgumentCaptor.getValue() instanceof TrackerRuleEngineThread );
     }
+
+    @Test
+    public void test_add_jobs_in_batches_by_program()
+    {
+        doNothing().when( messageManager ).sendQueue( anyString(), any( TrackerSideEffectBatch.class ) );
+
+        List<TrackerSideEffectDataBundle> bundles = Arrays.asList( bundle( "programA" ), bundle( "programB" ),
+            bundle( "programA" ), bundle( "programA" ) );
+
+        String jobId = trackerRuleEngineMessageManager.addJobs( bundles );
+
+        verify( messageManager, times( 3 ) ).sendQueue( topicCaptor.capture(), batchArgumentCaptor.capture() );
+
+        List<TrackerSideEffectBatch> batches = batchArgumentCaptor.getAllValues();
+
+        assertEquals( "programA", batches.get( 0 ).getProgram() );
+        assertEquals( 2, batches.get( 0 ).getBundles().size() );
+        assertEquals( "programA", batches.get( 1 ).getProgram() );
+        assertEquals( 1, batches.get( 1 ).getBundles().size() );
+        assertEquals( "programB", batches.get( 2 ).getProgram() );
+        assertEquals( 1, batches.get( 2 ).getBundles().size() );
+
+        batches.forEach( batch -> assertEquals( jobId, batch.getJobId() ) );
+        bundles.forEach( bundle -> assertEquals( jobId, bundle.getJobId() ) );
+    }
+
+    private TrackerSideEffectDataBundle bundle( String program )
+    {
+        Program p = new Program();
+        p.setUid( program );
+
+        return TrackerSideEffectDataBundle.builder().program( p ).accessedBy( "test-user" ).build();
+    }
 }
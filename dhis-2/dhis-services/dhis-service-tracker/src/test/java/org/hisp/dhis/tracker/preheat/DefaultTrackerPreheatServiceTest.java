@@ -27,12 +27,17 @@
  */
 package org.hisp.dhis.tracker.preheat;
 
+import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 import java.util.Collections;
+import java.util.concurrent.ForkJoinPool;
 
 import org.hisp.dhis.common.IdentifiableObjectManager;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.hisp.dhis.tracker.TrackerImportParams;
 import org.hisp.dhis.tracker.domain.TrackedEntity;
 import org.hisp.dhis.tracker.preheat.supplier.*;
@@ -42,6 +47,7 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnit;
 import org.mockito.junit.MockitoRule;
@@ -64,9 +70,15 @@ public class DefaultTrackerPreheatServiceTest
     @Mock
     private ClassBasedSupplier classBasedSupplier;
 
+    @Mock
+    private ProgramOrgUnitsSupplier programOrgUnitsSupplier;
+
     @Mock
     private ApplicationContext applicationContext;
 
+    @Mock
+    private DhisConfigurationProvider config;
+
     @Captor
     private ArgumentCaptor<Class<PreheatSupplier>> preheatSupplierClassCaptor;
 
@@ -84,9 +96,10 @@ public class DefaultTrackerPreheatServiceTest
     public void setUp()
     {
         preheatService = new DefaultTrackerPreheatService( manager, ImmutableList.of(
-            ClassBasedSupplier.class.getSimpleName() ) );
+            ClassBasedSupplier.class.getSimpleName() ), config, Runnable::run );
 
         preheatService.setApplicationContext( applicationContext );
+        when( config.getProperty( ConfigurationKey.TRACKER_IMPORT_PREHEAT_PARALLEL_THREADS ) ).thenReturn( "0" );
         when( manager.get( User.class, getUser().getUid() ) ).thenReturn( getUser() );
     }
 
@@ -131,6 +144,30 @@ public class DefaultTrackerPreheatServiceTest
         verify( classBasedSupplier ).add( any(), any() );
     }
 
+    @Test
+    public void shouldRunJdbcSupplierInParallelAfterDependency()
+    {
+        preheatService = new DefaultTrackerPreheatService( manager, ImmutableList.of(
+            ClassBasedSupplier.class.getSimpleName(), ProgramOrgUnitsSupplier.class.getSimpleName() ), config,
+            ForkJoinPool.commonPool() );
+        preheatService.setApplicationContext( applicationContext );
+
+        when( config.getProperty( ConfigurationKey.TRACKER_IMPORT_PREHEAT_PARALLEL_THREADS ) ).thenReturn( "2" );
+        when( applicationContext.getBean( eq( "classBasedSupplier" ), eq( PreheatSupplier.class ) ) )
+            .thenReturn( classBasedSupplier );
+        when( applicationContext.getBean( eq( "programOrgUnitsSupplier" ), eq( PreheatSupplier.class ) ) )
+            .thenReturn( programOrgUnitsSupplier );
+
+        TrackerPreheat preheat = preheatService.preheat( preheatParams );
+
+        InOrder inOrder = inOrder( classBasedSupplier, programOrgUnitsSupplier );
+        inOrder.verify( classBasedSupplier ).add( any(), any() );
+        inOrder.verify( programOrgUnitsSupplier ).add( any(), any() );
+
+        assertTrue( preheat.getSupplierTimings().containsKey( ClassBasedSupplier.class.getSimpleName() ) );
+        assertTrue( preheat.getSupplierTimings().containsKey( ProgramOrgUnitsSupplier.class.getSimpleName() ) );
+    }
+
     private User getUser()
     {
         User user = new User();
@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.tracker.preheat.cache;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.hisp.dhis.common.IdentifiableObject;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.hisp.dhis.program.Program;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+import org.springframework.core.env.Environment;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class DefaultPreheatCacheServiceTest
+{
+    private static final String CACHE_KEY = Program.class.getName();
+
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    @Mock
+    private DhisConfigurationProvider config;
+
+    @Mock
+    private Environment environment;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private DefaultPreheatCacheService cache;
+
+    @Before
+    public void setUp()
+    {
+        when( environment.getActiveProfiles() ).thenReturn( new String[] {} );
+        when( config.isEnabled( ConfigurationKey.TRACKER_IMPORT_PREHEAT_CACHE_ENABLED ) ).thenReturn( true );
+        when( config.getProperty( ConfigurationKey.TRACKER_IMPORT_PREHEAT_CACHE_MAX_ENTRIES ) ).thenReturn( "3" );
+
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new DefaultPreheatCacheService( config, environment, meterRegistry );
+    }
+
+    @Test
+    public void shouldReturnAllObjectsPutTogether()
+    {
+        Program programA = program( "programA" );
+        Program programB = program( "programB" );
+
+        cache.putAll( CACHE_KEY, objects( programA, programB ), 10, 10 );
+
+        assertTrue( cache.hasKey( CACHE_KEY ) );
+        assertThat( cache.getAll( CACHE_KEY ), contains( programA, programB ) );
+        assertSame( cache.getAll( CACHE_KEY ), cache.getAll( CACHE_KEY ) );
+        assertSame( programA, cache.get( CACHE_KEY, "programA" ).get() );
+    }
+
+    @Test
+    public void shouldNotReturnPartialListWhenObjectsAreEvicted()
+    {
+        cache.putAll( CACHE_KEY, objects( program( "programA" ), program( "programB" ) ), 10, 1 );
+
+        assertFalse( cache.hasKey( CACHE_KEY ) );
+        assertThat( cache.getAll( CACHE_KEY ), is( empty() ) );
+    }
+
+    @Test
+    public void shouldNotCacheObjectsBeyondMaxEntries()
+    {
+        cache.putAll( CACHE_KEY, objects( program( "programA" ), program( "programB" ) ), 10, 10 );
+        cache.put( "other", "programC", program( "programC" ), 10, 10 );
+        cache.put( "other", "programD", program( "programD" ), 10, 10 );
+
+        assertTrue( cache.get( "other", "programC" ).isPresent() );
+        assertFalse( cache.get( "other", "programD" ).isPresent() );
+    }
+
+    @Test
+    public void shouldInvalidateCache()
+    {
+        cache.putAll( CACHE_KEY, objects( program( "programA" ) ), 10, 10 );
+
+        cache.invalidateCache();
+
+        assertFalse( cache.hasKey( CACHE_KEY ) );
+        assertFalse( cache.get( CACHE_KEY, "programA" ).isPresent() );
+    }
+
+    @Test
+    public void shouldCountHitsAndMisses()
+    {
+        cache.put( CACHE_KEY, "programA", program( "programA" ), 10, 10 );
+
+        cache.get( CACHE_KEY, "programA" );
+        cache.get( CACHE_KEY, "programB" );
+        cache.get( CACHE_KEY, "programC" );
+
+        assertThat( meterRegistry.get( "tracker.preheat.cache.gets" ).tag( "result", "hit" ).counter().count(),
+            is( 1.0 ) );
+        assertThat( meterRegistry.get( "tracker.preheat.cache.gets" ).tag( "result", "miss" ).counter().count(),
+            is( 2.0 ) );
+        assertThat( meterRegistry.get( "tracker.preheat.cache.size" ).gauge().value(), is( 1.0 ) );
+    }
+
+    private Program program( String uid )
+    {
+        Program program = new Program();
+        program.setUid( uid );
+        return program;
+    }
+
+    private Map<String, IdentifiableObject> objects( Program... programs )
+    {
+        Map<String, IdentifiableObject> objects = new LinkedHashMap<>();
+
+        for ( Program program : programs )
+        {
+            objects.put( program.getUid(), program );
+        }
+
+        return objects;
+    }
+}
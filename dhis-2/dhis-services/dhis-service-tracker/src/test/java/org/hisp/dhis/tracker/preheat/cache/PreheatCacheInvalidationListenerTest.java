@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.tracker.preheat.cache;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hisp.dhis.common.IdentifiableObjectManager;
+import org.hisp.dhis.option.OptionSet;
+import org.hisp.dhis.organisationunit.OrganisationUnit;
+import org.hisp.dhis.program.Program;
+import org.hisp.dhis.program.ProgramStageDataElement;
+import org.hisp.dhis.program.ProgramStageInstance;
+import org.hisp.dhis.query.QueryService;
+import org.hisp.dhis.schema.SchemaService;
+import org.hisp.dhis.trackedentity.TrackedEntityAttribute;
+import org.hisp.dhis.trackedentity.TrackedEntityInstance;
+import org.hisp.dhis.tracker.preheat.supplier.strategy.DataElementStrategy;
+import org.hisp.dhis.tracker.preheat.supplier.strategy.OrgUnitStrategy;
+import org.hisp.dhis.tracker.preheat.supplier.strategy.ProgramStrategy;
+import org.hisp.dhis.user.User;
+import org.hisp.dhis.user.UserGroup;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+import com.google.common.collect.ImmutableList;
+
+public class PreheatCacheInvalidationListenerTest
+{
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    @Mock
+    private PreheatCacheService preheatCacheService;
+
+    @Mock
+    private SchemaService schemaService;
+
+    @Mock
+    private QueryService queryService;
+
+    @Mock
+    private IdentifiableObjectManager manager;
+
+    private PreheatCacheInvalidationListener listener;
+
+    @Before
+    public void setUp()
+    {
+        listener = new PreheatCacheInvalidationListener( preheatCacheService, ImmutableList.of(
+            new ProgramStrategy( schemaService, queryService, manager, preheatCacheService ),
+            new OrgUnitStrategy( schemaService, queryService, manager, preheatCacheService ),
+            new DataElementStrategy( schemaService, queryService, manager, preheatCacheService ) ) );
+    }
+
+    @Test
+    public void shouldInvalidateWhenCachedTypeIsUpdated()
+    {
+        PostUpdateEvent event = mock( PostUpdateEvent.class );
+        when( event.getEntity() ).thenReturn( new Program() );
+
+        listener.onPostUpdate( event );
+
+        verify( preheatCacheService ).invalidateCache();
+    }
+
+    @Test
+    public void shouldInvalidateWhenCachedTypeIsInsertedOrDeleted()
+    {
+        PostInsertEvent insertEvent = mock( PostInsertEvent.class );
+        when( insertEvent.getEntity() ).thenReturn( new OrganisationUnit() );
+        PostDeleteEvent deleteEvent = mock( PostDeleteEvent.class );
+        when( deleteEvent.getEntity() ).thenReturn( new Program() );
+
+        listener.onPostInsert( insertEvent );
+        listener.onPostDelete( deleteEvent );
+
+        verify( preheatCacheService, times( 2 ) ).invalidateCache();
+    }
+
+    @Test
+    public void shouldInvalidateWhenTypeReachableFromCachedTypeIsUpdated()
+    {
+        PostUpdateEvent attributeEvent = mock( PostUpdateEvent.class );
+        when( attributeEvent.getEntity() ).thenReturn( new TrackedEntityAttribute() );
+        PostUpdateEvent optionSetEvent = mock( PostUpdateEvent.class );
+        when( optionSetEvent.getEntity() ).thenReturn( new OptionSet() );
+        PostUpdateEvent programStageDataElementEvent = mock( PostUpdateEvent.class );
+        when( programStageDataElementEvent.getEntity() ).thenReturn( new ProgramStageDataElement() );
+
+        listener.onPostUpdate( attributeEvent );
+        listener.onPostUpdate( optionSetEvent );
+        listener.onPostUpdate( programStageDataElementEvent );
+
+        verify( preheatCacheService, times( 3 ) ).invalidateCache();
+    }
+
+    @Test
+    public void shouldInvalidateWhenUserOrUserGroupIsUpdated()
+    {
+        PostUpdateEvent userEvent = mock( PostUpdateEvent.class );
+        when( userEvent.getEntity() ).thenReturn( new User() );
+        PostUpdateEvent userGroupEvent = mock( PostUpdateEvent.class );
+        when( userGroupEvent.getEntity() ).thenReturn( new UserGroup() );
+
+        listener.onPostUpdate( userEvent );
+        listener.onPostUpdate( userGroupEvent );
+
+        verify( preheatCacheService, times( 2 ) ).invalidateCache();
+    }
+
+    @Test
+    public void shouldNotInvalidateWhenUncachedTypeIsUpdated()
+    {
+        PostUpdateEvent trackedEntityEvent = mock( PostUpdateEvent.class );
+        when( trackedEntityEvent.getEntity() ).thenReturn( new TrackedEntityInstance() );
+        PostUpdateEvent eventEvent = mock( PostUpdateEvent.class );
+        when( eventEvent.getEntity() ).thenReturn( new ProgramStageInstance() );
+
+        listener.onPostUpdate( trackedEntityEvent );
+        listener.onPostUpdate( eventEvent );
+
+        verify( preheatCacheService, never() ).invalidateCache();
+    }
+}
@@ -49,6 +49,8 @@ import org.mockito.junit.MockitoJUnit;
 import org.mockito.junit.MockitoRule;
 import org.springframework.core.env.Environment;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
 /**
  * @author Luciano Fiandesio
  */
@@ -73,7 +75,7 @@ public class PeriodTypeSupplierTest
     @Before
     public void setUp()
     {
-        final PreheatCacheService cache = new DefaultPreheatCacheService( conf, env );
+        final PreheatCacheService cache = new DefaultPreheatCacheService( conf, env, new SimpleMeterRegistry() );
         supplier = new PeriodTypeSupplier( periodStore, cache );
         when( env.getActiveProfiles() ).thenReturn( new String[] {} );
     }
@@ -27,6 +27,8 @@
  */
 package org.hisp.dhis.tracker.preheat.supplier.strategy;
 
+import static com.google.common.collect.Lists.newArrayList;
+import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.hasSize;
@@ -55,6 +57,7 @@ import org.hisp.dhis.tracker.preheat.cache.PreheatCacheService;
 import org.hisp.dhis.tracker.preheat.mappers.CopyMapper;
 import org.hisp.dhis.tracker.preheat.mappers.ProgramMapper;
 import org.hisp.dhis.tracker.preheat.mappers.RelationshipTypeMapper;
+import org.hisp.dhis.user.User;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -86,10 +89,16 @@ public class AbstractSchemaStrategyCachingTest
 
     private BeanRandomizer rnd;
 
+    private User user;
+
     @Before
     public void setUp()
     {
+        user = new User();
+        user.setUid( CodeGenerator.generateUid() );
+
         preheat = new TrackerPreheat();
+        preheat.setUser( user );
         rnd = new BeanRandomizer();
     }
 
@@ -114,7 +123,8 @@ public class AbstractSchemaStrategyCachingTest
 
         verify( cache, times( 1 ) ).hasKey( "RelationshipType" );
 
-        verify( cache, times( 5 ) ).put( eq( "RelationshipType" ), anyString(), any(), eq( 10 ), eq( 10L ) );
+        verify( cache, times( 1 ) ).putAll( eq( "RelationshipType" ), argThat( objects -> objects.size() == 5 ),
+            eq( 10 ), eq( 10L ) );
     }
 
     @Test
@@ -126,7 +136,8 @@ public class AbstractSchemaStrategyCachingTest
         String UID = CodeGenerator.generateUid();
 
         Program program = rnd.randomObject( Program.class );
-        when( cache.get( Program.class.getSimpleName(), UID ) ).thenReturn( Optional.of( program ) );
+        when( cache.get( Program.class.getSimpleName(), user.getUid() + ":" + UID ) )
+            .thenReturn( Optional.of( program ) );
 
         ProgramStrategy strategy = new ProgramStrategy( schemaService, queryService,
             manager, cache );
@@ -137,6 +148,36 @@ public class AbstractSchemaStrategyCachingTest
 
         // Then
         assertThat( preheat.getAll( Program.class ), hasSize( 1 ) );
+
+        verify( queryService, never() ).query( any( Query.class ) );
+    }
+
+    @Test
+    public void verifyObjectCachedForOtherUserIsNotReturned()
+    {
+        // Given
+        final Schema schema = new ProgramSchemaDescriptor().getSchema();
+
+        String UID = CodeGenerator.generateUid();
+
+        Program program = rnd.randomObject( Program.class );
+        when( cache.get( Program.class.getSimpleName(), "otherUserId:" + UID ) )
+            .thenReturn( Optional.of( program ) );
+        when( cache.get( Program.class.getSimpleName(), user.getUid() + ":" + UID ) )
+            .thenReturn( Optional.empty() );
+
+        doReturn( emptyList() ).when( queryService ).query( any( Query.class ) );
+        ProgramStrategy strategy = new ProgramStrategy( schemaService, queryService,
+            manager, cache );
+
+        // When
+        strategy.queryForIdentifiableObjects( preheat, schema, TrackerIdentifier.UID,
+            singletonList( newArrayList( UID ) ), CopyMapper.class );
+
+        // Then
+        assertThat( preheat.getAll( Program.class ), hasSize( 0 ) );
+
+        verify( queryService ).query( argThat( query -> query.getUser() == user ) );
     }
 
     @Test
@@ -162,7 +203,8 @@ public class AbstractSchemaStrategyCachingTest
         // Then
         assertThat( preheat.getAll( Program.class ), hasSize( 1 ) );
 
-        verify( cache, times( 1 ) ).put( eq( "Program" ), anyString(), any(), eq( 20 ), eq( 10L ) );
+        verify( cache, times( 1 ) ).put( eq( "Program" ), eq( user.getUid() + ":" + program.getUid() ), any(),
+            eq( 20 ), eq( 10L ) );
     }
 
 }
\ No newline at end of file
@@ -33,6 +33,8 @@ import static org.mockito.Mockito.*;
 
 import java.util.Arrays;
 
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.hisp.dhis.tracker.ValidationMode;
 import org.hisp.dhis.tracker.bundle.TrackerBundle;
 import org.hisp.dhis.tracker.report.TrackerErrorCode;
@@ -66,6 +68,9 @@ public class DefaultTrackerValidationServiceTest
     @Mock
     private TrackerBundle bundle;
 
+    @Mock
+    private DhisConfigurationProvider config;
+
     @Mock
     private User user;
 
@@ -74,6 +79,8 @@ public class DefaultTrackerValidationServiceTest
     {
         ReflectionTestUtils.setField( trackerValidationService, "validationHooks",
             Arrays.asList( trackedEntityAttributeValidationHook, eventDataValuesValidationHook ) );
+
+        when( config.getProperty( ConfigurationKey.TRACKER_IMPORT_VALIDATION_PARALLEL_THREADS ) ).thenReturn( "0" );
     }
 
     @Test
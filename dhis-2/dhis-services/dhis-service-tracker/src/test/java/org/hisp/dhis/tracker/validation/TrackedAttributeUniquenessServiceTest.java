@@ -0,0 +1,209 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.tracker.validation;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.hisp.dhis.tracker.domain.Attribute;
+import org.hisp.dhis.tracker.domain.Enrollment;
+import org.hisp.dhis.tracker.domain.TrackedEntity;
+import org.hisp.dhis.tracker.preheat.TrackerPreheat;
+import org.hisp.dhis.tracker.preheat.UniqueAttributeValue;
+import org.hisp.dhis.tracker.validation.service.attribute.TrackedAttributeUniquenessService;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.google.common.collect.Lists;
+
+public class TrackedAttributeUniquenessServiceTest
+{
+    private static final String UNIQUE_ATTRIBUTE = "uniqueAttr";
+
+    private static final Set<String> UNIQUE_ATTRIBUTES = Collections.singleton( UNIQUE_ATTRIBUTE );
+
+    @Rule
+    public MockitoRule rule = MockitoJUnit.rule();
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private TrackedAttributeUniquenessService service;
+
+    @Before
+    public void setUp()
+    {
+        service = new TrackedAttributeUniquenessService( jdbcTemplate );
+    }
+
+    @Test
+    public void testDuplicatedValuesAcrossTrackedEntities()
+    {
+        List<TrackedEntity> trackedEntities = Lists.newArrayList(
+            trackedEntity( "teiA", "value" ), trackedEntity( "teiB", "value" ), trackedEntity( "teiC", "other" ) );
+
+        List<UniqueAttributeValue> duplicates = service.getDuplicatedValues(
+            service.getPayloadValues( trackedEntities, Collections.emptyList(), new TrackerPreheat(),
+                UNIQUE_ATTRIBUTES ) );
+
+        assertThat( getTrackedEntities( duplicates ), containsInAnyOrder( "teiA", "teiB" ) );
+    }
+
+    @Test
+    public void testSameValueInTrackedEntityAndEnrollmentIsNotDuplicated()
+    {
+        Enrollment enrollment = Enrollment.builder()
+            .trackedEntity( "teiA" )
+            .attributes( Collections.singletonList( attribute( "value" ) ) )
+            .build();
+
+        List<UniqueAttributeValue> duplicates = service.getDuplicatedValues(
+            service.getPayloadValues( Collections.singletonList( trackedEntity( "teiA", "value" ) ),
+                Collections.singletonList( enrollment ), new TrackerPreheat(), UNIQUE_ATTRIBUTES ) );
+
+        assertThat( duplicates, is( empty() ) );
+    }
+
+    @Test
+    public void testPayloadValuesIgnoreNonUniqueAttributes()
+    {
+        List<UniqueAttributeValue> values = service.getPayloadValues(
+            Collections.singletonList( trackedEntity( "teiA", "value" ) ), Collections.emptyList(),
+            new TrackerPreheat(), Collections.singleton( "otherAttr" ) );
+
+        assertThat( values, is( empty() ) );
+    }
+
+    @Test
+    public void testNoQueryWithoutPayloadValues()
+    {
+        assertThat( service.getPersistedValues( Collections.emptyList() ), is( empty() ) );
+
+        verifyNoInteractions( jdbcTemplate );
+    }
+
+    @Test
+    public void testDuplicatedValuesIgnoreCase()
+    {
+        List<TrackedEntity> trackedEntities = Lists.newArrayList(
+            trackedEntity( "teiA", "Value" ), trackedEntity( "teiB", "VALUE" ) );
+
+        List<UniqueAttributeValue> duplicates = service.getDuplicatedValues(
+            service.getPayloadValues( trackedEntities, Collections.emptyList(), new TrackerPreheat(),
+                UNIQUE_ATTRIBUTES ) );
+
+        assertThat( getTrackedEntities( duplicates ), containsInAnyOrder( "teiA", "teiB" ) );
+    }
+
+    @Test
+    public void testValueReservedByConcurrentImportFailsUniqueness()
+    {
+        TrackedAttributeUniquenessService.Reservation first = service.createReservation();
+        TrackedAttributeUniquenessService.Reservation second = service.createReservation();
+
+        assertThat( service.reserve( first, values( "teiA", "value" ) ), is( empty() ) );
+        assertThat( getTrackedEntities( service.reserve( second, values( "teiB", "value" ) ) ),
+            containsInAnyOrder( "teiA" ) );
+
+        second.release();
+        first.release();
+
+        TrackedAttributeUniquenessService.Reservation third = service.createReservation();
+
+        assertThat( service.reserve( third, values( "teiC", "value" ) ), is( empty() ) );
+
+        third.release();
+    }
+
+    @Test
+    public void testValueReservedByConcurrentImportIgnoresCase()
+    {
+        TrackedAttributeUniquenessService.Reservation first = service.createReservation();
+        TrackedAttributeUniquenessService.Reservation second = service.createReservation();
+
+        service.reserve( first, values( "teiA", "Value" ) );
+
+        assertThat( getTrackedEntities( service.reserve( second, values( "teiB", "VALUE" ) ) ),
+            containsInAnyOrder( "teiA" ) );
+
+        second.release();
+        first.release();
+    }
+
+    @Test
+    public void testValueReservedForSameTrackedEntityDoesNotConflict()
+    {
+        TrackedAttributeUniquenessService.Reservation first = service.createReservation();
+        TrackedAttributeUniquenessService.Reservation second = service.createReservation();
+
+        service.reserve( first, values( "teiA", "value" ) );
+
+        assertThat( service.reserve( second, values( "teiA", "value" ) ), is( empty() ) );
+
+        second.release();
+        first.release();
+    }
+
+    private List<UniqueAttributeValue> values( String trackedEntity, String value )
+    {
+        return service.getPayloadValues( Collections.singletonList( trackedEntity( trackedEntity, value ) ),
+            Collections.emptyList(), new TrackerPreheat(), UNIQUE_ATTRIBUTES );
+    }
+
+    private TrackedEntity trackedEntity( String uid, String value )
+    {
+        return TrackedEntity.builder()
+            .trackedEntity( uid )
+            .orgUnit( "orgUnit" )
+            .attributes( Collections.singletonList( attribute( value ) ) )
+            .build();
+    }
+
+    private Attribute attribute( String value )
+    {
+        return Attribute.builder().attribute( UNIQUE_ATTRIBUTE ).value( value ).build();
+    }
+
+    private List<String> getTrackedEntities( List<UniqueAttributeValue> values )
+    {
+        return values.stream().map( UniqueAttributeValue::getTeiUid ).collect( Collectors.toList() );
+    }
+}
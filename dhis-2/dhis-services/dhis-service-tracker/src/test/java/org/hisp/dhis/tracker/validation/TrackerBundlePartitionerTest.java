@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.tracker.validation;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+
+import java.util.List;
+
+import org.hisp.dhis.tracker.bundle.TrackerBundle;
+import org.hisp.dhis.tracker.domain.Enrollment;
+import org.hisp.dhis.tracker.domain.Event;
+import org.hisp.dhis.tracker.domain.TrackedEntity;
+import org.hisp.dhis.tracker.domain.TrackerDto;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+public class TrackerBundlePartitionerTest
+{
+    @Test
+    public void shouldKeepTrackedEntityWithItsEnrollmentsAndEvents()
+    {
+        TrackedEntity teiA = TrackedEntity.builder().trackedEntity( "teiA" ).build();
+        TrackedEntity teiB = TrackedEntity.builder().trackedEntity( "teiB" ).build();
+        Enrollment enrollmentA = Enrollment.builder().enrollment( "enrollmentA" ).trackedEntity( "teiA" ).build();
+        Enrollment enrollmentB = Enrollment.builder().enrollment( "enrollmentB" ).trackedEntity( "teiB" ).build();
+        Event eventA = Event.builder().event( "eventA" ).enrollment( "enrollmentA" ).build();
+        Event eventB = Event.builder().event( "eventB" ).enrollment( "enrollmentB" ).build();
+
+        TrackerBundle bundle = TrackerBundle.builder()
+            .trackedEntities( Lists.newArrayList( teiA, teiB ) )
+            .enrollments( Lists.newArrayList( enrollmentB, enrollmentA ) )
+            .events( Lists.newArrayList( eventA, eventB ) )
+            .build();
+
+        List<List<TrackerDto>> partitions = TrackerBundlePartitioner.partition( bundle, 2 );
+
+        assertThat( partitions, hasSize( 2 ) );
+        assertThat( partitions.get( 0 ), contains( teiA, enrollmentA, eventA ) );
+        assertThat( partitions.get( 1 ), contains( teiB, enrollmentB, eventB ) );
+    }
+
+    @Test
+    public void shouldGroupObjectsWithParentNotInBundle()
+    {
+        Enrollment enrollment = Enrollment.builder().enrollment( "enrollment" ).trackedEntity( "tei" ).build();
+        Event eventA = Event.builder().event( "eventA" ).enrollment( "existingEnrollment" ).build();
+        Event eventB = Event.builder().event( "eventB" ).build();
+        Event eventC = Event.builder().event( "eventC" ).enrollment( "existingEnrollment" ).build();
+
+        TrackerBundle bundle = TrackerBundle.builder()
+            .enrollments( Lists.newArrayList( enrollment ) )
+            .events( Lists.newArrayList( eventA, eventB, eventC ) )
+            .build();
+
+        List<List<TrackerDto>> partitions = TrackerBundlePartitioner.partition( bundle, 10 );
+
+        assertThat( partitions, hasSize( 3 ) );
+        assertThat( partitions.get( 0 ), contains( enrollment ) );
+        assertThat( partitions.get( 1 ), contains( eventA, eventC ) );
+        assertThat( partitions.get( 2 ), contains( eventB ) );
+    }
+
+    @Test
+    public void shouldPackRootsIntoMaxPartitions()
+    {
+        TrackerBundle bundle = TrackerBundle.builder().build();
+
+        for ( int i = 0; i < 10; i++ )
+        {
+            bundle.getEvents().add( Event.builder().event( "event" + i ).build() );
+        }
+
+        List<List<TrackerDto>> partitions = TrackerBundlePartitioner.partition( bundle, 3 );
+
+        assertThat( partitions, hasSize( 3 ) );
+        assertThat( partitions.get( 0 ), hasSize( 4 ) );
+        assertThat( partitions.get( 1 ), hasSize( 4 ) );
+        assertThat( partitions.get( 2 ), hasSize( 2 ) );
+    }
+}
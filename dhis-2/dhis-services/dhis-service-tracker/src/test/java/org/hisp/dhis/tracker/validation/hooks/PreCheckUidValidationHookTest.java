@@ -28,14 +28,21 @@
 package org.hisp.dhis.tracker.validation.hooks;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.hisp.dhis.tracker.report.TrackerErrorCode.*;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
 import org.hisp.dhis.common.CodeGenerator;
 import org.hisp.dhis.tracker.bundle.TrackerBundle;
 import org.hisp.dhis.tracker.domain.*;
+import org.hisp.dhis.tracker.report.TrackerErrorReport;
 import org.hisp.dhis.tracker.report.ValidationErrorReporter;
 import org.hisp.dhis.tracker.validation.TrackerImportValidationContext;
 import org.junit.Before;
@@ -227,4 +234,62 @@ public class PreCheckUidValidationHookTest
         assertTrue( reporter.hasErrors() );
         assertThat( reporter.getReportList().get( 0 ).getErrorCode(), is( E1048 ) );
     }
-}
\ No newline at end of file
+
+    @Test
+    public void verifyParallelValidationReportsInBundleOrder()
+    {
+        // given
+        List<String> uids = Lists.newArrayList();
+        for ( int i = 0; i < 100; i++ )
+        {
+            uids.add( i % 10 == 0 ? INVALID_UID + i : CodeGenerator.generateUid() );
+        }
+
+        TrackerImportValidationContext sequential = new TrackerImportValidationContext( bundleOf( uids ) );
+
+        TrackerImportValidationContext parallel = new TrackerImportValidationContext( bundleOf( uids ) );
+        ExecutorService executor = Executors.newFixedThreadPool( 4 );
+        parallel.setExecutor( executor );
+        parallel.setMaxPartitions( 16 );
+
+        // when
+        validationHook.validate( sequential );
+
+        try
+        {
+            validationHook.validate( parallel );
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+
+        // then
+        assertThat( parallel.getRootReporter().getReportList(), hasSize( 30 ) );
+        assertThat( reportedUids( parallel ), is( reportedUids( sequential ) ) );
+        assertThat( parallel.getBundle().getTrackedEntities(), is( sequential.getBundle().getTrackedEntities() ) );
+        assertThat( parallel.getBundle().getEnrollments(), is( sequential.getBundle().getEnrollments() ) );
+        assertThat( parallel.getBundle().getEvents(), is( sequential.getBundle().getEvents() ) );
+    }
+
+    private TrackerBundle bundleOf( List<String> uids )
+    {
+        TrackerBundle bundle = TrackerBundle.builder().build();
+
+        for ( String uid : uids )
+        {
+            bundle.getTrackedEntities().add( TrackedEntity.builder().trackedEntity( uid ).build() );
+            bundle.getEnrollments().add( Enrollment.builder().enrollment( uid ).trackedEntity( uid ).build() );
+            bundle.getEvents().add( Event.builder().event( uid ).enrollment( uid ).build() );
+        }
+
+        return bundle;
+    }
+
+    private List<String> reportedUids( TrackerImportValidationContext context )
+    {
+        return context.getRootReporter().getReportList().stream()
+            .map( TrackerErrorReport::getUid )
+            .collect( Collectors.toList() );
+    }
+}
@@ -27,10 +27,25 @@
  */
 package org.hisp.dhis.artemis;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 /**
  * @author Morten Olav Hansen <mortenoh@gmail.com>
  */
 public interface Message
 {
     MessageType getMessageType();
+
+    /**
+     * Returns the group of the message. Messages of the same group sent to a
+     * queue are consumed by the same consumer, in the order they were sent.
+     * Messages without group can be consumed concurrently.
+     *
+     * @return the group of the message, or null if the message has no group.
+     */
+    @JsonIgnore
+    default String getGroupId()
+    {
+        return null;
+    }
 }
@@ -27,6 +27,14 @@
  */
 package org.hisp.dhis.artemis;
 
+import javax.jms.JMSException;
+import javax.jms.MessageConsumer;
+import javax.jms.MessageProducer;
+import javax.jms.TemporaryQueue;
+import javax.jms.TextMessage;
+
+import org.apache.activemq.artemis.api.core.management.ResourceNames;
+import org.apache.activemq.artemis.api.jms.management.JMSManagementHelper;
 import org.apache.activemq.artemis.jms.client.ActiveMQQueue;
 import org.apache.activemq.artemis.jms.client.ActiveMQTopic;
 import org.hisp.dhis.render.RenderService;
@@ -39,6 +47,20 @@ import org.springframework.stereotype.Component;
 @Component
 public class MessageManager
 {
+    /**
+     * Message property used by Artemis to group messages
+     */
+    private static final String JMSX_GROUP_ID = "JMSXGroupID";
+
+    /**
+     * Queue receiving the requests to the Artemis management API
+     */
+    private static final ActiveMQQueue MANAGEMENT_QUEUE = new ActiveMQQueue( "activemq.management" );
+
+    private static final String MESSAGE_COUNT = "messageCount";
+
+    private static final long MANAGEMENT_TIMEOUT_MILLIS = 1000;
+
     private final JmsTemplate jmsTopicTemplate;
 
     private final JmsTemplate jmsQueueTemplate;
@@ -66,7 +88,64 @@ public class MessageManager
 
     public void sendQueue( String destinationName, Message message )
     {
-        jmsQueueTemplate.send( new ActiveMQQueue( destinationName ),
-            session -> session.createTextMessage( renderService.toJsonAsString( message ) ) );
+        jmsQueueTemplate.send( new ActiveMQQueue( destinationName ), session -> {
+            TextMessage textMessage = session.createTextMessage( renderService.toJsonAsString( message ) );
+
+            if ( message.getGroupId() != null )
+            {
+                textMessage.setStringProperty( JMSX_GROUP_ID, message.getGroupId() );
+            }
+
+            return textMessage;
+        } );
+    }
+
+    /**
+     * Returns the number of messages waiting in the given queue, as reported
+     * by the message count attribute of the Artemis management API. The
+     * messages themselves are not read.
+     *
+     * @param destinationName the name of the queue.
+     * @return the number of messages in the queue, or null if the management
+     *         API did not answer.
+     */
+    public Long getQueueDepth( String destinationName )
+    {
+        return jmsQueueTemplate.execute( session -> {
+            javax.jms.Message request = session.createMessage();
+            JMSManagementHelper.putAttribute( request, ResourceNames.QUEUE + destinationName, MESSAGE_COUNT );
+
+            TemporaryQueue replyQueue = session.createTemporaryQueue();
+            request.setJMSReplyTo( replyQueue );
+
+            try ( MessageProducer producer = session.createProducer( MANAGEMENT_QUEUE );
+                MessageConsumer consumer = session.createConsumer( replyQueue ) )
+            {
+                producer.send( request );
+
+                javax.jms.Message reply = consumer.receive( MANAGEMENT_TIMEOUT_MILLIS );
+
+                if ( reply == null || !JMSManagementHelper.hasOperationSucceeded( reply ) )
+                {
+                    return null;
+                }
+
+                return Long.valueOf( ((Number) JMSManagementHelper.getResult( reply )).longValue() );
+            }
+            catch ( JMSException e )
+            {
+                throw e;
+            }
+            catch ( Exception e )
+            {
+                JMSException jmsException = new JMSException( "Unable to read message count of " + destinationName );
+                jmsException.setLinkedException( e );
+                throw jmsException;
+            }
+            finally
+            {
+                replyQueue.delete();
+            }
+        }, true );
     }
 }
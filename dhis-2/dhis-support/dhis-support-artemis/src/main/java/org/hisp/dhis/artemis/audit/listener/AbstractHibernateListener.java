@@ -41,6 +41,7 @@ import java.util.Optional;
 import lombok.extern.slf4j.Slf4j;
 
 import org.hibernate.Hibernate;
+import org.hibernate.Session;
 import org.hibernate.event.spi.EventSource;
 import org.hibernate.event.spi.PostDeleteEvent;
 import org.hibernate.event.spi.PostInsertEvent;
@@ -223,6 +224,24 @@ public abstract class AbstractHibernateListener
         return objectMap;
     }
 
+    /**
+     * Create serializable Map<String, Object> based on the current property
+     * values of the given Audit Entity, following the same rules as
+     * {@link #createAuditEntry(Object, Object[], EventSource, Serializable, EntityPersister)}.
+     * Used for entities which are written with JDBC statements, which do not
+     * trigger the Hibernate listeners.
+     *
+     * @return Map<String, Object> with key is property name and value is
+     *         property value.
+     */
+    public Object createAuditEntry( Object entity, Serializable id, Session session )
+    {
+        EventSource eventSource = session.unwrap( EventSource.class );
+        EntityPersister persister = eventSource.getEntityPersister( null, entity );
+
+        return createAuditEntry( entity, persister.getPropertyValues( entity ), eventSource, id, persister );
+    }
+
     private HibernateProxy createProxy( Serializable id, EventSource session, EntityPersister persister )
     {
         try
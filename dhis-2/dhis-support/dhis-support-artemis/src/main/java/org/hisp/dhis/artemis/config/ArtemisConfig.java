@@ -160,6 +160,24 @@ public class ArtemisConfig
         return factory;
     }
 
+    /**
+     * Listener container for the async tracker import queue. The consumers
+     * import the jobs synchronously, so that jobs grouped by the same key are
+     * imported one after the other.
+     */
+    @Bean
+    public DefaultJmsListenerContainerFactory jmsTrackerImportListenerContainerFactory(
+        ConnectionFactory connectionFactory, NameDestinationResolver nameDestinationResolver )
+    {
+        DefaultJmsListenerContainerFactory factory = new DefaultJmsListenerContainerFactory();
+        factory.setConnectionFactory( connectionFactory );
+        factory.setDestinationResolver( nameDestinationResolver );
+        factory.setPubSubDomain( false );
+        factory.setConcurrency( dhisConfig.getProperty( ConfigurationKey.ARTEMIS_TRACKER_IMPORT_CONSUMERS ) );
+
+        return factory;
+    }
+
     @Bean
     public EmbeddedActiveMQ createEmbeddedServer( ArtemisConfigData artemisConfigData )
         throws Exception
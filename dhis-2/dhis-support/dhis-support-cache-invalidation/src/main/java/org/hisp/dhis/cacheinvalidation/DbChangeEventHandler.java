@@ -44,6 +44,11 @@ import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hisp.dhis.cache.PaginationCacheManager;
 import org.hisp.dhis.cache.QueryCacheManager;
+import org.hisp.dhis.user.CurrentUserService;
+import org.hisp.dhis.user.User;
+import org.hisp.dhis.user.UserAuthorityGroup;
+import org.hisp.dhis.user.UserCredentials;
+import org.hisp.dhis.user.UserGroup;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Conditional;
 import org.springframework.context.annotation.Profile;
@@ -85,6 +90,9 @@ public class DbChangeEventHandler
     @Autowired
     private TableNameToEntityMapping tableNameToEntityMapping;
 
+    @Autowired
+    private CurrentUserService currentUserService;
+
     /**
      * Called by the {@link io.debezium.embedded.EmbeddedEngine}'s event
      * handler. Configured in {@link DebeziumService#startDebeziumEngine()}
@@ -241,6 +249,54 @@ public class DbChangeEventHandler
 
             evictCollections( entityClasses, entityId );
         }
+
+        evictUserAccessCaches( operation, firstEntityClass, entityId );
+    }
+
+    /**
+     * Evicts the cached user group info and access snapshots when a user, user
+     * credentials, user group or user role was changed by another instance.
+     * Updates of a user or its credentials evict the entries of that user,
+     * other changes evict the entries of all users as the affected usernames
+     * can no longer be looked up.
+     */
+    private void evictUserAccessCaches( Envelope.Operation operation, Class<?> entityClass, Serializable entityId )
+    {
+        if ( operation == Envelope.Operation.UPDATE
+            && (entityClass == User.class || entityClass == UserCredentials.class) )
+        {
+            String username = null;
+
+            try ( Session session = sessionFactory.openSession() )
+            {
+                Object entity = session.get( entityClass, entityId );
+
+                if ( entity instanceof User )
+                {
+                    username = ((User) entity).getUsername();
+                }
+                else if ( entity instanceof UserCredentials )
+                {
+                    username = ((UserCredentials) entity).getUsername();
+                }
+            }
+            catch ( HibernateException e )
+            {
+                log.warn( "Failed to look up changed user!", e );
+            }
+
+            if ( username != null )
+            {
+                currentUserService.invalidateUserGroupCache( username );
+                return;
+            }
+        }
+
+        if ( entityClass == User.class || entityClass == UserCredentials.class
+            || entityClass == UserGroup.class || entityClass == UserAuthorityGroup.class )
+        {
+            currentUserService.invalidateAllUserGroupCaches();
+        }
     }
 
     private void evictCollections( List<Object[]> entityAndRoles, Serializable id )
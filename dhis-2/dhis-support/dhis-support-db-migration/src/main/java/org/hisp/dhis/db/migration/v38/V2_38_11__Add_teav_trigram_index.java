@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2004-2021, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.hisp.dhis.db.migration.v38;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This Java migration adds a trigram GIN index on the lower-cased 'value'
+ * column of the trackedentityattributevalue table. The index is maintained by
+ * the database on every attribute value write, and serves the LIKE and regex
+ * matching used when searching tracked entity instances by attribute values,
+ * which otherwise requires a scan of all attribute values.
+ * <p>
+ * The index requires the pg_trgm extension. If the extension is not available
+ * or cannot be created, a warning is logged and the upgrade is skipped, as
+ * searching still works without the index.
+ * <p>
+ * The index is built concurrently, so that writes to the table are not blocked
+ * while it is built on large databases. An invalid index left behind by an
+ * interrupted concurrent build is dropped and built again.
+ * <p>
+ * By setting canExecuteInTransaction to false, we let this upgrade run outside
+ * the main flow of flyway, allowing us to ignore that the upgrade potentially
+ * fails. Running outside a transaction is also required to build the index
+ * concurrently.
+ */
+public class V2_38_11__Add_teav_trigram_index
+    extends BaseJavaMigration
+{
+    private static final Logger log = LoggerFactory.getLogger( V2_38_11__Add_teav_trigram_index.class );
+
+    private static final String INDEX_NAME = "in_trackedentity_attribute_value_trgm";
+
+    @Override
+    public void migrate( Context context )
+    {
+        try ( Statement statement = context.getConnection().createStatement() )
+        {
+            try ( ResultSet rs = statement
+                .executeQuery( "select count(*) from pg_available_extensions where name = 'pg_trgm'" ) )
+            {
+                if ( !rs.next() || rs.getInt( 1 ) == 0 )
+                {
+                    log.warn( "Extension 'pg_trgm' is not available, skipping trigram index on " +
+                        "'trackedentityattributevalue'. Install the extension to speed up attribute searches." );
+                    return;
+                }
+            }
+
+            statement.execute( "create extension if not exists pg_trgm" );
+
+            try ( ResultSet rs = statement.executeQuery( "select count(*) from pg_index i " +
+                "join pg_class c on c.oid = i.indexrelid " +
+                "where c.relname = '" + INDEX_NAME + "' and not i.indisvalid" ) )
+            {
+                if ( rs.next() && rs.getInt( 1 ) > 0 )
+                {
+                    statement.execute( "drop index concurrently if exists " + INDEX_NAME );
+                }
+            }
+
+            statement.execute( "create index concurrently if not exists " + INDEX_NAME +
+                " on trackedentityattributevalue using gin (lower(value) gin_trgm_ops)" );
+        }
+        catch ( SQLException e )
+        {
+            log.warn( String.format( "Could not create trigram index on table 'trackedentityattributevalue'. " +
+                "Error message was: %s", e.getMessage() ) );
+        }
+    }
+
+    @Override
+    public boolean canExecuteInTransaction()
+    {
+        return false;
+    }
+}
@@ -339,6 +339,30 @@ public enum ConfigurationKey
      */
     ANALYTICS_CACHE_EXPIRATION( "analytics.cache.expiration", "0" ),
 
+    /**
+     * Max number of analytics queries executing concurrently against the
+     * database. 0 disables analytics query admission control. (default: 0)
+     */
+    ANALYTICS_ADMISSION_MAX_QUERIES( "analytics.admission.max_queries", "0", false ),
+
+    /**
+     * Max number of analytics queries executing concurrently for a single
+     * user. 0 means no per-user limit. (default: 0)
+     */
+    ANALYTICS_ADMISSION_MAX_USER_QUERIES( "analytics.admission.max_user_queries", "0", false ),
+
+    /**
+     * Max time in seconds an analytics query waits for admission before it is
+     * rejected. (default: 60)
+     */
+    ANALYTICS_ADMISSION_QUEUE_TIMEOUT( "analytics.admission.queue_timeout", "60", false ),
+
+    /**
+     * Analytics query statement timeout in seconds, after which the running
+     * statement is cancelled. 0 means no timeout. (default: 0)
+     */
+    ANALYTICS_QUERY_TIMEOUT( "analytics.query.timeout", "0", false ),
+
     /**
      * Artemis support mode, 2 modes supported: EMBEDDED (starts up an embedded
      * Artemis which lives in the same process as your DHIS2 instance), NATIVE
@@ -396,6 +420,15 @@ public enum ConfigurationKey
      */
     ARTEMIS_EMBEDDED_THREADS( "artemis.embedded.threads", "5" ),
 
+    /**
+     * Number of concurrent consumers of the async tracker import queue.
+     * (default: 5).
+     * <p>
+     * Jobs with the same partition key are always imported one after the
+     * other, in the order they were queued.
+     */
+    ARTEMIS_TRACKER_IMPORT_CONSUMERS( "artemis.tracker_import.consumers", "5" ),
+
     /**
      * Max filesize for log files in "HOME/logs/" directory. Does not affect
      * size of audit logs. (default: 100MB).
@@ -681,6 +714,64 @@ public enum ConfigurationKey
      */
     ENABLE_API_TOKEN_AUTHENTICATION( "enable.api_token.authentication", Constants.OFF, false ),
     
+    /**
+     * Number of threads used to export metadata types concurrently. 0 or 1
+     * exports the types sequentially.
+     */
+    METADATA_EXPORT_PARALLEL_THREADS( "metadata.export.parallel.threads", "0", false ),
+
+    /**
+     * Number of threads used to run independent JDBC based tracker preheat
+     * suppliers concurrently. 0 or 1 runs all suppliers sequentially.
+     */
+    TRACKER_IMPORT_PREHEAT_PARALLEL_THREADS( "tracker.import.preheat.parallel.threads", "0", false ),
+
+    /**
+     * Number of threads used to run thread-safe tracker validation hooks
+     * concurrently over independent parts of the import bundle. 0 or 1 runs
+     * the validation sequentially.
+     */
+    TRACKER_IMPORT_VALIDATION_PARALLEL_THREADS( "tracker.import.validation.parallel.threads", "0", false ),
+
+    /**
+     * Persist tracker events with batched JDBC statements instead of one
+     * Hibernate operation per event, when the import is atomic and flushed
+     * automatically.
+     */
+    TRACKER_IMPORT_EVENT_JDBC_PERSISTENCE( "tracker.import.event.jdbc_persistence", Constants.OFF, false ),
+
+    /**
+     * Skip tracker attributes, data values and notes which are already
+     * persisted with the same value when committing an import, so re-sending
+     * unchanged data does not write or audit it again.
+     */
+    TRACKER_IMPORT_SKIP_UNCHANGED_VALUES( "tracker.import.skip_unchanged_values", Constants.OFF, false ),
+
+    /**
+     * Cache tracker preheat metadata across imports. The cache is cleared
+     * whenever metadata is created, updated or deleted.
+     */
+    TRACKER_IMPORT_PREHEAT_CACHE_ENABLED( "tracker.import.preheat.cache.enabled", Constants.OFF, false ),
+
+    /**
+     * Maximum number of metadata objects held by the tracker preheat cache,
+     * across all metadata types.
+     */
+    TRACKER_IMPORT_PREHEAT_CACHE_MAX_ENTRIES( "tracker.import.preheat.cache.max_entries", "10000", false ),
+
+    /**
+     * Number of threads used to collect the identifiers of large tracker
+     * import payloads before the preheat. 0 or 1 collects them sequentially.
+     */
+    TRACKER_IMPORT_IDENTIFIER_COLLECTION_PARALLEL_THREADS( "tracker.import.identifier_collection.parallel.threads", "0",
+        false ),
+
+    /**
+     * Maximum number of tracker import side effects, like notifications and
+     * program rule actions, sent and processed in a single batch.
+     */
+    TRACKER_IMPORT_SIDE_EFFECT_BATCH_SIZE( "tracker.import.side_effect.batch_size", "500", false ),
+
     /**
      * Tracked Entity feature. Hard limit of number of records that may be returned.
      */
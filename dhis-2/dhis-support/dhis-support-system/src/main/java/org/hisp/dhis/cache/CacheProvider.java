@@ -46,6 +46,8 @@ public interface CacheProvider
 {
     <V> Cache<V> createAnalyticsResponseCache( Duration initialExpirationTime );
 
+    <V> Cache<V> createAnalyticsFragmentCache( Duration initialExpirationTime );
+
     <V> Cache<V> createDefaultObjectCache();
 
     <V> Cache<V> createIsDataApprovedCache();
@@ -74,6 +76,8 @@ public interface CacheProvider
 
     <V> Cache<V> createCurrentUserGroupInfoCache();
 
+    <V> Cache<V> createUserAccessSnapshotCache();
+
     <V> Cache<V> createUserSettingCache();
 
     <V> Cache<V> createAttrOptionComboIdCache();
@@ -86,6 +86,7 @@ public class DefaultCacheProvider
     private enum Region
     {
         analyticsResponse,
+        analyticsFragment,
         defaultObjectCache,
         isDataApproved,
         allConstantsCache,
@@ -100,6 +101,7 @@ public class DefaultCacheProvider
         programTempOwner,
         userIdCache,
         currentUserGroupInfoCache,
+        userAccessSnapshotCache,
         userSetting,
         attrOptionComboIdCache,
         systemSetting,
@@ -166,6 +168,20 @@ public class DefaultCacheProvider
             .withMaximumSize( orZeroInTestRun( getActualSize( SIZE_10K ) ) ) );
     }
 
+    /**
+     * Cache for the aggregated value maps of planned analytics sub-queries,
+     * which can be shared between analytics responses.
+     */
+    @Override
+    public <V> Cache<V> createAnalyticsFragmentCache( Duration initialExpirationTime )
+    {
+        return registerCache( this.<V> newBuilder()
+            .forRegion( Region.analyticsFragment.name() )
+            .expireAfterWrite( initialExpirationTime.toMillis(), MILLISECONDS )
+            .forceInMemory()
+            .withMaximumSize( orZeroInTestRun( getActualSize( SIZE_10K ) ) ) );
+    }
+
     /**
      * Cache for default objects such as default category combination and
      * default category option combination which are permanent and will never
@@ -314,6 +330,16 @@ public class DefaultCacheProvider
             .withMaximumSize( orZeroInTestRun( getActualSize( SIZE_10K ) ) ) );
     }
 
+    @Override
+    public <V> Cache<V> createUserAccessSnapshotCache()
+    {
+        return registerCache( this.<V> newBuilder()
+            .forRegion( Region.userAccessSnapshotCache.name() )
+            .expireAfterWrite( 1, TimeUnit.HOURS )
+            .forceInMemory()
+            .withMaximumSize( orZeroInTestRun( getActualSize( SIZE_10K ) ) ) );
+    }
+
     @Override
     public <V> Cache<V> createUserSettingCache()
     {
@@ -28,6 +28,11 @@
 package org.hisp.dhis.system.util;
 
 import java.lang.annotation.Annotation;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
@@ -39,7 +44,10 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
@@ -61,6 +69,11 @@ public class ReflectionUtils
     public static final List<String> SHARING_PROPS = ImmutableList.of(
         "publicAccess", "externalAccess", "userGroupAccesses", "userAccesses", "sharing" );
 
+    /**
+     * Cache of getter functions generated for getter methods.
+     */
+    private static final Map<Method, Function<Object, Object>> GETTER_FUNCTIONS = new ConcurrentHashMap<>();
+
     /**
      * Invokes method getId() for this object and returns the return value. An
      * int return type is expected. If the operation fails -1 is returned.
@@ -451,6 +464,63 @@ public class ReflectionUtils
         }
     }
 
+    /**
+     * Invokes the given getter method on the given target. Behaves like
+     * {@link #invokeMethod(Object, Method, Object...)} without arguments, but
+     * invokes the getter through a function which is generated once per
+     * method and cached, which avoids the cost of reflective invocation.
+     *
+     * @param target the target object.
+     * @param getter the getter method.
+     * @return the value returned by the getter, or null if the target or
+     *         method is null, or the method is not public.
+     */
+    @SuppressWarnings( "unchecked" )
+    public static <T> T invokeGetter( Object target, Method getter )
+    {
+        if ( target == null || getter == null )
+        {
+            return null;
+        }
+
+        return (T) GETTER_FUNCTIONS.computeIfAbsent( getter, ReflectionUtils::createGetterFunction ).apply( target );
+    }
+
+    /**
+     * Creates a function which invokes the given getter method. Uses
+     * {@link LambdaMetafactory} to generate a function which calls the method
+     * directly, and falls back to reflective invocation if the method is not
+     * accessible for that.
+     *
+     * @param getter the getter method.
+     * @return a function which invokes the getter on its argument.
+     */
+    @SuppressWarnings( "unchecked" )
+    private static Function<Object, Object> createGetterFunction( Method getter )
+    {
+        if ( Modifier.isProtected( getter.getModifiers() ) || Modifier.isPrivate( getter.getModifiers() ) )
+        {
+            return target -> null;
+        }
+
+        try
+        {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            MethodHandle handle = lookup.unreflect( getter );
+
+            CallSite site = LambdaMetafactory.metafactory( lookup, "apply", MethodType.methodType( Function.class ),
+                MethodType.methodType( Object.class, Object.class ), handle, handle.type().wrap() );
+
+            return (Function<Object, Object>) site.getTarget().invokeExact();
+        }
+        catch ( Throwable ex )
+        {
+            log.debug( "Using reflective invocation for getter: " + getter, ex );
+
+            return target -> invokeMethod( target, getter );
+        }
+    }
+
     public static Collection<Field> collectFields( Class<?> clazz, Predicate<Field> predicate )
     {
         Class<?> type = clazz;
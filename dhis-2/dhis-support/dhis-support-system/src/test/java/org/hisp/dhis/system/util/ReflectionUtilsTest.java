@@ -83,6 +83,17 @@ public class ReflectionUtilsTest
         setProperty( dataElementA, "color", "Blue" );
     }
 
+    @Test
+    public void testInvokeGetter()
+        throws Exception
+    {
+        assertEquals( "NameA", invokeGetter( dataElementA, DataElement.class.getMethod( "getName" ) ) );
+        assertEquals( AggregationType.SUM,
+            invokeGetter( dataElementA, DataElement.class.getMethod( "getAggregationType" ) ) );
+        assertEquals( 8L, (long) invokeGetter( dataElementA, DataElement.class.getMethod( "getId" ) ) );
+        assertNull( invokeGetter( null, DataElement.class.getMethod( "getName" ) ) );
+    }
+
     @Test
     public void testGetClassName()
     {
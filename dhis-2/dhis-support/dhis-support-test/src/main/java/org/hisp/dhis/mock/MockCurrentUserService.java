@@ -36,6 +36,7 @@ import org.hisp.dhis.organisationunit.OrganisationUnit;
 import org.hisp.dhis.user.CurrentUserGroupInfo;
 import org.hisp.dhis.user.CurrentUserService;
 import org.hisp.dhis.user.User;
+import org.hisp.dhis.user.UserAccessSnapshot;
 import org.hisp.dhis.user.UserAuthorityGroup;
 import org.hisp.dhis.user.UserCredentials;
 import org.hisp.dhis.user.UserInfo;
@@ -148,11 +149,22 @@ public class MockCurrentUserService
             currentUser.getGroups().stream().map( g -> g.getUid() ).collect( Collectors.toSet() ) );
     }
 
+    @Override
+    public UserAccessSnapshot getCurrentUserAccessSnapshot()
+    {
+        return currentUser != null ? UserAccessSnapshot.of( currentUser ) : null;
+    }
+
     @Override
     public void invalidateUserGroupCache( String username )
     {
     }
 
+    @Override
+    public void invalidateAllUserGroupCaches()
+    {
+    }
+
     @Override
     public CurrentUserGroupInfo getCurrentUserGroupsInfo( UserInfo userInfo )
     {
@@ -180,6 +180,7 @@ public class TrackedEntityCriteriaMapperTest
         criteria.setPageSize( 50 );
         criteria.setTotalPages( false );
         criteria.setSkipPaging( false );
+        criteria.setPageAfter( "uid-after" );
         criteria.setIncludeDeleted( true );
         criteria.setIncludeAllAttributes( true );
         criteria.setOrder( Collections.singletonList( OrderCriteria.of( "created", OrderParam.SortDirection.ASC ) ) );
@@ -207,6 +208,8 @@ public class TrackedEntityCriteriaMapperTest
         assertThat( queryParams.getPageSize(), is( 50 ) );
         assertThat( queryParams.getPage(), is( 1 ) );
         assertThat( queryParams.isTotalPages(), is( false ) );
+        assertThat( queryParams.getPageAfter(), is( "uid-after" ) );
+        assertThat( queryParams.isKeysetPaging(), is( false ) );
 
         assertThat( queryParams.getProgramStatus(), is( ProgramStatus.ACTIVE ) );
         assertThat( queryParams.getFollowUp(), is( true ) );
@@ -176,6 +176,12 @@ public class TrackedEntityInstanceCriteria extends PagingAndSortingCriteriaAdapt
      */
     private boolean skipMeta;
 
+    /**
+     * Identifier of the last tracked entity instance of the previous page, to
+     * page by keyset rather than by offset.
+     */
+    private String pageAfter;
+
     /**
      * Indicates whether to include soft-deleted elements
      */
@@ -32,6 +32,8 @@ import lombok.RequiredArgsConstructor;
 import org.hisp.dhis.artemis.MessageManager;
 import org.hisp.dhis.artemis.Topics;
 import org.hisp.dhis.security.AuthenticationSerializer;
+import org.hisp.dhis.tracker.TrackerImportParams;
+import org.hisp.dhis.tracker.job.TrackerImportPartitionKeys;
 import org.hisp.dhis.tracker.job.TrackerMessage;
 import org.hisp.dhis.tracker.report.TrackerImportReport;
 import org.hisp.dhis.webapi.controller.tracker.TrackerImportReportRequest;
@@ -50,10 +52,13 @@ public class TrackerImportAsyncStrategyImpl implements TrackerImportStrategyHand
     @Override
     public TrackerImportReport importReport( TrackerImportReportRequest trackerImportReportRequest )
     {
+        TrackerImportParams trackerImportParams = trackerImportReportRequest.getTrackerImportParams();
+
         TrackerMessage trackerMessage = TrackerMessage.builder()
-            .trackerImportParams( trackerImportReportRequest.getTrackerImportParams() )
+            .trackerImportParams( trackerImportParams )
             .authentication( AuthenticationSerializer.serialize( trackerImportReportRequest.getAuthentication() ) )
             .uid( trackerImportReportRequest.getUid() )
+            .groupId( TrackerImportPartitionKeys.getPartitionKey( trackerImportParams ) )
             .build();
 
         messageManager.sendQueue( Topics.TRACKER_IMPORT_JOB_TOPIC_NAME, trackerMessage );